@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.AppConventions;
+import org.simplity.core.app.Application;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.dm.Record;
+import org.simplity.core.value.Value;
+import org.simplity.json.JSONArray;
+import org.simplity.json.JSONObject;
+
+/**
+ * starts the app with the bench resources and an in-memory H2 db, and creates
+ * the data used by the benchmarks. The app is started once for the JVM.
+ *
+ * @author simplity.org
+ *
+ */
+public class BenchApp {
+	/**
+	 * resource root for the app
+	 */
+	public static final String RESOURCE_ROOT = "res/bench/";
+	/**
+	 * record used by the benchmarks
+	 */
+	public static final String RECORD_NAME = "bench.item";
+	/**
+	 * service whose input/output specifications are used by the benchmarks
+	 */
+	public static final String SERVICE_NAME = "bench.echoItems";
+	/**
+	 * rows in the table, and in the payload
+	 */
+	public static final int NBR_ROWS = 100;
+
+	private static final String DB_URL = "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1";
+	private static final String DDL = "CREATE TABLE items (item_id BIGINT PRIMARY KEY, item_name VARCHAR(100), "
+			+ "price DECIMAL(12,2), quantity BIGINT, is_active BOOLEAN, available_on DATE)";
+	private static final String INSERT = "INSERT INTO items VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static Application app;
+
+	/**
+	 * @return app that is running with the bench resources
+	 */
+	public static synchronized Application getApp() {
+		if (app == null) {
+			createTable();
+			Application a = new Application();
+			Map<String, String> params = new HashMap<>();
+			params.put(AppConventions.Name.RESOURCE_ROOT, RESOURCE_ROOT);
+			List<String> messages = new ArrayList<>();
+			if (a.openShop(params, messages) == false) {
+				throw new ApplicationError("Bench app could not be started. " + messages);
+			}
+			app = a;
+		}
+		return app;
+	}
+
+	/**
+	 * @return record used by the benchmarks
+	 */
+	public static Record getRecord() {
+		return getApp().getRecord(RECORD_NAME);
+	}
+
+	/**
+	 * @param nbrRows
+	 * @return a sheet with fields of the record, and as many rows
+	 */
+	public static IDataSheet createSheet(int nbrRows) {
+		IDataSheet sheet = getRecord().createSheet(false, false);
+		for (int i = 0; i < nbrRows; i++) {
+			sheet.addRow(createRow(i));
+		}
+		return sheet;
+	}
+
+	/**
+	 * @param idx
+	 * @return values for a row of the record
+	 */
+	public static Value[] createRow(int idx) {
+		return new Value[] { Value.newIntegerValue(idx), Value.newTextValue("item number " + idx),
+				Value.newDecimalValue(idx * 1.25), Value.newIntegerValue(idx % 17), Value.newBooleanValue(idx % 2 == 0),
+				Value.newDateValue(LocalDate.of(2019, 1, 1).plusDays(idx)) };
+	}
+
+	/**
+	 * @param nbrRows
+	 * @return json text of a request payload with items as an array
+	 */
+	public static String createPayload(int nbrRows) {
+		JSONArray arr = new JSONArray();
+		for (int i = 0; i < nbrRows; i++) {
+			JSONObject item = new JSONObject();
+			item.put("itemId", i);
+			item.put("itemName", "item number " + i);
+			item.put("price", i * 1.25);
+			item.put("quantity", i % 17);
+			item.put("isActive", i % 2 == 0);
+			item.put("availableOn", LocalDate.of(2019, 1, 1).plusDays(i).toString());
+			arr.put(item);
+		}
+		JSONObject json = new JSONObject();
+		json.put("items", arr);
+		return json.toString();
+	}
+
+	private static void createTable() {
+		try (Connection con = DriverManager.getConnection(DB_URL)) {
+			try (Statement stmt = con.createStatement()) {
+				stmt.execute(DDL);
+			}
+			try (PreparedStatement stmt = con.prepareStatement(INSERT)) {
+				for (int i = 0; i < NBR_ROWS; i++) {
+					stmt.setLong(1, i);
+					stmt.setString(2, "item number " + i);
+					stmt.setDouble(3, i * 1.25);
+					stmt.setLong(4, i % 17);
+					stmt.setBoolean(5, i % 2 == 0);
+					stmt.setDate(6, java.sql.Date.valueOf(LocalDate.of(2019, 1, 1).plusDays(i)));
+					stmt.addBatch();
+				}
+				stmt.executeBatch();
+			}
+		} catch (Exception e) {
+			throw new ApplicationError(e, "Unable to create table for benchmarks");
+		}
+	}
+}
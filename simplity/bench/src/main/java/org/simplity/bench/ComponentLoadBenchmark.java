@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simplity.core.dm.DbTable;
+import org.simplity.core.trans.Service;
+import org.simplity.core.util.IoUtil;
+import org.simplity.core.util.XmlParseException;
+import org.simplity.core.util.XmlUtil;
+
+/**
+ * loading components from their xml. Resources are read into memory up-front
+ * so that only parsing and loading is measured
+ *
+ * @author simplity.org
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComponentLoadBenchmark {
+	private byte[] recordXml;
+	private byte[] serviceXml;
+
+	/**
+	 * read resources
+	 *
+	 * @throws Exception
+	 */
+	@Setup
+	public void setup() throws Exception {
+		BenchApp.getApp();
+		this.recordXml = read(BenchApp.RESOURCE_ROOT + "rec/bench/item.xml");
+		this.serviceXml = read(BenchApp.RESOURCE_ROOT + "service/bench/echoItems.xml");
+	}
+
+	/**
+	 * @return loaded record
+	 * @throws XmlParseException
+	 */
+	@Benchmark
+	public DbTable loadRecord() throws XmlParseException {
+		DbTable table = new DbTable();
+		XmlUtil.xmlToObject(new ByteArrayInputStream(this.recordXml), table);
+		return table;
+	}
+
+	/**
+	 * @return loaded service
+	 * @throws XmlParseException
+	 */
+	@Benchmark
+	public Service loadService() throws XmlParseException {
+		Service service = new Service();
+		XmlUtil.xmlToObject(new ByteArrayInputStream(this.serviceXml), service);
+		return service;
+	}
+
+	private static byte[] read(String resName) throws Exception {
+		try (InputStream stream = IoUtil.getStream(resName)) {
+			return IoUtil.streamToText(stream).getBytes("UTF-8");
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simplity.core.data.Fields;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.dm.DbTable;
+import org.simplity.core.dm.field.Field;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IDbDriver;
+import org.simplity.core.idb.IReadOnlyHandle;
+import org.simplity.core.idb.ITransactionHandle;
+import org.simplity.core.value.Value;
+
+/**
+ * reading and saving a row with DbTable against an in-memory H2 db. Time
+ * includes getting a connection from the driver
+ *
+ * @author simplity.org
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DbTableBenchmark {
+	private IDbDriver driver;
+	private DbTable table;
+	private Value userId;
+	private Fields key;
+	private Fields row;
+	private IDataSheet result;
+
+	/**
+	 * start app, and prepare data
+	 */
+	@Setup
+	public void setup() {
+		this.driver = BenchApp.getApp().getRdbSetup();
+		this.table = (DbTable) BenchApp.getRecord();
+		this.userId = Value.newIntegerValue(100);
+		this.key = new Fields();
+		this.key.setValue("itemId", Value.newIntegerValue(7));
+		this.row = new Fields();
+		Field[] fields = this.table.getFields();
+		Value[] values = BenchApp.createRow(9);
+		for (int i = 0; i < fields.length; i++) {
+			this.row.setValue(fields[i].getName(), values[i]);
+		}
+	}
+
+	/**
+	 * @return row read for a key
+	 */
+	@Benchmark
+	public IDataSheet readOne() {
+		this.driver.accessDb(handle -> {
+			this.result = this.table.readOne(this.key, (IReadOnlyHandle) handle, this.userId);
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+		return this.result;
+	}
+
+	/**
+	 * save an existing row. Involves a check for existence followed by an
+	 * update
+	 *
+	 * @return true if saved
+	 */
+	@Benchmark
+	public boolean saveOne() {
+		this.driver.accessDb(handle -> {
+			this.table.saveOne(this.row, (ITransactionHandle) handle, this.userId, false);
+			return true;
+		}, DbAccessType.SINGLE_TRANS, null);
+		return true;
+	}
+}
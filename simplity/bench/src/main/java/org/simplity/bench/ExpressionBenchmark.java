@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simplity.core.data.Fields;
+import org.simplity.core.expr.Expression;
+import org.simplity.core.expr.InvalidExpressionException;
+import org.simplity.core.expr.InvalidOperationException;
+import org.simplity.core.value.Value;
+
+/**
+ * evaluation of a parsed expression
+ *
+ * @author simplity.org
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpressionBenchmark {
+	/**
+	 * expression to be evaluated
+	 */
+	@Param({ "a + b * 3 - c / 2", "a > b & c != 0 | d = 'abc'", "(price * qty) * (1 - discount / 100)" })
+	public String text;
+
+	private Expression expression;
+	private Fields data;
+
+	/**
+	 * parse the expression, and set values for the variables
+	 *
+	 * @throws InvalidExpressionException
+	 */
+	@Setup
+	public void setup() throws InvalidExpressionException {
+		this.expression = new Expression(this.text);
+		this.data = new Fields();
+		this.data.setValue("a", Value.newIntegerValue(12));
+		this.data.setValue("b", Value.newIntegerValue(7));
+		this.data.setValue("c", Value.newIntegerValue(4));
+		this.data.setValue("d", Value.newTextValue("abc"));
+		this.data.setValue("price", Value.newDecimalValue(123.45));
+		this.data.setValue("qty", Value.newIntegerValue(3));
+		this.data.setValue("discount", Value.newDecimalValue(12.5));
+	}
+
+	/**
+	 * @return result
+	 * @throws InvalidOperationException
+	 */
+	@Benchmark
+	public Value evaluate() throws InvalidOperationException {
+		return this.expression.evaluate(this.data);
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.bench;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simplity.core.app.AppUser;
+import org.simplity.core.app.Application;
+import org.simplity.core.app.internal.JsonReqReader;
+import org.simplity.core.app.internal.JsonRespWriter;
+import org.simplity.core.app.internal.StreamingJsonReqReader;
+import org.simplity.core.service.InputData;
+import org.simplity.core.service.OutputData;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.trans.Service;
+import org.simplity.core.value.Value;
+import org.simplity.json.JSONObject;
+
+/**
+ * reading a json payload into the service context, and writing the response
+ * from the service context, as per the input/output specification of a
+ * service
+ *
+ * @author simplity.org
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestBenchmark {
+	private Application app;
+	private AppUser user;
+	private InputData inputData;
+	private OutputData outputData;
+	private String payload;
+	private ServiceContext outCtx;
+
+	/**
+	 * start the app and prepare the data
+	 */
+	@Setup
+	public void setup() {
+		this.app = BenchApp.getApp();
+		this.user = new AppUser(Value.newIntegerValue(100), null, null);
+		Service service = this.app.getService(BenchApp.SERVICE_NAME);
+		this.inputData = service.getInputSpecification();
+		this.outputData = service.getOutputSpecification();
+		this.payload = BenchApp.createPayload(BenchApp.NBR_ROWS);
+		this.outCtx = new ServiceContext(this.app, BenchApp.SERVICE_NAME, this.user);
+		this.outCtx.putDataSheet("items", BenchApp.createSheet(BenchApp.NBR_ROWS));
+	}
+
+	/**
+	 * payload parsed into a json object before it is read
+	 *
+	 * @return context with input data
+	 */
+	@Benchmark
+	public ServiceContext readJsonPayload() {
+		ServiceContext ctx = new ServiceContext(this.app, BenchApp.SERVICE_NAME, this.user);
+		this.inputData.read(new JsonReqReader(new JSONObject(this.payload), null), ctx);
+		return ctx;
+	}
+
+	/**
+	 * payload streamed into the context
+	 *
+	 * @return context with input data
+	 */
+	@Benchmark
+	public ServiceContext readStreamingPayload() {
+		ServiceContext ctx = new ServiceContext(this.app, BenchApp.SERVICE_NAME, this.user);
+		this.inputData.read(new StreamingJsonReqReader(new StringReader(this.payload), null), ctx);
+		return ctx;
+	}
+
+	/**
+	 * @return response text
+	 */
+	@Benchmark
+	public String writeJsonResponse() {
+		StringWriter sw = new StringWriter();
+		JsonRespWriter writer = new JsonRespWriter(sw);
+		this.outputData.write(writer, this.outCtx);
+		writer.done();
+		return sw.toString();
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simplity.core.data.DataSerializationType;
+import org.simplity.core.data.Fields;
+import org.simplity.core.dm.field.Field;
+import org.simplity.core.value.Value;
+
+/**
+ * serializing fields into text, and parsing them back
+ *
+ * @author simplity.org
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+	/**
+	 * serialization type
+	 */
+	@Param({ "COMMA_SEPARATED", "JSON" })
+	public DataSerializationType type;
+
+	private Field[] fields;
+	private Fields data;
+	private String text;
+
+	/**
+	 * create data and its serialized text
+	 */
+	@Setup
+	public void setup() {
+		this.fields = BenchApp.getRecord().getFields();
+		this.data = new Fields();
+		Value[] row = BenchApp.createRow(42);
+		for (int i = 0; i < this.fields.length; i++) {
+			this.data.setValue(this.fields[i].getName(), row[i]);
+		}
+		this.text = this.type.serializeFields(this.data, this.fields);
+	}
+
+	/**
+	 * @return serialized text
+	 */
+	@Benchmark
+	public String serialize() {
+		return this.type.serializeFields(this.data, this.fields);
+	}
+
+	/**
+	 * @return fields parsed from text
+	 */
+	@Benchmark
+	public Fields parse() {
+		Fields parsed = new Fields();
+		this.type.parseFields(this.text, parsed, this.fields);
+		return parsed;
+	}
+}
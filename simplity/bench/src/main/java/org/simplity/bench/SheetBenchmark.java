@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.simplity.core.data.ColumnarSheet;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.data.MultiRowsSheet;
+import org.simplity.core.dm.field.Field;
+import org.simplity.core.value.Value;
+
+/**
+ * adding rows to a sheet, and iterating over its rows
+ *
+ * @author simplity.org
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SheetBenchmark {
+	/**
+	 * sheet implementation
+	 */
+	@Param({ "multiRows", "columnar" })
+	public String sheetType;
+
+	/**
+	 * number of rows
+	 */
+	@Param({ "1000" })
+	public int nbrRows;
+
+	private Field[] fields;
+	private Value[][] rows;
+	private IDataSheet sheet;
+
+	/**
+	 * create rows to be added, and a sheet to be iterated
+	 */
+	@Setup
+	public void setup() {
+		this.fields = BenchApp.getRecord().getFields();
+		this.rows = new Value[this.nbrRows][];
+		for (int i = 0; i < this.nbrRows; i++) {
+			this.rows[i] = BenchApp.createRow(i);
+		}
+		this.sheet = this.addRows();
+	}
+
+	/**
+	 * @return sheet with all rows added
+	 */
+	@Benchmark
+	public IDataSheet addRows() {
+		IDataSheet s = this.sheetType.equals("columnar") ? new ColumnarSheet(this.fields)
+				: new MultiRowsSheet(this.fields);
+		for (Value[] row : this.rows) {
+			s.addRow(row);
+		}
+		return s;
+	}
+
+	/**
+	 * read every value, row by row
+	 *
+	 * @param bh
+	 */
+	@Benchmark
+	public void iterateRows(Blackhole bh) {
+		int n = this.sheet.length();
+		for (int i = 0; i < n; i++) {
+			for (Value value : this.sheet.getRow(i)) {
+				bh.consume(value);
+			}
+		}
+	}
+
+	/**
+	 * read values of a column
+	 *
+	 * @param bh
+	 */
+	@Benchmark
+	public void iterateColumn(Blackhole bh) {
+		int n = this.sheet.length();
+		for (int i = 0; i < n; i++) {
+			bh.consume(this.sheet.getColumnValue("price", i));
+		}
+	}
+}
@@ -0,0 +1,525 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.aggr;
+
+import java.util.Arrays;
+
+import org.simplity.core.ApplicationError;
+import org.simplity.core.data.ColumnarSheet;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.value.DecimalValue;
+import org.simplity.core.value.IntegerValue;
+import org.simplity.core.value.Value;
+import org.simplity.core.value.ValueType;
+
+/**
+ * open-addressed hash table of groups, with aggregates accumulated into
+ * primitive arrays indexed by group number. A group is identified by the row
+ * of the input sheet in which it first appeared, and the key values are read
+ * from the sheet when required, so there is no key object per group.
+ * Instances are not thread-safe. Tables built for different partitions of the
+ * same sheet can be merged.
+ *
+ * @author simplity.org
+ *
+ */
+class GroupTable {
+	private static final int INITIAL_GROUPS = 64;
+	private static final int NO_ROW = -1;
+
+	private final IDataSheet sheet;
+	/** non-null if the sheet is columnar, to read primitives */
+	private final ColumnarSheet columnar;
+	private final int[] keyCols;
+	/** true if the key column is read as a primitive from a columnar sheet */
+	private final boolean[] primitiveKeys;
+	/** true if the primitive key is an integer, else it is decimal */
+	private final boolean[] integerKeys;
+	private final AggregationType[] types;
+	/** -1 if the aggregate is not based on any column, like count(*) */
+	private final int[] inputCols;
+	private final boolean[] integerInputs;
+
+	/** group number + 1 for an occupied slot, 0 for a free one */
+	private int[] slots;
+	private int mask;
+
+	private int nbrGroups;
+	/** row in which the group first appeared, and the hash of its key */
+	private int[] keyRows;
+	private int[] hashes;
+
+	/*
+	 * accumulators, first index is the aggregate and the second is the group.
+	 * An aggregate uses only the ones it needs, others are null
+	 */
+	private final long[][] longs;
+	private final double[][] doubles;
+	private final long[][] counts;
+	private final int[][] rows;
+
+	/**
+	 * @param sheet
+	 *            input sheet
+	 * @param keyCols
+	 *            column indexes of group-by columns
+	 * @param types
+	 *            aggregation types
+	 * @param inputCols
+	 *            column index of the input for each aggregate. -1 if the
+	 *            aggregate is a count of rows
+	 * @param integerInputs
+	 *            whether the input column is to be accumulated as integer
+	 */
+	GroupTable(IDataSheet sheet, int[] keyCols, AggregationType[] types, int[] inputCols,
+			boolean[] integerInputs) {
+		this.sheet = sheet;
+		this.columnar = sheet instanceof ColumnarSheet ? (ColumnarSheet) sheet : null;
+		this.keyCols = keyCols;
+		this.types = types;
+		this.inputCols = inputCols;
+		this.integerInputs = integerInputs;
+
+		this.primitiveKeys = new boolean[keyCols.length];
+		this.integerKeys = new boolean[keyCols.length];
+		if (this.columnar != null) {
+			ValueType[] vts = sheet.getValueTypes();
+			for (int i = 0; i < keyCols.length; i++) {
+				ValueType vt = vts[keyCols[i]];
+				this.integerKeys[i] = vt == ValueType.INTEGER;
+				this.primitiveKeys[i] = this.integerKeys[i] || vt == ValueType.DECIMAL;
+			}
+		}
+
+		this.slots = new int[INITIAL_GROUPS * 2];
+		this.mask = this.slots.length - 1;
+		this.keyRows = new int[INITIAL_GROUPS];
+		this.hashes = new int[INITIAL_GROUPS];
+
+		int n = types.length;
+		this.longs = new long[n][];
+		this.doubles = new double[n][];
+		this.counts = new long[n][];
+		this.rows = new int[n][];
+		for (int i = 0; i < n; i++) {
+			switch (types[i]) {
+			case FIRST:
+			case LAST:
+				this.rows[i] = new int[INITIAL_GROUPS];
+				break;
+			case COUNT:
+				this.counts[i] = new long[INITIAL_GROUPS];
+				break;
+			default:
+				this.counts[i] = new long[INITIAL_GROUPS];
+				if (integerInputs[i]) {
+					this.longs[i] = new long[INITIAL_GROUPS];
+				} else {
+					this.doubles[i] = new double[INITIAL_GROUPS];
+				}
+			}
+		}
+	}
+
+	/**
+	 * accumulate a range of rows of the sheet
+	 *
+	 * @param fromRow
+	 *            inclusive
+	 * @param toRow
+	 *            exclusive
+	 */
+	void accumulate(int fromRow, int toRow) {
+		for (int row = fromRow; row < toRow; row++) {
+			int group = this.findOrAdd(row, this.hashKey(row));
+			for (int i = 0; i < this.types.length; i++) {
+				this.accumulate(i, group, row);
+			}
+		}
+	}
+
+	private void accumulate(int i, int group, int row) {
+		int col = this.inputCols[i];
+		if (col == -1) {
+			this.counts[i][group]++;
+			return;
+		}
+		if (this.isNull(col, row)) {
+			return;
+		}
+		switch (this.types[i]) {
+		case FIRST:
+			if (this.rows[i][group] == NO_ROW) {
+				this.rows[i][group] = row;
+			}
+			return;
+		case LAST:
+			this.rows[i][group] = row;
+			return;
+		case COUNT:
+			this.counts[i][group]++;
+			return;
+		default:
+			break;
+		}
+
+		long n = this.counts[i][group]++;
+		if (this.integerInputs[i]) {
+			this.longs[i][group] = combine(this.types[i], n, this.longs[i][group], this.getLong(col, row));
+		} else {
+			this.doubles[i][group] = combine(this.types[i], n, this.doubles[i][group], this.getDouble(col, row));
+		}
+	}
+
+	/**
+	 * merge partial aggregates of another table. The other table must be for
+	 * the same sheet, and for rows that come after the rows of this table, for
+	 * first/last to be right.
+	 *
+	 * @param other
+	 */
+	void merge(GroupTable other) {
+		for (int g = 0; g < other.nbrGroups; g++) {
+			int group = this.findOrAdd(other.keyRows[g], other.hashes[g]);
+			for (int i = 0; i < this.types.length; i++) {
+				switch (this.types[i]) {
+				case FIRST:
+					if (this.rows[i][group] == NO_ROW) {
+						this.rows[i][group] = other.rows[i][g];
+					}
+					continue;
+				case LAST:
+					if (other.rows[i][g] != NO_ROW) {
+						this.rows[i][group] = other.rows[i][g];
+					}
+					continue;
+				case COUNT:
+					this.counts[i][group] += other.counts[i][g];
+					continue;
+				default:
+					break;
+				}
+				long otherCount = other.counts[i][g];
+				if (otherCount == 0) {
+					continue;
+				}
+				long n = this.counts[i][group];
+				AggregationType type = this.types[i];
+				if (type == AggregationType.AVERAGE) {
+					/*
+					 * we accumulate sum for average
+					 */
+					type = AggregationType.SUM;
+				}
+				if (this.integerInputs[i]) {
+					this.longs[i][group] = combine(type, n, this.longs[i][group], other.longs[i][g]);
+				} else {
+					this.doubles[i][group] = combine(type, n, this.doubles[i][group], other.doubles[i][g]);
+				}
+				this.counts[i][group] = n + otherCount;
+			}
+		}
+	}
+
+	private static long combine(AggregationType type, long count, long accumulated, long value) {
+		if (count == 0) {
+			return value;
+		}
+		switch (type) {
+		case MIN:
+			return value < accumulated ? value : accumulated;
+		case MAX:
+			return value > accumulated ? value : accumulated;
+		default:
+			return accumulated + value;
+		}
+	}
+
+	private static double combine(AggregationType type, long count, double accumulated, double value) {
+		if (count == 0) {
+			return value;
+		}
+		switch (type) {
+		case MIN:
+			return value < accumulated ? value : accumulated;
+		case MAX:
+			return value > accumulated ? value : accumulated;
+		default:
+			return accumulated + value;
+		}
+	}
+
+	/**
+	 * @return number of groups accumulated so far
+	 */
+	int getNbrGroups() {
+		return this.nbrGroups;
+	}
+
+	/**
+	 * @param group
+	 * @param keyIdx
+	 *            index into the group-by columns
+	 * @return value of the group-by column for this group
+	 */
+	Value getKeyValue(int group, int keyIdx) {
+		return this.getValue(this.keyCols[keyIdx], this.keyRows[group]);
+	}
+
+	/**
+	 * @param group
+	 * @param i
+	 *            index of the aggregate
+	 * @param outputAsDecimal
+	 * @param outputType
+	 *            value type of the output column, used for an empty first/last
+	 * @return aggregated value for this group
+	 */
+	Value getResult(int group, int i, boolean outputAsDecimal, ValueType outputType) {
+		AggregationType type = this.types[i];
+		if (type == AggregationType.FIRST || type == AggregationType.LAST) {
+			int row = this.rows[i][group];
+			if (row == NO_ROW) {
+				return outputType == null ? null : Value.newUnknownValue(outputType);
+			}
+			return this.getValue(this.inputCols[i], row);
+		}
+		long n = this.counts[i][group];
+		if (type == AggregationType.COUNT) {
+			return Value.newIntegerValue(n);
+		}
+		/*
+		 * same as MathAggregator: 0 when there is nothing to aggregate
+		 */
+		if (n == 0) {
+			return outputAsDecimal ? Value.newDecimalValue(0) : Value.newIntegerValue(0);
+		}
+		if (this.integerInputs[i]) {
+			long result = this.longs[i][group];
+			if (type == AggregationType.AVERAGE) {
+				double avg = (double) result / n;
+				return outputAsDecimal ? Value.newDecimalValue(avg) : Value.newIntegerValue(Math.round(avg));
+			}
+			return outputAsDecimal ? Value.newDecimalValue(result) : Value.newIntegerValue(result);
+		}
+		double result = this.doubles[i][group];
+		if (type == AggregationType.AVERAGE) {
+			result = result / n;
+		}
+		return outputAsDecimal ? Value.newDecimalValue(result) : Value.newIntegerValue(Math.round(result));
+	}
+
+	private int findOrAdd(int row, int hash) {
+		int idx = hash & this.mask;
+		while (true) {
+			int slot = this.slots[idx];
+			if (slot == 0) {
+				break;
+			}
+			int group = slot - 1;
+			if (this.hashes[group] == hash && this.sameKey(this.keyRows[group], row)) {
+				return group;
+			}
+			idx = (idx + 1) & this.mask;
+		}
+
+		int group = this.nbrGroups;
+		if (group == this.keyRows.length) {
+			this.growGroups();
+		}
+		this.keyRows[group] = row;
+		this.hashes[group] = hash;
+		for (int i = 0; i < this.rows.length; i++) {
+			if (this.rows[i] != null) {
+				this.rows[i][group] = NO_ROW;
+			}
+		}
+		this.nbrGroups++;
+		this.slots[idx] = group + 1;
+		/*
+		 * keep the load factor under half for short probes
+		 */
+		if (this.nbrGroups * 2 > this.slots.length) {
+			this.rehash();
+		}
+		return group;
+	}
+
+	private void growGroups() {
+		int n = this.keyRows.length * 2;
+		this.keyRows = Arrays.copyOf(this.keyRows, n);
+		this.hashes = Arrays.copyOf(this.hashes, n);
+		for (int i = 0; i < this.types.length; i++) {
+			if (this.longs[i] != null) {
+				this.longs[i] = Arrays.copyOf(this.longs[i], n);
+			}
+			if (this.doubles[i] != null) {
+				this.doubles[i] = Arrays.copyOf(this.doubles[i], n);
+			}
+			if (this.counts[i] != null) {
+				this.counts[i] = Arrays.copyOf(this.counts[i], n);
+			}
+			if (this.rows[i] != null) {
+				this.rows[i] = Arrays.copyOf(this.rows[i], n);
+			}
+		}
+	}
+
+	private void rehash() {
+		int[] newSlots = new int[this.slots.length * 2];
+		int newMask = newSlots.length - 1;
+		for (int group = 0; group < this.nbrGroups; group++) {
+			int idx = this.hashes[group] & newMask;
+			while (newSlots[idx] != 0) {
+				idx = (idx + 1) & newMask;
+			}
+			newSlots[idx] = group + 1;
+		}
+		this.slots = newSlots;
+		this.mask = newMask;
+	}
+
+	private int hashKey(int row) {
+		int h = 1;
+		for (int i = 0; i < this.keyCols.length; i++) {
+			int col = this.keyCols[i];
+			int kh;
+			if (this.primitiveKeys[i]) {
+				if (this.columnar.isNull(col, row)) {
+					kh = 0;
+				} else if (this.integerKeys[i]) {
+					kh = Long.hashCode(this.columnar.getLong(col, row));
+				} else {
+					kh = Double.hashCode(this.columnar.getDouble(col, row) + 0.0);
+				}
+			} else {
+				kh = hashValue(this.getValue(col, row));
+			}
+			h = 31 * h + kh;
+		}
+		/*
+		 * spread the bits, as we use the low order bits for the slot
+		 */
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int hashValue(Value value) {
+		if (Value.isNull(value)) {
+			return 0;
+		}
+		/*
+		 * integer and decimal values that are equal should hash the same
+		 */
+		if (value instanceof IntegerValue) {
+			return Double.hashCode(((IntegerValue) value).getLong());
+		}
+		if (value instanceof DecimalValue) {
+			return Double.hashCode(((DecimalValue) value).getDouble() + 0.0);
+		}
+		return value.toObject().hashCode();
+	}
+
+	private boolean sameKey(int row1, int row2) {
+		if (row1 == row2) {
+			return true;
+		}
+		for (int i = 0; i < this.keyCols.length; i++) {
+			int col = this.keyCols[i];
+			if (this.primitiveKeys[i]) {
+				boolean null1 = this.columnar.isNull(col, row1);
+				if (null1 != this.columnar.isNull(col, row2)) {
+					return false;
+				}
+				if (null1) {
+					continue;
+				}
+				if (this.integerKeys[i]) {
+					if (this.columnar.getLong(col, row1) != this.columnar.getLong(col, row2)) {
+						return false;
+					}
+				} else if (this.columnar.getDouble(col, row1) != this.columnar.getDouble(col, row2)) {
+					return false;
+				}
+				continue;
+			}
+			Value v1 = this.getValue(col, row1);
+			Value v2 = this.getValue(col, row2);
+			boolean null1 = Value.isNull(v1);
+			if (null1 != Value.isNull(v2)) {
+				return false;
+			}
+			if (null1 == false && v1.equals(v2) == false) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Value getValue(int col, int row) {
+		if (this.columnar != null) {
+			return this.columnar.getColumnValue(col, row);
+		}
+		return this.sheet.getRow(row)[col];
+	}
+
+	private boolean isNull(int col, int row) {
+		if (this.columnar != null) {
+			return this.columnar.isNull(col, row);
+		}
+		return Value.isNull(this.sheet.getRow(row)[col]);
+	}
+
+	private long getLong(int col, int row) {
+		if (this.columnar != null) {
+			return this.columnar.getLong(col, row);
+		}
+		Value value = this.sheet.getRow(row)[col];
+		if (value instanceof IntegerValue) {
+			return ((IntegerValue) value).getLong();
+		}
+		if (value instanceof DecimalValue) {
+			return ((DecimalValue) value).getLong();
+		}
+		throw notNumeric(col, value);
+	}
+
+	private double getDouble(int col, int row) {
+		if (this.columnar != null) {
+			return this.columnar.getDouble(col, row);
+		}
+		Value value = this.sheet.getRow(row)[col];
+		if (value instanceof DecimalValue) {
+			return ((DecimalValue) value).getDouble();
+		}
+		if (value instanceof IntegerValue) {
+			return ((IntegerValue) value).getDouble();
+		}
+		throw notNumeric(col, value);
+	}
+
+	private ApplicationError notNumeric(int col, Value value) {
+		return new ApplicationError("Column " + this.sheet.getColumnNames()[col] + " has a value of type "
+				+ value.getValueType() + " that can not be aggregated as a number.");
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.aggr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.Application;
+import org.simplity.core.data.ColumnarSheet;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.data.MultiRowsSheet;
+import org.simplity.core.value.Value;
+import org.simplity.core.value.ValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * aggregates rows of a data sheet into a new sheet that has one row for each
+ * distinct combination of values in the group-by columns. Unlike the
+ * aggregation workers, input rows need not be sorted on the group-by columns.
+ * Groups are kept in an open-addressed hash table and aggregates are
+ * accumulated into primitive arrays, and hence all groups are to fit in memory.
+ * <p>
+ * With nbrPartitions more than 1, contiguous partitions of a large sheet are
+ * aggregated in parallel and the partial aggregates are merged in partition
+ * order. Output rows are in the order in which their groups first appear in
+ * the input sheet, whether or not the sheet is partitioned.
+ *
+ * @author simplity.org
+ *
+ */
+public class HashAggregator {
+	private static final Logger logger = LoggerFactory.getLogger(HashAggregator.class);
+
+	/** partitions smaller than this are not worth the overhead */
+	private static final int MIN_ROWS_PER_PARTITION = 1000;
+
+	private final String[] groupByColumns;
+	private final Aggregator[] aggregators;
+	private final int nbrPartitions;
+
+	/**
+	 * create an instance with the required parameters
+	 *
+	 * @param groupByColumns
+	 *            columns to group rows by. null or empty to aggregate all
+	 *            rows into one row.
+	 * @param aggregators
+	 *            non-empty. input field of an aggregator is a column of the
+	 *            input sheet, and its output field is a column of the output
+	 *            sheet. Input is optional, or "*", only for count, in which case
+	 *            rows are counted.
+	 * @param nbrPartitions
+	 *            number of partitions to aggregate in parallel. 1 or less to
+	 *            aggregate in the current thread.
+	 */
+	public HashAggregator(String[] groupByColumns, Aggregator[] aggregators, int nbrPartitions) {
+		if (aggregators == null || aggregators.length == 0) {
+			throw new ApplicationError("Hash aggregator requires at least one aggregator.");
+		}
+		for (Aggregator agg : aggregators) {
+			if (agg.aggregationType == null || agg.outputFieldName == null) {
+				throw new ApplicationError("Aggregator requires aggregationType and outputFieldName.");
+			}
+			boolean countsRows = agg.inputFieldName == null || agg.inputFieldName.equals("*");
+			if (countsRows && agg.aggregationType != AggregationType.COUNT) {
+				throw new ApplicationError("Aggregator for " + agg.outputFieldName
+						+ " requires an inputFieldName. Only count can be used without an input, or with *");
+			}
+		}
+		this.groupByColumns = groupByColumns == null ? new String[0] : groupByColumns;
+		this.aggregators = aggregators;
+		this.nbrPartitions = nbrPartitions;
+	}
+
+	/**
+	 * aggregate rows of a sheet
+	 *
+	 * @param inSheet
+	 *            non-null
+	 * @return a new sheet with the group-by columns followed by the output
+	 *         fields of the aggregators. It has no rows if the input sheet
+	 *         has no rows.
+	 */
+	public IDataSheet aggregate(IDataSheet inSheet) {
+		int nbrKeys = this.groupByColumns.length;
+		int nbrAggs = this.aggregators.length;
+		ValueType[] inTypes = inSheet.getValueTypes();
+
+		int[] keyCols = new int[nbrKeys];
+		String[] outNames = new String[nbrKeys + nbrAggs];
+		ValueType[] outTypes = new ValueType[outNames.length];
+		for (int i = 0; i < nbrKeys; i++) {
+			int col = this.getColIdx(inSheet, this.groupByColumns[i]);
+			keyCols[i] = col;
+			outNames[i] = this.groupByColumns[i];
+			outTypes[i] = inTypes == null ? null : inTypes[col];
+		}
+
+		AggregationType[] types = new AggregationType[nbrAggs];
+		int[] inputCols = new int[nbrAggs];
+		boolean[] integerInputs = new boolean[nbrAggs];
+		for (int i = 0; i < nbrAggs; i++) {
+			Aggregator agg = this.aggregators[i];
+			AggregationType type = agg.aggregationType;
+			types[i] = type;
+			int col = -1;
+			if (agg.inputFieldName != null && agg.inputFieldName.equals("*") == false) {
+				col = this.getColIdx(inSheet, agg.inputFieldName);
+			}
+			inputCols[i] = col;
+			ValueType inType = col == -1 || inTypes == null ? null : inTypes[col];
+			int outIdx = nbrKeys + i;
+			outNames[outIdx] = agg.outputFieldName;
+			if (type == AggregationType.FIRST || type == AggregationType.LAST) {
+				outTypes[outIdx] = inType;
+			} else if (type == AggregationType.COUNT) {
+				outTypes[outIdx] = ValueType.INTEGER;
+			} else {
+				if (inType != null && inType != ValueType.INTEGER && inType != ValueType.DECIMAL) {
+					throw new ApplicationError("Column " + agg.inputFieldName + " is of type " + inType
+							+ " and can not be aggregated as " + type);
+				}
+				integerInputs[i] = inType == ValueType.INTEGER;
+				outTypes[outIdx] = agg.outputAsDecimal ? ValueType.DECIMAL : ValueType.INTEGER;
+			}
+		}
+
+		GroupTable table = this.accumulate(inSheet, keyCols, types, inputCols, integerInputs);
+
+		IDataSheet outSheet;
+		if ((inSheet instanceof ColumnarSheet || Application.preferColumnarSheets())
+				&& ColumnarSheet.canBeUsedFor(outTypes)) {
+			outSheet = new ColumnarSheet(outNames, outTypes);
+		} else {
+			outSheet = new MultiRowsSheet(outNames, outTypes);
+		}
+		int nbrGroups = table.getNbrGroups();
+		for (int g = 0; g < nbrGroups; g++) {
+			Value[] row = new Value[outNames.length];
+			for (int i = 0; i < nbrKeys; i++) {
+				row[i] = table.getKeyValue(g, i);
+			}
+			for (int i = 0; i < nbrAggs; i++) {
+				int outIdx = nbrKeys + i;
+				row[outIdx] = table.getResult(g, i, this.aggregators[i].outputAsDecimal, outTypes[outIdx]);
+			}
+			outSheet.addRow(row);
+		}
+		return outSheet;
+	}
+
+	private int getColIdx(IDataSheet sheet, String columnName) {
+		int idx = sheet.getColIdx(columnName);
+		if (idx < 0) {
+			throw new ApplicationError("Column " + columnName + " is not found in the sheet to be aggregated.");
+		}
+		return idx;
+	}
+
+	private GroupTable accumulate(IDataSheet sheet, int[] keyCols, AggregationType[] types, int[] inputCols,
+			boolean[] integerInputs) {
+		int nbrRows = sheet.length();
+		int nbr = Math.min(this.nbrPartitions, nbrRows / MIN_ROWS_PER_PARTITION);
+		if (nbr <= 1 || Application.isParallelWorker()) {
+			GroupTable table = new GroupTable(sheet, keyCols, types, inputCols, integerInputs);
+			table.accumulate(0, nbrRows);
+			return table;
+		}
+
+		int partitionSize = (nbrRows + nbr - 1) / nbr;
+		Application app = Application.getActiveInstance();
+		List<Future<GroupTable>> futures = new ArrayList<>(nbr);
+		for (int i = 0; i < nbr; i++) {
+			int start = i * partitionSize;
+			int end = Math.min(start + partitionSize, nbrRows);
+			futures.add(app.submitParallelTask(() -> {
+				GroupTable table = new GroupTable(sheet, keyCols, types, inputCols, integerInputs);
+				table.accumulate(start, end);
+				return table;
+			}));
+		}
+
+		GroupTable result = null;
+		ApplicationError error = null;
+		for (int i = 0; i < nbr && error == null; i++) {
+			try {
+				GroupTable table = futures.get(i).get();
+				if (result == null) {
+					result = table;
+				} else {
+					result.merge(table);
+				}
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				String msg = "Partition " + (i + 1) + " of hash aggregation failed";
+				if (cause instanceof ApplicationError) {
+					error = (ApplicationError) cause;
+				} else if (cause instanceof Exception) {
+					error = new ApplicationError((Exception) cause, msg);
+				} else {
+					error = new ApplicationError(msg + ". " + cause);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				error = new ApplicationError("Hash aggregation interrupted while waiting for its partitions");
+			}
+		}
+		if (error != null) {
+			for (Future<GroupTable> future : futures) {
+				future.cancel(true);
+			}
+			throw error;
+		}
+		logger.debug("{} rows aggregated into {} groups using {} partitions", nbrRows, result.getNbrGroups(), nbr);
+		return result;
+	}
+}
@@ -138,6 +138,15 @@ public class AppConventions {
 		public static final String SORT_COLUMN = "_sortColumns";
 		/** sort order asc or desc. asc is the default */
 		public static final String SORT_ORDER = "_sortOrder";
+		/** max number of rows to be returned by a filter */
+		public static final String PAGE_SIZE = "_pageSize";
+		/** token received from a filter to get its next page of rows */
+		public static final String PAGE_TOKEN = "_pageToken";
+		/**
+		 * token returned by a filter when there may be more rows. It is sent
+		 * back as PAGE_TOKEN to get the next page
+		 */
+		public static final String NEXT_PAGE_TOKEN = "_nextPageToken";
 		/** non-error messages from server execution. */
 		public static final String MESSAGES = "_messages";
 		/**
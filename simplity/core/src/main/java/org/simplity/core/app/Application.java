@@ -27,12 +27,26 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.naming.InitialContext;
 import javax.transaction.UserTransaction;
 
 import org.simplity.core.ApplicationError;
 import org.simplity.core.adapter.DataAdapter;
+import org.simplity.core.app.internal.ServiceResponse;
 import org.simplity.core.auth.OAuthSetup;
 import org.simplity.core.batch.BatchJobs;
 import org.simplity.core.batch.BatchSetup;
@@ -43,12 +57,16 @@ import org.simplity.core.comp.IValidationContext;
 import org.simplity.core.comp.ValidationUtil;
 import org.simplity.core.dm.Record;
 import org.simplity.core.dt.DataType;
+import org.simplity.core.file.FileManager;
 import org.simplity.core.fn.Concat;
 import org.simplity.core.fn.IFunction;
 import org.simplity.core.gateway.Gateways;
 import org.simplity.core.gateway.ServiceGateway;
 import org.simplity.core.jms.JmsSetup;
 import org.simplity.core.mail.MailSetup;
+import org.simplity.core.metric.MetricType;
+import org.simplity.core.metric.MetricsRegistry;
+import org.simplity.core.metric.MetricsService;
 import org.simplity.core.msg.FormattedMessage;
 import org.simplity.core.msg.Message;
 import org.simplity.core.msg.Messages;
@@ -63,6 +81,7 @@ import org.simplity.core.test.TestRun;
 import org.simplity.core.trans.Service;
 import org.simplity.core.util.TextUtil;
 import org.simplity.core.util.XmlParseException;
+import org.simplity.core.util.XmlSnapshot;
 import org.simplity.core.util.XmlUtil;
 import org.simplity.core.value.Value;
 import org.simplity.core.value.ValueType;
@@ -103,6 +122,12 @@ public class Application implements IApp {
 	private static final int TEST_IDX = ComponentType.TEST_RUN.getIdx();
 	private static final int EXTERN_IDX = ComponentType.EXTERN.getIdx();
 	private static final int ADAPTER_IDX = ComponentType.ADAPTER.getIdx();
+	/**
+	 * components that are loaded on-demand, but can be loaded up-front for
+	 * warming-up
+	 */
+	private static final ComponentType[] WARM_UP_TYPES = { ComponentType.REC, ComponentType.SERVICE,
+			ComponentType.SQL, ComponentType.SP, ComponentType.ADAPTER };
 	/*
 	 * list of built-in functions
 	 */
@@ -117,6 +142,15 @@ public class Application implements IApp {
 	 */
 	private static ThreadLocal<Stack<Application>> currentApplication;
 
+	/*
+	 * is the current thread one of the parallel executor's?
+	 */
+	private static final ThreadLocal<Boolean> parallelWorker = ThreadLocal.withInitial(() -> Boolean.FALSE);
+	/*
+	 * tasks that can be queued for the parallel executor, per thread
+	 */
+	private static final int PARALLEL_QUEUE_FACTOR = 16;
+
 	/**
 	 * sole app running in this JVM. null if no application is loaded, OR more
 	 * than one are loaded. (
@@ -203,8 +237,7 @@ public class Application implements IApp {
 			return;
 		}
 		if (currentApplication == null) {
-			currentApplication = new ThreadLocal<>();
-			currentApplication.set(new Stack<>());
+			currentApplication = ThreadLocal.withInitial(Stack::new);
 		}
 		currentApplication.get().push(app);
 	}
@@ -319,6 +352,45 @@ public class Application implements IApp {
 	 */
 	boolean cacheComponents;
 
+	/**
+	 * load all on-demand components when the app starts, so that the first
+	 * requests do not pay for it. relevant only if cacheComponents is true
+	 */
+	boolean warmUpComponents;
+
+	/**
+	 * file that has a binary snapshot of all component resources, so that
+	 * they need not be parsed when loaded. Snapshot is created when the app
+	 * starts if this file does not exist. Delete the file to get it refreshed.
+	 */
+	String componentSnapshot;
+
+	/**
+	 * max number of threads to run parallel actions, like child-actions of a
+	 * synchronizer, across all services. Defaults to twice the number of
+	 * processors
+	 */
+	int parallelThreads;
+
+	/**
+	 * create sheets for db reads as ColumnarSheet when the column types are
+	 * known. Saves a lot of heap for sheets with large number of rows.
+	 */
+	boolean useColumnarSheets;
+
+	/**
+	 * time taken by services, actions, sqls and component loads are recorded
+	 * in MetricsRegistry, unless this is set to true
+	 */
+	boolean disableMetrics;
+
+	/**
+	 * if set, metrics collected so far are served under this service name
+	 */
+	String metricsServiceName;
+
+	private MetricsService metricsService;
+
 	/**
 	 * during development/testing,we can simulate service executions with local
 	 * data. service.xml is used for input/output, but the execution is skipped.
@@ -373,6 +445,21 @@ public class Application implements IApp {
 	private boolean userIdIsNumeric;
 
 	private Comp[] allComps;
+
+	/**
+	 * component loader that a thread is waiting on, while it is itself loading
+	 * a component. Used to detect components that refer to each other and are
+	 * being loaded by different threads.
+	 */
+	private final Map<Thread, Comp.Loader> componentWaits = new HashMap<>();
+	/**
+	 * null if componentSnapshot is not used
+	 */
+	private XmlSnapshot snapshot;
+	/**
+	 * created on first use
+	 */
+	private ThreadPoolExecutor parallelExecutor;
 	private Value dummyUser;
 	/*
 	 * keep track of configuration error in case of calls to failed components
@@ -432,15 +519,83 @@ public class Application implements IApp {
 		} else {
 			this.dummyUser = Value.newTextValue("100");
 		}
+		MetricsRegistry.setEnabled(this.disableMetrics == false);
+		if (this.metricsServiceName != null) {
+			this.metricsService = new MetricsService(this.metricsServiceName);
+		}
 		appLoaded(this);
+		if (this.warmUpComponents) {
+			this.warmUp();
+		}
 		logger.info("{} configured properly, and is running now..", this.applicationId);
 		return true;
 	}
 
+	/**
+	 * load all on-demand components in parallel, so that they are cached
+	 * before we start serving
+	 */
+	private void warmUp() {
+		if (this.cacheComponents == false) {
+			logger.warn("warmUpComponents is ignored because cacheComponents is not set");
+			return;
+		}
+		long begin = System.currentTimeMillis();
+		int nbrTypes = WARM_UP_TYPES.length;
+		AtomicIntegerArray nbrLoaded = new AtomicIntegerArray(nbrTypes);
+		AtomicIntegerArray nbrFailed = new AtomicIntegerArray(nbrTypes);
+		AtomicLongArray nanos = new AtomicLongArray(nbrTypes);
+
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < nbrTypes; i++) {
+			final int typeIdx = i;
+			final Comp comp = this.allComps[WARM_UP_TYPES[i].getIdx()];
+			for (final String compName : comp.getCompNamesInFolder()) {
+				tasks.add(() -> {
+					appStartedServing(this);
+					long start = System.nanoTime();
+					try {
+						if (comp.getComp(compName) == null) {
+							nbrFailed.incrementAndGet(typeIdx);
+						} else {
+							nbrLoaded.incrementAndGet(typeIdx);
+						}
+					} catch (Exception e) {
+						logger.error("Error while loading component " + compName, e);
+						nbrFailed.incrementAndGet(typeIdx);
+					} finally {
+						nanos.addAndGet(typeIdx, System.nanoTime() - start);
+						appDoneWithServing(this);
+					}
+					return null;
+				});
+			}
+		}
+
+		logger.info("Warming up with {} components", tasks.size());
+		ForkJoinPool pool = new ForkJoinPool();
+		try {
+			pool.invokeAll(tasks);
+		} finally {
+			pool.shutdown();
+		}
+
+		for (int i = 0; i < nbrTypes; i++) {
+			logger.info("{} : {} loaded, {} failed, {} ms spent in loading.", WARM_UP_TYPES[i], nbrLoaded.get(i),
+					nbrFailed.get(i), nanos.get(i) / 1000000);
+		}
+		logger.info("Warm-up completed in {} ms", System.currentTimeMillis() - begin);
+	}
+
 	@Override
 	public void serve(IServiceRequest request, IServiceResponse response) {
 		String serviceName = request.getServiceName();
-		IService service = (IService) this.getComponentOrNull(ComponentType.SERVICE, serviceName);
+		IService service = null;
+		if (this.metricsService != null && serviceName.equals(this.metricsServiceName)) {
+			service = this.metricsService;
+		} else {
+			service = (IService) this.getComponentOrNull(ComponentType.SERVICE, serviceName);
+		}
 		if (service == null) {
 			logger.error("Service {} is not served on this server", serviceName);
 			response.setResult(ServiceResult.NO_SUCH_SERVICE, 0);
@@ -457,10 +612,10 @@ public class Application implements IApp {
 			return;
 		}
 
-		long bigin = System.currentTimeMillis();
+		long bigin = System.nanoTime();
 		AppUser user = request.getUser();
 		if (user == null) {
-			logger.info("Service requested with no user. Dummy user is assumed.");
+			logger.debug("Service requested with no user. Dummy user is assumed.");
 			user = new AppUser(this.dummyUser, null, null);
 		}
 		ServiceContext ctx = new ServiceContext(this, serviceName, user);
@@ -474,7 +629,9 @@ public class Application implements IApp {
 		}
 		appDoneWithServing(this);
 
-		int milli = (int) (System.currentTimeMillis() - bigin);
+		long nanos = System.nanoTime() - bigin;
+		MetricsRegistry.record(MetricType.SERVICE, serviceName, nanos);
+		int milli = (int) (nanos / 1000000L);
 		List<FormattedMessage> messages = ctx.getMessages();
 		if (messages != null && messages.size() > 0) {
 			response.setMessages(messages.toArray(new FormattedMessage[0]));
@@ -490,27 +647,49 @@ public class Application implements IApp {
 		IServicePrePostProcessor hook = this.plugins.getServicePrePostProcessor();
 		if (hook != null) {
 			if (hook.beforeInput(request, response, ctx) == false) {
-				logger.info("App specific hook requested that the service be abandoned before inputting data.");
+				logger.debug("App specific hook requested that the service be abandoned before inputting data.");
 				return;
 			}
 		}
 		IRequestReader reader = request.getPayloadReader();
 		InputData inSpec = service.getInputSpecification();
 		if (inSpec == null) {
-			logger.info("Service expects no input data from payload");
+			logger.debug("Service expects no input data from payload");
 		} else {
 			inSpec.read(reader, ctx);
 		}
 
 		if (ctx.isInError()) {
-			logger.info("Input data had errors. Service not invoked.");
+			logger.debug("Input data had errors. Service not invoked.");
 			logger.error(FormattedMessage.toString(ctx.getMessages()));
 			return;
 		}
 
 		if (hook != null) {
 			if (hook.beforeService(request, response, ctx) == false) {
-				logger.info("App specific hook requested that the service be abandoned after inputting data.");
+				logger.debug("App specific hook requested that the service be abandoned after inputting data.");
+				return;
+			}
+		}
+
+		/*
+		 * is it cached? key is formed from the parsed input, exactly the way
+		 * the service forms it after execution
+		 */
+		IServiceCacher cacher = this.getCacherFor(service, response);
+		if (cacher != null) {
+			String key = Service.createCachingKey(service.getServiceName(), service.getCacheKeyNames(), ctx);
+			String payload = cacher.get(key);
+			if (payload != null) {
+				logger.debug("Service responded from cache with key {}", key);
+				if (hook != null && hook.afterService(response, ctx) == false) {
+					logger.debug("App specific hook aftrer service signalled that we do not output data.");
+					return;
+				}
+				response.setPayloadText(payload);
+				if (hook != null) {
+					hook.afterOutput(response, ctx);
+				}
 				return;
 			}
 		}
@@ -518,54 +697,90 @@ public class Application implements IApp {
 		if (service.directlyWritesDataToResponse()) {
 			IResponseWriter writer = response.getPayloadWriter(service.responseIsAnArray());
 			ctx.setWriter(writer);
-			logger.info(
+			logger.debug(
 					"Writer set to service context. Service is expected to write response directly to an object writer.");
 		}
 		/*
 		 * is this to be run in the background always? TODO: batch mode
 		 */
 
-		/*
-		 * TODO : manage cache
-		 *
-		 * is it cached?
-		 */
-
-		logger.info("Control handed over to service");
+		logger.debug("Control handed over to service");
 		service.serve(ctx);
 		if (ctx.isInError()) {
-			logger.info("service execution returned with errors");
+			logger.debug("service execution returned with errors");
 			return;
 		}
+
+		/*
+		 * this service may have altered data that other services have cached
+		 */
+		String[] invalidations = ctx.getInvalidations();
+		IServiceCacher serviceCacher = this.plugins.getServiceCacher();
+		if (invalidations != null && serviceCacher != null) {
+			for (String key : invalidations) {
+				logger.debug("Invalidating cached response with key {}", key);
+				serviceCacher.invalidate(key);
+			}
+		}
+
 		if (hook != null) {
 			if (hook.afterService(response, ctx) == false) {
-				logger.info("App specific hook aftrer service signalled that we do not output data.");
+				logger.debug("App specific hook aftrer service signalled that we do not output data.");
 				return;
 			}
 		}
-		logger.info("Going to write output data");
-		this.writeResponse(ctx, service, response);
+		logger.debug("Going to write output data");
+		this.writeResponse(ctx, service, response, cacher);
+	}
 
+	/**
+	 * @param service
+	 * @param response
+	 * @return cacher if response for this service is to be cached. null
+	 *         otherwise
+	 */
+	private IServiceCacher getCacherFor(IService service, IServiceResponse response) {
+		if (service.okToCache() == false) {
+			return null;
+		}
 		/*
-		 *
-		 * TODO: cache to be invalidated or this is to be cached.
+		 * cached payload is json, and does not carry session fields
 		 */
+		if (response.isXml() || service.directlyWritesDataToResponse() || service.getSessionFields() != null) {
+			return null;
+		}
+		return this.plugins.getServiceCacher();
 	}
 
 	/**
 	 * @param ctx
 	 * @param service
 	 * @param response
+	 * @param cacher
+	 *            non-null if the response is to be cached
 	 */
-	private void writeResponse(ServiceContext ctx, IService service, IServiceResponse response) {
+	private void writeResponse(ServiceContext ctx, IService service, IServiceResponse response,
+			IServiceCacher cacher) {
 		if (service.directlyWritesDataToResponse()) {
 			ctx.getWriter().done();
-			logger.info(
+			logger.debug(
 					"Service wrote response directly to the response writerve output response directly to the stream.");
 		} else {
 			OutputData outSpec = service.getOutputSpecification();
 			if (outSpec == null) {
 				logger.warn("Service has no output specification and hence no response is emitted.");
+			} else if (cacher != null && ctx.getCachingKey() != null && ctx.getMessages().isEmpty()) {
+				/*
+				 * write to a buffer so that the payload can be cached
+				 */
+				ServiceResponse buffer = new ServiceResponse(false);
+				IResponseWriter respWriter = buffer.getPayloadWriter(service.responseIsAnArray());
+				outSpec.write(respWriter, ctx);
+				respWriter.done();
+				String payload = buffer.getPayloadText();
+				cacher.cache(ctx.getCachingKey(), payload, ctx.getCacheValidity());
+				logger.debug("Response cached with key {}", ctx.getCachingKey());
+				response.setPayloadText(payload);
 			} else {
 				IResponseWriter respWriter = response.getPayloadWriter(service.responseIsAnArray());
 				outSpec.write(respWriter, ctx);
@@ -577,7 +792,7 @@ public class Application implements IApp {
 			for (String f : sessionFields) {
 				Value value = ctx.getValue(f);
 				if (value == null) {
-					logger.info("Session field {} not set because value is absent in ctx", f);
+					logger.debug("Session field {} not set because value is absent in ctx", f);
 				} else {
 					response.setSessionField(f, value.toString());
 				}
@@ -604,6 +819,15 @@ public class Application implements IApp {
 
 	@Override
 	public void closeShop() {
+		synchronized (this) {
+			if (this.parallelExecutor != null) {
+				this.parallelExecutor.shutdownNow();
+				this.parallelExecutor = null;
+			}
+		}
+		if (this.rdbSetup != null) {
+			this.rdbSetup.shutdown();
+		}
 		appShutdown(this);
 	}
 
@@ -722,6 +946,9 @@ public class Application implements IApp {
 			}
 		}
 
+		if (this.componentSnapshot != null) {
+			this.loadSnapshot();
+		}
 		this.loadComps();
 		if (this.jtaUserTransaction != null) {
 			try {
@@ -874,7 +1101,7 @@ public class Application implements IApp {
 	 * let components be cached once they are loaded. Typically used in
 	 * production environment
 	 */
-	public void startCaching() {
+	public synchronized void startCaching() {
 		for (Comp c : this.allComps) {
 			c.startCaching();
 		}
@@ -884,7 +1111,7 @@ public class Application implements IApp {
 	 * purge cached components, and do not cache any more. USed during
 	 * development.
 	 */
-	public void stopCaching() {
+	public synchronized void stopCaching() {
 		for (Comp c : this.allComps) {
 			c.stopCaching();
 		}
@@ -1070,6 +1297,99 @@ public class Application implements IApp {
 		return this.allComps[EXTERN_IDX].getComp(appName + '.' + serviceName, ExternalService.class);
 	}
 
+	/**
+	 * submit a task to be run in parallel on the executor that is shared by
+	 * all services of this app. Task runs with this app as the active app. In
+	 * case the executor is fully booked, task is run on the caller's thread.
+	 *
+	 * @param task
+	 * @return future for the result of the task
+	 */
+	public <T> Future<T> submitParallelTask(Callable<T> task) {
+		return this.getParallelExecutor().submit(() -> {
+			appStartedServing(this);
+			try {
+				return task.call();
+			} finally {
+				appDoneWithServing(this);
+			}
+		});
+	}
+
+	/**
+	 * create an executor with threads of its own, for tasks that hold on to
+	 * their threads for long, like workers of a batch, and hence should not
+	 * use the shared parallel executor. Tasks run with this app as the active
+	 * app. Caller is to shut it down once done.
+	 *
+	 * @param nbrThreads
+	 *            fixed number of threads
+	 * @return executor with as many threads
+	 */
+	public ExecutorService createDedicatedExecutor(int nbrThreads) {
+		return Executors.newFixedThreadPool(nbrThreads, r -> {
+			Thread thread = this.createThread(() -> {
+				appStartedServing(this);
+				try {
+					r.run();
+				} finally {
+					appDoneWithServing(this);
+				}
+			});
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * a task running on the parallel executor should not submit more tasks
+	 * and wait for them, as that may lead to all threads of the bounded
+	 * executor waiting for tasks that can not be run.
+	 *
+	 * @return true if the current thread belongs to the parallel executor.
+	 */
+	public static boolean isParallelWorker() {
+		return parallelWorker.get();
+	}
+
+	/**
+	 * @return true if the active app prefers columnar sheets for data read
+	 *         from the db. false if there is no active app
+	 */
+	public static boolean preferColumnarSheets() {
+		if (soleApplication != null) {
+			return soleApplication.useColumnarSheets;
+		}
+		if (currentApplication != null) {
+			Stack<Application> stack = currentApplication.get();
+			if (!stack.isEmpty()) {
+				return stack.peek().useColumnarSheets;
+			}
+		}
+		return false;
+	}
+
+	private synchronized ThreadPoolExecutor getParallelExecutor() {
+		if (this.parallelExecutor == null) {
+			int nbr = this.parallelThreads;
+			if (nbr <= 0) {
+				nbr = Runtime.getRuntime().availableProcessors() * 2;
+			}
+			this.parallelExecutor = new ThreadPoolExecutor(nbr, nbr, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(nbr * PARALLEL_QUEUE_FACTOR), r -> {
+						Thread thread = this.createThread(() -> {
+							parallelWorker.set(Boolean.TRUE);
+							r.run();
+						});
+						thread.setDaemon(true);
+						return thread;
+					}, new ThreadPoolExecutor.CallerRunsPolicy());
+			this.parallelExecutor.allowCoreThreadTimeOut(true);
+			logger.info("Executor for parallel actions created with {} threads", nbr);
+		}
+		return this.parallelExecutor;
+	}
+
 	/**
 	 * @param worker
 	 * @return a thread for this worker
@@ -1081,6 +1401,36 @@ public class Application implements IApp {
 		return this.batchSetup.createThread(worker);
 	}
 
+	private void loadSnapshot() {
+		this.snapshot = XmlSnapshot.load(this.componentSnapshot);
+		if (this.snapshot != null) {
+			return;
+		}
+		logger.info("Creating component snapshot {}", this.componentSnapshot);
+		if (XmlSnapshot.createForApp(this.resourceRoot, this.componentSnapshot) > 0) {
+			this.snapshot = XmlSnapshot.load(this.componentSnapshot);
+		}
+	}
+
+	/**
+	 * @param resName
+	 * @return root element of the resource, from the snapshot if possible.
+	 *         null if the resource could not be parsed
+	 */
+	private Element getRootElement(String resName) {
+		if (this.snapshot != null) {
+			Element ele = this.snapshot.getElement(resName);
+			if (ele != null) {
+				return ele;
+			}
+		}
+		Document doc = XmlUtil.fromResource(resName);
+		if (doc == null) {
+			return null;
+		}
+		return doc.getDocumentElement();
+	}
+
 	private void loadComps() {
 		int nbr = AppConventions.COMP_TYPES.length;
 		this.allComps = new Comp[nbr];
@@ -1106,7 +1456,16 @@ public class Application implements IApp {
 		private final boolean isPreloaded;
 		private final String compType;
 		private final String packageName;
-		protected Map<String, IComponent> cachedOnes;
+		/**
+		 * components are read by all service threads without any locking.
+		 * start/stop caching swaps this in one go.
+		 */
+		protected volatile Map<String, IComponent> cachedOnes;
+		/**
+		 * components that are being loaded by a thread, so that other threads
+		 * wait for that instead of loading it again
+		 */
+		private final Map<String, Loader> beingLoaded = new ConcurrentHashMap<>();
 
 		Comp(ComponentType compType, String folder) {
 			this.compClass = compType.getCompClass();
@@ -1135,7 +1494,7 @@ public class Application implements IApp {
 
 		void startCaching() {
 			if (this.isPreloaded == false) {
-				this.cachedOnes = new HashMap<>();
+				this.cachedOnes = new ConcurrentHashMap<>();
 			}
 		}
 
@@ -1149,10 +1508,15 @@ public class Application implements IApp {
 		}
 
 		IComponent getComp(String compName) {
-			if (this.cachedOnes != null) {
-				Object object = this.cachedOnes.get(compName);
-				if (object != null) {
-					return (IComponent) object;
+			/*
+			 * local reference, as caching may be started/stopped by another
+			 * thread
+			 */
+			Map<String, IComponent> cache = this.cachedOnes;
+			if (cache != null) {
+				IComponent comp = cache.get(compName);
+				if (comp != null) {
+					return comp;
 				}
 			}
 
@@ -1160,29 +1524,123 @@ public class Application implements IApp {
 				return null;
 			}
 
-			IComponent comp = this.load(compName);
-			if (comp == null) {
-				return null;
+			if (cache == null) {
+				return this.load(compName);
 			}
+			return this.loadOnce(compName, cache);
+		}
 
-			if (this.cachedOnes != null) {
-				this.cachedOnes.put(compName, comp);
+		/**
+		 * load a component and add it to the cache. If another thread is
+		 * already loading this component, we wait for that to complete, and
+		 * use that instance.
+		 */
+		private IComponent loadOnce(String compName, Map<String, IComponent> cache) {
+			Loader loader = new Loader(compName);
+			Loader existing = this.beingLoaded.putIfAbsent(compName, loader);
+			if (existing != null) {
+				if (existing.owner != Thread.currentThread()) {
+					return this.waitFor(existing);
+				}
+				/*
+				 * component is referring to itself while getting ready. We
+				 * load another instance, as we used to before this arrangement
+				 */
+				logger.warn("Component {} is referred while it is being loaded.", compName);
+				return this.load(compName);
+			}
+
+			try {
+				/*
+				 * it is possible that the other thread completed loading just
+				 * before we put our loader
+				 */
+				IComponent comp = cache.get(compName);
+				if (comp == null) {
+					loader.run();
+					comp = loader.getComp();
+					if (comp != null) {
+						cache.put(compName, comp);
+					}
+				} else {
+					loader.set(comp);
+				}
+				return comp;
+			} finally {
+				this.beingLoaded.remove(compName, loader);
+			}
+		}
+
+		/**
+		 * wait for another thread to load a component. If that thread is, in
+		 * turn, waiting for a component that this thread is loading, we would
+		 * wait for ever. We report this as a circular reference instead.
+		 */
+		private IComponent waitFor(Loader loader) {
+			Map<Thread, Loader> waits = Application.this.componentWaits;
+			Thread thisThread = Thread.currentThread();
+			synchronized (waits) {
+				Loader waitee = loader;
+				while (waitee != null) {
+					if (waitee.owner == thisThread) {
+						throw new ApplicationError(
+								"There is a circular reference amongst components being loaded. Component "
+										+ loader.compName + " is being loaded by another thread that is waiting,"
+										+ " directly or indirectly, for a component being loaded by this thread. "
+										+ "Please review and fix.");
+					}
+					waitee = waits.get(waitee.owner);
+				}
+				waits.put(thisThread, loader);
+			}
+			try {
+				return loader.getComp();
+			} finally {
+				synchronized (waits) {
+					waits.remove(thisThread);
+				}
 			}
-			return comp;
+		}
+
+		/**
+		 * @return names of all components that are saved in the resource
+		 *         folder for this type. empty if the resources are not on the
+		 *         file system
+		 */
+		List<String> getCompNamesInFolder() {
+			String folder = Application.this.resourceRoot + this.folderPrefix;
+			int start = folder.length();
+			List<String> names = new ArrayList<>();
+			for (String res : FileManager.getResources(folder)) {
+				if (res.endsWith(EXTN)) {
+					String name = res.substring(start, res.length() - EXTN.length());
+					names.add(name.replace(FOLDER_CHAR, DELIMITER));
+				}
+			}
+			return names;
 		}
 
 		private IComponent load(String compName) {
+			long startedAt = System.nanoTime();
+			IComponent comp = this.loadFromResource(compName);
+			if (comp != null) {
+				MetricsRegistry.record(MetricType.COMPONENT, this.compType + '/' + compName,
+						System.nanoTime() - startedAt);
+			}
+			return comp;
+		}
+
+		private IComponent loadFromResource(String compName) {
 			String fileName = Application.this.resourceRoot + this.folderPrefix
 					+ compName.replace(DELIMITER, FOLDER_CHAR) + EXTN;
 			Object obj = null;
 			try {
-				Document doc = XmlUtil.fromResource(fileName);
-				if (doc == null || doc.getDocumentElement() == null) {
+				Element ele = Application.this.getRootElement(fileName);
+				if (ele == null) {
 					logger.error("Component {} is not loaded. Either it is not defined, or it has syntax errors.",
 							compName);
 					return null;
 				}
-				Element ele = doc.getDocumentElement();
 				obj = this.getNewInstance(ele.getTagName());
 				if (obj == null) {
 					logger.error("Tag {} could not be used to create an object instance for component {}",
@@ -1233,7 +1691,7 @@ public class Application implements IApp {
 			if (this.isPreloaded == false) {
 				return;
 			}
-			this.cachedOnes = new HashMap<>();
+			this.cachedOnes = new ConcurrentHashMap<>();
 			try {
 				String pkg = this.compClass.getPackage().getName() + '.';
 				/*
@@ -1278,10 +1736,47 @@ public class Application implements IApp {
 		private void loadOne(String resName, String pkg) {
 			logger.info("Going to load components from {}", resName);
 			try {
-				XmlUtil.xmlToCollection(resName, this.cachedOnes, pkg);
+				Element ele = Application.this.getRootElement(resName);
+				if (ele == null) {
+					logger.info("Unable to open file " + resName + " failed to load.");
+					return;
+				}
+				XmlUtil.elementToCollection(ele, this.cachedOnes, pkg);
 			} catch (Exception e) {
 				logger.error("Resource " + resName + " failed to load.", e);
 			}
 		}
+
+		/**
+		 * single-flight loading of a component. Threads asking for a component
+		 * that is being loaded wait on this task for the result.
+		 */
+		private class Loader extends FutureTask<IComponent> {
+			protected final Thread owner = Thread.currentThread();
+			private final String compName;
+
+			Loader(final String compName) {
+				super(() -> Comp.this.load(compName));
+				this.compName = compName;
+			}
+
+			@Override
+			protected void set(IComponent comp) {
+				super.set(comp);
+			}
+
+			IComponent getComp() {
+				try {
+					return this.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					logger.error("Interrupted while waiting for component {} to be loaded", this.compName);
+					return null;
+				} catch (ExecutionException e) {
+					logger.error("error while loading component " + this.compName, e.getCause());
+					return null;
+				}
+			}
+		}
 	}
 }
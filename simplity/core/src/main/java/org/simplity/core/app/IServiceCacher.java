@@ -22,11 +22,11 @@
 
 package org.simplity.core.app;
 
-import org.simplity.core.app.internal.ServiceRequest;
-import org.simplity.core.app.internal.ServiceResponse;
-
 /**
- * component that manages caching of data output from service
+ * component that manages caching of data output from service. Responses are
+ * cached as payload text against a caching key that is formed with
+ * <code>Service.createCachingKey()</code>, that is the service name, possibly
+ * followed by values of the caching-key fields.
  *
  * @author simplity.org
  *
@@ -35,30 +35,36 @@ public interface IServiceCacher {
 	/**
 	 * get a cached response
 	 *
-	 * @param request
-	 * @param response
+	 * @param cachingKey
+	 *            non-null key as formed by Service.createCachingKey()
 	 *
-	 * @return if responded from cache. false if this request can is not served
-	 *         from cache.
+	 * @return payload text of the cached response. null if no response is
+	 *         cached for this key, or the cached response has expired.
 	 */
-	public boolean respond(ServiceRequest request, ServiceResponse response);
+	public String get(String cachingKey);
 
 	/**
 	 * cache a response from server.
 	 *
-	 * /** get a cached response
-	 *
-	 * @param request
-	 * @param response
+	 * @param cachingKey
+	 *            non-null key as formed by Service.createCachingKey()
+	 * @param payload
+	 *            non-null payload text of the response
+	 * @param validityMinutes
+	 *            number of minutes after which this response is to be
+	 *            discarded. 0 means there is no pre-determined validity
 	 */
-	public void cache(ServiceRequest request, ServiceResponse response);
+	public void cache(String cachingKey, String payload, int validityMinutes);
 
 	/**
-	 * remove/invalidate any cache for this service
+	 * remove/invalidate cached response.
 	 *
-	 * @param serviceName
+	 * @param cachingKey
+	 *            key as formed by Service.createCachingKey(). If this is just
+	 *            the service name, all cached responses for the service are
+	 *            invalidated
 	 */
-	public void invalidate(String serviceName);
+	public void invalidate(String cachingKey);
 
 	/**
 	 * clear all cache.
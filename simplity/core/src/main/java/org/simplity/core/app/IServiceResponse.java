@@ -78,6 +78,16 @@ public interface IServiceResponse {
 	 */
 	public IResponseWriter getPayloadWriter(boolean responseIsAnArray);
 
+	/**
+	 * use a ready payload, typically a cached response, instead of writing it
+	 * with a payload writer
+	 *
+	 * @param payload
+	 *            non-null payload text that is already formatted as per
+	 *            isXml()
+	 */
+	public void setPayloadText(String payload);
+
 	/**
 	 * @return result of this service execution
 	 */
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.app;
+
+/**
+ * request reader that reads its payload from a stream, one attribute at a time,
+ * rather than from an object that is already parsed. Attributes are visited in
+ * the order in which they appear in the payload. An attribute that is an array
+ * of objects can be consumed one row at a time, so that large arrays need not
+ * be held in memory. Any attribute that is not consumed this way is retained,
+ * and is available with the usual IRequestReader methods once the stream is
+ * exhausted.
+ *
+ * @author simplity.org
+ *
+ */
+public interface IStreamingRequestReader extends IRequestReader {
+
+	/**
+	 * move to the next attribute of the root object. Value of the attribute
+	 * last returned is retained if it was not consumed as rows.
+	 *
+	 * @return name of the next attribute. null if there are no more attributes
+	 */
+	public String nextAttribute();
+
+	/**
+	 * start reading the value of the current attribute as rows of an array
+	 *
+	 * @return true if the value is an array, and its rows can now be read with
+	 *         nextRow(). false if the value is not an array, in which case the
+	 *         value is retained as it is.
+	 */
+	public boolean openRows();
+
+	/**
+	 * move to the next row of the array that is opened with openRows(). The row
+	 * is available as the current object with the IRequestReader methods till
+	 * the next call.
+	 *
+	 * @return true if a row is available. false if the array is exhausted
+	 */
+	public boolean nextRow();
+}
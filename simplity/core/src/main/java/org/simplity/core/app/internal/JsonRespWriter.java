@@ -137,8 +137,7 @@ public class JsonRespWriter implements IResponseWriter {
 	public JsonRespWriter setArray(String arrayName, IDataSheet sheet) {
 		this.writer.key(arrayName).array();
 		if (sheet != null && sheet.length() > 0 && sheet.width() > 0) {
-			for (Value[] row : sheet.getAllRows()) {
-				Value value = row[0];
+			for (Value value : sheet.getColumnValues(sheet.getColumnNames()[0])) {
 				if (value != null) {
 					this.writer.value(value);
 				}
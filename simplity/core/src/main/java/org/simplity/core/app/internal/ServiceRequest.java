@@ -23,6 +23,7 @@
 package org.simplity.core.app.internal;
 
 import java.io.InputStream;
+import java.io.Reader;
 import java.util.Map;
 
 import org.simplity.core.MessageBox;
@@ -55,6 +56,10 @@ public class ServiceRequest implements IServiceRequest {
 	 * if the payload if json.
 	 */
 	private JSONObject jsonPayload;
+	/**
+	 * if the json payload is to be parsed as and when it is read
+	 */
+	private StreamingJsonReqReader streamingReader;
 	/**
 	 * fields that are meant to be from client, but are not in payload. like the
 	 * fields in REST url, query strings, cookies and session fields
@@ -151,6 +156,24 @@ public class ServiceRequest implements IServiceRequest {
 		}
 	}
 
+	/**
+	 * request object for a json payload that is parsed as it is read by the
+	 * service, rather than being parsed into an object up-front. Suitable for
+	 * large payloads, like a sheet with thousands of rows.
+	 *
+	 * @param serviceName
+	 *            non-null string
+	 * @param fields
+	 *            can be null
+	 * @param payload
+	 *            non-null reader for the json payload. Must remain open till
+	 *            the request is served
+	 */
+	public ServiceRequest(String serviceName, Map<String, Object> fields, Reader payload) {
+		this(serviceName, fields);
+		this.streamingReader = new StreamingJsonReqReader(payload, fields);
+	}
+
 	/* ************ interface methods ************ */
 	/**
 	 * @return the serviceName
@@ -217,6 +240,9 @@ public class ServiceRequest implements IServiceRequest {
 
 	@Override
 	public IRequestReader getPayloadReader() {
+		if (this.streamingReader != null) {
+			return this.streamingReader;
+		}
 		if (this.jsonPayload != null) {
 			return new JsonReqReader(this.jsonPayload, this.fields);
 		}
@@ -253,6 +279,9 @@ public class ServiceRequest implements IServiceRequest {
 	 * @return get the payload as it is
 	 */
 	public Object getPayload() {
+		if (this.streamingReader != null) {
+			return this.streamingReader.getPayload();
+		}
 		if (this.jsonPayload != null) {
 			return this.jsonPayload;
 		}
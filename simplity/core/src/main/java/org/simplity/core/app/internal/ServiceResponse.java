@@ -22,6 +22,7 @@
 
 package org.simplity.core.app.internal;
 
+import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.HashMap;
@@ -130,6 +131,20 @@ public class ServiceResponse implements IServiceResponse {
 		return new JsonRespWriter(riter, responseIsAnArray);
 	}
 
+	@Override
+	public void setPayloadText(String payload) {
+		if (this.writer == null) {
+			this.StringWriter = new StringWriter();
+			this.StringWriter.write(payload);
+			return;
+		}
+		try {
+			this.writer.write(payload);
+		} catch (IOException e) {
+			throw new ApplicationError(e, "Error while writing payload to response writer");
+		}
+	}
+
 	/**
 	 *
 	 * @return service result
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.app.internal;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.simplity.core.app.AppConventions;
+import org.simplity.core.app.IServiceCacher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * in-memory, size-bounded implementation of <code>IServiceCacher</code> that
+ * is safe for concurrent use by service threads. Entries expire as per the
+ * validity specified by the service, and the oldest entries are evicted when
+ * the cache is full.
+ *
+ * @author simplity.org
+ *
+ */
+public class ServiceResponseCacher implements IServiceCacher {
+	private static final Logger logger = LoggerFactory.getLogger(ServiceResponseCacher.class);
+	/**
+	 * default number of responses that are kept in the cache
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+	private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+
+	private final int maxEntries;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	/**
+	 * entries in the order in which they were cached. used for eviction
+	 */
+	private final Queue<Entry> cachedOrder = new ConcurrentLinkedQueue<>();
+	/**
+	 * size() of a concurrent queue is not a constant-time operation
+	 */
+	private final AtomicInteger nbrQueued = new AtomicInteger();
+
+	/**
+	 * cacher with default capacity. Used when this class is set-up as a plugin
+	 */
+	public ServiceResponseCacher() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 *
+	 * @param maxEntries
+	 *            maximum number of responses to be kept in the cache
+	 */
+	public ServiceResponseCacher(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	@Override
+	public String get(String cachingKey) {
+		Entry entry = this.entries.get(cachingKey);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.hasExpired(System.currentTimeMillis())) {
+			logger.info("Cached response for {} has expired", cachingKey);
+			this.entries.remove(cachingKey, entry);
+			return null;
+		}
+		return entry.payload;
+	}
+
+	@Override
+	public void cache(String cachingKey, String payload, int validityMinutes) {
+		long expiresAt = 0;
+		if (validityMinutes > 0) {
+			expiresAt = System.currentTimeMillis() + validityMinutes * MILLIS_PER_MINUTE;
+		}
+		Entry entry = new Entry(cachingKey, payload, expiresAt);
+		this.entries.put(cachingKey, entry);
+		this.cachedOrder.add(entry);
+		this.nbrQueued.incrementAndGet();
+		this.evict();
+	}
+
+	@Override
+	public void invalidate(String cachingKey) {
+		if (cachingKey.indexOf(AppConventions.CACHE_KEY_SEP) != -1) {
+			this.entries.remove(cachingKey);
+			return;
+		}
+		/*
+		 * key is the service name. invalidate all responses for this service
+		 */
+		String prefix = cachingKey + AppConventions.CACHE_KEY_SEP;
+		Iterator<String> iter = this.entries.keySet().iterator();
+		while (iter.hasNext()) {
+			String key = iter.next();
+			if (key.equals(cachingKey) || key.startsWith(prefix)) {
+				iter.remove();
+			}
+		}
+	}
+
+	@Override
+	public void clearAll() {
+		this.entries.clear();
+		this.cachedOrder.clear();
+		this.nbrQueued.set(0);
+	}
+
+	/**
+	 * remove the oldest entries till we are within our limit. expired and
+	 * replaced entries in the queue are discarded along the way
+	 */
+	private void evict() {
+		while (this.entries.size() > this.maxEntries) {
+			Entry entry = this.cachedOrder.poll();
+			if (entry == null) {
+				return;
+			}
+			this.nbrQueued.decrementAndGet();
+			this.entries.remove(entry.key, entry);
+		}
+		/*
+		 * queue may accumulate entries that are replaced or invalidated.
+		 */
+		if (this.nbrQueued.get() > 2 * this.maxEntries) {
+			Iterator<Entry> iter = this.cachedOrder.iterator();
+			while (iter.hasNext()) {
+				Entry entry = iter.next();
+				if (this.entries.get(entry.key) != entry) {
+					iter.remove();
+					this.nbrQueued.decrementAndGet();
+				}
+			}
+		}
+	}
+
+	private static class Entry {
+		protected final String key;
+		protected final String payload;
+		/**
+		 * 0 means it does not expire
+		 */
+		private final long expiresAt;
+
+		protected Entry(String key, String payload, long expiresAt) {
+			this.key = key;
+			this.payload = payload;
+			this.expiresAt = expiresAt;
+		}
+
+		protected boolean hasExpired(long now) {
+			return this.expiresAt != 0 && now > this.expiresAt;
+		}
+	}
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.app.internal;
+
+import java.io.Reader;
+import java.util.Map;
+
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.IStreamingRequestReader;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.json.JSONObject;
+import org.simplity.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * request reader that parses a json payload as it is being read. Payload is
+ * expected to be an object. Arrays of objects in this object can be read one
+ * row at a time, so that the memory used does not grow with the number of
+ * rows. Any other attribute is retained as it is parsed, and is served with
+ * the usual reader methods once the stream is exhausted.
+ *
+ * @author simplity.org
+ *
+ */
+public class StreamingJsonReqReader implements IStreamingRequestReader {
+	private static final Logger logger = LoggerFactory.getLogger(StreamingJsonReqReader.class);
+
+	private static final int NOT_STARTED = 0;
+	private static final int IN_ROOT = 1;
+	private static final int IN_ROWS = 2;
+	private static final int DONE = 3;
+
+	private final JSONTokener tokener;
+	private final Map<String, Object> fields;
+	/**
+	 * attributes that are parsed but not consumed as rows
+	 */
+	private final JSONObject root = new JSONObject();
+
+	private int state = NOT_STARTED;
+	/**
+	 * attribute whose name is read, but its value is not yet read
+	 */
+	private String pendingAttribute;
+	/**
+	 * true if no row is read yet from the array that is open
+	 */
+	private boolean atFirstRow;
+	/**
+	 * reader for the current row while reading rows, and for the root once the
+	 * stream is exhausted
+	 */
+	private JsonReqReader currentReader;
+
+	/**
+	 * instantiate a reader for the payload
+	 *
+	 * @param payload
+	 *            non-null reader for the json text. It is read as and when
+	 *            data is requested, and hence should remain open till the
+	 *            request is served
+	 * @param fields
+	 *            can be null
+	 */
+	public StreamingJsonReqReader(Reader payload, Map<String, Object> fields) {
+		this.tokener = new JSONTokener(payload);
+		this.fields = fields;
+	}
+
+	@Override
+	public String nextAttribute() {
+		switch (this.state) {
+		case DONE:
+			return null;
+
+		case IN_ROWS:
+			throw new ApplicationError(
+					"nextAttribute() called while rows of " + this.pendingAttribute + " are still being read");
+
+		case NOT_STARTED:
+			this.state = IN_ROOT;
+			char c = this.tokener.nextClean();
+			if (c == 0) {
+				logger.info("No input in payload. Empty payload assumed.");
+				return this.endOfRoot();
+			}
+			if (c != '{') {
+				throw this.tokener.syntaxError("Payload must be an object, and must begin with '{'");
+			}
+			if (this.tokener.nextClean() == '}') {
+				return this.endOfRoot();
+			}
+			this.tokener.back();
+			return this.readAttributeName();
+
+		default:
+			if (this.pendingAttribute != null) {
+				this.keepValue();
+			}
+			switch (this.tokener.nextClean()) {
+			case ';':
+			case ',':
+				if (this.tokener.nextClean() == '}') {
+					return this.endOfRoot();
+				}
+				this.tokener.back();
+				return this.readAttributeName();
+			case '}':
+				return this.endOfRoot();
+			default:
+				throw this.tokener.syntaxError("Expected a ',' or '}'");
+			}
+		}
+	}
+
+	@Override
+	public boolean openRows() {
+		if (this.state != IN_ROOT || this.pendingAttribute == null) {
+			logger.error("openRows() is to be called right after nextAttribute()");
+			return false;
+		}
+		char c = this.tokener.nextClean();
+		if (c != '[') {
+			this.tokener.back();
+			return false;
+		}
+		this.state = IN_ROWS;
+		this.atFirstRow = true;
+		return true;
+	}
+
+	@Override
+	public boolean nextRow() {
+		if (this.state != IN_ROWS) {
+			return false;
+		}
+		this.currentReader = null;
+		char c = this.tokener.nextClean();
+		if (this.atFirstRow) {
+			this.atFirstRow = false;
+			if (c == ']') {
+				return this.endOfRows();
+			}
+			this.tokener.back();
+		} else {
+			if (c == ']') {
+				return this.endOfRows();
+			}
+			if (c != ',') {
+				throw this.tokener.syntaxError("Expected a ',' or ']'");
+			}
+			/*
+			 * trailing comma is tolerated, as in JSONArray
+			 */
+			if (this.tokener.nextClean() == ']') {
+				return this.endOfRows();
+			}
+			this.tokener.back();
+		}
+		Object row = this.tokener.nextValue();
+		if (row instanceof JSONObject == false) {
+			throw this.tokener.syntaxError("Elements of array " + this.pendingAttribute + " are to be objects");
+		}
+		this.currentReader = new JsonReqReader((JSONObject) row, this.fields);
+		return true;
+	}
+
+	/**
+	 * @return root object with all the attributes that were not consumed as
+	 *         rows. Rest of the stream is read if required.
+	 */
+	public JSONObject getPayload() {
+		this.readAll();
+		return this.root;
+	}
+
+	private String readAttributeName() {
+		String name = this.tokener.nextValue().toString();
+		if (this.tokener.nextClean() != ':') {
+			throw this.tokener.syntaxError("Expected a ':' after a key");
+		}
+		this.pendingAttribute = name;
+		return name;
+	}
+
+	private void keepValue() {
+		this.root.putOnce(this.pendingAttribute, this.tokener.nextValue());
+		this.pendingAttribute = null;
+	}
+
+	private boolean endOfRows() {
+		this.state = IN_ROOT;
+		this.pendingAttribute = null;
+		this.currentReader = null;
+		return false;
+	}
+
+	private String endOfRoot() {
+		this.state = DONE;
+		this.pendingAttribute = null;
+		return null;
+	}
+
+	/**
+	 * retain whatever is not yet read from the stream
+	 */
+	private void readAll() {
+		while (this.nextAttribute() != null) {
+			// values are retained by nextAttribute()
+		}
+	}
+
+	/**
+	 * @return reader for the current row if a row is being read, else the
+	 *         reader for the root after reading the rest of the stream
+	 */
+	private JsonReqReader getReader() {
+		if (this.state == IN_ROWS) {
+			if (this.currentReader == null) {
+				throw new ApplicationError("Reader is positioned between rows of " + this.pendingAttribute
+						+ ". Use nextRow() before reading values.");
+			}
+			return this.currentReader;
+		}
+		if (this.state != DONE) {
+			this.readAll();
+		}
+		if (this.currentReader == null) {
+			this.currentReader = new JsonReqReader(this.root, this.fields);
+		}
+		return this.currentReader;
+	}
+
+	@Override
+	public InputValueType getValueType(String attributeName) {
+		return this.getReader().getValueType(attributeName);
+	}
+
+	@Override
+	public Object getValue(String attributeName) {
+		return this.getReader().getValue(attributeName);
+	}
+
+	@Override
+	public boolean openObject(String attributeName) {
+		return this.getReader().openObject(attributeName);
+	}
+
+	@Override
+	public boolean openObject(int zeroBasedIdx) {
+		return this.getReader().openObject(zeroBasedIdx);
+	}
+
+	@Override
+	public boolean closeObject() {
+		return this.getReader().closeObject();
+	}
+
+	@Override
+	public boolean openArray(String attributetName) {
+		return this.getReader().openArray(attributetName);
+	}
+
+	@Override
+	public boolean openArray(int zeroBasedIdx) {
+		return this.getReader().openArray(zeroBasedIdx);
+	}
+
+	@Override
+	public Object getValue(int zeroBasedIdx) {
+		return this.getReader().getValue(zeroBasedIdx);
+	}
+
+	@Override
+	public InputValueType getValueType(int zeroBasedIdx) {
+		return this.getReader().getValueType(zeroBasedIdx);
+	}
+
+	@Override
+	public int getNbrElements() {
+		return this.getReader().getNbrElements();
+	}
+
+	@Override
+	public String[] getAttributeNames() {
+		return this.getReader().getAttributeNames();
+	}
+
+	@Override
+	public boolean closeArray() {
+		return this.getReader().closeArray();
+	}
+
+	@Override
+	public void pushDataToContext(ServiceContext ctx) {
+		this.getReader().pushDataToContext(ctx);
+	}
+}
@@ -23,6 +23,7 @@
 package org.simplity.core.auth;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 
@@ -32,6 +33,7 @@ import javax.xml.bind.DatatypeConverter;
 
 import org.simplity.core.ApplicationError;
 import org.simplity.core.app.Application;
+import org.simplity.core.util.IoUtil;
 import org.simplity.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +48,9 @@ public class OAuth2Agent implements ISecurityAgent {
 	private static Logger logger = LoggerFactory.getLogger(OAuth2Agent.class);
 	private static final String ACCESS_TOKEN = "access_token";
 	private static final String SCOPES_ATTR = "scopes";
+	private static final String ACTIVE_ATTR = "active";
+	private static final String EXP_ATTR = "exp";
+	private static final String EXPIRES_IN_ATTR = "expires_in";
 	/**
 	 * scopes for this authentication.
 	 */
@@ -116,10 +121,24 @@ public class OAuth2Agent implements ISecurityAgent {
 
 	private boolean checkForValidToken(String accesstoken) {
 		OAuthSetup oAuthParameters = Application.getActiveInstance().getOAuthSetup();
+		TokenCache cache = oAuthParameters.getTokenCache();
+		if (cache == null) {
+			return this.validateToken(oAuthParameters, accesstoken) > TokenCache.INVALID;
+		}
+		return cache.isValid(accesstoken, token -> this.validateToken(oAuthParameters, token));
+	}
+
+	/**
+	 * validate the token with the auth server
+	 *
+	 * @return expiry of the token as epoch millis, or one of the constants
+	 *         defined in TokenCache
+	 */
+	private long validateToken(OAuthSetup oAuthParameters, String accesstoken) {
 		String url = oAuthParameters.getCheckTokenUrl();
 		url += "?token=" + accesstoken;
 		HttpURLConnection conn = null;
-		logger.info("Checking token " + url);
+		logger.debug("Checking token with {}", oAuthParameters.getCheckTokenUrl());
 		try {
 			String userPassword = oAuthParameters.getClientId() + ":" + oAuthParameters.getClientSecret();
 			String encoding = DatatypeConverter.printBase64Binary(userPassword.getBytes());
@@ -129,13 +148,51 @@ public class OAuth2Agent implements ISecurityAgent {
 			conn.setRequestMethod("POST");
 			conn.setRequestProperty("Authorization", "Basic " + encoding);
 
-			if (conn.getResponseCode() == HttpServletResponse.SC_OK) {
-				return true;
+			int status = conn.getResponseCode();
+			if (status == HttpServletResponse.SC_OK) {
+				return this.getExpiry(conn);
+			}
+			if (status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+				logger.error("Auth server responded with status {} while checking token", status);
+				return TokenCache.NOT_VALIDATED;
 			}
+			return TokenCache.INVALID;
 		} catch (IOException e) {
 			logger.error("Error with token {}", e);
 		}
-		return false;
+		return TokenCache.NOT_VALIDATED;
+	}
+
+	/**
+	 * token info is expected to be a json with "exp" as epoch seconds, or
+	 * "expires_in" as seconds. A token introspection response may also have
+	 * "active" as false.
+	 */
+	private long getExpiry(HttpURLConnection conn) {
+		JSONObject json = null;
+		try (InputStream in = conn.getInputStream()) {
+			String text = IoUtil.streamToText(in);
+			if (text != null && text.trim().startsWith("{")) {
+				json = new JSONObject(text);
+			}
+		} catch (Exception e) {
+			logger.debug("Token info could not be parsed. {}", e.getMessage());
+		}
+		if (json == null) {
+			return TokenCache.EXPIRY_UNKNOWN;
+		}
+		if (json.optBoolean(ACTIVE_ATTR, true) == false) {
+			return TokenCache.INVALID;
+		}
+		long seconds = json.optLong(EXP_ATTR, 0);
+		if (seconds > 0) {
+			return seconds * 1000L;
+		}
+		seconds = json.optLong(EXPIRES_IN_ATTR, 0);
+		if (seconds > 0) {
+			return System.currentTimeMillis() + seconds * 1000L;
+		}
+		return TokenCache.EXPIRY_UNKNOWN;
 	}
 
 	/**
@@ -44,6 +44,21 @@ public class OAuthSetup {
 	 * check token URL
 	 */
 	String checkTokenUrl;
+	/**
+	 * max seconds for which a valid token is cached, even if it expires later.
+	 * 0 to validate every token with the auth server
+	 */
+	int tokenCacheSeconds = 300;
+	/**
+	 * seconds for which an invalid token is cached
+	 */
+	int invalidTokenCacheSeconds = 10;
+	/**
+	 * max number of tokens to be cached
+	 */
+	int tokenCacheSize = 10000;
+
+	private TokenCache tokenCache;
 
 	/**
 	 *
@@ -69,12 +84,24 @@ public class OAuthSetup {
 		return this.clientSecret;
 	}
 
+	/**
+	 *
+	 * @return cache of validated tokens. null if tokens are not to be cached
+	 */
+	public TokenCache getTokenCache() {
+		return this.tokenCache;
+	}
+
 	/**
 	 * called by <code>Application</code> before using it
 	 *
 	 * @return error message in case any error in configuring. null if all OK.
 	 */
 	public String configure() {
+		if (this.tokenCacheSeconds > 0 && this.tokenCacheSize > 0) {
+			this.tokenCache = new TokenCache(this.tokenCacheSize, this.tokenCacheSeconds,
+					this.invalidTokenCacheSeconds);
+		}
 		return "Oauth is not yet implemented";
 	}
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.simplity.core.auth;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+import org.simplity.core.util.TextUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * cache of results of validating access tokens with the auth server. Tokens are
+ * kept as their hash, and not as they are. A valid token is cached till it
+ * expires, subject to a max time, while an invalid token is cached for a short
+ * time. Concurrent requests with the same token wait for one validation.
+ *
+ * @author simplity.org
+ *
+ */
+public class TokenCache {
+	private static final Logger logger = LoggerFactory.getLogger(TokenCache.class);
+	/**
+	 * to be returned by a validator if the token is not valid
+	 */
+	public static final long INVALID = 0;
+	/**
+	 * to be returned by a validator if the token could not be validated, say
+	 * because the auth server is not reachable. Such results are not cached
+	 */
+	public static final long NOT_VALIDATED = -1;
+	/**
+	 * to be returned by a validator if the token is valid, but its expiry is
+	 * not known
+	 */
+	public static final long EXPIRY_UNKNOWN = Long.MAX_VALUE;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final int maxEntries;
+	private final long maxValidMillis;
+	private final long invalidMillis;
+
+	/**
+	 * @param maxEntries
+	 *            max number of tokens to be cached
+	 * @param maxValidSeconds
+	 *            max time for which a valid token is cached
+	 * @param invalidSeconds
+	 *            time for which an invalid token is cached
+	 */
+	public TokenCache(int maxEntries, int maxValidSeconds, int invalidSeconds) {
+		this.maxEntries = maxEntries;
+		this.maxValidMillis = maxValidSeconds * 1000L;
+		this.invalidMillis = invalidSeconds * 1000L;
+	}
+
+	/**
+	 * is this token valid? validator is invoked if the result is not cached.
+	 *
+	 * @param token
+	 *            non-null access token
+	 * @param validator
+	 *            function that validates the token with the auth server, and
+	 *            returns its expiry as epoch millis, or one of INVALID,
+	 *            NOT_VALIDATED or EXPIRY_UNKNOWN
+	 * @return true if the token is valid
+	 */
+	public boolean isValid(String token, ToLongFunction<String> validator) {
+		String key = TextUtil.toSha256Hex(token);
+		Entry entry = this.entries.get(key);
+		if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+			this.entries.remove(key, entry);
+			entry = null;
+		}
+		if (entry == null) {
+			Entry newEntry = new Entry();
+			entry = this.entries.putIfAbsent(key, newEntry);
+			if (entry == null) {
+				this.makeRoom();
+				this.validate(token, key, newEntry, validator);
+				entry = newEntry;
+			}
+		}
+		return entry.result.join();
+	}
+
+	/**
+	 * remove all cached results
+	 */
+	public void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * @return number of tokens in the cache, including the ones being
+	 *         validated
+	 */
+	int size() {
+		return this.entries.size();
+	}
+
+	private void validate(String token, String key, Entry entry, ToLongFunction<String> validator) {
+		long expiry = NOT_VALIDATED;
+		try {
+			expiry = validator.applyAsLong(token);
+		} catch (Exception e) {
+			logger.error("Error while validating token. {}", e.getMessage());
+		}
+		long now = System.currentTimeMillis();
+		if (expiry == NOT_VALIDATED) {
+			this.entries.remove(key, entry);
+			entry.result.complete(Boolean.FALSE);
+			return;
+		}
+		if (expiry == INVALID) {
+			entry.expiresAt = now + this.invalidMillis;
+			entry.result.complete(Boolean.FALSE);
+			return;
+		}
+		entry.expiresAt = Math.min(expiry, now + this.maxValidMillis);
+		entry.result.complete(Boolean.TRUE);
+	}
+
+	/**
+	 * remove expired entries when the cache is full, and some more if that is
+	 * not enough
+	 */
+	private void makeRoom() {
+		int excess = this.entries.size() - this.maxEntries;
+		if (excess <= 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		this.entries.values().removeIf(e -> e.expiresAt <= now);
+		excess = this.entries.size() - this.maxEntries;
+		if (excess <= 0) {
+			return;
+		}
+		/*
+		 * no order among the entries. Remove a tenth of them to avoid doing
+		 * this for every new token
+		 */
+		excess += this.maxEntries / 10;
+		Iterator<Entry> iter = this.entries.values().iterator();
+		while (excess > 0 && iter.hasNext()) {
+			Entry e = iter.next();
+			if (e.result.isDone()) {
+				iter.remove();
+				excess--;
+			}
+		}
+		logger.info("Token cache was full, and some valid tokens were removed from the cache");
+	}
+
+	/**
+	 * result of validation of a token. result is not done while the
+	 * validation is in progress.
+	 */
+	private static class Entry {
+		final CompletableFuture<Boolean> result = new CompletableFuture<>();
+		/*
+		 * set before the result is completed
+		 */
+		volatile long expiresAt = Long.MAX_VALUE;
+
+		Entry() {
+			//
+		}
+	}
+}
@@ -0,0 +1,956 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.simplity.core.ApplicationError;
+import org.simplity.core.dm.field.Field;
+import org.simplity.core.util.ArrayUtil;
+import org.simplity.core.value.BooleanValue;
+import org.simplity.core.value.DateValue;
+import org.simplity.core.value.DecimalValue;
+import org.simplity.core.value.IntegerValue;
+import org.simplity.core.value.TimestampValue;
+import org.simplity.core.value.Value;
+import org.simplity.core.value.ValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * a sheet that stores its data column-wise in arrays of primitives, rather
+ * than as rows of Value objects. integers are stored as long, decimals as
+ * double, booleans as bits, dates as epoch-days and texts as codes into a
+ * dictionary of distinct texts. Value objects are created only when a cell is
+ * read. Suitable for sheets with large number of rows, like those read from
+ * the data base for reports.
+ *
+ * Unlike MultiRowsSheet, rows returned by getRow() and getAllRows() are
+ * copies. Use setColumnValue() to modify the sheet.
+ *
+ * @author simplity.org
+ */
+public class ColumnarSheet implements IDataSheet {
+	private static final Logger logger = LoggerFactory.getLogger(ColumnarSheet.class);
+	private static final int INITIAL_CAPACITY = 16;
+
+	private String[] columnNames;
+	private ValueType[] columnValueTypes;
+	private Column[] columns;
+	private Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+	private int nbrRows;
+	private int capacity = INITIAL_CAPACITY;
+
+	/**
+	 * create a sheet with structure but no data.
+	 *
+	 * @param columnNames
+	 * @param columnValueTypes
+	 */
+	public ColumnarSheet(String[] columnNames, ValueType[] columnValueTypes) {
+		int n = columnNames.length;
+		if (columnValueTypes.length != n) {
+			throw new ApplicationError("Data sheet can not be created with " + n + " column names and "
+					+ columnValueTypes.length + " value types.");
+		}
+		this.columnNames = columnNames;
+		this.columnValueTypes = columnValueTypes;
+		this.columns = new Column[n];
+		for (int i = 0; i < n; i++) {
+			String columnName = columnNames[i];
+			if (this.columnIndexes.containsKey(columnName)) {
+				throw new ApplicationError("Column names can not be duplicate in a data sheet.");
+			}
+			this.columnIndexes.put(columnName, Integer.valueOf(i));
+			this.columns[i] = newColumn(columnValueTypes[i], this.capacity);
+		}
+	}
+
+	/**
+	 * @param fields
+	 *            to be used as columns for the data sheet
+	 */
+	public ColumnarSheet(Field[] fields) {
+		this(getNames(fields), getTypes(fields));
+	}
+
+	/**
+	 * can a columnar sheet be used for these fields?
+	 *
+	 * @param fields
+	 * @return true if value types of all the fields are known
+	 */
+	public static boolean canBeUsedFor(Field[] fields) {
+		if (fields == null) {
+			return false;
+		}
+		for (Field field : fields) {
+			if (field.getValueType() == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * can a columnar sheet be used for these value types?
+	 *
+	 * @param valueTypes
+	 * @return true if all value types are known
+	 */
+	public static boolean canBeUsedFor(ValueType[] valueTypes) {
+		if (valueTypes == null) {
+			return false;
+		}
+		for (ValueType vt : valueTypes) {
+			if (vt == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String[] getNames(Field[] fields) {
+		String[] names = new String[fields.length];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = fields[i].getName();
+		}
+		return names;
+	}
+
+	private static ValueType[] getTypes(Field[] fields) {
+		ValueType[] types = new ValueType[fields.length];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = fields[i].getValueType();
+		}
+		return types;
+	}
+
+	@Override
+	public String[][] getRawData() {
+		String[][] rawData = new String[this.nbrRows + 1][];
+		rawData[0] = this.columnNames;
+		int n = this.columns.length;
+		for (int row = 0; row < this.nbrRows; row++) {
+			String[] texts = new String[n];
+			for (int col = 0; col < n; col++) {
+				Value value = this.columns[col].get(row);
+				texts[col] = value == null ? "" : value.toString();
+			}
+			rawData[row + 1] = texts;
+		}
+		return rawData;
+	}
+
+	@Override
+	public int length() {
+		return this.nbrRows;
+	}
+
+	@Override
+	public int width() {
+		return this.columnNames.length;
+	}
+
+	@Override
+	public String[] getColumnNames() {
+		return this.columnNames;
+	}
+
+	@Override
+	public ValueType[] getValueTypes() {
+		return this.columnValueTypes;
+	}
+
+	/**
+	 * @return a copy of the row. Changes to this array are not reflected in
+	 *         the sheet.
+	 */
+	@Override
+	public Value[] getRow(int zeroBasedRowNumber) {
+		if (zeroBasedRowNumber < 0 || zeroBasedRowNumber >= this.nbrRows) {
+			throw new IndexOutOfBoundsException(
+					"Row " + zeroBasedRowNumber + " requested from a sheet with " + this.nbrRows + " rows");
+		}
+		Value[] row = new Value[this.columns.length];
+		for (int col = 0; col < row.length; col++) {
+			row[col] = this.columns[col].get(zeroBasedRowNumber);
+		}
+		return row;
+	}
+
+	/**
+	 * @return copy of all rows. Changes to the list or to the rows are not
+	 *         reflected in the sheet.
+	 */
+	@Override
+	public List<Value[]> getAllRows() {
+		List<Value[]> rows = new ArrayList<Value[]>(this.nbrRows);
+		for (int i = 0; i < this.nbrRows; i++) {
+			rows.add(this.getRow(i));
+		}
+		return rows;
+	}
+
+	@Override
+	public void addRow(Value[] row) {
+		if (row.length != this.columns.length) {
+			throw new ApplicationError("A row with " + row.length + " values can not be added to a sheet with "
+					+ this.columns.length + " columns");
+		}
+		int idx = this.nbrRows;
+		this.appendEmptyRows(1);
+		for (int col = 0; col < row.length; col++) {
+			this.columns[col].set(idx, row[col]);
+		}
+	}
+
+	@Override
+	public Value getColumnValue(String columnName, int zeroBasedRowNumber) {
+		Integer idx = this.columnIndexes.get(columnName);
+		if (idx == null || zeroBasedRowNumber < 0 || zeroBasedRowNumber >= this.nbrRows) {
+			logger.info("Request to get value for column {} and row index {} is not valid. going to return null.",
+					columnName, zeroBasedRowNumber);
+			return null;
+		}
+		return this.columns[idx.intValue()].get(zeroBasedRowNumber);
+	}
+
+	/**
+	 * get value of a cell using the column index, avoiding the look-up of
+	 * column name
+	 *
+	 * @param zeroBasedColIdx
+	 *            as returned by getColIdx()
+	 * @param zeroBasedRowNumber
+	 * @return value, or null if the cell has no value
+	 */
+	public Value getColumnValue(int zeroBasedColIdx, int zeroBasedRowNumber) {
+		return this.columns[zeroBasedColIdx].get(zeroBasedRowNumber);
+	}
+
+	/**
+	 * get an integer/decimal cell as a primitive, without creating a value
+	 * object
+	 *
+	 * @param zeroBasedColIdx
+	 * @param zeroBasedRowNumber
+	 * @return 0 if the cell is null or is not numeric
+	 */
+	public long getLong(int zeroBasedColIdx, int zeroBasedRowNumber) {
+		return this.columns[zeroBasedColIdx].getLong(zeroBasedRowNumber);
+	}
+
+	/**
+	 * get an integer/decimal cell as a primitive, without creating a value
+	 * object
+	 *
+	 * @param zeroBasedColIdx
+	 * @param zeroBasedRowNumber
+	 * @return 0 if the cell is null or is not numeric
+	 */
+	public double getDouble(int zeroBasedColIdx, int zeroBasedRowNumber) {
+		return this.columns[zeroBasedColIdx].getDouble(zeroBasedRowNumber);
+	}
+
+	/**
+	 * @param zeroBasedColIdx
+	 * @param zeroBasedRowNumber
+	 * @return true if the cell has no value, or has a value that is unknown
+	 */
+	public boolean isNull(int zeroBasedColIdx, int zeroBasedRowNumber) {
+		return this.columns[zeroBasedColIdx].hasPrimitive(zeroBasedRowNumber) == false
+				&& Value.isNull(this.columns[zeroBasedColIdx].get(zeroBasedRowNumber));
+	}
+
+	@Override
+	public void setColumnValue(String columnName, int zeroBasedRowNumber, Value value) {
+		Integer idx = this.columnIndexes.get(columnName);
+		if (idx == null || zeroBasedRowNumber < 0 || zeroBasedRowNumber >= this.nbrRows) {
+			throw new ApplicationError("Request to set value  for column " + columnName + " and row index "
+					+ zeroBasedRowNumber + " is not valid.");
+		}
+		this.columns[idx.intValue()].set(zeroBasedRowNumber, value);
+	}
+
+	@Override
+	public Value[] getColumnValues(String columnName) {
+		Integer idx = this.columnIndexes.get(columnName);
+		if (idx == null) {
+			logger.info("{} is not a column in the sheet and hence null values are returned for getColumnValues()",
+					columnName);
+			return null;
+		}
+		Column column = this.columns[idx.intValue()];
+		Value[] values = new Value[this.nbrRows];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = column.get(i);
+		}
+		return values;
+	}
+
+	@Override
+	public void addColumn(String columnName, ValueType columnType, Value[] columnValues) {
+		if (columnValues != null && columnValues.length != this.nbrRows) {
+			throw new ApplicationError("column " + columnName + " is being added with " + columnValues.length
+					+ " values but the sheet has " + this.nbrRows + " rows.");
+		}
+		Column column = newColumn(columnType, this.capacity);
+		if (columnValues != null) {
+			for (int i = 0; i < columnValues.length; i++) {
+				column.set(i, columnValues[i]);
+			}
+		}
+		Integer key = this.columnIndexes.get(columnName);
+		if (key != null) {
+			int idx = key.intValue();
+			this.columnValueTypes[idx] = columnType;
+			this.columns[idx] = column;
+			return;
+		}
+		this.columnIndexes.put(columnName, Integer.valueOf(this.columnNames.length));
+		this.columnNames = ArrayUtil.extend(this.columnNames, columnName);
+		this.columnValueTypes = ArrayUtil.extend(this.columnValueTypes, columnType);
+		Column[] cols = Arrays.copyOf(this.columns, this.columns.length + 1);
+		cols[this.columns.length] = column;
+		this.columns = cols;
+	}
+
+	@Override
+	public void addColumn(String columnName, Value value) {
+		Value[] values = new Value[this.nbrRows];
+		Arrays.fill(values, value);
+		this.addColumn(columnName, value.getValueType(), values);
+	}
+
+	@Override
+	public Set<Entry<String, Value>> getAllFields(int rowIdx) {
+		if (rowIdx >= this.nbrRows) {
+			throw new ApplicationError("A request is received to fetch a non-existing row in a data sheet");
+		}
+		Map<String, Value> fields = new HashMap<String, Value>(this.columnNames.length);
+		for (int col = 0; col < this.columns.length; col++) {
+			fields.put(this.columnNames[col], this.columns[col].get(rowIdx));
+		}
+		return fields.entrySet();
+	}
+
+	@Override
+	public void trace() {
+		StringBuilder sbf = new StringBuilder();
+		for (String nam : this.columnNames) {
+			sbf.append(nam).append('\t');
+		}
+		for (int row = 0; row < this.nbrRows; row++) {
+			sbf.append('\n');
+			for (Column column : this.columns) {
+				sbf.append(column.get(row)).append('\t');
+			}
+		}
+		logger.info(sbf.toString());
+	}
+
+	@Override
+	public int appendRows(IDataSheet sheet) {
+		if (sheet == null) {
+			return 0;
+		}
+		int n = sheet.length();
+		if (n == 0) {
+			return 0;
+		}
+		ValueType[] fromTypes = sheet.getValueTypes();
+		int nbrCols = this.columnValueTypes.length;
+		if (nbrCols != fromTypes.length) {
+			throw new ApplicationError("AppendRows is not possible because from sheet has " + fromTypes.length
+					+ " columns while to sheet has " + nbrCols + " columns");
+		}
+		for (int idx = 0; idx < nbrCols; idx++) {
+			if (this.columnValueTypes[idx] != fromTypes[idx]) {
+				throw new ApplicationError("AppendRows is not possible because from and to sheets have " + nbrCols
+						+ " columns each, but column " + (idx + 1) + " are of different type.");
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			this.addRow(sheet.getRow(i));
+		}
+		return n;
+	}
+
+	@Override
+	public int getColIdx(String columnName) {
+		Integer idx = this.columnIndexes.get(columnName);
+		if (idx == null) {
+			logger.info("We did not find column {} in this columnar sheet", columnName);
+			return -1;
+		}
+		return idx.intValue();
+	}
+
+	@Override
+	public int[] getColumnIndexes(String[] names) {
+		int[] result = new int[names.length];
+		for (int i = 0; i < names.length; i++) {
+			result[i] = this.getColIdx(names[i]);
+		}
+		return result;
+	}
+
+	@Override
+	public String toSerializedText(DataSerializationType serializationType) {
+		Value[][] rows = new Value[this.nbrRows][];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = this.getRow(i);
+		}
+		return serializationType.serializeRows(rows, this.columnNames);
+	}
+
+	/**
+	 * values are converted to the value types of their columns, as the
+	 * serialized text may not carry the types
+	 */
+	@Override
+	public void fromSerializedText(String text, DataSerializationType serializationType, boolean replaceExistingRows) {
+		if (replaceExistingRows) {
+			for (int col = 0; col < this.columns.length; col++) {
+				this.columns[col] = newColumn(this.columnValueTypes[col], this.capacity);
+			}
+			this.nbrRows = 0;
+		}
+		if (text == null || text.isEmpty()) {
+			return;
+		}
+		IDataSheet parsed = serializationType.parseRows(text, this.columnNames);
+		int n = parsed.length();
+		for (int i = 0; i < n; i++) {
+			Value[] row = parsed.getRow(i);
+			for (int col = 0; col < row.length; col++) {
+				Value value = row[col];
+				ValueType vt = this.columnValueTypes[col];
+				if (value != null && vt != null && value.getValueType() != vt) {
+					Value converted = vt.parse(value.toString());
+					if (Value.isNull(converted) == false) {
+						row[col] = converted;
+					}
+				}
+			}
+			this.addRow(row);
+		}
+	}
+
+	@Override
+	public IFieldsCollection getRowAsFields(int zeroBasedRow) {
+		if (zeroBasedRow >= this.nbrRows) {
+			return null;
+		}
+		return new DataRow(this, zeroBasedRow);
+	}
+
+	@Override
+	public int appendEmptyRows(int nbrRowsToAdd) {
+		int newNbr = this.nbrRows + nbrRowsToAdd;
+		if (newNbr > this.capacity) {
+			int cap = this.capacity;
+			while (cap < newNbr) {
+				cap = cap << 1;
+			}
+			for (Column column : this.columns) {
+				column.grow(cap);
+			}
+			this.capacity = cap;
+		}
+		this.nbrRows = newNbr;
+		return newNbr;
+	}
+
+	@Override
+	public Iterator<IFieldsCollection> iterator() {
+		return new DataRows(this);
+	}
+
+	@Override
+	public Value getValue(String fieldName) {
+		return this.getColumnValue(fieldName, 0);
+	}
+
+	@Override
+	public void setValue(String fieldName, Value value) {
+		this.setColumnValue(fieldName, 0, value);
+	}
+
+	@Override
+	public boolean hasValue(String fieldName) {
+		return this.getColumnValue(fieldName, 0) != null;
+	}
+
+	/** we do not remove column values */
+	@Override
+	public Value removeValue(String fieldName) {
+		return null;
+	}
+
+	@Override
+	public Set<Entry<String, Value>> getAllFields() {
+		return this.getAllFields(0);
+	}
+
+	private static Column newColumn(ValueType valueType, int capacity) {
+		if (valueType == null) {
+			return new ValueColumn(capacity);
+		}
+		switch (valueType) {
+		case INTEGER:
+			return new IntegerColumn(capacity);
+		case DECIMAL:
+			return new DecimalColumn(capacity);
+		case BOOLEAN:
+			return new BooleanColumn();
+		case DATE:
+			return new DateColumn(capacity);
+		case TIMESTAMP:
+			return new TimestampColumn(capacity);
+		case TEXT:
+			return new TextColumn(capacity);
+		default:
+			return new ValueColumn(capacity);
+		}
+	}
+
+	/**
+	 * storage for a column. A cell is either null, has an unknown value, has a
+	 * value that is stored as primitive, or, as an exception, has a value of a
+	 * type other than that of the column. Such values are stored as they are.
+	 */
+	private static abstract class Column {
+		/**
+		 * cells that have a value stored as primitive
+		 */
+		protected final BitSet known = new BitSet();
+		/**
+		 * cells that have a value, but the value is unknown (null)
+		 */
+		private final BitSet unknown = new BitSet();
+		/**
+		 * values with a type different from the column. Rarely used
+		 */
+		private Map<Integer, Value> others;
+
+		protected Column() {
+			//
+		}
+
+		Value get(int row) {
+			if (this.known.get(row)) {
+				return this.getPrimitive(row);
+			}
+			if (this.unknown.get(row)) {
+				return this.getUnknown();
+			}
+			if (this.others == null) {
+				return null;
+			}
+			return this.others.get(Integer.valueOf(row));
+		}
+
+		void set(int row, Value value) {
+			if (this.others != null) {
+				this.others.remove(Integer.valueOf(row));
+			}
+			this.known.clear(row);
+			this.unknown.clear(row);
+			if (value == null) {
+				return;
+			}
+			if (value.getValueType() != this.getValueType()) {
+				if (this.others == null) {
+					this.others = new HashMap<Integer, Value>();
+				}
+				this.others.put(Integer.valueOf(row), value);
+				return;
+			}
+			if (value.isUnknown()) {
+				this.unknown.set(row);
+				return;
+			}
+			this.setPrimitive(row, value);
+			this.known.set(row);
+		}
+
+		boolean hasPrimitive(int row) {
+			return this.known.get(row);
+		}
+
+		long getLong(int row) {
+			return 0;
+		}
+
+		double getDouble(int row) {
+			return 0;
+		}
+
+		abstract ValueType getValueType();
+
+		abstract Value getUnknown();
+
+		abstract Value getPrimitive(int row);
+
+		abstract void setPrimitive(int row, Value value);
+
+		abstract void grow(int capacity);
+	}
+
+	private static class IntegerColumn extends Column {
+		private long[] values;
+
+		IntegerColumn(int capacity) {
+			this.values = new long[capacity];
+		}
+
+		@Override
+		ValueType getValueType() {
+			return ValueType.INTEGER;
+		}
+
+		@Override
+		Value getUnknown() {
+			return Value.VALUE_UNKNOWN_INTEGER;
+		}
+
+		@Override
+		Value getPrimitive(int row) {
+			return Value.newIntegerValue(this.values[row]);
+		}
+
+		@Override
+		void setPrimitive(int row, Value value) {
+			this.values[row] = ((IntegerValue) value).getLong();
+		}
+
+		@Override
+		long getLong(int row) {
+			return this.known.get(row) ? this.values[row] : 0;
+		}
+
+		@Override
+		double getDouble(int row) {
+			return this.getLong(row);
+		}
+
+		@Override
+		void grow(int capacity) {
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
+	}
+
+	private static class DecimalColumn extends Column {
+		private double[] values;
+
+		DecimalColumn(int capacity) {
+			this.values = new double[capacity];
+		}
+
+		@Override
+		ValueType getValueType() {
+			return ValueType.DECIMAL;
+		}
+
+		@Override
+		Value getUnknown() {
+			return Value.VALUE_UNKNOWN_DECIMAL;
+		}
+
+		@Override
+		Value getPrimitive(int row) {
+			return Value.newDecimalValue(this.values[row]);
+		}
+
+		@Override
+		void setPrimitive(int row, Value value) {
+			this.values[row] = ((DecimalValue) value).getDouble();
+		}
+
+		@Override
+		long getLong(int row) {
+			return Math.round(this.getDouble(row));
+		}
+
+		@Override
+		double getDouble(int row) {
+			return this.known.get(row) ? this.values[row] : 0;
+		}
+
+		@Override
+		void grow(int capacity) {
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
+	}
+
+	private static class BooleanColumn extends Column {
+		private final BitSet values = new BitSet();
+
+		BooleanColumn() {
+			//
+		}
+
+		@Override
+		ValueType getValueType() {
+			return ValueType.BOOLEAN;
+		}
+
+		@Override
+		Value getUnknown() {
+			return Value.VALUE_UNKNOWN_BOOLEAN;
+		}
+
+		@Override
+		Value getPrimitive(int row) {
+			return Value.newBooleanValue(this.values.get(row));
+		}
+
+		@Override
+		void setPrimitive(int row, Value value) {
+			this.values.set(row, ((BooleanValue) value).getBoolean());
+		}
+
+		@Override
+		void grow(int capacity) {
+			// bit set grows on its own
+		}
+	}
+
+	private static class DateColumn extends Column {
+		/**
+		 * epoch-day of the dates
+		 */
+		private int[] values;
+
+		DateColumn(int capacity) {
+			this.values = new int[capacity];
+		}
+
+		@Override
+		ValueType getValueType() {
+			return ValueType.DATE;
+		}
+
+		@Override
+		Value getUnknown() {
+			return Value.VALUE_UNKNOWN_DATE;
+		}
+
+		@Override
+		Value getPrimitive(int row) {
+			return Value.newDateValue(LocalDate.ofEpochDay(this.values[row]));
+		}
+
+		@Override
+		void setPrimitive(int row, Value value) {
+			this.values[row] = (int) ((DateValue) value).getDate().toEpochDay();
+		}
+
+		@Override
+		void grow(int capacity) {
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
+	}
+
+	private static class TimestampColumn extends Column {
+		private long[] seconds;
+		private int[] nanos;
+
+		TimestampColumn(int capacity) {
+			this.seconds = new long[capacity];
+			this.nanos = new int[capacity];
+		}
+
+		@Override
+		ValueType getValueType() {
+			return ValueType.TIMESTAMP;
+		}
+
+		@Override
+		Value getUnknown() {
+			return Value.VALUE_UNKNOWN_TIMESTAMP;
+		}
+
+		@Override
+		Value getPrimitive(int row) {
+			return Value.newTimestampValue(Instant.ofEpochSecond(this.seconds[row], this.nanos[row]));
+		}
+
+		@Override
+		void setPrimitive(int row, Value value) {
+			Instant instant = ((TimestampValue) value).getInstant();
+			this.seconds[row] = instant.getEpochSecond();
+			this.nanos[row] = instant.getNano();
+		}
+
+		@Override
+		void grow(int capacity) {
+			this.seconds = Arrays.copyOf(this.seconds, capacity);
+			this.nanos = Arrays.copyOf(this.nanos, capacity);
+		}
+	}
+
+	/**
+	 * texts are stored as codes into a dictionary of distinct values, as
+	 * columns like status and category have very few distinct values. If the
+	 * number of distinct values grows beyond a limit, we switch to storing the
+	 * texts as they are.
+	 */
+	private static class TextColumn extends Column {
+		private static final int MAX_DICTIONARY_SIZE = 4096;
+
+		private int[] codes;
+		private List<Value> dictionary = new ArrayList<Value>();
+		private Map<String, Integer> dictionaryCodes = new HashMap<String, Integer>();
+		/**
+		 * non-null once we give-up on the dictionary
+		 */
+		private String[] texts;
+
+		TextColumn(int capacity) {
+			this.codes = new int[capacity];
+		}
+
+		@Override
+		ValueType getValueType() {
+			return ValueType.TEXT;
+		}
+
+		@Override
+		Value getUnknown() {
+			return Value.VALUE_UNKNOWN_TEXT;
+		}
+
+		@Override
+		Value getPrimitive(int row) {
+			if (this.texts != null) {
+				return Value.newTextValue(this.texts[row]);
+			}
+			return this.dictionary.get(this.codes[row]);
+		}
+
+		@Override
+		void setPrimitive(int row, Value value) {
+			String text = value.toString();
+			if (this.texts != null) {
+				this.texts[row] = text;
+				return;
+			}
+			Integer code = this.dictionaryCodes.get(text);
+			if (code == null) {
+				if (this.dictionary.size() >= MAX_DICTIONARY_SIZE) {
+					this.dropDictionary();
+					this.texts[row] = text;
+					return;
+				}
+				code = Integer.valueOf(this.dictionary.size());
+				this.dictionary.add(value);
+				this.dictionaryCodes.put(text, code);
+			}
+			this.codes[row] = code.intValue();
+		}
+
+		private void dropDictionary() {
+			String[] arr = new String[this.codes.length];
+			for (int i = this.known.nextSetBit(0); i >= 0; i = this.known.nextSetBit(i + 1)) {
+				arr[i] = this.dictionary.get(this.codes[i]).toString();
+			}
+			this.texts = arr;
+			this.codes = null;
+			this.dictionary = null;
+			this.dictionaryCodes = null;
+		}
+
+		@Override
+		void grow(int capacity) {
+			if (this.texts != null) {
+				this.texts = Arrays.copyOf(this.texts, capacity);
+			} else {
+				this.codes = Arrays.copyOf(this.codes, capacity);
+			}
+		}
+	}
+
+	/**
+	 * column with no specific value type. values are kept as they are.
+	 */
+	private static class ValueColumn extends Column {
+		private Value[] values;
+
+		ValueColumn(int capacity) {
+			this.values = new Value[capacity];
+		}
+
+		@Override
+		Value get(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		void set(int row, Value value) {
+			this.values[row] = value;
+		}
+
+		@Override
+		boolean hasPrimitive(int row) {
+			return false;
+		}
+
+		@Override
+		ValueType getValueType() {
+			return null;
+		}
+
+		@Override
+		Value getUnknown() {
+			return null;
+		}
+
+		@Override
+		Value getPrimitive(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		void setPrimitive(int row, Value value) {
+			this.values[row] = value;
+		}
+
+		@Override
+		void grow(int capacity) {
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
+	}
+}
@@ -284,7 +284,7 @@ public class CommonData implements ICommonData {
 			nbrRows = sheet.length();
 		}
 
-		if (nbrRows == 0 || sheet instanceof MultiRowsSheet == false) {
+		if (nbrRows == 0 || (sheet instanceof MultiRowsSheet == false && sheet instanceof ColumnarSheet == false)) {
 			return new SheetIterator(null, nbrRows);
 		}
 		/*
@@ -22,6 +22,8 @@
 
 package org.simplity.core.data;
 
+import java.util.Arrays;
+
 import org.simplity.core.ApplicationError;
 import org.simplity.core.dm.field.Field;
 import org.simplity.core.value.Value;
@@ -113,7 +115,7 @@ public enum DataSerializationType {
 			StringBuilder sbf = new StringBuilder();
 			for (Value[] row : values) {
 				this.format(row, sbf);
-				sbf.append(NL);
+				sbf.append(NEW_LINE);
 			}
 			return sbf.toString();
 		}
@@ -123,7 +125,7 @@ public enum DataSerializationType {
 			StringBuilder sbf = new StringBuilder();
 			for (Value[] row : values) {
 				this.format(row, fields, sbf);
-				sbf.append(NL);
+				sbf.append(NEW_LINE);
 			}
 			return sbf.toString();
 		}
@@ -276,7 +278,7 @@ public enum DataSerializationType {
 					writer.value(value.toObject());
 				}
 			}
-			writer.object();
+			writer.endObject();
 			return writer.toString();
 		}
 
@@ -316,6 +318,7 @@ public enum DataSerializationType {
 				}
 				writer.endObject();
 			}
+			writer.endArray();
 			return writer.toString();
 		}
 
@@ -336,6 +339,7 @@ public enum DataSerializationType {
 				}
 				writer.endObject();
 			}
+			writer.endArray();
 			return writer.toString();
 		}
 
@@ -349,7 +353,7 @@ public enum DataSerializationType {
 			int nbrFields = 0;
 			for (String name : namesToUse) {
 				Object obj = json.opt(name);
-				if (obj != null) {
+				if (obj != null && obj != JSONObject.NULL) {
 					inData.setValue(name, Value.parse(obj));
 					nbrFields++;
 				}
@@ -364,7 +368,7 @@ public enum DataSerializationType {
 			for (Field field : fields) {
 				String name = field.getName();
 				Object obj = json.opt(name);
-				if (obj != null) {
+				if (obj != null && obj != JSONObject.NULL) {
 					inData.setValue(name, Value.parse(obj));
 					nbrFields++;
 				}
@@ -375,8 +379,12 @@ public enum DataSerializationType {
 		@Override
 		public MultiRowsSheet parseRows(String text, String[] names) {
 			JSONArray json = new JSONArray(text);
+			ValueType[] types = new ValueType[names.length];
+			if (json.length() == 0) {
+				Arrays.fill(types, ValueType.TEXT);
+				return new MultiRowsSheet(names, types);
+			}
 			Value[] values = this.extract((JSONObject) json.opt(0), names);
-			ValueType[] types = new ValueType[values.length];
 			for (int i = 0; i < types.length; i++) {
 				Value value = values[i];
 				types[i] = value == null ? ValueType.TEXT : value.getValueType();
@@ -405,7 +413,7 @@ public enum DataSerializationType {
 			Value[] values = new Value[names.length];
 			for (int i = 0; i < names.length; i++) {
 				Object obj = json.opt(names[i]);
-				if (obj != null) {
+				if (obj != null && obj != JSONObject.NULL) {
 					values[i] = Value.parse(obj);
 				}
 			}
@@ -416,7 +424,7 @@ public enum DataSerializationType {
 			Value[] values = new Value[fields.length];
 			for (int i = 0; i < fields.length; i++) {
 				Object obj = json.opt(fields[i].getName());
-				if (obj != null) {
+				if (obj != null && obj != JSONObject.NULL) {
 					values[i] = Value.parse(obj);
 				}
 			}
@@ -433,6 +441,7 @@ public enum DataSerializationType {
 	protected static final Logger logger = LoggerFactory.getLogger(DataSerializationType.class);
 
 	protected static final String NL = "\\r?\\n";
+	protected static final char NEW_LINE = '\n';
 	protected static final char COMMA = ',';
 	protected static final String COMMA_STR = ",";
 
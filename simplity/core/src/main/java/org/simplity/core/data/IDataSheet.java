@@ -68,7 +68,9 @@ public interface IDataSheet extends IFieldsCollection, Iterable<IFieldsCollectio
 	/**
 	 * @param zeroBasedRowNumber
 	 *            0 for first row etc..
-	 * @return one row of data as Value objects.
+	 * @return one row of data as Value objects. This may be a copy, as with
+	 *         ColumnarSheet, and hence use setColumnValue() to modify the
+	 *         sheet.
 	 */
 	public Value[] getRow(int zeroBasedRowNumber);
 
@@ -161,7 +163,10 @@ public interface IDataSheet extends IFieldsCollection, Iterable<IFieldsCollectio
 	 */
 	public int getColIdx(String columnName);
 
-	/** @return list of all rows in this sheet */
+	/**
+	 * @return list of all rows in this sheet. This may be a copy, as with
+	 *         ColumnarSheet
+	 */
 	List<Value[]> getAllRows();
 
 	/**
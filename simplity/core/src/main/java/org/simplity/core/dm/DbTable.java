@@ -22,10 +22,16 @@
 
 package org.simplity.core.dm;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.simplity.core.ApplicationError;
 import org.simplity.core.FilterCondition;
@@ -60,8 +66,11 @@ import org.simplity.core.service.OutputRecord;
 import org.simplity.core.service.ServiceContext;
 import org.simplity.core.trans.RelatedRecord;
 import org.simplity.core.util.RdbUtil;
+import org.simplity.core.value.InvalidValueException;
 import org.simplity.core.value.Value;
 import org.simplity.core.value.ValueType;
+import org.simplity.json.JSONArray;
+import org.simplity.json.JSONException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -114,8 +123,18 @@ public class DbTable extends Record {
 	private static final String EQUAL_PARAM = "=?";
 	private static final char PERCENT = '%';
 	private static final char KEY_JOINER = 0;
+	/**
+	 * max number of keys in one sql when rows are read for several keys
+	 */
+	private static final int MAX_KEYS_PER_READ = 256;
+	/*
+	 * prefixes for the two types of page tokens
+	 */
+	private static final String OFFSET_TOKEN = "o";
+	private static final String KEYSET_TOKEN = "k";
 
 	private static final String KEY_PREFIX = "rec.";
+	private static final String CONCURRENCY_ERROR = "Data was changed by some one else while you were editing it. Please cancel this operation and redo it with latest data.";
 	/**
 	 * name of the rdbms table, if this is either a storage table, or a view
 	 * that is to be defined in the rdbms
@@ -204,6 +223,24 @@ public class DbTable extends Record {
 	 * is this record only for reading?
 	 */
 	boolean readOnly;
+	/**
+	 * rows of a sheet are saved one at a time by default. If this is set to a
+	 * positive number, rows are grouped by their save action, and are sent to
+	 * the db as jdbc batches of this many rows. Deletes are carried out first,
+	 * followed by inserts and then updates.
+	 */
+	int saveBatchSize;
+	/**
+	 * filter returns all matching rows by default, unless the client asks for
+	 * a page. If this is set to a positive number, rows are always returned in
+	 * pages of at most these many rows. Select-all is allowed in that case.
+	 */
+	int filterPageSize;
+	/**
+	 * rows to be fetched in one round trip to the db while filtering. 0 means
+	 * the default set for the db
+	 */
+	int fetchSize;
 	/*
 	 * design note:
 	 *
@@ -349,10 +386,183 @@ public class DbTable extends Record {
 			}
 			values[i] = vals;
 		}
-		handle.readBatch(this.readSql, values, outSheet);
+		this.readForKeys(values, handle, outSheet);
 		return outSheet;
 	}
 
+	/**
+	 * read rows for several primary keys with as few sqls as possible. Keys
+	 * are sent in chunks as an IN list, or as OR-ed conditions in case of a
+	 * composite key. Rows are added to the sheet in the order of keys, just as
+	 * if they were read one key at a time.
+	 *
+	 * @param keys
+	 *            non-null values of primary key(s) for each row to be read
+	 * @param handle
+	 * @param outSheet
+	 *            sheet created for this record to which rows are added
+	 */
+	private void readForKeys(Value[][] keys, IReadOnlyHandle handle, IDataSheet outSheet) {
+		Value[][] rows = this.readRowsForKeys(keys, handle, outSheet);
+		Set<Value[]> added = new HashSet<>();
+		for (Value[] row : rows) {
+			if (row == null) {
+				continue;
+			}
+			/*
+			 * in case the key is repeated, next one should get its own row
+			 */
+			if (added.add(row)) {
+				outSheet.addRow(row);
+			} else {
+				outSheet.addRow(Arrays.copyOf(row, row.length));
+			}
+		}
+	}
+
+	/**
+	 * read rows for several primary keys, with keys sent in chunks. A row is
+	 * matched to its key by the text of its key value(s). The db may match a
+	 * key that is not identical in text, like with a case-insensitive or a
+	 * padded column, or a decimal with a different scale. If any row is left
+	 * unmatched, keys that are not matched are read one at a time, so that
+	 * each key gets the row that the db matches for it.
+	 *
+	 * @param keys
+	 *            non-null values of primary key(s) for each row to be read
+	 * @param handle
+	 * @param sheet
+	 *            sheet created for this record. Used to get the column
+	 *            details, and not to add any rows.
+	 * @return row read for the key at the same index, or null if there is no
+	 *         row for that key. The same row is returned for a repeated key.
+	 */
+	private Value[][] readRowsForKeys(Value[][] keys, IReadOnlyHandle handle, IDataSheet sheet) {
+		int nbrKeyFields = this.allPrimaryKeys.length;
+		int[] keyIndexes = new int[nbrKeyFields];
+		for (int i = 0; i < nbrKeyFields; i++) {
+			keyIndexes[i] = sheet.getColIdx(this.allPrimaryKeys[i].getName());
+		}
+
+		Map<String, Value[]> rowsByKey = new HashMap<>();
+		ValueType[] types = sheet.getValueTypes();
+		int nbrKeys = keys.length;
+		for (int start = 0; start < nbrKeys; start += MAX_KEYS_PER_READ) {
+			int n = Math.min(MAX_KEYS_PER_READ, nbrKeys - start);
+			/*
+			 * sql depends on the number of keys. We round it up to a power of
+			 * 2, and repeat the last key to fill-up, so that only a few
+			 * distinct sqls are ever prepared
+			 */
+			int nbrInSql = Integer.highestOneBit(n);
+			if (nbrInSql < n) {
+				nbrInSql <<= 1;
+			}
+			Value[] params = new Value[nbrInSql * nbrKeyFields];
+			int idx = 0;
+			for (int i = 0; i < nbrInSql; i++) {
+				Value[] key = keys[start + Math.min(i, n - 1)];
+				for (Value value : key) {
+					params[idx++] = value;
+				}
+			}
+			handle.read(this.getMultiKeySql(this.allPrimaryKeys, nbrInSql), params, types, row -> {
+				Value[] vals = new Value[nbrKeyFields];
+				for (int i = 0; i < nbrKeyFields; i++) {
+					vals[i] = row[keyIndexes[i]];
+				}
+				rowsByKey.put(getKeyText(vals), row);
+				return true;
+			});
+		}
+
+		Value[][] rows = new Value[nbrKeys][];
+		Set<String> matchedKeys = new HashSet<>();
+		for (int i = 0; i < nbrKeys; i++) {
+			String text = getKeyText(keys[i]);
+			Value[] row = rowsByKey.get(text);
+			if (row != null) {
+				rows[i] = row;
+				matchedKeys.add(text);
+			}
+		}
+		if (matchedKeys.size() == rowsByKey.size()) {
+			return rows;
+		}
+
+		logger.info("{} rows of record {} did not match any key by text. Unmatched keys are read one by one.",
+				rowsByKey.size() - matchedKeys.size(), this.getQualifiedName());
+		Map<String, Value[]> rowsRead = new HashMap<>();
+		for (int i = 0; i < nbrKeys; i++) {
+			if (rows[i] != null) {
+				continue;
+			}
+			String text = getKeyText(keys[i]);
+			if (rowsRead.containsKey(text)) {
+				rows[i] = rowsRead.get(text);
+				continue;
+			}
+			Value[][] found = new Value[1][];
+			handle.read(this.readSql, keys[i], types, row -> {
+				found[0] = row;
+				return false;
+			});
+			rows[i] = found[0];
+			rowsRead.put(text, found[0]);
+		}
+		return rows;
+	}
+
+	/**
+	 * sql to read rows for a number of keys
+	 *
+	 * @param keyFields
+	 *            primary key or parent key fields
+	 * @param nbrKeys
+	 * @return select sql with a where clause with nbrKeys sets of parameters
+	 *         for the key field(s)
+	 */
+	private String getMultiKeySql(DbField[] keyFields, int nbrKeys) {
+		StringBuilder sbf = new StringBuilder(this.filterSql);
+		if (keyFields.length == 1) {
+			sbf.append(keyFields[0].getColumnName()).append(" IN (?");
+			for (int i = 1; i < nbrKeys; i++) {
+				sbf.append(",?");
+			}
+			return sbf.append(')').toString();
+		}
+		/*
+		 * (k1=? AND k2=?) OR (k1=? AND k2=?)... works with all vendors
+		 */
+		StringBuilder cond = new StringBuilder("(");
+		boolean firstOne = true;
+		for (DbField field : keyFields) {
+			if (firstOne) {
+				firstOne = false;
+			} else {
+				cond.append(" AND ");
+			}
+			cond.append(field.getColumnName()).append(EQUAL_PARAM);
+		}
+		cond.append(')');
+		sbf.append('(').append(cond);
+		for (int i = 1; i < nbrKeys; i++) {
+			sbf.append(" OR ").append(cond);
+		}
+		return sbf.append(')').toString();
+	}
+
+	private static String getKeyText(Value[] values) {
+		if (values.length == 1) {
+			return values[0].toString();
+		}
+		StringBuilder sbf = new StringBuilder();
+		for (Value value : values) {
+			sbf.append(value.toString()).append(KEY_JOINER);
+		}
+		return sbf.toString();
+	}
+
 	private Value[] getPrimaryKeyValues(IDataSheet inSheet, int idx) {
 		Value[] values = new Value[this.allPrimaryKeys.length];
 		for (int i = 0; i < this.allPrimaryKeys.length; i++) {
@@ -487,9 +697,20 @@ public class DbTable extends Record {
 	 * @return data sheet, possible with retrieved rows
 	 */
 	public IDataSheet filter(DbTable inputRecord, IFieldsCollection inData, IReadOnlyHandle handle, Value userId) {
-		SqlAndValues temp = this.getSqlAndValues(handle, inData, inputRecord);
+		SqlAndValues temp = this.getSqlAndValues(handle, inData, inputRecord, true);
 		IDataSheet result = this.createSheet(false, false);
-		handle.read(temp.sql, temp.values, result);
+		int nbrRows = handle.read(temp.sql, temp.values, result, this.fetchSize);
+		if (temp.pageSize > 0 && inData instanceof IDataSheet == false) {
+			String token = null;
+			if (nbrRows == temp.pageSize) {
+				if (temp.keysetFields == null) {
+					token = OFFSET_TOKEN + (temp.offset + nbrRows);
+				} else {
+					token = this.getKeysetToken(result, temp.keysetFields);
+				}
+			}
+			this.setNextPageToken(inData, token);
+		}
 		return result;
 	}
 
@@ -579,8 +800,7 @@ public class DbTable extends Record {
 		} else {
 			values = this.getUpdateValues(row, userId);
 			if (handle.execute(this.updateSql, values, treatSqlErrorAsNoResult) == 0) {
-				throw new ApplicationError(
-						"Data was changed by some one else while you were editing it. Please cancel this operation and redo it with latest data.");
+				throw new ApplicationError(CONCURRENCY_ERROR);
 			}
 		}
 		return saveAction;
@@ -604,6 +824,9 @@ public class DbTable extends Record {
 		if (this.readOnly) {
 			this.notWritable();
 		}
+		if (this.saveBatchSize > 0 && inSheet.length() > 1) {
+			return this.saveInBatches(inSheet, handle, userId, treatSqlErrorAsNoResult);
+		}
 		SaveActionType[] result = new SaveActionType[inSheet.length()];
 		int rowIdx = 0;
 		for (IFieldsCollection row : inSheet) {
@@ -638,12 +861,249 @@ public class DbTable extends Record {
 		 * for security/safety, we copy parent key into data
 		 */
 		this.copyParentKeys(parentRow, inSheet);
+		if (this.saveBatchSize > 0 && inSheet.length() > 1) {
+			this.saveInBatches(inSheet, handle, userId, false);
+			return inSheet.length();
+		}
 		for (IFieldsCollection row : inSheet) {
 			this.saveOne(row, handle, userId, false);
 		}
 		return inSheet.length();
 	}
 
+	/**
+	 * bulk version of saveOne() for all rows in the sheet. Rows are saved in
+	 * the order of the sheet, just as with saveOne(). Consecutive rows with
+	 * the same save action are sent to the db in batches of saveBatchSize
+	 * rows.
+	 *
+	 * @param inSheet
+	 * @param handle
+	 * @param userId
+	 * @param treatSqlErrorAsNoResult
+	 * @return save action that was carried out for each row
+	 */
+	private SaveActionType[] saveInBatches(IDataSheet inSheet, ITransactionHandle handle, Value userId,
+			boolean treatSqlErrorAsNoResult) {
+		if (this.allPrimaryKeys == null) {
+			this.noPrimaryKey();
+		}
+		int nbrRows = inSheet.length();
+		IFieldsCollection[] rows = new IFieldsCollection[nbrRows];
+		SaveActionType[] actions = new SaveActionType[nbrRows];
+		String keyName = this.allPrimaryKeys[0].getName();
+		/*
+		 * rows with SAVE action, for which we have to check whether the row
+		 * exists
+		 */
+		List<Integer> rowsToCheck = new ArrayList<>();
+		int rowIdx = 0;
+		for (IFieldsCollection row : inSheet) {
+			rows[rowIdx] = row;
+			if (this.modifiedUserField != null) {
+				row.setValue(this.modifiedUserField.getName(), userId);
+			}
+			SaveActionType saveAction = SaveActionType.SAVE;
+			Value action = row.getValue(AppConventions.Name.TABLE_ACTION);
+			if (action != null) {
+				saveAction = SaveActionType.parse(action.toString());
+			}
+			if (saveAction == SaveActionType.SAVE) {
+				if (this.keyIsGenerated) {
+					saveAction = Value.isNull(row.getValue(keyName)) ? SaveActionType.ADD : SaveActionType.MODIFY;
+				} else {
+					rowsToCheck.add(rowIdx);
+				}
+			}
+			actions[rowIdx] = saveAction;
+			rowIdx++;
+		}
+		if (rowsToCheck.size() > 0) {
+			this.setActionsForSave(rows, actions, rowsToCheck, handle);
+		}
+
+		/*
+		 * rows are saved in the order of the sheet. Consecutive rows with the
+		 * same action are sent together in batches
+		 */
+		logger.info("Saving {} rows of record {} in batches", nbrRows, this.getQualifiedName());
+		List<IFieldsCollection> run = new ArrayList<>();
+		SaveActionType runAction = null;
+		for (int i = 0; i < nbrRows; i++) {
+			SaveActionType saveAction = actions[i];
+			if (saveAction != SaveActionType.ADD && saveAction != SaveActionType.DELETE) {
+				saveAction = SaveActionType.MODIFY;
+			}
+			if (runAction != null && saveAction != runAction) {
+				this.saveRun(runAction, run, handle, userId, treatSqlErrorAsNoResult);
+				run.clear();
+			}
+			runAction = saveAction;
+			run.add(rows[i]);
+		}
+		this.saveRun(runAction, run, handle, userId, treatSqlErrorAsNoResult);
+		return actions;
+	}
+
+	/**
+	 * save consecutive rows that have the same save action, in batches
+	 *
+	 * @param saveAction
+	 *            one of ADD, DELETE or MODIFY
+	 * @param rows
+	 * @param handle
+	 * @param userId
+	 * @param treatSqlErrorAsNoResult
+	 */
+	private void saveRun(SaveActionType saveAction, List<IFieldsCollection> rows, ITransactionHandle handle,
+			Value userId, boolean treatSqlErrorAsNoResult) {
+		if (saveAction == SaveActionType.ADD) {
+			if (this.createdUserField != null) {
+				for (IFieldsCollection row : rows) {
+					row.setValue(this.createdUserField.getName(), userId);
+				}
+			}
+			this.insertInBatches(handle, rows, userId, treatSqlErrorAsNoResult);
+			return;
+		}
+		List<Value[]> values = new ArrayList<>(rows.size());
+		if (saveAction == SaveActionType.DELETE) {
+			for (IFieldsCollection row : rows) {
+				values.add(this.getWhereValues(row, this.useTimestampForConcurrency));
+			}
+			this.executeInBatches(handle, this.deleteSql, values, false, treatSqlErrorAsNoResult);
+			return;
+		}
+		for (IFieldsCollection row : rows) {
+			values.add(this.getUpdateValues(row, userId));
+		}
+		this.executeInBatches(handle, this.updateSql, values, true, treatSqlErrorAsNoResult);
+	}
+
+	/**
+	 * rows with SAVE action are to be added if they do not exist, and modified
+	 * otherwise. Keys of all such rows are checked with the db in bulk
+	 */
+	private void setActionsForSave(IFieldsCollection[] rows, SaveActionType[] actions, List<Integer> rowsToCheck,
+			IReadOnlyHandle handle) {
+		Value[][] keys = new Value[rowsToCheck.size()][];
+		int nbrKeys = 0;
+		for (int idx : rowsToCheck) {
+			Value[] key = this.getWhereValues(rows[idx], false);
+			if (key != null) {
+				keys[nbrKeys++] = key;
+			}
+		}
+		Value[][] existingRows = null;
+		if (nbrKeys > 0) {
+			existingRows = this.readRowsForKeys(Arrays.copyOf(keys, nbrKeys), handle, this.createSheet(false, false));
+		}
+		/*
+		 * a key that is repeated in the sheet is to be added once, and
+		 * modified after that, just as if rows were saved one by one.
+		 */
+		Set<String> addedKeys = new HashSet<>();
+		int keyIdx = 0;
+		for (int idx : rowsToCheck) {
+			Value[] key = this.getWhereValues(rows[idx], false);
+			if (key == null) {
+				actions[idx] = SaveActionType.ADD;
+				continue;
+			}
+			if (existingRows[keyIdx++] == null && addedKeys.add(getKeyText(key))) {
+				actions[idx] = SaveActionType.ADD;
+			} else {
+				actions[idx] = SaveActionType.MODIFY;
+			}
+		}
+	}
+
+	/**
+	 * insert rows in batches, and set generated keys to rows if required
+	 */
+	private void insertInBatches(ITransactionHandle handle, List<IFieldsCollection> rows, Value userId,
+			boolean treatSqlErrorAsNoResult) {
+		List<Value[]> values = new ArrayList<>(rows.size());
+		for (IFieldsCollection row : rows) {
+			values.add(this.getInsertValues(row, userId));
+		}
+		if (this.keyIsGenerated == false) {
+			this.executeInBatches(handle, this.insertSql, values, false, treatSqlErrorAsNoResult);
+			return;
+		}
+
+		String keyName = this.allPrimaryKeys[0].getName();
+		String[] keyNames = { this.allPrimaryKeys[0].getColumnName() };
+		if (handle.getDriver().getDbVendor().returnsKeysForBatch() == false) {
+			/*
+			 * we have no choice but to insert them one by one
+			 */
+			long[] generatedKeys = new long[1];
+			int i = 0;
+			for (IFieldsCollection row : rows) {
+				handle.insertAndGetKeys(this.insertSql, values.get(i), generatedKeys, keyNames,
+						treatSqlErrorAsNoResult);
+				row.setValue(keyName, Value.newIntegerValue(generatedKeys[0]));
+				i++;
+			}
+			return;
+		}
+
+		int nbr = values.size();
+		for (int start = 0; start < nbr; start += this.saveBatchSize) {
+			int end = Math.min(nbr, start + this.saveBatchSize);
+			Value[][] chunk = values.subList(start, end).toArray(new Value[end - start][]);
+			long[] generatedKeys = new long[chunk.length];
+			handle.insertBatchAndGetKeys(this.insertSql, chunk, generatedKeys, keyNames, treatSqlErrorAsNoResult);
+			for (int i = 0; i < chunk.length; i++) {
+				rows.get(start + i).setValue(keyName, Value.newIntegerValue(generatedKeys[i]));
+			}
+		}
+	}
+
+	/**
+	 * execute a sql for rows of values in batches of saveBatchSize
+	 *
+	 * @param handle
+	 * @param sql
+	 * @param values
+	 * @param mustAffectEachRow
+	 *            true if each set of values is expected to affect exactly one
+	 *            row, as in the case of an update with time-stamp check
+	 * @param treatSqlErrorAsNoResult
+	 */
+	private void executeInBatches(ITransactionHandle handle, String sql, List<Value[]> values,
+			boolean mustAffectEachRow, boolean treatSqlErrorAsNoResult) {
+		int nbr = values.size();
+		for (int start = 0; start < nbr; start += this.saveBatchSize) {
+			int end = Math.min(nbr, start + this.saveBatchSize);
+			Value[][] chunk = values.subList(start, end).toArray(new Value[end - start][]);
+			int[] counts = handle.executeBatch(sql, chunk, treatSqlErrorAsNoResult);
+			if (mustAffectEachRow) {
+				this.checkCounts(counts, chunk.length);
+			}
+		}
+	}
+
+	/**
+	 * each row in the batch should have affected a row. Otherwise the row was
+	 * changed or deleted after it was read by the client.
+	 */
+	private void checkCounts(int[] counts, int nbrRows) {
+		if (counts.length != nbrRows) {
+			throw new ApplicationError(CONCURRENCY_ERROR);
+		}
+		for (int n : counts) {
+			if (n == 0) {
+				throw new ApplicationError(CONCURRENCY_ERROR);
+			}
+			if (n < 0 && this.useTimestampForConcurrency) {
+				throw new ApplicationError("Record " + this.getQualifiedName()
+						+ " uses time-stamp for concurrency, but the db driver does not report rows affected by each row in a batch. Set saveBatchSize to 0 for this record.");
+			}
+		}
+	}
+
 	/**
 	 * @param inSheet
 	 * @param userId
@@ -1115,11 +1575,7 @@ public class DbTable extends Record {
 		if (parentData.length() == 0) {
 			return 0;
 		}
-		if (this.allParentKeys.length > 1) {
-			this.filterForMultiParentKeys(parentData, handle, result);
-		} else {
-			this.filterForSingleParentKey(parentData, handle, result);
-		}
+		this.filterForParentKeys(parentData, handle, result);
 		String sn = sheetName;
 		if (sn == null) {
 			sn = this.getDefaultSheetName();
@@ -1133,52 +1589,83 @@ public class DbTable extends Record {
 	}
 
 	/**
+	 * read child rows for all the parent rows with as few sqls as possible.
+	 * Distinct parent keys are sent in chunks, just as in readForKeys(). Child
+	 * rows are added to the sheet grouped by their parent, in the order of
+	 * parent rows. Rows whose key is not identical to that of any parent are
+	 * added at the end.
+	 *
 	 * @param parentData
 	 * @param handle
 	 * @param result
+	 *            sheet created for this record to which rows are added
 	 */
-	private void filterForSingleParentKey(IDataSheet parentData, IReadOnlyHandle handle, IDataSheet result) {
-		String keyName = this.allParentKeys[0].getReferredField();
-		int n = parentData.length();
-		Value[] values = parentData.getColumnValues(keyName);
-		StringBuilder sbf = new StringBuilder(this.filterSql);
-		sbf.append(this.allParentKeys[0].getColumnName());
+	private void filterForParentKeys(IDataSheet parentData, IReadOnlyHandle handle, IDataSheet result) {
 		/*
-		 * for single key we use where key = ?
-		 *
-		 * for multiple, we use where key in (?,?,....)
+		 * distinct keys, in the order of parent rows
 		 */
-		if (n == 1) {
-			sbf.append(EQUAL_PARAM);
-		} else {
-			sbf.append(" IN (?");
-			for (int i = 1; i < n; i++) {
-				sbf.append(",?");
+		Map<String, Value[]> keys = new LinkedHashMap<>();
+		for (IFieldsCollection parentRow : parentData) {
+			Value[] key = this.getParentValues(parentRow);
+			if (key != null) {
+				keys.putIfAbsent(getKeyText(key), key);
 			}
-			sbf.append(')');
 		}
-		handle.read(sbf.toString(), values, result);
-	}
+		int nbrKeys = keys.size();
+		if (nbrKeys == 0) {
+			return;
+		}
 
-	/**
-	 * read rows from this record for a given parent record
-	 *
-	 * @param parentData
-	 *            rows for parent
-	 * @param handle
-	 * @param name
-	 * @param cascadeFilter
-	 * @param ctx
-	 */
-	private void filterForMultiParentKeys(IDataSheet parentData, IReadOnlyHandle handle, IDataSheet outSheet) {
-		String sql = this.filterSql + this.getParentWhereClause();
-		int nbrRows = parentData.length();
-		Value[][] allValues = new Value[nbrRows][];
-		int idx = 0;
-		for (IFieldsCollection prentRow : parentData) {
-			allValues[idx++] = this.getParentValues(prentRow);
+		int nbrKeyFields = this.allParentKeys.length;
+		int[] keyIndexes = new int[nbrKeyFields];
+		for (int i = 0; i < nbrKeyFields; i++) {
+			keyIndexes[i] = result.getColIdx(this.allParentKeys[i].getName());
+		}
+		Map<String, List<Value[]>> rowsByParent = new LinkedHashMap<>();
+		ValueType[] types = result.getValueTypes();
+		Value[][] allKeys = keys.values().toArray(new Value[0][]);
+		for (int start = 0; start < nbrKeys; start += MAX_KEYS_PER_READ) {
+			int n = Math.min(MAX_KEYS_PER_READ, nbrKeys - start);
+			int nbrInSql = Integer.highestOneBit(n);
+			if (nbrInSql < n) {
+				nbrInSql <<= 1;
+			}
+			Value[] params = new Value[nbrInSql * nbrKeyFields];
+			int idx = 0;
+			for (int i = 0; i < nbrInSql; i++) {
+				Value[] key = allKeys[start + Math.min(i, n - 1)];
+				for (Value value : key) {
+					params[idx++] = value;
+				}
+			}
+			handle.read(this.getMultiKeySql(this.allParentKeys, nbrInSql), params, types, row -> {
+				Value[] vals = new Value[nbrKeyFields];
+				for (int i = 0; i < nbrKeyFields; i++) {
+					vals[i] = row[keyIndexes[i]];
+				}
+				rowsByParent.computeIfAbsent(getKeyText(vals), k -> new ArrayList<>()).add(row);
+				return true;
+			});
+		}
+
+		for (String key : keys.keySet()) {
+			List<Value[]> rows = rowsByParent.remove(key);
+			if (rows != null) {
+				for (Value[] row : rows) {
+					result.addRow(row);
+				}
+			}
+		}
+		/*
+		 * db may have matched a key that is not identical in text, like with a
+		 * case-insensitive or a padded column. Such rows are appended in the
+		 * order they were read
+		 */
+		for (List<Value[]> rows : rowsByParent.values()) {
+			for (Value[] row : rows) {
+				result.addRow(row);
+			}
 		}
-		handle.readBatch(sql, allValues, outSheet);
 	}
 
 	/**
@@ -1956,11 +2443,18 @@ public class DbTable extends Record {
 		/*
 		 * we have to create where clause with ? and corresponding values[]
 		 */
-		SqlAndValues temp = this.getSqlAndValues(handle, inData, inRecord);
+		SqlAndValues temp = this.getSqlAndValues(handle, inData, inRecord, false);
 		String[] names = this.getFieldNames();
 		IResultSetReader reader = RdbUtil.newReaderForResponseWriter(writer, useCompactFormat, names,
 				this.getValueTypes());
-		handle.read(temp.sql, temp.values, reader);
+		int nbrRows = handle.read(temp.sql, temp.values, reader, this.fetchSize);
+		if (temp.pageSize > 0) {
+			String token = null;
+			if (nbrRows == temp.pageSize) {
+				token = OFFSET_TOKEN + (temp.offset + nbrRows);
+			}
+			this.setNextPageToken(inData, token);
+		}
 	}
 
 	/**
@@ -1969,9 +2463,14 @@ public class DbTable extends Record {
 	 *
 	 * @param inData
 	 * @param inRecord
+	 * @param keysetOk
+	 *            true if the caller can create a token from the key of the last
+	 *            row in a page. Offset is used for paging otherwise.
 	 * @return struct that has both sql and values
 	 */
-	private SqlAndValues getSqlAndValues(IReadOnlyHandle handle, IFieldsCollection inData, Record inRecord) {
+	private SqlAndValues getSqlAndValues(IReadOnlyHandle handle, IFieldsCollection inData, Record inRecord,
+			boolean keysetOk) {
+		int pageSize = this.getPageSize(inData);
 		StringBuilder sql = new StringBuilder(this.filterSql);
 		List<Value> filterValues = new ArrayList<Value>();
 		boolean firstTime = true;
@@ -2051,23 +2550,206 @@ public class DbTable extends Record {
 			/*
 			 * no conditions..
 			 */
-			if (this.okToSelectAll == false) {
+			if (this.okToSelectAll == false && this.filterPageSize <= 0) {
 				throw new ApplicationError("Record " + this.name
 						+ " is likely to contain large number of records, and hence we do not allow select-all operation");
 			}
 			sql.append(" 1 = 1 ");
-			values = new Value[0];
-		} else {
-			values = filterValues.toArray(new Value[0]);
 		}
 		/*
 		 * is there sort order?
 		 */
 		Value sorts = inData.getValue(AppConventions.Name.SORT_COLUMN);
-		if (sorts != null) {
-			sql.append(" ORDER BY ").append(sorts.toString());
+		if (pageSize == 0) {
+			if (sorts != null) {
+				sql.append(" ORDER BY ").append(sorts.toString());
+			}
+			values = filterValues.toArray(new Value[0]);
+			return new SqlAndValues(sql.toString(), values);
 		}
-		return new SqlAndValues(sql.toString(), values);
+
+		/*
+		 * a page is requested. We use the primary key as keyset if the rows
+		 * are not sorted on other columns. Else we skip the rows of earlier
+		 * pages with an offset
+		 */
+		DbField[] keysetFields = null;
+		if (keysetOk && sorts == null && this.allPrimaryKeys != null) {
+			keysetFields = this.allPrimaryKeys;
+		}
+		int offset = 0;
+		String token = null;
+		Value tokenValue = inData.getValue(AppConventions.Name.PAGE_TOKEN);
+		if (Value.isNull(tokenValue) == false) {
+			token = this.decodePageToken(tokenValue.toString());
+		}
+		if (keysetFields == null) {
+			if (token != null) {
+				offset = this.parseOffsetToken(token);
+			}
+			sql.append(" ORDER BY ");
+			if (sorts != null) {
+				sql.append(sorts.toString());
+			} else if (this.allPrimaryKeys != null) {
+				this.appendColumnNames(sql, this.allPrimaryKeys);
+			} else {
+				sql.append(((DbField) this.fields[0]).getColumnName());
+			}
+		} else {
+			if (token != null) {
+				Value[] lastKeys = this.parseKeysetToken(token, keysetFields);
+				this.appendKeysetCondition(sql, keysetFields);
+				for (int i = 0; i < keysetFields.length; i++) {
+					/*
+					 * i'th group has the first i keys for equality, followed
+					 * by the i'th key for greater-than
+					 */
+					for (int j = 0; j <= i; j++) {
+						filterValues.add(lastKeys[j]);
+					}
+				}
+			}
+			sql.append(" ORDER BY ");
+			this.appendColumnNames(sql, keysetFields);
+		}
+		handle.getDbVendor().appendPagination(sql, pageSize, offset);
+		values = filterValues.toArray(new Value[0]);
+		SqlAndValues result = new SqlAndValues(sql.toString(), values);
+		result.pageSize = pageSize;
+		result.offset = offset;
+		result.keysetFields = keysetFields;
+		return result;
+	}
+
+	/**
+	 * page size for a filter is the smaller of the one asked by the client and
+	 * the one set for this table
+	 *
+	 * @param inData
+	 * @return 0 if rows are not to be paged
+	 */
+	private int getPageSize(IFieldsCollection inData) {
+		int pageSize = this.filterPageSize > 0 ? this.filterPageSize : 0;
+		Value value = inData.getValue(AppConventions.Name.PAGE_SIZE);
+		if (Value.isNull(value)) {
+			return pageSize;
+		}
+		long asked;
+		try {
+			asked = value.toInteger();
+		} catch (InvalidValueException e) {
+			throw new ApplicationError(value + " is not a valid page size for filtering record " + this.name);
+		}
+		if (asked > 0 && (pageSize == 0 || asked < pageSize)) {
+			return (int) asked;
+		}
+		return pageSize;
+	}
+
+	private void appendColumnNames(StringBuilder sql, DbField[] dbFields) {
+		sql.append(dbFields[0].getColumnName());
+		for (int i = 1; i < dbFields.length; i++) {
+			sql.append(DbTable.COMMA).append(dbFields[i].getColumnName());
+		}
+	}
+
+	/**
+	 * rows that come after the last key. For keys (a, b) this is
+	 * (a > ?) OR (a = ? AND b > ?)
+	 */
+	private void appendKeysetCondition(StringBuilder sql, DbField[] keys) {
+		sql.append(" AND (");
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) {
+				sql.append(" OR ");
+			}
+			sql.append('(');
+			for (int j = 0; j < i; j++) {
+				sql.append(keys[j].getColumnName()).append(DbTable.EQUAL_PARAM).append(" AND ");
+			}
+			sql.append(keys[i].getColumnName()).append(" >?)");
+		}
+		sql.append(')');
+	}
+
+	/**
+	 * token that has the key of the last row in this page
+	 */
+	private String getKeysetToken(IDataSheet sheet, DbField[] keys) {
+		int lastRow = sheet.length() - 1;
+		JSONArray arr = new JSONArray();
+		for (DbField key : keys) {
+			arr.put(sheet.getColumnValue(key.getName(), lastRow).toString());
+		}
+		return KEYSET_TOKEN + arr.toString();
+	}
+
+	private Value[] parseKeysetToken(String token, DbField[] keys) {
+		if (token.startsWith(KEYSET_TOKEN)) {
+			try {
+				JSONArray arr = new JSONArray(token.substring(KEYSET_TOKEN.length()));
+				if (arr.length() == keys.length) {
+					Value[] values = new Value[keys.length];
+					for (int i = 0; i < keys.length; i++) {
+						Value value = keys[i].getValueType().parse(arr.getString(i));
+						if (Value.isNull(value)) {
+							values = null;
+							break;
+						}
+						values[i] = value;
+					}
+					if (values != null) {
+						return values;
+					}
+				}
+			} catch (JSONException e) {
+				//
+			}
+		}
+		throw new ApplicationError(token + " is not a valid page token for filtering record " + this.name);
+	}
+
+	private int parseOffsetToken(String token) {
+		if (token.startsWith(OFFSET_TOKEN)) {
+			try {
+				int offset = Integer.parseInt(token.substring(OFFSET_TOKEN.length()));
+				if (offset >= 0) {
+					return offset;
+				}
+			} catch (NumberFormatException e) {
+				//
+			}
+		}
+		throw new ApplicationError(token + " is not a valid page token for filtering record " + this.name);
+	}
+
+	/**
+	 * tokens are opaque to the client. We url-encode them so that they can be
+	 * sent back as they are.
+	 */
+	private String encodePageToken(String token) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String decodePageToken(String token) {
+		try {
+			return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new ApplicationError(token + " is not a valid page token for filtering record " + this.name);
+		}
+	}
+
+	/**
+	 * @param inData
+	 * @param token
+	 *            null if there are no more rows.
+	 */
+	private void setNextPageToken(IFieldsCollection inData, String token) {
+		if (token == null) {
+			inData.removeValue(AppConventions.Name.NEXT_PAGE_TOKEN);
+			return;
+		}
+		inData.setValue(AppConventions.Name.NEXT_PAGE_TOKEN, Value.newTextValue(this.encodePageToken(token)));
 	}
 
 	/**
@@ -2205,6 +2887,12 @@ public class DbTable extends Record {
 class SqlAndValues {
 	final String sql;
 	final Value[] values;
+	/*
+	 * set only when a page of rows is requested
+	 */
+	int pageSize;
+	int offset;
+	DbField[] keysetFields;
 
 	SqlAndValues(String sql, Value[] values) {
 		this.sql = sql;
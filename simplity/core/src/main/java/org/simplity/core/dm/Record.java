@@ -39,6 +39,7 @@ import org.simplity.core.comp.IComponent;
 import org.simplity.core.comp.IValidationContext;
 import org.simplity.core.comp.ValidationMessage;
 import org.simplity.core.comp.ValidationUtil;
+import org.simplity.core.data.ColumnarSheet;
 import org.simplity.core.data.DataPurpose;
 import org.simplity.core.data.IDataSheet;
 import org.simplity.core.data.MultiRowsSheet;
@@ -217,7 +218,7 @@ public class Record implements IComponent {
 		if (forSingleRow) {
 			return new SingleRowSheet(sheetFeilds);
 		}
-		return new MultiRowsSheet(sheetFeilds);
+		return newMultiRowsSheet(sheetFeilds);
 	}
 
 	/**
@@ -247,7 +248,14 @@ public class Record implements IComponent {
 		if (forSingleRow) {
 			return new SingleRowSheet(subset);
 		}
-		return new MultiRowsSheet(subset);
+		return newMultiRowsSheet(subset);
+	}
+
+	private static IDataSheet newMultiRowsSheet(Field[] sheetFields) {
+		if (Application.preferColumnarSheets() && ColumnarSheet.canBeUsedFor(sheetFields)) {
+			return new ColumnarSheet(sheetFields);
+		}
+		return new MultiRowsSheet(sheetFields);
 	}
 
 	/*
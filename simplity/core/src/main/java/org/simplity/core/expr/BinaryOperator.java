@@ -484,7 +484,7 @@ public enum BinaryOperator {
 	private static final String OR = "||";
 
 	/** decimal comparison is dangerous. Use this as zero */
-	private static final double DECIMAL_ZERO = 0.0000001;
+	static final double DECIMAL_ZERO = 0.0000001;
 
 	/**
 	 * get an instance of the desired operator
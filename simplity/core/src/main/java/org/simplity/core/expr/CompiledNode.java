@@ -0,0 +1,547 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.expr;
+
+import org.simplity.core.app.Application;
+import org.simplity.core.data.IFieldsCollection;
+import org.simplity.core.fn.IFunction;
+import org.simplity.core.value.BooleanValue;
+import org.simplity.core.value.DecimalValue;
+import org.simplity.core.value.IntegerValue;
+import org.simplity.core.value.InvalidValueException;
+import org.simplity.core.value.Value;
+import org.simplity.core.value.ValueType;
+
+/**
+ * an expression compiled into a tree of nodes, so that it is not re-walked
+ * step-by-step on every evaluation. Numeric operations are carried out on
+ * primitives, and a Value object is created only for the final result, or
+ * when an operation has to fall back on the binary operator itself. Results
+ * are the same as that of the step-by-step evaluation, except that the right
+ * side of & and | is never evaluated when the left side decides the result.
+ * Step-by-step evaluation used to evaluate it anyway if it had operators of
+ * higher precedence.
+ *
+ * @author simplity.org
+ */
+abstract class CompiledNode {
+	/*
+	 * what a node has put into the frame on evaluateNumber()
+	 */
+	static final int OTHER = 0;
+	static final int LONG = 1;
+	static final int DOUBLE = 2;
+
+	/**
+	 * scratch area to pass primitive results up the tree without creating
+	 * value objects. One frame per evaluation.
+	 */
+	static final class Frame {
+		long l;
+		double d;
+		Value v;
+	}
+
+	/**
+	 * @param data
+	 * @param frame
+	 * @return value of this node
+	 * @throws InvalidOperationException
+	 */
+	abstract Value evaluate(IFieldsCollection data, Frame frame) throws InvalidOperationException;
+
+	/**
+	 * evaluate this node, and put the result into the frame as a primitive if
+	 * it is a known number
+	 *
+	 * @param data
+	 * @param frame
+	 * @return LONG if the result is in frame.l, DOUBLE if it is in frame.d and
+	 *         OTHER if the result is a non-numeric or unknown value in
+	 *         frame.v
+	 * @throws InvalidOperationException
+	 */
+	int evaluateNumber(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+		return classify(this.evaluate(data, frame), frame);
+	}
+
+	static int classify(Value value, Frame frame) {
+		frame.v = value;
+		if (value == null || value.isUnknown()) {
+			return OTHER;
+		}
+		ValueType vt = value.getValueType();
+		if (vt == ValueType.INTEGER) {
+			frame.l = ((IntegerValue) value).getLong();
+			return LONG;
+		}
+		if (vt == ValueType.DECIMAL) {
+			frame.d = ((DecimalValue) value).getDouble();
+			return DOUBLE;
+		}
+		return OTHER;
+	}
+
+	static Value toValue(int status, long l, double d, Value v) {
+		if (status == LONG) {
+			return Value.newIntegerValue(l);
+		}
+		if (status == DOUBLE) {
+			return Value.newDecimalValue(d);
+		}
+		return v;
+	}
+
+	/**
+	 * compile an expression
+	 *
+	 * @param expr
+	 *            parsed expression
+	 * @return root node of the compiled tree
+	 */
+	static CompiledNode compile(Expression expr) {
+		if (expr.operands == null) {
+			return new ConstantNode(Value.newUnknownValue(ValueType.TEXT));
+		}
+		return buildTree(expr)[0];
+	}
+
+	/**
+	 * compile an argument list of a function
+	 *
+	 * @param expr
+	 *            argument list. null if the function has no arguments
+	 * @return one node for each argument
+	 */
+	static CompiledNode[] compileArguments(Expression expr) {
+		if (expr == null || expr.operands == null) {
+			return new CompiledNode[0];
+		}
+		CompiledNode[] nodes = buildTree(expr);
+		int nbrArgs = expr.nbrCommas + 1;
+		if (nbrArgs == nodes.length) {
+			return nodes;
+		}
+		/*
+		 * comma steps are at the end, and each one has the index of the next
+		 * argument as its right
+		 */
+		CompiledNode[] args = new CompiledNode[nbrArgs];
+		args[0] = nodes[0];
+		int stepIdx = expr.calculationSteps.length - expr.nbrCommas;
+		for (int i = 1; i < nbrArgs; i++) {
+			args[i] = nodes[expr.calculationSteps[stepIdx].right];
+			stepIdx++;
+		}
+		return args;
+	}
+
+	/**
+	 * replay the calculation steps on nodes instead of on values. Each step
+	 * replaces its left node with a node for the operation.
+	 */
+	private static CompiledNode[] buildTree(Expression expr) {
+		Operand[] operands = expr.operands;
+		CompiledNode[] nodes = new CompiledNode[operands.length];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = compileOperand(operands[i]);
+		}
+		if (expr.calculationSteps != null) {
+			int nbrSteps = expr.calculationSteps.length - expr.nbrCommas;
+			for (int i = 0; i < nbrSteps; i++) {
+				Step step = expr.calculationSteps[i];
+				nodes[step.left] = newBinaryNode(step.bop, nodes[step.left], nodes[step.right]);
+			}
+		}
+		return nodes;
+	}
+
+	private static CompiledNode compileOperand(Operand operand) {
+		switch (operand.operandType) {
+		case Operand.CONSTANT:
+			return new ConstantNode(operand.value);
+		case Operand.FIELD:
+			return new FieldNode(operand.value.toString(), operand.uop);
+		case Operand.EXPRESSION:
+			return UnaryNode.wrap(compile(operand.expression), operand.uop);
+		default:
+			CompiledNode[] args = compileArguments(operand.expression);
+			return UnaryNode.wrap(new FunctionNode(operand.value.toString(), args), operand.uop);
+		}
+	}
+
+	private static CompiledNode newBinaryNode(BinaryOperator bop, CompiledNode left, CompiledNode right) {
+		if (bop == BinaryOperator.And || bop == BinaryOperator.Or) {
+			return new LogicalNode(bop, left, right);
+		}
+		/*
+		 * fold constants, unless the operation fails, in which case it should
+		 * fail at run time, as it used to
+		 */
+		if (left instanceof ConstantNode && right instanceof ConstantNode) {
+			try {
+				return new ConstantNode(bop.operate(((ConstantNode) left).value, ((ConstantNode) right).value));
+			} catch (Exception e) {
+				// not folded
+			}
+		}
+		switch (bop) {
+		case Multiply:
+		case Divide:
+		case Modulo:
+		case Plus:
+		case Minus:
+			return new ArithmeticNode(bop, left, right);
+		default:
+			return new CompareNode(bop, left, right);
+		}
+	}
+
+	/**
+	 * apply unary operator, exactly as Operand does
+	 */
+	static Value applyUnary(UnaryOperator uop, Value value) throws InvalidOperationException {
+		if (uop == null || value.isUnknown()) {
+			return value;
+		}
+		ValueType type = value.getValueType();
+		if (uop == UnaryOperator.Not) {
+			if (type == ValueType.BOOLEAN) {
+				return Value.newBooleanValue(!((BooleanValue) value).getBoolean());
+			}
+		} else {
+			if (type == ValueType.INTEGER) {
+				return Value.newIntegerValue(-((IntegerValue) value).getLong());
+			}
+			if (type == ValueType.DECIMAL) {
+				return Value.newDecimalValue(-((DecimalValue) value).getDouble());
+			}
+		}
+		throw new InvalidOperationException(UnaryOperator.Not, type);
+	}
+
+	/**
+	 * apply minus on a number in the frame, or unary operator on the value
+	 */
+	static int applyUnary(UnaryOperator uop, int status, Frame frame) throws InvalidOperationException {
+		if (uop == null) {
+			return status;
+		}
+		if (uop == UnaryOperator.Minus) {
+			if (status == LONG) {
+				frame.l = -frame.l;
+				return LONG;
+			}
+			if (status == DOUBLE) {
+				frame.d = -frame.d;
+				return DOUBLE;
+			}
+		}
+		return classify(applyUnary(uop, toValue(status, frame.l, frame.d, frame.v)), frame);
+	}
+
+	private static class ConstantNode extends CompiledNode {
+		final Value value;
+		private final int status;
+		private final long l;
+		private final double d;
+
+		ConstantNode(Value value) {
+			this.value = value;
+			Frame frame = new Frame();
+			this.status = classify(value, frame);
+			this.l = frame.l;
+			this.d = frame.d;
+		}
+
+		@Override
+		Value evaluate(IFieldsCollection data, Frame frame) {
+			return this.value;
+		}
+
+		@Override
+		int evaluateNumber(IFieldsCollection data, Frame frame) {
+			frame.l = this.l;
+			frame.d = this.d;
+			frame.v = this.value;
+			return this.status;
+		}
+	}
+
+	private static class FieldNode extends CompiledNode {
+		private final String fieldName;
+		private final UnaryOperator uop;
+
+		FieldNode(String fieldName, UnaryOperator uop) {
+			this.fieldName = fieldName;
+			this.uop = uop;
+		}
+
+		@Override
+		Value evaluate(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			Value value = data.getValue(this.fieldName);
+			if (this.uop == UnaryOperator.IsKnown) {
+				return Value.newBooleanValue(value != null);
+			}
+			if (this.uop == UnaryOperator.IsUnknown) {
+				return Value.newBooleanValue(value == null);
+			}
+			if (value == null) {
+				value = Value.newUnknownValue(ValueType.TEXT);
+			}
+			return applyUnary(this.uop, value);
+		}
+
+		@Override
+		int evaluateNumber(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			if (this.uop != null && this.uop != UnaryOperator.Minus) {
+				return classify(this.evaluate(data, frame), frame);
+			}
+			Value value = data.getValue(this.fieldName);
+			if (value == null) {
+				value = Value.newUnknownValue(ValueType.TEXT);
+			}
+			return applyUnary(this.uop, classify(value, frame), frame);
+		}
+	}
+
+	private static class UnaryNode extends CompiledNode {
+		private final CompiledNode operand;
+		private final UnaryOperator uop;
+
+		static CompiledNode wrap(CompiledNode node, UnaryOperator uop) {
+			if (uop == null) {
+				return node;
+			}
+			return new UnaryNode(node, uop);
+		}
+
+		private UnaryNode(CompiledNode operand, UnaryOperator uop) {
+			this.operand = operand;
+			this.uop = uop;
+		}
+
+		@Override
+		Value evaluate(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			return applyUnary(this.uop, this.operand.evaluate(data, frame));
+		}
+
+		@Override
+		int evaluateNumber(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			return applyUnary(this.uop, this.operand.evaluateNumber(data, frame), frame);
+		}
+	}
+
+	private static class FunctionNode extends CompiledNode {
+		private final String functionName;
+		private final CompiledNode[] args;
+
+		FunctionNode(String functionName, CompiledNode[] args) {
+			this.functionName = functionName;
+			this.args = args;
+		}
+
+		@Override
+		Value evaluate(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			Value[] values = null;
+			if (this.args.length > 0) {
+				values = new Value[this.args.length];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = this.args[i].evaluate(data, frame);
+				}
+			}
+			IFunction fn = Application.getActiveInstance().getFunction(this.functionName);
+			return fn.execute(values, data);
+		}
+	}
+
+	/**
+	 * lazy and/or. right side is evaluated only if required
+	 */
+	private static class LogicalNode extends CompiledNode {
+		private final BinaryOperator bop;
+		private final boolean isOr;
+		private final CompiledNode left;
+		private final CompiledNode right;
+
+		LogicalNode(BinaryOperator bop, CompiledNode left, CompiledNode right) {
+			this.bop = bop;
+			this.isOr = bop == BinaryOperator.Or;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Value evaluate(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			Value leftValue = this.left.evaluate(data, frame);
+			Value rightValue = null;
+			try {
+				boolean b = leftValue.toBoolean();
+				if (b != this.isOr) {
+					rightValue = this.right.evaluate(data, frame);
+					b = rightValue.toBoolean();
+				}
+				return Value.newBooleanValue(b);
+			} catch (InvalidValueException e) {
+				throw new InvalidOperationException(this.bop, leftValue.getValueType(),
+						rightValue == null ? null : rightValue.getValueType());
+			}
+		}
+	}
+
+	/**
+	 * + - * / and %
+	 */
+	private static class ArithmeticNode extends CompiledNode {
+		private final BinaryOperator bop;
+		private final CompiledNode left;
+		private final CompiledNode right;
+
+		ArithmeticNode(BinaryOperator bop, CompiledNode left, CompiledNode right) {
+			this.bop = bop;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Value evaluate(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			int status = this.evaluateNumber(data, frame);
+			return toValue(status, frame.l, frame.d, frame.v);
+		}
+
+		@Override
+		int evaluateNumber(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			int ls = this.left.evaluateNumber(data, frame);
+			long ll = frame.l;
+			double ld = frame.d;
+			Value lv = frame.v;
+			int rs = this.right.evaluateNumber(data, frame);
+			if (ls == LONG && rs == LONG) {
+				long rl = frame.l;
+				switch (this.bop) {
+				case Multiply:
+					frame.l = ll * rl;
+					return LONG;
+				case Divide:
+					frame.l = ll / rl;
+					return LONG;
+				case Modulo:
+					frame.l = ll % rl;
+					return LONG;
+				case Plus:
+					frame.l = ll + rl;
+					return LONG;
+				default:
+					frame.l = ll - rl;
+					return LONG;
+				}
+			}
+			if (ls != OTHER && rs != OTHER && this.bop != BinaryOperator.Modulo) {
+				double x = ls == LONG ? ll : ld;
+				double y = rs == LONG ? frame.l : frame.d;
+				switch (this.bop) {
+				case Multiply:
+					frame.d = x * y;
+					return DOUBLE;
+				case Divide:
+					frame.d = x / y;
+					return DOUBLE;
+				case Plus:
+					frame.d = x + y;
+					return DOUBLE;
+				default:
+					frame.d = x - y;
+					return DOUBLE;
+				}
+			}
+			Value leftValue = toValue(ls, ll, ld, lv);
+			Value rightValue = toValue(rs, frame.l, frame.d, frame.v);
+			return classify(this.bop.operate(leftValue, rightValue), frame);
+		}
+	}
+
+	/**
+	 * comparators
+	 */
+	private static class CompareNode extends CompiledNode {
+		private final BinaryOperator bop;
+		private final CompiledNode left;
+		private final CompiledNode right;
+
+		CompareNode(BinaryOperator bop, CompiledNode left, CompiledNode right) {
+			this.bop = bop;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		Value evaluate(IFieldsCollection data, Frame frame) throws InvalidOperationException {
+			int ls = this.left.evaluateNumber(data, frame);
+			long ll = frame.l;
+			double ld = frame.d;
+			Value lv = frame.v;
+			int rs = this.right.evaluateNumber(data, frame);
+			if (ls == LONG && rs == LONG) {
+				long rl = frame.l;
+				switch (this.bop) {
+				case Less:
+					return Value.newBooleanValue(ll < rl);
+				case LessOrEqual:
+					return Value.newBooleanValue(ll <= rl);
+				case Greater:
+					return Value.newBooleanValue(ll > rl);
+				case GreaterOrEqual:
+					return Value.newBooleanValue(ll >= rl);
+				case Equal:
+					return Value.newBooleanValue(ll == rl);
+				case NotEqual:
+					return Value.newBooleanValue(ll != rl);
+				default:
+					break;
+				}
+			} else if (ls != OTHER && rs != OTHER) {
+				double x = ls == LONG ? ll : ld;
+				double y = rs == LONG ? frame.l : frame.d;
+				switch (this.bop) {
+				case Less:
+					return Value.newBooleanValue(x < y);
+				case LessOrEqual:
+					return Value.newBooleanValue(x <= y);
+				case Greater:
+					return Value.newBooleanValue(x > y);
+				case GreaterOrEqual:
+					return Value.newBooleanValue(x >= y);
+				case Equal:
+					return Value.newBooleanValue(x - y < BinaryOperator.DECIMAL_ZERO);
+				case NotEqual:
+					return Value.newBooleanValue(x - y > BinaryOperator.DECIMAL_ZERO);
+				default:
+					break;
+				}
+			}
+			Value leftValue = toValue(ls, ll, ld, lv);
+			Value rightValue = toValue(rs, frame.l, frame.d, frame.v);
+			return this.bop.operate(leftValue, rightValue);
+		}
+	}
+}
@@ -139,6 +139,13 @@ public class Expression {
 	 */
 	int nbrCommas = 0;
 
+	/**
+	 * operands and steps compiled into a tree that is used for evaluation.
+	 * Sub-expressions are part of the tree of their parent, and hence this is
+	 * null for them.
+	 */
+	private CompiledNode compiledTree;
+
 	/**
 	 * this is an immutable instance that is thread-safe. Hence expression is
 	 * set at the time of construction, and an exception is thrown in case of
@@ -165,6 +172,7 @@ public class Expression {
 		} catch (InternalParseException e) {
 			throw new InvalidExpressionException(this.expressionText, e.error, e.errorAt);
 		}
+		this.compiledTree = CompiledNode.compile(this);
 	}
 
 	/**
@@ -193,6 +201,20 @@ public class Expression {
 	 * @throws InvalidOperationException
 	 */
 	public Value evaluate(IFieldsCollection data) throws InvalidOperationException {
+		if (this.compiledTree != null) {
+			return this.compiledTree.evaluate(data, new CompiledNode.Frame());
+		}
+		return this.interpret(data);
+	}
+
+	/**
+	 * evaluate by taking the calculation steps one by one
+	 *
+	 * @param data
+	 * @return value of this expression
+	 * @throws InvalidOperationException
+	 */
+	Value interpret(IFieldsCollection data) throws InvalidOperationException {
 		/*
 		 * this is just a safety. As per our current design, this should not
 		 * happen
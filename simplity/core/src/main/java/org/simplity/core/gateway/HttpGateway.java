@@ -31,6 +31,9 @@ import java.net.PasswordAuthentication;
 import java.net.ProtocolException;
 import java.net.Proxy;
 import java.net.URL;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -63,6 +66,9 @@ import org.w3c.dom.Document;
 public class HttpGateway extends ServiceGateway {
 	protected static final Logger logger = LoggerFactory.getLogger(HttpGateway.class);
 	static final String DEFAULT_METHOD = "POST";
+	static final int DEFAULT_TIMEOUT_MILLIS = 30000;
+	private static final IHttpConnector DEFAULT_CONNECTOR = (url, proxy) -> (HttpURLConnection) (proxy == null
+			? url.openConnection() : url.openConnection(proxy));
 
 	/**
 	 * base url of the server. for example https://www.simplity.org/thisApp/
@@ -111,6 +117,42 @@ public class HttpGateway extends ServiceGateway {
 	 */
 	String headerNameForService;
 
+	/**
+	 * milliseconds to wait for a connection to the server. 0 means wait for
+	 * ever.
+	 */
+	int connectTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+	/**
+	 * milliseconds to wait for the response once the request is sent. 0 means
+	 * wait for ever.
+	 */
+	int readTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+	/**
+	 * max number of requests that can be in progress with this server at any
+	 * time. Others wait for up to connectTimeoutMillis. 0 means no limit.
+	 * Connections are kept alive and re-used by the jdk, that keeps up to
+	 * http.maxConnections (system property, 5 by default) idle connections
+	 * per server.
+	 */
+	int maxConnections;
+
+	/**
+	 * class that implements IHttpConnector, to be used to open connections. By
+	 * default, connections are opened with the jdk
+	 */
+	String connectorClassName;
+
+	/*
+	 * permits for maxConnections. null if there is no limit
+	 */
+	private Semaphore connectionPermits;
+	/*
+	 * resolved on first use, as the app may not be active in getReady()
+	 */
+	private IHttpConnector connector;
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -130,6 +172,44 @@ public class HttpGateway extends ServiceGateway {
 		return this.contentIsXml;
 	}
 
+	synchronized IHttpConnector getConnector() {
+		if (this.connector == null) {
+			if (this.connectorClassName == null) {
+				this.connector = DEFAULT_CONNECTOR;
+			} else {
+				this.connector = Application.getActiveInstance().getBean(this.connectorClassName,
+						IHttpConnector.class);
+				if (this.connector == null) {
+					throw new ApplicationError(this.connectorClassName + " could not be used as connector for gateway "
+							+ this.applicationName);
+				}
+			}
+		}
+		return this.connector;
+	}
+
+	/**
+	 * wait for a permit to connect, if the number of connections is limited
+	 *
+	 * @return true if the connection may be opened
+	 */
+	boolean acquireConnection() throws InterruptedException {
+		if (this.connectionPermits == null) {
+			return true;
+		}
+		if (this.connectTimeoutMillis <= 0) {
+			this.connectionPermits.acquire();
+			return true;
+		}
+		return this.connectionPermits.tryAcquire(this.connectTimeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	void releaseConnection() {
+		if (this.connectionPermits != null) {
+			this.connectionPermits.release();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -140,6 +220,9 @@ public class HttpGateway extends ServiceGateway {
 		if (this.contentType != null && this.contentType.toLowerCase().indexOf("xml") != -1) {
 			this.contentIsXml = true;
 		}
+		if (this.maxConnections > 0) {
+			this.connectionPermits = new Semaphore(this.maxConnections, true);
+		}
 		if (this.proxyHostName != null) {
 			/*
 			 * using anonymous class as it is used here and nowhere else
@@ -197,6 +280,16 @@ public class HttpGateway extends ServiceGateway {
 
 		private HttpURLConnection conn;
 
+		/*
+		 * true once the response is read and closed
+		 */
+		private boolean responseRead;
+
+		/*
+		 * response status code. 0 till the server responds
+		 */
+		private int status;
+
 		private ExternalService service;
 
 		/**
@@ -342,23 +435,30 @@ public class HttpGateway extends ServiceGateway {
 				fullPath += this.path;
 			}
 
+			boolean acquired = false;
 			Exception ex = null;
 			try {
+				acquired = gateway.acquireConnection();
+				if (acquired == false) {
+					logger.error("Http call for application {} with url {} timed out waiting for a connection",
+							gateway.getApplicationName(), fullPath);
+					return false;
+				}
 				URL url = new URL(fullPath);
 
 				/*
 				 * get connection
 				 */
+				Proxy proxyCon = null;
 				Authenticator auth = gateway.getAuth();
 				if (auth != null) {
-
-					Proxy proxyCon = new Proxy(Proxy.Type.HTTP,
+					proxyCon = new Proxy(Proxy.Type.HTTP,
 							new InetSocketAddress(gateway.proxyHostName, gateway.proxyPort));
 					Authenticator.setDefault(auth);
-					this.conn = (HttpURLConnection) url.openConnection(proxyCon);
-				} else {
-					this.conn = (HttpURLConnection) url.openConnection();
 				}
+				this.conn = gateway.getConnector().openConnection(url, proxyCon);
+				this.conn.setConnectTimeout(gateway.connectTimeoutMillis);
+				this.conn.setReadTimeout(gateway.readTimeoutMillis);
 
 				/*
 				 * despatch request
@@ -368,19 +468,28 @@ public class HttpGateway extends ServiceGateway {
 				/*
 				 * send request and receive response
 				 */
-				int status = this.conn.getResponseCode();
+				this.status = this.conn.getResponseCode();
 				/*
 				 * how do you know this is successful? 2xx series is safe
 				 */
-				if (status < 200 || status > 299) {
+				if (this.status < 200 || this.status > 299) {
 					logger.error(
 							"Http call failed for application " + gateway.getApplicationName() + " with url " + fullPath
-									+ " with status code " + status);
+									+ " with status code " + this.status);
 					return false;
 				}
 				this.getPayload(ctx);
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				ex = e;
 			} catch (Exception e) {
 				ex = e;
+			} finally {
+				if (acquired) {
+					this.closeConnection();
+					gateway.releaseConnection();
+				}
 			}
 			logger.error(" Http call failed for application " + gateway.getApplicationName() + " with url " + fullPath,
 					ex);
@@ -388,18 +497,63 @@ public class HttpGateway extends ServiceGateway {
 		}
 
 		/**
-		 * @return http response status code
+		 * send request to the server and get response from it on another
+		 * thread, as in executeAsync(). ctx is updated by that thread, and
+		 * hence the caller should not use ctx till the returned future is
+		 * done.
+		 *
+		 * @param ctx
+		 *            service context
+		 * @return future that returns true if all ok, and false in case of any
+		 *         error.
 		 */
-		public long getStatus() {
-			if (this.conn == null) {
-				logger.error("Invalid call to getStatus() before calling serve() method");
-				return 0;
+		public Future<Boolean> sendAndReceiveAsync(ServiceContext ctx) {
+			return this.executeAsync(ctx);
+		}
+
+		/**
+		 * the jdk re-uses a connection only after its response is read fully
+		 * and closed. We read what is left of it, if the server has responded.
+		 * Otherwise the request is abandoned, as asking for the response now
+		 * would send the request, or send it again.
+		 */
+		private void closeConnection() {
+			if (this.conn == null || this.responseRead) {
+				return;
 			}
+			this.responseRead = true;
+			if (this.status == 0) {
+				this.conn.disconnect();
+				return;
+			}
+			InputStream stream = null;
 			try {
-				return this.conn.getResponseCode();
+				stream = this.conn.getInputStream();
+			} catch (IOException e) {
+				stream = this.conn.getErrorStream();
+			}
+			if (stream == null) {
+				return;
+			}
+			try (InputStream in = stream) {
+				byte[] buffer = new byte[1024];
+				while (in.read(buffer) != -1) {
+					//
+				}
 			} catch (IOException e) {
-				return 0;
+				logger.debug("Response could not be consumed. Connection will not be re-used. {}", e.getMessage());
+			}
+		}
+
+		/**
+		 * @return http response status code, or 0 if the server has not
+		 *         responded
+		 */
+		public long getStatus() {
+			if (this.conn == null) {
+				logger.error("Invalid call to getStatus() before calling serve() method");
 			}
+			return this.status;
 		}
 
 		/**
@@ -480,6 +634,7 @@ public class HttpGateway extends ServiceGateway {
 				return;
 			}
 
+			this.responseRead = true;
 			try (InputStream stream = this.conn.getInputStream()) {
 				IRequestReader reqReader = null;
 				if (HttpGateway.this.useXml()) {
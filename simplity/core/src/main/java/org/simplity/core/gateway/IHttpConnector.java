@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.simplity.core.gateway;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+
+/**
+ * opens connections for an http gateway. The default connector uses the
+ * connection from the jdk, that keeps connections alive and re-uses them for
+ * the same server. An app may plug in its own connector, for example to use a
+ * specific ssl socket factory, or a different http library that provides an
+ * HttpURLConnection.
+ *
+ * @author simplity.org
+ *
+ */
+@FunctionalInterface
+public interface IHttpConnector {
+	/**
+	 * open a connection. Connection is not yet connected, and the caller sets
+	 * request properties before connecting.
+	 *
+	 * @param url
+	 *            non-null url to connect to
+	 * @param proxy
+	 *            proxy to connect through. null if no proxy is to be used
+	 * @return non-null connection
+	 * @throws IOException
+	 */
+	public HttpURLConnection openConnection(URL url, Proxy proxy) throws IOException;
+}
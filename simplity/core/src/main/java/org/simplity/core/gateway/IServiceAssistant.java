@@ -22,6 +22,10 @@
 
 package org.simplity.core.gateway;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.simplity.core.app.Application;
 import org.simplity.core.service.ServiceContext;
 
 /**
@@ -52,4 +56,23 @@ public interface IServiceAssistant {
 	 *
 	 */
 	public boolean execute(ServiceContext ctx);
+
+	/**
+	 * execute this service on another thread, so that the caller can do other
+	 * work, like calling other services, in the meantime. ctx is updated by
+	 * that thread, and hence the caller should not use ctx till the returned
+	 * future is done. By default, execute() is submitted to the parallel
+	 * executor of the app, or run on this thread if this is already a thread
+	 * of that executor.
+	 *
+	 * @param ctx
+	 *            service context where the caller service is executing
+	 * @return future that returns what execute() returns
+	 */
+	public default Future<Boolean> executeAsync(ServiceContext ctx) {
+		if (Application.isParallelWorker()) {
+			return CompletableFuture.completedFuture(this.execute(ctx));
+		}
+		return Application.getActiveInstance().submitParallelTask(() -> this.execute(ctx));
+	}
 }
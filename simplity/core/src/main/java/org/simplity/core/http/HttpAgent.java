@@ -24,10 +24,14 @@ package org.simplity.core.http;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -54,6 +58,7 @@ import org.simplity.core.app.ServiceResult;
 import org.simplity.core.app.StandInApp;
 import org.simplity.core.app.internal.ServiceRequest;
 import org.simplity.core.app.internal.ServiceResponse;
+import org.simplity.core.metric.MetricsRegistry;
 import org.simplity.core.util.IoUtil;
 import org.simplity.json.JSONObject;
 import org.slf4j.Logger;
@@ -76,7 +81,9 @@ public abstract class HttpAgent extends HttpServlet {
 
 	private static final String XML_CONTENT = "application/xml";
 	private static final String JSON_CONTENT = "application/json";
+	private static final String PROMETHEUS_CONTENT = "text/plain; version=0.0.4; charset=utf-8";
 	private static final String AUTH_HEADER = "Authorization";
+	private static final String BEARER = "Bearer ";
 	private static final String[] HDR_NAMES = { "Access-Control-Allow-Methods", "Access-Control-Allow-Headers",
 			"Access-Control-Max-Age", "Access-Control-Allow-Origin", "Connection", "Cache-Control", "Expires" };
 	private static final String[] HDR_TEXTS = { "POST, GET, OPTIONS", "authorization,content-type", "1728000", "*",
@@ -166,6 +173,18 @@ public abstract class HttpAgent extends HttpServlet {
 	 */
 	private String errorMessage;
 
+	/**
+	 * path on which metrics are served in Prometheus text format. null if
+	 * they are not to be served this way
+	 */
+	protected String metricsPath;
+
+	/**
+	 * token to be sent by a scraper for metrics. null if metrics are to be
+	 * served to logged-in users only
+	 */
+	protected String metricsToken;
+
 	/**
 	 * local cached storage in the absence of any plugin
 	 */
@@ -273,6 +292,19 @@ public abstract class HttpAgent extends HttpServlet {
 			return;
 		}
 
+		if (this.metricsPath != null && this.isMetricsRequest(req)) {
+			if (this.canServeMetrics(req) == false) {
+				logger.warn("Metrics requested without valid credentials");
+				resp.setStatus(STATUS_AUTH_REQUIRED);
+				return;
+			}
+			resp.setContentType(PROMETHEUS_CONTENT);
+			try (Writer writer = new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8)) {
+				MetricsRegistry.writePrometheus(writer);
+			}
+			return;
+		}
+
 		String serviceName = null;
 		long bigin = System.currentTimeMillis();
 		String ct = req.getContentType();
@@ -315,7 +347,13 @@ public abstract class HttpAgent extends HttpServlet {
 					}
 				}
 
-				IServiceRequest request = new ServiceRequest(serviceName, fields, ins, isXml);
+				IServiceRequest request;
+				if (this.useStreamingPayload && isXml == false) {
+					request = new ServiceRequest(serviceName, fields,
+							new InputStreamReader(ins, AppConventions.CHAR_ENCODING));
+				} else {
+					request = new ServiceRequest(serviceName, fields, ins, isXml);
+				}
 				if (user != null) {
 					request.setUser(user);
 				}
@@ -335,7 +373,7 @@ public abstract class HttpAgent extends HttpServlet {
 				}
 
 				ServiceResult result = response.getServiceResult();
-				logger.info("Server-layer reported {} ms as time taken to execute service {} with result = {}",
+				logger.debug("Server-layer reported {} ms as time taken to execute service {} with result = {}",
 						response.getExecutionTime(), serviceName, result);
 
 				if (this.loginServiceName != null && this.loginServiceName.equals(serviceName)) {
@@ -366,12 +404,41 @@ public abstract class HttpAgent extends HttpServlet {
 				this.respondWithError(resp, ServiceResult.INTERNAL_ERROR, msg, writer);
 				return;
 			} finally {
-				logger.info("Http server took {} ms to deliver service {}", System.currentTimeMillis() - bigin,
+				logger.debug("Http server took {} ms to deliver service {}", System.currentTimeMillis() - bigin,
 						serviceName);
 			}
 		}
 	}
 
+	private boolean isMetricsRequest(HttpServletRequest req) {
+		if (req.getMethod().equals("GET") == false) {
+			return false;
+		}
+		String uri = req.getRequestURI();
+		int idx = req.getContextPath().length();
+		return uri.length() > idx && uri.substring(idx).equals(this.metricsPath);
+	}
+
+	/**
+	 * metrics are served to a scraper that presents the metrics token, or to
+	 * a logged-in user if no token is configured. App-specific controller may
+	 * over-ride this with its own access check
+	 *
+	 * @param req
+	 * @return true if metrics can be served for this request
+	 */
+	protected boolean canServeMetrics(HttpServletRequest req) {
+		if (this.metricsToken == null) {
+			return this.getLoggedInUser(req) != null;
+		}
+		String auth = req.getHeader(AUTH_HEADER);
+		if (auth == null) {
+			return false;
+		}
+		byte[] expected = (BEARER + this.metricsToken).getBytes(StandardCharsets.UTF_8);
+		return MessageDigest.isEqual(expected, auth.getBytes(StandardCharsets.UTF_8));
+	}
+
 	private Application getApp() {
 		if (this.errorMessage != null) {
 			logger.error(this.errorMessage);
@@ -409,7 +476,7 @@ public abstract class HttpAgent extends HttpServlet {
 	protected AppUser getLoggedInUser(HttpServletRequest req) {
 		String token = req.getHeader(AUTH_HEADER);
 		if (token == null) {
-			logger.info("No auth token recd in header {}", AUTH_HEADER);
+			logger.debug("No auth token recd in header {}", AUTH_HEADER);
 			return null;
 		}
 		AppUser user = this.activeUsers.get(token);
@@ -491,11 +558,11 @@ public abstract class HttpAgent extends HttpServlet {
 				serviceName = (String) fields.get(HttpConventions.FieldNames.SERVICE_NAME);
 			}
 			if (serviceName != null) {
-				logger.info("Service name = {} extracted from header/query", serviceName);
+				logger.debug("Service name = {} extracted from header/query", serviceName);
 				if (this.serviceAliases != null) {
 					Object alias = this.serviceAliases.opt(serviceName);
 					if (alias != null) {
-						logger.info("client-requested service name {} is mapped {} ", serviceName, alias);
+						logger.debug("client-requested service name {} is mapped {} ", serviceName, alias);
 						serviceName = alias.toString();
 					}
 				}
@@ -524,7 +591,7 @@ public abstract class HttpAgent extends HttpServlet {
 		int idx = req.getContextPath().length() + this.rootFolderLength;
 		String path = uri.substring(idx);
 		serviceName = this.mappedPaths.parse(path, req.getMethod(), fields);
-		logger.info("uri {} has the REST path {}. This is mapped to service {} ", uri, path, serviceName);
+		logger.debug("uri {} has the REST path {}. This is mapped to service {} ", uri, path, serviceName);
 		return serviceName;
 	}
 
@@ -619,6 +686,16 @@ public abstract class HttpAgent extends HttpServlet {
 			logger.info("{} is/are the request attributes that will be used as input data", text);
 			this.requestAttributes = text.split(HttpConventions.FIELD_NAME_SEPARATOR);
 		}
+		text = ctx.getInitParameter(HttpConventions.Http.METRICS_PATH);
+		if (text != null) {
+			logger.info("Metrics are served in Prometheus format on path {}", text);
+			this.metricsPath = text;
+			this.metricsToken = ctx.getInitParameter(HttpConventions.Http.METRICS_TOKEN);
+			if (this.metricsToken == null) {
+				logger.info("{} is not set. Metrics are served to logged-in users only",
+						HttpConventions.Http.METRICS_TOKEN);
+			}
+		}
 		text = ctx.getInitParameter(HttpConventions.FieldNames.LOGIN_SERVICE);
 		if (text == null) {
 			logger.info(
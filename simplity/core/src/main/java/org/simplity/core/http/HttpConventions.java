@@ -211,6 +211,20 @@ public class HttpConventions {
 		 */
 		public static final String REQUEST_ATTRIBUTES = "org.simplity.requestAttributes";
 
+		/**
+		 * path, relative to the context, on which metrics are served in
+		 * Prometheus text format for a GET request. Metrics are not exposed
+		 * this way if this is not set.
+		 */
+		public static final String METRICS_PATH = "org.simplity.metricsPath";
+
+		/**
+		 * token that a scraper is to send as "Bearer token" in the
+		 * Authorization header to get metrics. If this is not set, metrics
+		 * are served only to a logged-in user.
+		 */
+		public static final String METRICS_TOKEN = "org.simplity.metricsToken";
+
 		private Http() {
 			// forbidden
 		}
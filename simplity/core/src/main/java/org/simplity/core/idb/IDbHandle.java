@@ -26,6 +26,7 @@ import java.sql.Array;
 import java.sql.SQLException;
 import java.sql.Struct;
 
+import org.simplity.core.rdb.DbVendor;
 import org.simplity.core.value.Value;
 
 /**
@@ -116,6 +117,13 @@ public interface IDbHandle {
 	 */
 	public String escapeForLike(String text);
 
+	/**
+	 * method from IDbDriver replicated for ease-of-use
+	 *
+	 * @return vendor of the rdbms this handle is connected to
+	 */
+	public DbVendor getDbVendor();
+
 	/**
 	 *
 	 * @return non-null if this db handle is opened with a non-default schema.
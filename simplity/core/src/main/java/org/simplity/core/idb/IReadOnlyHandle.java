@@ -36,6 +36,14 @@ import org.simplity.core.value.ValueType;
  *
  */
 public interface IReadOnlyHandle extends IDbHandle {
+	/**
+	 * fetch size to be used to stream rows from the db to the reader, rather
+	 * than letting the driver buffer the result. If the db streams rows only
+	 * within a transaction (postgres), and the connection is in auto-commit
+	 * mode, auto-commit is switched off for the read, and is switched back on
+	 * after the read.
+	 */
+	public static final int STREAM_ROWS = -1;
 
 	/**
 	 * read data from db using a prepared statement. This method is the most
@@ -60,6 +68,29 @@ public interface IReadOnlyHandle extends IDbHandle {
 	 */
 	public int read(String sql, Value[] values, ValueType[] outputTypes, IRowConsumer consumer);
 
+	/**
+	 * read data from db using a prepared statement, with a hint about the
+	 * number of rows to be fetched in one round trip to the db
+	 *
+	 * @param sql
+	 *            non-null. prepared statement to be used to extract data from
+	 *            database
+	 * @param values
+	 *            can be null if the prepared statement does not expect any
+	 *            values. to be used for the parameters in the prepared
+	 *            statement
+	 * @param outputTypes
+	 *            non-null array of value types corresponding to the parameters
+	 *            in the result-set row
+	 * @param consumer
+	 *            non-null. object instance that consumes data row.
+	 * @param fetchSize
+	 *            rows to be fetched per round trip. 0 to use the default set
+	 *            for the db, and STREAM_ROWS to stream rows as they arrive
+	 * @return number of rows read
+	 */
+	public int read(String sql, Value[] values, ValueType[] outputTypes, IRowConsumer consumer, int fetchSize);
+
 	/**
 	 * read data from db using a prepared statement
 	 *
@@ -76,6 +107,26 @@ public interface IReadOnlyHandle extends IDbHandle {
 	 */
 	public int read(String sql, Value[] values, IResultSetReader reader);
 
+	/**
+	 * read data from db using a prepared statement, with a hint about the
+	 * number of rows to be fetched in one round trip to the db
+	 *
+	 * @param sql
+	 *            non-null. prepared statement to be used to extract data from
+	 *            database
+	 * @param values
+	 *            can be null if the prepared statement does not expect any
+	 *            values. to be used for the parameters in the prepared
+	 *            statement
+	 * @param reader
+	 *            non-null. object instance that reads data from result set row.
+	 * @param fetchSize
+	 *            rows to be fetched per round trip. 0 to use the default set
+	 *            for the db, and STREAM_ROWS to stream rows as they arrive
+	 * @return number of rows read
+	 */
+	public int read(String sql, Value[] values, IResultSetReader reader, int fetchSize);
+
 	/**
 	 * read data from db using a prepared statement
 	 *
@@ -93,6 +144,27 @@ public interface IReadOnlyHandle extends IDbHandle {
 	 */
 	public int read(String sql, Value[] values, IDataSheet dataSheet);
 
+	/**
+	 * read data from db using a prepared statement, with a hint about the
+	 * number of rows to be fetched in one round trip to the db
+	 *
+	 * @param sql
+	 *            non-null. prepared statement to be used to extract data from
+	 *            database
+	 * @param values
+	 *            can be null if the prepared statement does not expect any
+	 *            values. to be used for the parameters in the prepared
+	 *            statement
+	 * @param dataSheet
+	 *            non-null data sheet that has the right set of columns to
+	 *            receive data from the result set
+	 * @param fetchSize
+	 *            rows to be fetched per round trip. 0 to use the default set
+	 *            for the db
+	 * @return number of rows read
+	 */
+	public int read(String sql, Value[] values, IDataSheet dataSheet, int fetchSize);
+
 	/**
 	 * caller is interested in knowing whether the sql fetches any data at all.
 	 * Not interested in the actual data
@@ -99,6 +99,30 @@ public interface ITransactionHandle extends IReadOnlyHandle {
 	public int insertAndGetKeys(String sql, Value[] values, long[] generatedKeys, String[] keyNames,
 			boolean treatSqlErrorAsNoAction);
 
+	/**
+	 * execute an insert statement as a batch, and get the generated keys for
+	 * the inserted rows. Not all drivers return generated keys for a batch.
+	 * Check DbVendor.returnsKeysForBatch() before using this. An
+	 * ApplicationError is thrown if the driver does not return a key for each
+	 * row.
+	 *
+	 * @param sql
+	 *            to be executed
+	 * @param values
+	 *            one row of values for each row to be inserted
+	 * @param generatedKeys
+	 *            array in which generated keys are returned, one for each row
+	 * @param keyNames
+	 *            array of names of columns that have generated keys. This is
+	 *            typically just one, primary key
+	 * @param treatSqlErrorAsNoAction
+	 *            if true, sql error is treated as if rows affected is zero.
+	 * @return number of affected rows for each set of input data, as in
+	 *         executeBatch()
+	 */
+	public int[] insertBatchAndGetKeys(String sql, Value[][] values, long[] generatedKeys, String[] keyNames,
+			boolean treatSqlErrorAsNoAction);
+
 	/**
 	 * execute a stored procedure that may update the data base
 	 *
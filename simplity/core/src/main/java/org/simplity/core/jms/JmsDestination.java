@@ -24,9 +24,12 @@ package org.simplity.core.jms;
 
 import java.io.Serializable;
 import java.io.StringWriter;
+import java.sql.SQLException;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.jms.Destination;
 import javax.jms.JMSException;
@@ -47,6 +50,12 @@ import org.simplity.core.comp.IValidationContext;
 import org.simplity.core.comp.ValidationMessage;
 import org.simplity.core.data.DataSerializationType;
 import org.simplity.core.dm.Record;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IDbDriver;
+import org.simplity.core.idb.IDbHandle;
+import org.simplity.core.idb.IMultiTransHandle;
+import org.simplity.core.jms.JmsSetup.JmsConnector;
+import org.simplity.core.msg.FormattedMessage;
 import org.simplity.core.msg.Messages;
 import org.simplity.core.service.IDataDeserializer;
 import org.simplity.core.service.IDataSerializer;
@@ -68,6 +77,11 @@ import org.slf4j.LoggerFactory;
  */
 public class JmsDestination {
 	protected static final Logger logger = LoggerFactory.getLogger(JmsDestination.class);
+	/**
+	 * a pooled consumer waits at most this long for a message before checking
+	 * whether it should stop
+	 */
+	private static final long RECEIVE_WAIT_MILLIS = 1000;
 
 	/**
 	 * name of the queue (destination) used for requesting a service. This is
@@ -274,6 +288,94 @@ public class JmsDestination {
 		}
 	}
 
+	/**
+	 * consume this queue with a pool of concurrent consumers, each with its own
+	 * transacted session. Received messages are committed in batches. A
+	 * consumer receives its next message only after processing the current
+	 * one, and hence intake slows down when processing can not keep pace.
+	 *
+	 * A consumer that uses the db has its own db handle, and its db
+	 * transaction is committed or rolled back along with its jms session. If
+	 * a message fails, the batch is rolled back, and the messages that are
+	 * re-delivered are then committed one at a time. Messages of a failed
+	 * message are added to ctx.
+	 *
+	 * If the calling thread is interrupted, consumers are asked to stop, and
+	 * this method returns only after all of them have stopped, with the
+	 * interrupt status of the thread set.
+	 *
+	 * @param ctx
+	 *            service context where all this is happening. Each message is
+	 *            processed in a child context of this
+	 * @param processor
+	 *            processes messages concurrently from all the consumers, and
+	 *            hence must be thread-safe
+	 * @param responseQ
+	 *            optional response queue to be used to respond back to the
+	 *            incoming message
+	 * @param waitForMessage
+	 *            true means that the consumers keep listening till the
+	 *            processor signals a stop. false means that a consumer stops
+	 *            when there are no more messages
+	 * @param nbrConsumers
+	 *            number of concurrent sessions/consumers
+	 * @param ackBatchSize
+	 *            number of messages that are committed together
+	 * @param ackIntervalMillis
+	 *            if non-zero, un-committed messages are committed after this
+	 *            interval even if ackBatchSize is not reached
+	 * @param dbAccessType
+	 *            null if the processor does not use the db. Else each consumer
+	 *            gets a db handle of this type, that is set to the context of
+	 *            each message. Use MULTI_TRANS for the db updates to be
+	 *            committed with the batch.
+	 * @param schemaName
+	 *            null for the default schema
+	 */
+	public void consumeConcurrently(ServiceContext ctx, IJmsClient processor, JmsDestination responseQ,
+			boolean waitForMessage, int nbrConsumers, int ackBatchSize, int ackIntervalMillis,
+			DbAccessType dbAccessType, String schemaName) {
+		Application app = Application.getActiveInstance();
+		AtomicBoolean stopped = new AtomicBoolean();
+		PooledConsumer[] consumers = new PooledConsumer[nbrConsumers];
+		Thread[] threads = new Thread[nbrConsumers];
+		for (int i = 0; i < nbrConsumers; i++) {
+			consumers[i] = new PooledConsumer(ctx, processor, responseQ, waitForMessage, ackBatchSize,
+					ackIntervalMillis, dbAccessType, schemaName, stopped);
+			threads[i] = app.createThread(consumers[i]);
+			threads[i].start();
+		}
+		logger.info("Started {} consumers for destination {}", nbrConsumers, this.name);
+		/*
+		 * consumers check the stopped flag after every receive, that waits for
+		 * at most RECEIVE_WAIT_MILLIS. If we are interrupted, we ask them to
+		 * stop, but still wait for them to return their sessions and db
+		 * handles, before we report their exceptions and restore the interrupt
+		 */
+		boolean interrupted = false;
+		for (Thread thread : threads) {
+			while (true) {
+				try {
+					thread.join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+					stopped.set(true);
+				}
+			}
+		}
+		if (interrupted) {
+			logger.info("Consumers for destination {} stopped on an interrupt", this.name);
+			Thread.currentThread().interrupt();
+		}
+		for (PooledConsumer consumer : consumers) {
+			if (consumer.exception != null) {
+				throw new ApplicationError(consumer.exception,
+						"Error while consuming and procesing JMS queue " + this.name);
+			}
+		}
+	}
+
 	/**
 	 * produce message on this queue
 	 *
@@ -996,4 +1098,269 @@ public class JmsDestination {
 			return true;
 		}
 	}
+	/**
+	 * one of the consumers of a pool. Has its own session, and its own db
+	 * handle if required
+	 */
+	private class PooledConsumer implements Runnable {
+		private final ServiceContext parentCtx;
+		private final IJmsClient processor;
+		private final JmsDestination responseQ;
+		private final boolean waitForMessage;
+		private final int ackBatchSize;
+		private final int ackIntervalMillis;
+		private final DbAccessType dbAccessType;
+		private final String schemaName;
+		private final AtomicBoolean stopped;
+		/*
+		 * reason for this consumer to quit, if any
+		 */
+		Exception exception;
+		/*
+		 * db handle for the life of this consumer. null if db is not used
+		 */
+		private IDbHandle dbHandle;
+
+		PooledConsumer(ServiceContext parentCtx, IJmsClient processor, JmsDestination responseQ,
+				boolean waitForMessage, int ackBatchSize, int ackIntervalMillis, DbAccessType dbAccessType,
+				String schemaName, AtomicBoolean stopped) {
+			this.parentCtx = parentCtx;
+			this.processor = processor;
+			this.responseQ = responseQ;
+			this.waitForMessage = waitForMessage;
+			this.ackBatchSize = ackBatchSize;
+			this.ackIntervalMillis = ackIntervalMillis;
+			this.dbAccessType = dbAccessType;
+			this.schemaName = schemaName;
+			this.stopped = stopped;
+		}
+
+		@Override
+		public void run() {
+			JmsConnector connector = null;
+			try {
+				connector = Application.getActiveInstance().getJmsSetup()
+						.borrowMultiTransConnector(JmsUsage.SERVICE_MANAGED);
+				if (this.dbAccessType == null) {
+					this.consume(connector);
+				} else {
+					JmsConnector jmsConnector = connector;
+					IDbDriver driver = Application.getActiveInstance().getRdbSetup().getDefaultDriver();
+					driver.accessDb(handle -> {
+						this.dbHandle = handle;
+						try {
+							this.consume(jmsConnector);
+						} catch (JMSException e) {
+							throw new ApplicationError(e,
+									"Error while consuming JMS queue " + JmsDestination.this.name);
+						}
+						return true;
+					}, this.dbAccessType, this.schemaName);
+				}
+			} catch (Exception e) {
+				logger.error("Jms consumer for {} quits because of an error. {}", JmsDestination.this.name,
+						e.getMessage());
+				this.exception = e;
+				this.stopped.set(true);
+			} finally {
+				if (connector != null) {
+					/*
+					 * messages that are not committed by now are re-delivered
+					 */
+					connector.returnedWithThanks(false);
+				}
+			}
+		}
+
+		@SuppressWarnings("resource")
+		private void consume(JmsConnector connector) throws JMSException {
+			Session session = connector.getSession();
+			MessageConsumer consumer = null;
+			MessageProducer producer = null;
+			try {
+				consumer = session.createConsumer(JmsDestination.this.destination,
+						JmsDestination.this.messageSelector);
+				producer = session.createProducer(null);
+				int nbrPending = 0;
+				long batchStartedAt = 0;
+				/*
+				 * rolled back messages may be re-delivered after a delay
+				 */
+				boolean rolledBack = false;
+				/*
+				 * messages of a rolled back batch are re-delivered. They are
+				 * committed one at a time, so that the one that failed does
+				 * not take the others down with it again
+				 */
+				int nbrToIsolate = 0;
+				while (this.stopped.get() == false && Thread.currentThread().isInterrupted() == false) {
+					long wait = RECEIVE_WAIT_MILLIS;
+					if (nbrPending > 0 && this.ackIntervalMillis > 0) {
+						wait = Math.max(1, batchStartedAt + this.ackIntervalMillis - System.currentTimeMillis());
+					}
+					Message msg = consumer.receive(wait);
+					if (msg == null) {
+						/*
+						 * idle. good time to commit
+						 */
+						if (nbrPending > 0) {
+							this.commit(connector);
+							nbrPending = 0;
+						} else if (rolledBack) {
+							rolledBack = false;
+						} else if (this.waitForMessage == false) {
+							break;
+						}
+						continue;
+					}
+
+					ServiceContext ctx = this.parentCtx.createChildContext();
+					ctx.setJmsSession(session);
+					ctx.seDbHandle(this.dbHandle);
+					if (this.processOne(msg, ctx, session, producer) == false) {
+						/*
+						 * messages of this batch will be re-delivered
+						 */
+						logger.error("Message {} on {} could not be processed. Session rolled back.",
+								msg.getJMSMessageID(), JmsDestination.this.name);
+						this.keepMessages(ctx);
+						this.rollback(connector);
+						nbrToIsolate = Math.max(nbrToIsolate, nbrPending + 1);
+						nbrPending = 0;
+						rolledBack = true;
+						continue;
+					}
+					long now = System.currentTimeMillis();
+					if (nbrPending == 0) {
+						batchStartedAt = now;
+					}
+					nbrPending++;
+					boolean isolated = nbrToIsolate > 0;
+					if (isolated) {
+						nbrToIsolate--;
+					}
+					if (isolated || nbrPending >= this.ackBatchSize
+							|| (this.ackIntervalMillis > 0 && now - batchStartedAt >= this.ackIntervalMillis)) {
+						this.commit(connector);
+						nbrPending = 0;
+					}
+					if (this.processor.toContinue() == false) {
+						this.stopped.set(true);
+					}
+				}
+				if (nbrPending > 0) {
+					this.commit(connector);
+				}
+			} catch (JMSException | RuntimeException e) {
+				/*
+				 * jms session is not committed, and hence its messages are
+				 * re-delivered. db is to be in step with that
+				 */
+				this.rollbackDb();
+				throw e;
+			} finally {
+				if (consumer != null) {
+					try {
+						consumer.close();
+					} catch (Exception ignore) {
+						//
+					}
+				}
+				if (producer != null) {
+					try {
+						producer.close();
+					} catch (Exception ignore) {
+						//
+					}
+				}
+			}
+		}
+
+		/**
+		 * commit db, if it is used, and then the jms session. There is no
+		 * two-phase commit between the two. If the jms commit fails after the
+		 * db commit, messages of the batch are re-delivered.
+		 */
+		private void commit(JmsConnector connector) throws JMSException {
+			if (this.dbHandle instanceof IMultiTransHandle) {
+				try {
+					((IMultiTransHandle) this.dbHandle).commit();
+				} catch (SQLException e) {
+					throw new ApplicationError(e,
+							"Error while committing db updates of messages from " + JmsDestination.this.name);
+				}
+			}
+			connector.commit();
+		}
+
+		/**
+		 * roll back db, if it is used, and the jms session
+		 */
+		private void rollback(JmsConnector connector) throws JMSException {
+			this.rollbackDb();
+			connector.rollback();
+		}
+
+		private void rollbackDb() {
+			if (this.dbHandle instanceof IMultiTransHandle) {
+				try {
+					((IMultiTransHandle) this.dbHandle).rollback();
+				} catch (SQLException e) {
+					logger.error("Error while rolling back db updates of messages from {}. {}",
+							JmsDestination.this.name, e.getMessage());
+				}
+			}
+		}
+
+		/**
+		 * context of a message is discarded, and hence its messages are added
+		 * to the service context that is shared by all consumers
+		 */
+		private void keepMessages(ServiceContext ctx) {
+			List<FormattedMessage> messages = ctx.getMessages();
+			if (messages == null || messages.isEmpty()) {
+				return;
+			}
+			synchronized (this.parentCtx) {
+				for (FormattedMessage message : messages) {
+					this.parentCtx.addMessage(message);
+				}
+			}
+		}
+
+		/**
+		 * @return true if the message is processed, and the response, if any,
+		 *         is sent
+		 */
+		private boolean processOne(Message msg, ServiceContext ctx, Session session, MessageProducer producer) {
+			try {
+				JmsDestination.this.extractMessage(msg, ctx);
+				Destination replyQ = msg.getJMSReplyTo();
+				String corId = msg.getJMSCorrelationID();
+				if (replyQ == null && this.responseQ != null) {
+					replyQ = this.responseQ.getDestination();
+				}
+				if (this.processor.process(ctx) == false || ctx.isInError()) {
+					return false;
+				}
+				if (replyQ != null) {
+					Message respMsg = null;
+					if (this.responseQ == null) {
+						respMsg = session.createMessage();
+					} else {
+						respMsg = this.responseQ.createMessage(ctx);
+					}
+					if (corId != null) {
+						respMsg.setJMSCorrelationID(corId);
+					}
+					producer.send(replyQ, respMsg);
+				}
+				return true;
+			} catch (Exception e) {
+				logger.error("Message processor threw an exception. {}", e.getMessage());
+				ctx.addMessage(Messages.INTERNAL_ERROR, e.getMessage());
+				return false;
+			}
+		}
+	}
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.metric;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * lock-free histogram of elapsed times. Times are recorded in micro-seconds
+ * into log-linear buckets: eight buckets for every power of two, so that a
+ * percentile is accurate to within 12.5%. Recording is just a couple of
+ * atomic increments, and hence it can be used on every call of a hot path.
+ *
+ * @author simplity.org
+ *
+ */
+public class Histogram {
+	/*
+	 * 3 bits of sub-bucket within a power of two
+	 */
+	private static final int SUB_BITS = 3;
+	private static final int SUBS = 1 << SUB_BITS;
+	private static final int NBR_BUCKETS = (64 - SUB_BITS + 1) * SUBS;
+	private static final long NANOS_PER_MICRO = 1000L;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(NBR_BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * record an elapsed time
+	 *
+	 * @param nanos
+	 *            elapsed time in nano-seconds
+	 */
+	public void record(long nanos) {
+		long micros = nanos < 0 ? 0 : nanos / NANOS_PER_MICRO;
+		this.buckets.incrementAndGet(toBucket(micros));
+		this.count.increment();
+		this.total.add(micros);
+		long m = this.max.get();
+		while (micros > m) {
+			if (this.max.compareAndSet(m, micros)) {
+				break;
+			}
+			m = this.max.get();
+		}
+	}
+
+	/**
+	 * @return number of times recorded
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * @return sum of all recorded times in micro-seconds
+	 */
+	public long getTotalMicros() {
+		return this.total.sum();
+	}
+
+	/**
+	 * @return largest time recorded, in micro-seconds
+	 */
+	public long getMaxMicros() {
+		return this.max.get();
+	}
+
+	/**
+	 * estimate a percentile. Since recording is not stopped while this is
+	 * computed, the result is approximate when calls are in progress.
+	 *
+	 * @param fraction
+	 *            0.5 for median, 0.99 for 99th percentile etc..
+	 * @return upper bound of the bucket in which the percentile falls, in
+	 *         micro-seconds. 0 if nothing is recorded
+	 */
+	public long getPercentileMicros(double fraction) {
+		long[] counts = new long[NBR_BUCKETS];
+		long n = 0;
+		for (int i = 0; i < NBR_BUCKETS; i++) {
+			counts[i] = this.buckets.get(i);
+			n += counts[i];
+		}
+		if (n == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(fraction * n);
+		if (target < 1) {
+			target = 1;
+		}
+		long max = this.max.get();
+		long seen = 0;
+		for (int i = 0; i < NBR_BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				long upper = upperBound(i);
+				return upper > max ? max : upper;
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * clear all recorded values
+	 */
+	public void reset() {
+		for (int i = 0; i < NBR_BUCKETS; i++) {
+			this.buckets.set(i, 0);
+		}
+		this.count.reset();
+		this.total.reset();
+		this.max.set(0);
+	}
+
+	/*
+	 * values below SUBS have their own bucket. Others are bucketed by their
+	 * highest bit and the next SUB_BITS bits
+	 */
+	private static int toBucket(long micros) {
+		if (micros < SUBS) {
+			return (int) micros;
+		}
+		int exp = 63 - Long.numberOfLeadingZeros(micros);
+		int sub = (int) (micros >>> (exp - SUB_BITS)) & (SUBS - 1);
+		return (exp - SUB_BITS + 1) * SUBS + sub;
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < SUBS) {
+			return bucket;
+		}
+		int shift = bucket / SUBS - 1;
+		long lower = (long) (SUBS + bucket % SUBS) << shift;
+		return lower + (1L << shift) - 1;
+	}
+}
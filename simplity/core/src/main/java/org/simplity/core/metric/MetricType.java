@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.metric;
+
+/**
+ * what is being timed
+ *
+ * @author simplity.org
+ *
+ */
+public enum MetricType {
+	/**
+	 * a service, from the time it is received by the app till the response is
+	 * written. Named by service name.
+	 */
+	SERVICE("service"),
+	/**
+	 * an action inside a service. Named as serviceName.actionName
+	 */
+	ACTION("action"),
+	/**
+	 * execution of a sql, including reading its result. Named by an id
+	 * derived from the sql text. see MetricsRegistry.getSqlId()
+	 */
+	SQL("sql"),
+	/**
+	 * loading of a component from its resource. Named as type/compName
+	 */
+	COMPONENT("component");
+
+	private final String metricName;
+
+	private MetricType(String metricName) {
+		this.metricName = metricName;
+	}
+
+	/**
+	 * @return name used for this type in exported metrics
+	 */
+	public String getMetricName() {
+		return this.metricName;
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.metric;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.simplity.core.app.IResponseWriter;
+import org.simplity.core.util.TextUtil;
+
+/**
+ * registry of timing histograms for services, actions, sqls and component
+ * loads. Meant to be used in place of logging the time taken for each call,
+ * with the numbers available in aggregate through the metrics service, or in
+ * Prometheus text format for a scraper.
+ *
+ * @author simplity.org
+ *
+ */
+public class MetricsRegistry {
+	/**
+	 * distinct names tracked per type. Beyond this, times are recorded under
+	 * OTHERS. This protects us from sqls that are built with literal values
+	 * in them
+	 */
+	public static final int MAX_NAMES_PER_TYPE = 2000;
+	/**
+	 * name under which times are recorded once MAX_NAMES_PER_TYPE is reached
+	 */
+	public static final String OTHERS = "_others";
+
+	private static final String PREFIX = "simplity_";
+	private static final String SUFFIX = "_seconds";
+	private static final double MICROS_PER_SECOND = 1000000.0;
+	private static final double MICROS_PER_MILLI = 1000.0;
+	private static final double[] QUANTILES = { 0.5, 0.99 };
+
+	private static volatile boolean enabled = true;
+
+	private static final Map<MetricType, Map<String, Histogram>> histograms = new EnumMap<>(MetricType.class);
+	/*
+	 * sqls are recorded under a short id derived from the sql text, and not
+	 * the text itself, so that exported labels neither carry the sql nor grow
+	 * with its length
+	 */
+	private static final String SQL_ID_PREFIX = "sql_";
+	private static final int SQL_ID_LENGTH = 12;
+	private static final Map<String, String> sqlIds = new ConcurrentHashMap<>();
+	private static final Map<String, String> sqlTexts = new ConcurrentHashMap<>();
+
+	static {
+		for (MetricType type : MetricType.values()) {
+			histograms.put(type, new ConcurrentHashMap<>());
+		}
+	}
+
+	/**
+	 * @return true if times are being recorded.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param enable
+	 *            false to stop recording times
+	 */
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	/**
+	 * record time taken
+	 *
+	 * @param type
+	 * @param name
+	 *            name of the service/action/sql/component
+	 * @param nanos
+	 *            elapsed time in nano seconds
+	 */
+	public static void record(MetricType type, String name, long nanos) {
+		if (enabled == false || name == null) {
+			return;
+		}
+		Map<String, Histogram> map = histograms.get(type);
+		Histogram h = map.get(name);
+		if (h == null) {
+			String key = map.size() < MAX_NAMES_PER_TYPE ? name : OTHERS;
+			h = map.computeIfAbsent(key, k -> new Histogram());
+		}
+		h.record(nanos);
+	}
+
+	/**
+	 * record time taken by a sql. It is recorded under the id of the sql
+	 *
+	 * @param sql
+	 *            sql text as prepared
+	 * @param nanos
+	 *            elapsed time in nano seconds
+	 */
+	public static void recordSql(String sql, long nanos) {
+		if (enabled == false || sql == null) {
+			return;
+		}
+		record(MetricType.SQL, getSqlId(sql), nanos);
+	}
+
+	/**
+	 * @param sql
+	 * @return id under which times for this sql are recorded. OTHERS if
+	 *         MAX_NAMES_PER_TYPE distinct sqls are already tracked
+	 */
+	public static String getSqlId(String sql) {
+		String id = sqlIds.get(sql);
+		if (id != null) {
+			return id;
+		}
+		if (sqlIds.size() >= MAX_NAMES_PER_TYPE) {
+			return OTHERS;
+		}
+		id = SQL_ID_PREFIX + TextUtil.toSha256Hex(sql).substring(0, SQL_ID_LENGTH);
+		sqlTexts.put(id, sql);
+		sqlIds.put(sql, id);
+		return id;
+	}
+
+	/**
+	 * @param sqlId
+	 * @return sql text for which this id was issued, or null if no such id
+	 */
+	public static String getSqlText(String sqlId) {
+		return sqlTexts.get(sqlId);
+	}
+
+	/**
+	 * @param type
+	 * @param name
+	 * @return histogram for this name, or null if nothing is recorded for it
+	 */
+	public static Histogram getHistogram(MetricType type, String name) {
+		return histograms.get(type).get(name);
+	}
+
+	/**
+	 * @param type
+	 * @return read-only view of all histograms of this type
+	 */
+	public static Map<String, Histogram> getHistograms(MetricType type) {
+		return Collections.unmodifiableMap(histograms.get(type));
+	}
+
+	/**
+	 * remove all recorded metrics
+	 */
+	public static void reset() {
+		for (Map<String, Histogram> map : histograms.values()) {
+			map.clear();
+		}
+		sqlIds.clear();
+		sqlTexts.clear();
+	}
+
+	/**
+	 * write all metrics as an object for each type with an array of metrics.
+	 * Times are in milli-seconds. sqls carry their text along with their id
+	 *
+	 * @param writer
+	 */
+	public static void writeTo(IResponseWriter writer) {
+		for (MetricType type : MetricType.values()) {
+			writer.beginArray(type.getMetricName());
+			for (Map.Entry<String, Histogram> entry : sorted(type).entrySet()) {
+				Histogram h = entry.getValue();
+				long n = h.getCount();
+				writer.beginObjectAsArrayElement();
+				writer.setField("name", entry.getKey());
+				if (type == MetricType.SQL) {
+					writer.setField("sql", sqlTexts.get(entry.getKey()));
+				}
+				writer.setField("count", n);
+				writer.setField("mean", n == 0 ? 0 : h.getTotalMicros() / MICROS_PER_MILLI / n);
+				writer.setField("p50", h.getPercentileMicros(0.5) / MICROS_PER_MILLI);
+				writer.setField("p99", h.getPercentileMicros(0.99) / MICROS_PER_MILLI);
+				writer.setField("max", h.getMaxMicros() / MICROS_PER_MILLI);
+				writer.endObject();
+			}
+			writer.endArray();
+		}
+	}
+
+	/**
+	 * write all metrics in Prometheus text exposition format. Each type is
+	 * exported as a summary, like simplity_service_seconds, with name as its
+	 * label, and a gauge for the max value.
+	 *
+	 * @param writer
+	 * @throws IOException
+	 */
+	public static void writePrometheus(Writer writer) throws IOException {
+		StringBuilder sbf = new StringBuilder();
+		for (MetricType type : MetricType.values()) {
+			Map<String, Histogram> map = sorted(type);
+			if (map.isEmpty()) {
+				continue;
+			}
+			String metric = PREFIX + type.getMetricName() + SUFFIX;
+			sbf.append("# HELP ").append(metric).append(" time taken by each ").append(type.getMetricName())
+					.append('\n');
+			sbf.append("# TYPE ").append(metric).append(" summary\n");
+			for (Map.Entry<String, Histogram> entry : map.entrySet()) {
+				Histogram h = entry.getValue();
+				String label = "{name=\"" + escape(entry.getKey()) + '"';
+				for (double q : QUANTILES) {
+					sbf.append(metric).append(label).append(",quantile=\"").append(q).append("\"} ")
+							.append(h.getPercentileMicros(q) / MICROS_PER_SECOND).append('\n');
+				}
+				sbf.append(metric).append("_sum").append(label).append("} ")
+						.append(h.getTotalMicros() / MICROS_PER_SECOND).append('\n');
+				sbf.append(metric).append("_count").append(label).append("} ").append(h.getCount()).append('\n');
+			}
+			String maxMetric = metric + "_max";
+			sbf.append("# TYPE ").append(maxMetric).append(" gauge\n");
+			for (Map.Entry<String, Histogram> entry : map.entrySet()) {
+				sbf.append(maxMetric).append("{name=\"").append(escape(entry.getKey())).append("\"} ")
+						.append(entry.getValue().getMaxMicros() / MICROS_PER_SECOND).append('\n');
+			}
+			writer.write(sbf.toString());
+			sbf.setLength(0);
+		}
+	}
+
+	private static Map<String, Histogram> sorted(MetricType type) {
+		return new TreeMap<>(histograms.get(type));
+	}
+
+	private static String escape(String text) {
+		StringBuilder sbf = new StringBuilder(text.length());
+		for (char c : text.toCharArray()) {
+			if (c == '\\' || c == '"') {
+				sbf.append('\\').append(c);
+			} else if (c == '\n') {
+				sbf.append("\\n");
+			} else if (c != '\r') {
+				sbf.append(c);
+			}
+		}
+		return sbf.toString();
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.metric;
+
+import org.simplity.core.app.IService;
+import org.simplity.core.rdb.DbUsage;
+import org.simplity.core.service.InputData;
+import org.simplity.core.service.OutputData;
+import org.simplity.core.service.ServiceContext;
+
+/**
+ * admin service that responds with the metrics collected so far. It is served
+ * by the app under the name set as metricsServiceName in application.xml, and
+ * is subject to the access controller like any other service.
+ *
+ * @author simplity.org
+ *
+ */
+public class MetricsService implements IService {
+	private final String serviceName;
+
+	/**
+	 * @param serviceName
+	 *            name under which this service is served
+	 */
+	public MetricsService(String serviceName) {
+		this.serviceName = serviceName;
+	}
+
+	@Override
+	public InputData getInputSpecification() {
+		return null;
+	}
+
+	@Override
+	public void serve(ServiceContext ctx) {
+		MetricsRegistry.writeTo(ctx.getWriter());
+	}
+
+	@Override
+	public boolean executeAsSubProcess(ServiceContext ctx) {
+		/*
+		 * metrics are only written out to a response
+		 */
+		if (ctx.getWriter() == null) {
+			return false;
+		}
+		this.serve(ctx);
+		return true;
+	}
+
+	@Override
+	public OutputData getOutputSpecification() {
+		return null;
+	}
+
+	@Override
+	public String getServiceName() {
+		return this.serviceName;
+	}
+
+	@Override
+	public boolean okToCache() {
+		return false;
+	}
+
+	@Override
+	public String[] getCacheKeyNames() {
+		return null;
+	}
+
+	@Override
+	public boolean toBeRunInBackground() {
+		return false;
+	}
+
+	@Override
+	public DbUsage getDbUsage() {
+		return DbUsage.NONE;
+	}
+
+	@Override
+	public boolean directlyWritesDataToResponse() {
+		return true;
+	}
+
+	@Override
+	public boolean responseIsAnArray() {
+		return false;
+	}
+
+	@Override
+	public String[] getSessionFields() {
+		return null;
+	}
+}
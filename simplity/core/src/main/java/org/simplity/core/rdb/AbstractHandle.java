@@ -32,6 +32,8 @@ import org.simplity.core.ApplicationError;
 import org.simplity.core.idb.DbAccessType;
 import org.simplity.core.idb.IDbDriver;
 import org.simplity.core.idb.IDbHandle;
+import org.simplity.core.idb.IReadOnlyHandle;
+import org.simplity.core.metric.MetricsRegistry;
 import org.simplity.core.value.Value;
 
 /**
@@ -45,6 +47,11 @@ public abstract class AbstractHandle implements IDbHandle {
 	protected Connection connection;
 	protected RdbSetup dbDriver;
 	protected String schemaName;
+	/**
+	 * prepared statements cached for this connection. null if caching is
+	 * disabled
+	 */
+	private StatementCache statementCache;
 
 	/**
 	 * to be used by RdbDriver only.
@@ -56,6 +63,9 @@ public abstract class AbstractHandle implements IDbHandle {
 		this.connection = con;
 		this.dbDriver = driver;
 		this.schemaName = schema;
+		if (driver.statementCacheSize > 0) {
+			this.statementCache = new StatementCache(con, driver.statementCacheSize);
+		}
 	}
 
 	@Override
@@ -71,6 +81,11 @@ public abstract class AbstractHandle implements IDbHandle {
 		 * release all objects : just as a safety in case the handle instance is
 		 * not released by the consumer
 		 */
+		if (this.statementCache != null) {
+			this.statementCache.close();
+			this.dbDriver.addStatementCacheStats(this.statementCache.getHits(), this.statementCache.getMisses());
+			this.statementCache = null;
+		}
 		this.connection = null;
 		this.dbDriver = null;
 		this.schemaName = null;
@@ -126,6 +141,81 @@ public abstract class AbstractHandle implements IDbHandle {
 		return this.dbDriver.escapeForLike(text);
 	}
 
+	@Override
+	public DbVendor getDbVendor() {
+		return this.dbDriver.getDbVendor();
+	}
+
+	/**
+	 * get a prepared statement for this sql, possibly from the cache. Must be
+	 * returned with a call to releaseStatement() after use.
+	 *
+	 * @param sql
+	 * @param keyNames
+	 *            names of columns for which generated keys are to be returned.
+	 *            null if this is not an insert statement with generated keys
+	 * @return non-null prepared statement
+	 * @throws SQLException
+	 */
+	protected PreparedStatement getStatement(String sql, String[] keyNames) throws SQLException {
+		PreparedStatement stmt;
+		if (this.statementCache != null) {
+			stmt = this.statementCache.borrow(sql, keyNames);
+		} else if (keyNames == null) {
+			stmt = this.connection.prepareStatement(sql);
+		} else {
+			stmt = this.connection.prepareStatement(sql, keyNames);
+		}
+		return stmt;
+	}
+
+	/**
+	 * set fetch size for a statement that is used for reading rows. Statements
+	 * may be cached, and hence fetch size is set every time.
+	 *
+	 * @param stmt
+	 * @param fetchSize
+	 *            0 for the default for the db, and IReadOnlyHandle.STREAM_ROWS
+	 *            to stream rows
+	 * @throws SQLException
+	 */
+	protected void setFetchSize(PreparedStatement stmt, int fetchSize) throws SQLException {
+		int size = fetchSize;
+		if (size == IReadOnlyHandle.STREAM_ROWS) {
+			size = this.getDbVendor().getStreamingFetchSize(this.dbDriver.defaultFetchSize);
+		} else if (size <= 0) {
+			size = this.dbDriver.defaultFetchSize;
+		}
+		stmt.setFetchSize(size);
+	}
+
+	/**
+	 * return a statement that was obtained with getStatement()
+	 *
+	 * @param sql
+	 * @param keyNames
+	 * @param stmt
+	 *            can be null, in which case this is a no-op
+	 * @param startedAt
+	 *            System.nanoTime() before the statement was borrowed. used to
+	 *            record the time taken by the sql
+	 */
+	protected void releaseStatement(String sql, String[] keyNames, PreparedStatement stmt, long startedAt) {
+		if (stmt == null) {
+			return;
+		}
+		MetricsRegistry.recordSql(sql, System.nanoTime() - startedAt);
+		if (this.statementCache != null) {
+			this.statementCache.release(sql, keyNames, stmt);
+			return;
+		}
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+			//
+		}
+	}
+
 	/**
 	 * set parameters to a prepared statement
 	 *
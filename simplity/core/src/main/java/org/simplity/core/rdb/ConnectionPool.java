@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.rdb;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A simple pool of jdbc connections for a connection string. Used by RdbSetup
+ * when the app is not run inside a container that provides a dataSource, like
+ * in a batch or command-line set up.
+ *
+ * <p>
+ * A connection is validated before it is lent out, and is retired once it
+ * crosses its max life time. Connections that are held longer than the leak
+ * threshold are reported during house-keeping, along with the name of the
+ * thread that borrowed it.
+ * </p>
+ *
+ * @author simplity.org
+ *
+ */
+public class ConnectionPool {
+	private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	private final String poolName;
+	private final String connectionString;
+	private final String validationSql;
+	private final int minSize;
+	private final int maxSize;
+	private final long maxLifetimeMillis;
+	private final long leakThresholdMillis;
+	private final long waitMillis;
+
+	/*
+	 * one permit per connection that can be lent out
+	 */
+	private final Semaphore permits;
+	/*
+	 * we use the idle ones as a stack, so that the recently used ones are
+	 * reused, and the others age out
+	 */
+	private final LinkedBlockingDeque<PooledConnection> idleOnes = new LinkedBlockingDeque<>();
+	private final Map<Connection, PooledConnection> activeOnes = new ConcurrentHashMap<>();
+	private volatile boolean closed;
+
+	/*
+	 * metrics
+	 */
+	private final AtomicLong nbrCreated = new AtomicLong();
+	private final AtomicLong nbrDiscarded = new AtomicLong();
+	private final AtomicLong nbrBorrowed = new AtomicLong();
+	private final AtomicLong nbrTimeouts = new AtomicLong();
+	private final AtomicLong nbrValidationFailures = new AtomicLong();
+	private final AtomicLong nbrLeaks = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	/**
+	 *
+	 * @param poolName
+	 *            name, typically the schema, used for logging
+	 * @param connectionString
+	 *            to get a connection using DriverManager
+	 * @param validationSql
+	 *            sql to be used to validate a connection in case the driver
+	 *            does not support Connection.isValid()
+	 * @param minSize
+	 *            number of connections to be kept ready even when idle
+	 * @param maxSize
+	 *            max number of connections that can be lent out at any time
+	 * @param maxLifetimeSeconds
+	 *            a connection is closed once it is this old. 0 means no limit
+	 * @param leakThresholdSeconds
+	 *            a connection held by a borrower for longer than this is
+	 *            reported as a possible leak. 0 means no leak detection
+	 * @param waitSeconds
+	 *            max time a borrower waits for a connection when all of them
+	 *            are in use
+	 */
+	ConnectionPool(String poolName, String connectionString, String validationSql, int minSize, int maxSize,
+			int maxLifetimeSeconds, int leakThresholdSeconds, int waitSeconds) {
+		this.poolName = poolName;
+		this.connectionString = connectionString;
+		this.validationSql = validationSql;
+		this.maxSize = maxSize;
+		this.minSize = minSize > maxSize ? maxSize : minSize;
+		this.maxLifetimeMillis = maxLifetimeSeconds * 1000L;
+		this.leakThresholdMillis = leakThresholdSeconds * 1000L;
+		this.waitMillis = waitSeconds * 1000L;
+		this.permits = new Semaphore(maxSize, true);
+	}
+
+	/**
+	 * get a connection from the pool. Caller MUST return it with giveBack()
+	 *
+	 * @return a valid connection
+	 * @throws SQLException
+	 *             in case a connection could not be had
+	 */
+	Connection borrow() throws SQLException {
+		if (this.closed) {
+			throw new SQLException("Connection pool " + this.poolName + " is closed");
+		}
+		long startedAt = System.nanoTime();
+		try {
+			if (this.permits.tryAcquire(this.waitMillis, TimeUnit.MILLISECONDS) == false) {
+				this.nbrTimeouts.incrementAndGet();
+				throw new SQLException("Timed out after " + this.waitMillis + "ms waiting for a connection from pool "
+						+ this.poolName + ". All " + this.maxSize + " connections are in use.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection from pool " + this.poolName, e);
+		}
+		long waited = System.nanoTime() - startedAt;
+		this.totalWaitNanos.addAndGet(waited);
+		this.maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+		try {
+			PooledConnection pc = this.getIdleOne();
+			if (pc == null) {
+				pc = this.createOne();
+			}
+			pc.borrowedAt = System.currentTimeMillis();
+			pc.borrowedBy = Thread.currentThread().getName();
+			pc.leakReported = false;
+			this.activeOnes.put(pc.connection, pc);
+			this.nbrBorrowed.incrementAndGet();
+			return pc.connection;
+		} catch (SQLException | RuntimeException e) {
+			this.permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * return a connection that was borrowed from this pool
+	 *
+	 * @param con
+	 * @return true if the connection belonged to this pool and is taken back.
+	 *         false if this connection was not lent out by this pool
+	 */
+	boolean giveBack(Connection con) {
+		PooledConnection pc = this.activeOnes.remove(con);
+		if (pc == null) {
+			return false;
+		}
+		long heldFor = System.currentTimeMillis() - pc.borrowedAt;
+		if (pc.leakReported) {
+			logger.info("Connection reported as leaked from pool {} is returned after {}ms", this.poolName, heldFor);
+		}
+		if (this.closed == false && this.isExpired(pc, System.currentTimeMillis()) == false && this.reset(con)) {
+			this.idleOnes.offerFirst(pc);
+		} else {
+			this.discard(pc);
+		}
+		this.permits.release();
+		return true;
+	}
+
+	/**
+	 * called periodically to report leaks, retire old connections and keep
+	 * min number of connections ready
+	 */
+	void houseKeep() {
+		if (this.closed) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		if (this.leakThresholdMillis > 0) {
+			for (PooledConnection pc : this.activeOnes.values()) {
+				if (pc.leakReported == false && now - pc.borrowedAt > this.leakThresholdMillis) {
+					pc.leakReported = true;
+					this.nbrLeaks.incrementAndGet();
+					logger.warn(
+							"Possible connection leak: a connection from pool {} is held by thread {} for {}ms",
+							this.poolName, pc.borrowedBy, now - pc.borrowedAt);
+				}
+			}
+		}
+
+		for (PooledConnection pc : this.idleOnes) {
+			if (this.isExpired(pc, now) && this.idleOnes.remove(pc)) {
+				this.discard(pc);
+			}
+		}
+
+		while (this.closed == false && this.activeOnes.size() + this.idleOnes.size() < this.minSize) {
+			try {
+				this.idleOnes.offerLast(this.createOne());
+			} catch (SQLException e) {
+				logger.error("Unable to create a connection for pool {}. {}", this.poolName, e.getMessage());
+				break;
+			}
+		}
+	}
+
+	/**
+	 * close all idle connections. Connections that are in use are closed as
+	 * and when they are returned.
+	 */
+	void close() {
+		this.closed = true;
+		PooledConnection pc;
+		while ((pc = this.idleOnes.pollFirst()) != null) {
+			this.discard(pc);
+		}
+		logger.info("Connection pool closed. {}", this);
+	}
+
+	private PooledConnection getIdleOne() {
+		long now = System.currentTimeMillis();
+		PooledConnection pc;
+		while ((pc = this.idleOnes.pollFirst()) != null) {
+			if (this.isExpired(pc, now)) {
+				this.discard(pc);
+				continue;
+			}
+			if (this.isValid(pc.connection)) {
+				return pc;
+			}
+			this.nbrValidationFailures.incrementAndGet();
+			logger.info("A connection from pool {} failed validation and is discarded", this.poolName);
+			this.discard(pc);
+		}
+		return null;
+	}
+
+	private PooledConnection createOne() throws SQLException {
+		PooledConnection pc = new PooledConnection(DriverManager.getConnection(this.connectionString));
+		this.nbrCreated.incrementAndGet();
+		return pc;
+	}
+
+	private void discard(PooledConnection pc) {
+		this.nbrDiscarded.incrementAndGet();
+		try {
+			pc.connection.close();
+		} catch (SQLException e) {
+			logger.info("Error while closing a pooled connection. {}", e.getMessage());
+		}
+	}
+
+	private boolean isExpired(PooledConnection pc, long now) {
+		return this.maxLifetimeMillis > 0 && now - pc.createdAt > this.maxLifetimeMillis;
+	}
+
+	private boolean isValid(Connection con) {
+		try {
+			return con.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException | AbstractMethodError e) {
+			/*
+			 * older drivers do not implement isValid()
+			 */
+		}
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute(this.validationSql);
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * a connection is handed over with default settings. rollback any pending
+	 * work left behind by the previous borrower
+	 */
+	private boolean reset(Connection con) {
+		try {
+			if (con.isClosed()) {
+				return false;
+			}
+			if (con.getAutoCommit() == false) {
+				con.rollback();
+				con.setAutoCommit(true);
+			}
+			if (con.isReadOnly()) {
+				con.setReadOnly(false);
+			}
+			con.clearWarnings();
+			return true;
+		} catch (SQLException e) {
+			logger.info("Connection could not be reset, and is discarded. {}", e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * @return name of this pool
+	 */
+	public String getPoolName() {
+		return this.poolName;
+	}
+
+	/**
+	 * @return max number of connections that can be lent out
+	 */
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * @return number of connections currently lent out
+	 */
+	public int getNbrActive() {
+		return this.activeOnes.size();
+	}
+
+	/**
+	 * @return number of connections ready to be lent out
+	 */
+	public int getNbrIdle() {
+		return this.idleOnes.size();
+	}
+
+	/**
+	 * @return number of borrowers waiting for a connection
+	 */
+	public int getNbrWaiting() {
+		return this.permits.getQueueLength();
+	}
+
+	/**
+	 * @return number of physical connections created so far
+	 */
+	public long getNbrCreated() {
+		return this.nbrCreated.get();
+	}
+
+	/**
+	 * @return number of physical connections closed so far
+	 */
+	public long getNbrDiscarded() {
+		return this.nbrDiscarded.get();
+	}
+
+	/**
+	 * @return number of times a connection was lent out
+	 */
+	public long getNbrBorrowed() {
+		return this.nbrBorrowed.get();
+	}
+
+	/**
+	 * @return number of times a borrower gave up waiting for a connection
+	 */
+	public long getNbrTimeouts() {
+		return this.nbrTimeouts.get();
+	}
+
+	/**
+	 * @return number of idle connections that failed validation
+	 */
+	public long getNbrValidationFailures() {
+		return this.nbrValidationFailures.get();
+	}
+
+	/**
+	 * @return number of connections that were reported as possible leaks
+	 */
+	public long getNbrLeaks() {
+		return this.nbrLeaks.get();
+	}
+
+	/**
+	 * @return average time in milliseconds a borrower waited for a connection
+	 */
+	public double getAverageWaitMillis() {
+		long n = this.nbrBorrowed.get() + this.nbrTimeouts.get();
+		if (n == 0) {
+			return 0;
+		}
+		return this.totalWaitNanos.get() / 1000000.0 / n;
+	}
+
+	/**
+	 * @return longest time in milliseconds a borrower waited for a connection
+	 */
+	public double getMaxWaitMillis() {
+		return this.maxWaitNanos.get() / 1000000.0;
+	}
+
+	@Override
+	public String toString() {
+		return "pool=" + this.poolName + " active=" + this.getNbrActive() + " idle=" + this.getNbrIdle()
+				+ " waiting=" + this.getNbrWaiting() + " created=" + this.getNbrCreated() + " discarded="
+				+ this.getNbrDiscarded() + " borrowed=" + this.getNbrBorrowed() + " timeouts=" + this.getNbrTimeouts()
+				+ " leaks=" + this.getNbrLeaks();
+	}
+
+	private static class PooledConnection {
+		final Connection connection;
+		final long createdAt = System.currentTimeMillis();
+		volatile long borrowedAt;
+		volatile String borrowedBy;
+		volatile boolean leakReported;
+
+		PooledConnection(Connection connection) {
+			this.connection = connection;
+		}
+	}
+}
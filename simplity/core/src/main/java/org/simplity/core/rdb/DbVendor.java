@@ -94,6 +94,11 @@ public enum DbVendor {
 	/** db2 */
 	,DB2("select current_schema from sysibm.sysdummy1", "set schema ");
 
+	/*
+	 * rows fetched per round trip while streaming, if fetch size is not set
+	 */
+	private static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
 	/*
 	 * fields default to standard
 	 */
@@ -158,6 +163,73 @@ public enum DbVendor {
 		return this.setSchema + schema;
 	}
 
+	/**
+	 * @return true if the jdbc driver returns generated keys for all the rows
+	 *         inserted as a batch. false if keys are to be retrieved one row
+	 *         at a time
+	 */
+	public boolean returnsKeysForBatch() {
+		return this == MYSQL || this == POSTGRESQL;
+	}
+
+	/**
+	 * @param fetchSize
+	 *            fetch size configured for the db. 0 if not set
+	 * @return fetch size to be set to a statement so that the driver streams
+	 *         rows as they arrive, instead of buffering the whole result
+	 */
+	public int getStreamingFetchSize(int fetchSize) {
+		if (this == MYSQL) {
+			/*
+			 * mysql driver streams rows one at a time only for this value
+			 */
+			return Integer.MIN_VALUE;
+		}
+		if (fetchSize > 0) {
+			return fetchSize;
+		}
+		return DEFAULT_STREAMING_FETCH_SIZE;
+	}
+
+	/**
+	 * @return true if the driver honours fetch size only when the connection
+	 *         is not in auto-commit mode
+	 */
+	public boolean streamsOnlyWithinTransaction() {
+		return this == POSTGRESQL;
+	}
+
+	/**
+	 * append the clause that restricts a select sql to one page of its rows.
+	 * sql is expected to have its ORDER BY clause already, as otherwise rows
+	 * in a page are not predictable.
+	 *
+	 * @param sql
+	 *            select sql, including its ORDER BY clause
+	 * @param pageSize
+	 *            max rows to be returned
+	 * @param offset
+	 *            number of rows to be skipped before the first row of the page
+	 */
+	public void appendPagination(StringBuilder sql, int pageSize, int offset) {
+		if (this == MYSQL || this == POSTGRESQL || this == H2) {
+			sql.append(" LIMIT ").append(pageSize);
+			if (offset > 0) {
+				sql.append(" OFFSET ").append(offset);
+			}
+			return;
+		}
+		/*
+		 * sql-2008 syntax. sql server insists on the offset clause
+		 */
+		if (offset > 0 || this == MSSQL) {
+			sql.append(" OFFSET ").append(offset).append(" ROWS FETCH NEXT ");
+		} else {
+			sql.append(" FETCH FIRST ");
+		}
+		sql.append(pageSize).append(" ROWS ONLY");
+	}
+
 	/**
 	 *
 	 * @return function to be used to create a struct from data
@@ -27,8 +27,13 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.naming.InitialContext;
 import javax.sql.DataSource;
@@ -61,6 +66,9 @@ public class RdbSetup implements IDbDriver {
 
 	private static final String CONTEXT_PREFIX = "java:/comp/env/";
 
+	private static final int DEFAULT_STATEMENT_CACHE_SIZE = 20;
+	private static final int POOL_HOUSE_KEEPING_SECONDS = 30;
+
 	private RdbSetup defaultDriver;
 
 	/**
@@ -113,8 +121,61 @@ public class RdbSetup implements IDbDriver {
 	@FieldMetaData(relevantBasedOnField = "dbVendor")
 	SchemaDetail[] schemaDetails;
 
+	/**
+	 * number of prepared statements to be cached for a db handle. A handle
+	 * re-uses the statement when the same sql is executed again, as DbTable
+	 * does while saving rows in a loop. 0 to disable caching.
+	 */
+	int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+
+	/**
+	 * rows to be fetched in one round trip to the db while reading. 0 leaves it
+	 * to the jdbc driver, that may fetch as few as 10 rows (oracle) or the
+	 * whole result (most others). Sql and dbTable may have their own fetch
+	 * size.
+	 */
+	int defaultFetchSize;
+
+	/**
+	 * when connectionString is used, connections are pooled if this is set.
+	 * max number of connections that can be in use at a time for a schema. 0
+	 * (default) means no pooling, and a new connection is opened for every db
+	 * access.
+	 */
+	int connectionPoolMaxSize;
+
+	/**
+	 * number of connections to be kept ready in the pool even when they are
+	 * not in use
+	 */
+	int connectionPoolMinSize;
+
+	/**
+	 * a pooled connection is closed after it has lived this long. 0 means a
+	 * connection may live for ever
+	 */
+	int connectionMaxLifetimeSeconds = 1800;
+
+	/**
+	 * a connection that is not returned to the pool for this long is reported
+	 * as a possible leak. 0 to disable leak detection
+	 */
+	int connectionLeakThresholdSeconds = 300;
+
+	/**
+	 * max time to wait for a connection from the pool when all connections are
+	 * in use
+	 */
+	int connectionWaitSeconds = 30;
+
 	private Map<String, DataSource> otherDataSources = null;
 	private Map<String, String> otherConStrings = null;
+	/*
+	 * connection pools, in case connection string is used
+	 */
+	private ConnectionPool defaultPool;
+	private Map<String, ConnectionPool> otherPools;
+	private ScheduledExecutorService poolKeeper;
 
 	/*
 	 * RDBMS vendor dependent settings. set based on db vendor
@@ -125,6 +186,11 @@ public class RdbSetup implements IDbDriver {
 	private DataSource dataSourceObject;
 	private ArrayCreator arrayCreator;
 	private StructCreator structCreator;
+	/*
+	 * statement cache statistics accumulated from all handles
+	 */
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
 
 	@Override
 	public String getTimeStampFn() {
@@ -133,8 +199,10 @@ public class RdbSetup implements IDbDriver {
 
 	@Override
 	public void accessDb(IDbClient dbClient, DbAccessType accessType, String schema) {
-		try (Connection con = this.createConnection(schema)) {
-			AbstractHandle dbHandle = null;
+		Connection con = null;
+		AbstractHandle dbHandle = null;
+		try {
+			con = this.createConnection(schema);
 			switch (accessType) {
 			case AUTO_COMMIT:
 				dbHandle = new AutoCommitHandle(con, this, schema);
@@ -176,10 +244,45 @@ public class RdbSetup implements IDbDriver {
 					con.rollback();
 				}
 			}
-			dbHandle.close();
 
 		} catch (SQLException e) {
 			throw new ApplicationError(e, "");
+		} finally {
+			/*
+			 * statements cached by the handle are to be closed before the
+			 * connection is returned to its pool, even if the client failed
+			 */
+			if (dbHandle != null) {
+				dbHandle.close();
+			}
+			if (con != null) {
+				this.closeConnection(con);
+			}
+		}
+	}
+
+	/**
+	 * return the connection to its pool, or close it if it is not pooled
+	 *
+	 * @param con
+	 */
+	private void closeConnection(Connection con) {
+		ConnectionPool pool = this.defaultPool;
+		Map<String, ConnectionPool> pools = this.otherPools;
+		if (pool != null && pool.giveBack(con)) {
+			return;
+		}
+		if (pools != null) {
+			for (ConnectionPool p : pools.values()) {
+				if (p.giveBack(con)) {
+					return;
+				}
+			}
+		}
+		try {
+			con.close();
+		} catch (SQLException e) {
+			logger.error("Error while closing connection. {}", e.getMessage());
 		}
 	}
 
@@ -274,11 +377,20 @@ public class RdbSetup implements IDbDriver {
 			throw new ApplicationError("Database should be initialized properly before any operation can be done.");
 		}
 		if (sch == null) {
+			if (this.defaultPool != null) {
+				return this.defaultPool.borrow();
+			}
 			return DriverManager.getConnection(this.connectionString);
 		}
 		/*
 		 * service uses a non-default schema
 		 */
+		if (this.otherPools != null) {
+			ConnectionPool pool = this.otherPools.get(sch);
+			if (pool != null) {
+				return pool.borrow();
+			}
+		}
 		String conString = this.otherConStrings.get(sch);
 		if (conString == null) {
 			throw new ApplicationError("No connection string configured for schema " + sch);
@@ -302,6 +414,7 @@ public class RdbSetup implements IDbDriver {
 	public String configure() {
 		if (this.defaultDriver != null) {
 			logger.warn("Existing driver is going to be replaced with a new one...");
+			this.shutdown();
 		}
 		if (this.dbVendor == null) {
 			logger.info(
@@ -324,6 +437,9 @@ public class RdbSetup implements IDbDriver {
 			msg = this.setupConnection();
 		}
 		if (msg == null) {
+			if (this.dataSourceObject == null && this.connectionPoolMaxSize > 0) {
+				this.createPools();
+			}
 			logger.info("Driver class name " + this.dbDriverClassName + " invoked successfully");
 			this.defaultDriver = this;
 			return null;
@@ -385,6 +501,73 @@ public class RdbSetup implements IDbDriver {
 		return null;
 	}
 
+	private void createPools() {
+		String sql = this.dbVendor.getGetSchemaSql();
+		this.defaultPool = new ConnectionPool(this.defaultSchema, this.connectionString, sql,
+				this.connectionPoolMinSize, this.connectionPoolMaxSize, this.connectionMaxLifetimeSeconds,
+				this.connectionLeakThresholdSeconds, this.connectionWaitSeconds);
+		this.otherPools = new HashMap<>();
+		if (this.otherConStrings != null) {
+			for (Map.Entry<String, String> entry : this.otherConStrings.entrySet()) {
+				String sch = entry.getKey();
+				this.otherPools.put(sch,
+						new ConnectionPool(sch, entry.getValue(), sql, this.connectionPoolMinSize,
+								this.connectionPoolMaxSize, this.connectionMaxLifetimeSeconds,
+								this.connectionLeakThresholdSeconds, this.connectionWaitSeconds));
+			}
+		}
+		this.poolKeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "rdb-connection-pool-keeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.poolKeeper.scheduleWithFixedDelay(() -> {
+			try {
+				this.defaultPool.houseKeep();
+				for (ConnectionPool pool : this.otherPools.values()) {
+					pool.houseKeep();
+				}
+			} catch (Exception e) {
+				logger.error("Error during house keeping of connection pools. {}", e.getMessage());
+			}
+		}, 0, POOL_HOUSE_KEEPING_SECONDS, TimeUnit.SECONDS);
+		logger.info("Connections are pooled with a max of {} connections per schema", this.connectionPoolMaxSize);
+	}
+
+	/**
+	 * release resources held by this driver, like pooled connections. To be
+	 * called when the app shuts down.
+	 */
+	public void shutdown() {
+		if (this.poolKeeper != null) {
+			this.poolKeeper.shutdownNow();
+			this.poolKeeper = null;
+		}
+		if (this.defaultPool != null) {
+			this.defaultPool.close();
+			this.defaultPool = null;
+		}
+		if (this.otherPools != null) {
+			for (ConnectionPool pool : this.otherPools.values()) {
+				pool.close();
+			}
+			this.otherPools = null;
+		}
+	}
+
+	/**
+	 * @return connection pools indexed by schema name. empty if connections
+	 *         are not pooled
+	 */
+	public Map<String, ConnectionPool> getConnectionPools() {
+		if (this.defaultPool == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, ConnectionPool> pools = new HashMap<>(this.otherPools);
+		pools.put(this.defaultSchema, this.defaultPool);
+		return pools;
+	}
+
 	private String checkConnectionString(String str, boolean setDefaultSchema) {
 		try (Connection con = DriverManager.getConnection(str)) {
 			if (setDefaultSchema) {
@@ -515,6 +698,34 @@ public class RdbSetup implements IDbDriver {
 		}
 	}
 
+	/**
+	 * accumulate statement cache statistics of a handle that is being closed
+	 *
+	 * @param hits
+	 * @param misses
+	 */
+	void addStatementCacheStats(int hits, int misses) {
+		this.statementCacheHits.addAndGet(hits);
+		this.statementCacheMisses.addAndGet(misses);
+	}
+
+	/**
+	 * @return number of times a prepared statement was re-used from the cache
+	 *         of a db-handle
+	 */
+	public long getStatementCacheHits() {
+		return this.statementCacheHits.get();
+	}
+
+	/**
+	 * @return number of times a prepared statement had to be prepared afresh,
+	 *         either because caching is disabled or it was not found in the
+	 *         cache
+	 */
+	public long getStatementCacheMisses() {
+		return this.statementCacheMisses.get();
+	}
+
 	@Override
 	public StructCreator getStructCreator() {
 		return this.structCreator;
@@ -71,7 +71,11 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 		if (this.dbDriver.logSqls) {
 			RdbUtil.traceBatchSql(sql, values);
 		}
-		try (PreparedStatement stmt = this.connection.prepareStatement(sql)) {
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		try {
+			stmt = this.getStatement(sql, null);
+			this.setFetchSize(stmt, 0);
 			int nbr = 0;
 			for (Value[] vals : values) {
 				setPreparedStatementParams(stmt, vals);
@@ -79,28 +83,64 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 				nbr += reader.read(rs);
 				rs.close();
 			}
-			logger.info("{} rows read using readBatch()", nbr);
+			logger.debug("{} rows read using readBatch()", nbr);
 			return nbr;
 		} catch (SQLException e) {
 			throw new ApplicationError(e, ERROR);
+		} finally {
+			this.releaseStatement(sql, null, stmt, startedAt);
 		}
 	}
 
 	@Override
 	public int read(String sql, Value[] values, IResultSetReader reader) {
+		return this.read(sql, values, reader, 0);
+	}
+
+	@Override
+	public int read(String sql, Value[] values, IResultSetReader reader, int fetchSize) {
 		this.checkActive();
 		if (this.dbDriver.logSqls) {
 			RdbUtil.traceSql(sql, values);
 		}
-		try (PreparedStatement stmt = this.connection.prepareStatement(sql)) {
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		boolean autoCommitToBeRestored = false;
+		try {
+			stmt = this.getStatement(sql, null);
+			this.setFetchSize(stmt, fetchSize);
+			if (fetchSize == STREAM_ROWS && this.getDbVendor().streamsOnlyWithinTransaction()
+					&& this.connection.getAutoCommit()) {
+				/*
+				 * driver (postgres) ignores fetch size, and buffers all rows,
+				 * in auto-commit mode. We switch it off for this read alone,
+				 * and switch it back on once the rows are read. Switching it
+				 * back commits the transaction, but there is nothing to commit
+				 * as this handle does not update. Handles with a transaction
+				 * are not in auto-commit mode, and are not touched. If it can
+				 * not be restored here, connection pool resets it when the
+				 * connection is returned.
+				 */
+				this.connection.setAutoCommit(false);
+				autoCommitToBeRestored = true;
+			}
 			setPreparedStatementParams(stmt, values);
 			ResultSet rs = stmt.executeQuery();
 			int nbr = reader.read(rs);
 			rs.close();
-			logger.info("{} rows read using read()", nbr);
+			logger.debug("{} rows read using read()", nbr);
 			return nbr;
 		} catch (SQLException e) {
 			throw new ApplicationError(e, ERROR);
+		} finally {
+			this.releaseStatement(sql, null, stmt, startedAt);
+			if (autoCommitToBeRestored) {
+				try {
+					this.connection.setAutoCommit(true);
+				} catch (SQLException e) {
+					logger.error("Unable to restore auto-commit mode of connection. {}", e.getMessage());
+				}
+			}
 		}
 	}
 
@@ -113,10 +153,12 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 				int nbr = 0;
 				try {
 					while (rs.next()) {
-						consumer.consume(RdbUtil.resultToValueRow(rs, outputTypes));
 						nbr++;
+						if (consumer.consume(RdbUtil.resultToValueRow(rs, outputTypes)) == false) {
+							break;
+						}
 					}
-					logger.info("{} rows read using readBatch()", nbr);
+					logger.debug("{} rows read using readBatch()", nbr);
 					return nbr;
 				} catch (SQLException e) {
 					throw new ApplicationError(e, "");
@@ -127,6 +169,11 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 
 	@Override
 	public int read(String sql, Value[] values, ValueType[] outputTypes, IRowConsumer consumer) {
+		return this.read(sql, values, outputTypes, consumer, 0);
+	}
+
+	@Override
+	public int read(String sql, Value[] values, ValueType[] outputTypes, IRowConsumer consumer, int fetchSize) {
 		return this.read(sql, values, new IResultSetReader() {
 
 			@Override
@@ -134,16 +181,18 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 				try {
 					int nbr = 0;
 					while (rs.next()) {
-						consumer.consume(RdbUtil.resultToValueRow(rs, outputTypes));
 						nbr++;
+						if (consumer.consume(RdbUtil.resultToValueRow(rs, outputTypes)) == false) {
+							break;
+						}
 					}
-					logger.info("{} rows read using read()", nbr);
+					logger.debug("{} rows read using read()", nbr);
 					return nbr;
 				} catch (SQLException e) {
 					throw new ApplicationError(e, "");
 				}
 			}
-		});
+		}, fetchSize);
 	}
 
 	@Override
@@ -160,6 +209,11 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 
 	@Override
 	public int read(String sql, Value[] values, IDataSheet dataSheet) {
+		return this.read(sql, values, dataSheet, 0);
+	}
+
+	@Override
+	public int read(String sql, Value[] values, IDataSheet dataSheet, int fetchSize) {
 		return this.read(sql, values, dataSheet.getValueTypes(), new IRowConsumer() {
 
 			@Override
@@ -167,7 +221,7 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 				dataSheet.addRow(row);
 				return true;
 			}
-		});
+		}, fetchSize);
 	}
 
 	@Override
@@ -176,7 +230,10 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 		if (this.dbDriver.logSqls) {
 			RdbUtil.traceSql(sql, values);
 		}
-		try (PreparedStatement stmt = this.connection.prepareStatement(sql)) {
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		try {
+			stmt = this.getStatement(sql, null);
 			setPreparedStatementParams(stmt, values);
 			ResultSet rs = stmt.executeQuery();
 			boolean result = rs.next();
@@ -184,6 +241,8 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 			return result;
 		} catch (SQLException e) {
 			throw new ApplicationError(e, ERROR);
+		} finally {
+			this.releaseStatement(sql, null, stmt, startedAt);
 		}
 	}
 
@@ -195,7 +254,11 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 		}
 		IDataSheet sheet = null;
 		ValueType[] types = null;
-		try (PreparedStatement stmt = this.connection.prepareStatement(sql)) {
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		try {
+			stmt = this.getStatement(sql, null);
+			this.setFetchSize(stmt, 0);
 			for (Value[] vals : values) {
 				setPreparedStatementParams(stmt, vals);
 				ResultSet rs = stmt.executeQuery();
@@ -209,10 +272,12 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 					nbr++;
 				}
 				rs.close();
-				logger.info("{} rows read into data a sheet", nbr);
+				logger.debug("{} rows read into data a sheet", nbr);
 			}
 		} catch (SQLException e) {
 			throw new ApplicationError(e, ERROR);
+		} finally {
+			this.releaseStatement(sql, null, stmt, startedAt);
 		}
 		return sheet;
 	}
@@ -223,7 +288,11 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 		if (this.dbDriver.logSqls) {
 			RdbUtil.traceSql(sql, values);
 		}
-		try (PreparedStatement stmt = this.connection.prepareStatement(sql)) {
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		try {
+			stmt = this.getStatement(sql, null);
+			this.setFetchSize(stmt, 0);
 			setPreparedStatementParams(stmt, values);
 			ResultSet rs = stmt.executeQuery();
 			IDataSheet sheet = RdbUtil.getDataSheetForSqlResult(rs);
@@ -234,10 +303,12 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 				nbr++;
 			}
 			rs.close();
-			logger.info("{} rows read into data a sheet", nbr);
+			logger.debug("{} rows read into data a sheet", nbr);
 			return sheet;
 		} catch (SQLException e) {
 			throw new ApplicationError(e, ERROR);
+		} finally {
+			this.releaseStatement(sql, null, stmt, startedAt);
 		}
 	}
 
@@ -306,7 +377,7 @@ public class ReadOnlyHandle extends AbstractHandle implements IReadOnlyHandle {
 		if (err != null) {
 			throw new ApplicationError(err, "Sql Error while extracting data using stored procedure");
 		}
-		logger.info("{} rows extracted using sp.", result);
+		logger.debug("{} rows extracted using sp.", result);
 
 		if (result > 0) {
 			return result;
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.rdb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of prepared statements for a connection. A db handle uses the same
+ * connection for its entire life, and services tend to execute the same sqls
+ * repeatedly (like DbTable saving rows in a loop). Caching the statement saves
+ * the round trip to the data base to prepare it again.
+ *
+ * A db-handle is meant for a single thread, but child-actions of a synchronizer
+ * may share the service's handle. Methods are synchronized for this reason,
+ * and the cost is negligible when there is no contention.
+ *
+ * @author simplity.org
+ *
+ */
+class StatementCache {
+	private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+	private final Connection connection;
+	private final Map<String, PreparedStatement> statements;
+	/*
+	 * a statement may be requested again while its result set is still being
+	 * read (nested reads with the same sql). We keep track of statements that
+	 * are lent out and prepare a fresh one in such a case.
+	 */
+	private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+	private int hits;
+	private int misses;
+
+	/**
+	 * @param con
+	 *            connection for which statements are to be cached
+	 * @param maxSize
+	 *            max number of statements to be cached. least recently used
+	 *            one is closed when this is exceeded
+	 */
+	StatementCache(Connection con, int maxSize) {
+		this.connection = con;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(maxSize, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (this.size() <= maxSize) {
+					return false;
+				}
+				PreparedStatement stmt = eldest.getValue();
+				/*
+				 * a statement that is in use is closed when it is returned
+				 */
+				if (StatementCache.this.inUse.contains(stmt) == false) {
+					closeStatement(stmt);
+				}
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * get a prepared statement for the sql. caller MUST return it with a call
+	 * to release() after use
+	 *
+	 * @param sql
+	 * @param keyNames
+	 *            null for a normal statement. names of columns for which
+	 *            generated keys are to be returned otherwise
+	 * @return prepared statement. non-null.
+	 * @throws SQLException
+	 */
+	synchronized PreparedStatement borrow(String sql, String[] keyNames) throws SQLException {
+		String key = getKey(sql, keyNames);
+		PreparedStatement stmt = this.statements.get(key);
+		if (stmt != null && this.inUse.contains(stmt) == false) {
+			this.hits++;
+			this.inUse.add(stmt);
+			return stmt;
+		}
+		this.misses++;
+		if (keyNames == null) {
+			stmt = this.connection.prepareStatement(sql);
+		} else {
+			stmt = this.connection.prepareStatement(sql, keyNames);
+		}
+		if (this.statements.containsKey(key) == false) {
+			this.statements.put(key, stmt);
+		}
+		this.inUse.add(stmt);
+		return stmt;
+	}
+
+	/**
+	 * return a statement that was borrowed
+	 *
+	 * @param sql
+	 * @param keyNames
+	 * @param stmt
+	 */
+	synchronized void release(String sql, String[] keyNames, PreparedStatement stmt) {
+		boolean borrowed = this.inUse.remove(stmt);
+		String key = getKey(sql, keyNames);
+		if (borrowed == false || this.statements.get(key) != stmt) {
+			/*
+			 * this is an extra one we prepared, or it is evicted
+			 */
+			closeStatement(stmt);
+			return;
+		}
+		try {
+			stmt.clearParameters();
+			stmt.clearBatch();
+		} catch (SQLException e) {
+			logger.info("Prepared statement could not be reset for re-use and is discarded. {}", e.getMessage());
+			this.statements.remove(key);
+			closeStatement(stmt);
+		}
+	}
+
+	/**
+	 * close all cached statements. To be called before the connection is
+	 * closed.
+	 */
+	synchronized void close() {
+		for (PreparedStatement stmt : this.statements.values()) {
+			closeStatement(stmt);
+		}
+		this.statements.clear();
+		this.inUse.clear();
+	}
+
+	/**
+	 * @return number of times a cached statement was re-used
+	 */
+	synchronized int getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * @return number of times a statement had to be prepared
+	 */
+	synchronized int getMisses() {
+		return this.misses;
+	}
+
+	private static String getKey(String sql, String[] keyNames) {
+		if (keyNames == null) {
+			return sql;
+		}
+		StringBuilder sbf = new StringBuilder(sql);
+		for (String name : keyNames) {
+			sbf.append('\0').append(name);
+		}
+		return sbf.toString();
+	}
+
+	private static void closeStatement(PreparedStatement stmt) {
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+			logger.info("Error while closing a prepared statement. {}", e.getMessage());
+		}
+	}
+}
@@ -61,7 +61,10 @@ public class TransactionHandle extends ReadOnlyHandle implements ITransactionHan
 			RdbUtil.traceSql(sql, values);
 		}
 		int result = 0;
-		try (PreparedStatement stmt = this.connection.prepareStatement(sql)) {
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		try {
+			stmt = this.getStatement(sql, null);
 			setPreparedStatementParams(stmt, values);
 			result = stmt.executeUpdate();
 		} catch (SQLException e) {
@@ -71,12 +74,14 @@ public class TransactionHandle extends ReadOnlyHandle implements ITransactionHan
 			} else {
 				throw new ApplicationError(e, "Sql Error while executing sql ");
 			}
+		} finally {
+			this.releaseStatement(sql, null, stmt, startedAt);
 		}
 
 		if (result < 0) {
-			logger.info("Number of affected rows is not reliable as we got it as {}", result);
+			logger.debug("Number of affected rows is not reliable as we got it as {}", result);
 		} else {
-			logger.info("{} rows affected.", result);
+			logger.debug("{} rows affected.", result);
 		}
 		return result;
 	}
@@ -88,7 +93,10 @@ public class TransactionHandle extends ReadOnlyHandle implements ITransactionHan
 			RdbUtil.traceBatchSql(sql, values);
 		}
 		int[] result = new int[0];
-		try (PreparedStatement stmt = this.connection.prepareStatement(sql)) {
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		try {
+			stmt = this.getStatement(sql, null);
 			for (Value[] row : values) {
 				setPreparedStatementParams(stmt, row);
 				stmt.addBatch();
@@ -101,6 +109,8 @@ public class TransactionHandle extends ReadOnlyHandle implements ITransactionHan
 			} else {
 				throw new ApplicationError(e, "Sql Error while executing batch ");
 			}
+		} finally {
+			this.releaseStatement(sql, null, stmt, startedAt);
 		}
 
 		int rows = 0;
@@ -112,9 +122,9 @@ public class TransactionHandle extends ReadOnlyHandle implements ITransactionHan
 			}
 		}
 		if (rows < 0) {
-			logger.info("Number of affected rows is not reliable as we got it as {}", rows);
+			logger.debug("Number of affected rows is not reliable as we got it as {}", rows);
 		} else {
-			logger.info("{} rows affected.", rows);
+			logger.debug("{} rows affected.", rows);
 		}
 		return result;
 	}
@@ -127,7 +137,10 @@ public class TransactionHandle extends ReadOnlyHandle implements ITransactionHan
 			RdbUtil.traceSql(sql, values);
 		}
 		int result = 0;
-		try (PreparedStatement stmt = this.connection.prepareStatement(sql, keyNames)) {
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		try {
+			stmt = this.getStatement(sql, keyNames);
 			setPreparedStatementParams(stmt, values);
 			result = stmt.executeUpdate();
 			if (result > 0) {
@@ -140,30 +153,72 @@ public class TransactionHandle extends ReadOnlyHandle implements ITransactionHan
 			} else {
 				throw new ApplicationError(e, "Sql Error while executing sql ");
 			}
+		} finally {
+			this.releaseStatement(sql, keyNames, stmt, startedAt);
 		}
 
 		if (result < 0) {
-			logger.info("Number of affected rows is not reliable as we got it as {}", result);
+			logger.debug("Number of affected rows is not reliable as we got it as {}", result);
 		} else {
-			logger.info("{} rows affected.", result);
+			logger.debug("{} rows affected.", result);
 		}
 		return result;
 	}
 
+	@Override
+	public int[] insertBatchAndGetKeys(String sql, Value[][] values, long[] generatedKeys, String[] keyNames,
+			boolean treatSqlErrorAsNoAction) {
+		this.checkActive();
+		if (this.dbDriver.logSqls) {
+			RdbUtil.traceBatchSql(sql, values);
+		}
+		int[] result = new int[0];
+		PreparedStatement stmt = null;
+		long startedAt = System.nanoTime();
+		try {
+			stmt = this.getStatement(sql, keyNames);
+			for (Value[] row : values) {
+				setPreparedStatementParams(stmt, row);
+				stmt.addBatch();
+			}
+			result = stmt.executeBatch();
+			int nbrKeys = this.getGeneratedKeys(stmt, generatedKeys);
+			if (nbrKeys < values.length) {
+				throw new ApplicationError("Driver returned " + nbrKeys + " generated keys for a batch of "
+						+ values.length + " rows. Its vendor should not be set to return keys for a batch.");
+			}
+		} catch (SQLException e) {
+			if (treatSqlErrorAsNoAction) {
+				logger.info("SQLException is treated as zero rows affected. code: {} message : {}", e.getErrorCode(),
+						e.getMessage());
+			} else {
+				throw new ApplicationError(e, "Sql Error while executing batch ");
+			}
+		} finally {
+			this.releaseStatement(sql, keyNames, stmt, startedAt);
+		}
+		logger.debug("{} rows inserted with generated keys.", result.length);
+		return result;
+	}
+
 	/**
 	 * extract generated keys into the array
 	 *
 	 * @param stmt
 	 * @param generatedKeys
+	 * @return number of keys extracted
 	 * @throws SQLException
 	 */
-	private void getGeneratedKeys(Statement stmt, long[] generatedKeys) throws SQLException {
+	private int getGeneratedKeys(Statement stmt, long[] generatedKeys) throws SQLException {
 
 		ResultSet rs = stmt.getGeneratedKeys();
-		for (int i = 0; i < generatedKeys.length && rs.next(); i++) {
+		int i = 0;
+		while (i < generatedKeys.length && rs.next()) {
 			generatedKeys[i] = rs.getLong(1);
+			i++;
 		}
 		rs.close();
+		return i;
 	}
 
 	@Override
@@ -22,14 +22,17 @@
 package org.simplity.core.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.simplity.core.ApplicationError;
 import org.simplity.core.AttachmentManager;
 import org.simplity.core.app.AppConventions;
 import org.simplity.core.app.IRequestReader;
+import org.simplity.core.app.IStreamingRequestReader;
 import org.simplity.core.comp.IValidationContext;
 import org.simplity.core.comp.ValidationMessage;
 import org.simplity.core.data.IDataSheet;
@@ -334,6 +337,14 @@ public class InputData {
 			return;
 		}
 
+		InputRecord[] recs = this.inputRecords;
+		if (recs != null && reader instanceof IStreamingRequestReader) {
+			recs = this.streamRecords((IStreamingRequestReader) reader, ctx);
+			if (recs == null) {
+				return;
+			}
+		}
+
 		if (this.inputFields != null) {
 			int n = 0;
 			for (InputField field : this.inputFields) {
@@ -342,8 +353,8 @@ public class InputData {
 			logger.info(n + " fields extracted for input");
 		}
 
-		if (this.inputRecords != null) {
-			for (InputRecord inRec : this.inputRecords) {
+		if (recs != null) {
+			for (InputRecord inRec : recs) {
 				inRec.read(reader, ctx);
 			}
 		}
@@ -357,6 +368,52 @@ public class InputData {
 		}
 	}
 
+	/**
+	 * read sheets that are sent as arrays of rows directly from the stream,
+	 * one row at a time. Rest of the payload is retained by the reader.
+	 *
+	 * @param reader
+	 * @param ctx
+	 * @return records that are still to be read from the reader. null if the
+	 *         payload could not be parsed, in which case the error is added
+	 *         to the context
+	 */
+	private InputRecord[] streamRecords(IStreamingRequestReader reader, ServiceContext ctx) {
+		Map<String, InputRecord> streamable = new HashMap<>();
+		for (InputRecord rec : this.inputRecords) {
+			String attName = rec.getStreamingName();
+			if (attName != null) {
+				streamable.put(attName, rec);
+			}
+		}
+		if (streamable.isEmpty()) {
+			return this.inputRecords;
+		}
+
+		Set<InputRecord> streamed = new HashSet<>();
+		try {
+			String attName;
+			while ((attName = reader.nextAttribute()) != null) {
+				InputRecord rec = streamable.get(attName);
+				if (rec != null && rec.readRows(reader, ctx) >= 0) {
+					streamed.add(rec);
+				}
+			}
+		} catch (Exception e) {
+			logger.error("Error while parsing streamed payload. {}", e.getMessage());
+			ctx.addMessage(Messages.INVALID_DATA, "payload");
+			return null;
+		}
+
+		List<InputRecord> rest = new ArrayList<>();
+		for (InputRecord rec : this.inputRecords) {
+			if (streamed.contains(rec) == false) {
+				rest.add(rec);
+			}
+		}
+		return rest.toArray(new InputRecord[0]);
+	}
+
 	/**
 	 *
 	 * @return input fields list
@@ -28,6 +28,7 @@ import org.simplity.core.app.AppConventions;
 import org.simplity.core.app.Application;
 import org.simplity.core.app.IRequestReader;
 import org.simplity.core.app.IRequestReader.InputValueType;
+import org.simplity.core.app.IStreamingRequestReader;
 import org.simplity.core.comp.ComponentType;
 import org.simplity.core.comp.FieldMetaData;
 import org.simplity.core.comp.IValidationContext;
@@ -198,6 +199,9 @@ public class InputRecord {
 	 * called once on loading the component
 	 */
 	public void getReady() {
+		if (this.externalName == null) {
+			this.externalName = this.name;
+		}
 
 		if (this.readAs == DataStructureType.SHEET) {
 			throw new ApplicationError("Client input can not be a data sheet.");
@@ -381,6 +385,71 @@ public class InputRecord {
 
 	}
 
+	/**
+	 * @return attribute name with which rows for this record are expected in
+	 *         the payload, if the rows can be read one at a time from a
+	 *         streaming payload. null if this record needs the payload to be
+	 *         read the normal way.
+	 */
+	String getStreamingName() {
+		if (this.readAs != DataStructureType.ARRAY || this.writeAs != DataStructureType.SHEET
+				|| this.parentSheetName != null || this.children != null) {
+			return null;
+		}
+		return this.externalName == null ? this.name : this.externalName;
+	}
+
+	/**
+	 * read rows for this record into a data sheet, one row at a time, from a
+	 * streaming reader that is positioned at the attribute for this record
+	 *
+	 * @param reader
+	 * @param ctx
+	 * @return number of rows read. -1 if the attribute is not an array, in
+	 *         which case the value is retained by the reader to be read the
+	 *         normal way
+	 */
+	int readRows(IStreamingRequestReader reader, ServiceContext ctx) {
+		if (reader.openRows() == false) {
+			return -1;
+		}
+		MultiRowsSheet sheet = new MultiRowsSheet(this.fields);
+		ctx.putDataSheet(this.name, sheet);
+		int nbrAdded = 0;
+		int rowNbr = 0;
+		boolean inError = false;
+		while (reader.nextRow()) {
+			rowNbr++;
+			/*
+			 * rows are to be consumed from the stream even after an error
+			 */
+			if (inError) {
+				continue;
+			}
+			try {
+				sheet.appendEmptyRows(1);
+				int nbrRead = this.readFields(reader, sheet.getRowAsFields(nbrAdded), ctx);
+				if (nbrRead > 0) {
+					nbrAdded++;
+				} else {
+					sheet.deleteRow(nbrAdded);
+				}
+			} catch (Exception e) {
+				ctx.addMessageRow(Messages.INVALID_FIELD, MessageType.ERROR, "invalid input format",
+						this.externalName, null, this.externalName, rowNbr);
+				inError = true;
+			}
+		}
+		if (this.externalName != null) {
+			ctx.putDataSheet(this.externalName, sheet);
+		}
+		logger.info("{} rows streamed into sheet {}", nbrAdded, this.name);
+		if (this.nbrRowsOk(nbrAdded, ctx)) {
+			return nbrAdded;
+		}
+		return 0;
+	}
+
 	private boolean isVtValid(InputValueType vt) {
 		switch (this.readAs) {
 		case OBJECT:
@@ -545,9 +614,32 @@ public class InputRecord {
 			values.setValue(fieldName + AppConventions.Name.COMPARATOR_SUFFIX, Value.newTextValue(f.name()));
 			nbr++;
 		}
+		this.readPageFields(reader, values, ctx);
 		return nbr;
 	}
 
+	/**
+	 * page size and page token are not part of the filter criterion, but
+	 * decide which rows of the filtered rows are to be returned
+	 */
+	private void readPageFields(IRequestReader reader, IFieldsCollection values, ServiceContext ctx) {
+		String fieldName = AppConventions.Name.PAGE_SIZE;
+		Object obj = reader.getValue(fieldName);
+		if (obj != null) {
+			Value value = ValueType.INTEGER.parseObject(obj);
+			if (Value.isNull(value)) {
+				ctx.addValidationMessage(Messages.INVALID_DATA, null, fieldName, null, 0, obj.toString());
+			} else {
+				values.setValue(fieldName, value);
+			}
+		}
+		fieldName = AppConventions.Name.PAGE_TOKEN;
+		obj = reader.getValue(fieldName);
+		if (obj != null) {
+			values.setValue(fieldName, Value.newTextValue(obj.toString()));
+		}
+	}
+
 	private JSONObject readIntoObject(IRequestReader reader, ServiceContext ctx) {
 		/*
 		 * create a JSON object and wrap is as a fieldsCollection to receive
@@ -711,16 +803,17 @@ public class InputRecord {
 	private boolean nbrRowsOk(int nbr, ServiceContext ctx) {
 		if (nbr < this.minRows) {
 			ctx.addMessage(ServiceMessages.MIN_INPUT_ROWS, "" + this.minRows, "" + this.maxRows);
+			return false;
 		}
 
 		if (this.maxRows == 0) { // no max limit
 			return true;
 		}
-		if (nbr < this.maxRows) {
+		if (nbr > this.maxRows) {
 			ctx.addMessage(ServiceMessages.MAX_INPUT_ROWS, "" + this.minRows, "" + this.maxRows);
 			return false;
 		}
-		return false;
+		return true;
 	}
 
 	private int invalidContent(ServiceContext ctx) {
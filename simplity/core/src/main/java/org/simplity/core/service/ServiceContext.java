@@ -24,7 +24,9 @@ package org.simplity.core.service;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.jms.Session;
@@ -750,4 +752,78 @@ public class ServiceContext extends CommonData {
 		logger.info("New JSON list target created {}", targetName);
 		return JsonListTarget.getTarget(arr);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * create a context for a child-action that runs in parallel with other
+	 * actions. Child gets its own copy of fields, sheets and objects, so that
+	 * parallel actions do not step on each other. Note that a data sheet
+	 * itself is shared, and should not be modified by more than one parallel
+	 * action. Use mergeChildContexts() to bring the changes back.
+	 *
+	 * @return a new context that is a copy of this one, except for messages
+	 */
+	public ServiceContext createChildContext() {
+		ServiceContext child = new ServiceContext(this.app, this.serviceName, this.appUser);
+		child.allFields.putAll(this.allFields);
+		child.allSheets.putAll(this.allSheets);
+		child.allObjects.putAll(this.allObjects);
+		child.reqReader = this.reqReader;
+		child.respWriter = this.respWriter;
+		child.jmsSession = this.jmsSession;
+		child.messageBox = this.messageBox;
+		child.clientContext = this.clientContext;
+		child.serviceDbHandle = this.serviceDbHandle;
+		child.transactionIsDelegeated = this.transactionIsDelegeated;
+		return child;
+	}
+
+	/**
+	 * bring back changes made by child-actions to their contexts. Changes are
+	 * applied in the order of the children, and hence a later child wins in
+	 * case more than one child changed the same field.
+	 *
+	 * @param children
+	 *            contexts that were created with createChildContext() of this
+	 *            context, and this context is not changed after that
+	 */
+	public void mergeChildContexts(ServiceContext[] children) {
+		Map<String, Value> fields = new HashMap<>(this.allFields);
+		Map<String, IDataSheet> sheets = new HashMap<>(this.allSheets);
+		Map<String, Object> objects = new HashMap<>(this.allObjects);
+		for (ServiceContext child : children) {
+			mergeChanges(fields, child.allFields, this.allFields);
+			mergeChanges(sheets, child.allSheets, this.allSheets);
+			mergeChanges(objects, child.allObjects, this.allObjects);
+			this.messages.addAll(child.messages);
+			this.nbrErrors += child.nbrErrors;
+			if (child.invalidations != null) {
+				this.invalidations = child.invalidations;
+			}
+		}
+	}
+
+	/**
+	 * apply changes from a child map to the target map
+	 *
+	 * @param original
+	 *            entries as they were when the child was created
+	 * @param child
+	 *            entries as the child left them
+	 * @param target
+	 *            to which changes are to be applied
+	 */
+	private static <T> void mergeChanges(Map<String, T> original, Map<String, T> child, Map<String, T> target) {
+		for (Map.Entry<String, T> entry : child.entrySet()) {
+			String key = entry.getKey();
+			T value = entry.getValue();
+			if (original.get(key) != value || original.containsKey(key) == false) {
+				target.put(key, value);
+			}
+		}
+		for (String key : original.keySet()) {
+			if (child.containsKey(key) == false) {
+				target.remove(key);
+			}
+		}
+	}
+}
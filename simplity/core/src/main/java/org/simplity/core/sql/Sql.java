@@ -85,6 +85,19 @@ public class Sql implements IComponent {
 	/** If you already have a record that has the right fields for this sql.. */
 	@FieldMetaData(isReferenceToComp = true, referredCompType = ComponentType.REC)
 	String outputRecordName;
+	/**
+	 * rows to be fetched in one round trip to the db. 0 means the default set
+	 * for the db
+	 */
+	int fetchSize;
+
+	/**
+	 * should rows be streamed from the db as they arrive, rather than being
+	 * buffered by the jdbc driver? Relevant when rows are processed with a
+	 * consumer or written directly to the response
+	 */
+	boolean streamRows;
+
 	/** we need names and types repeatedly. Better cache them */
 	private String[] outputNames;
 
@@ -157,13 +170,13 @@ public class Sql implements IComponent {
 		} else {
 			reader = RdbUtil.newMultiRowsReader(outSheet);
 		}
-		handle.read(this.preparedStatement, values, reader);
+		handle.read(this.preparedStatement, values, reader, this.fetchSize);
 		return outSheet;
 	}
 
 	private void validateValuesInput(Value[] values) {
 		if (values == null || values.length == 0) {
-			if (this.inputParameters != null && this.inputParameters.length > 0) {
+			if (this.inputParameters == null || this.inputParameters.length == 0) {
 				return;
 			}
 			throw new ApplicationError(
@@ -191,18 +204,19 @@ public class Sql implements IComponent {
 	public int processRows(IFieldsCollection inputData, IReadOnlyHandle handle, IRowWithNameConsumer rowConsumer) {
 		this.checkReader();
 		Value[] values = this.getInputValues(inputData);
-		return handle.read(this.preparedStatement, values, RdbUtil.newReaderForConsumer(rowConsumer));
+		return handle.read(this.preparedStatement, values, RdbUtil.newReaderForConsumer(rowConsumer),
+				this.getFetchSizeForRows());
 	}
 
 	private void checkReader() {
-		if (this.sqlType != SqlType.UPDATE) {
+		if (this.sqlType == SqlType.UPDATE) {
 			throw new ApplicationError(
 					"Sql " + this.getQualifiedName() + " is meant for update, but it is called for data extraction");
 		}
 	}
 
 	private void checkUpdater() {
-		if (this.sqlType == SqlType.UPDATE) {
+		if (this.sqlType != SqlType.UPDATE) {
 			throw new ApplicationError(
 					"Sql " + this.getQualifiedName() + " is meant for reading, but it is called for update");
 		}
@@ -415,6 +429,17 @@ public class Sql implements IComponent {
 			types = record.getValueTypes();
 		}
 		return handle.read(this.preparedStatement, values,
-				RdbUtil.newReaderForResponseWriter(writer, useCompactFormat, names, types));
+				RdbUtil.newReaderForResponseWriter(writer, useCompactFormat, names, types), this.getFetchSizeForRows());
+	}
+
+	/**
+	 * fetch size when rows are processed one at a time, and are not collected
+	 * into a sheet
+	 */
+	private int getFetchSizeForRows() {
+		if (this.streamRows) {
+			return IReadOnlyHandle.STREAM_ROWS;
+		}
+		return this.fetchSize;
 	}
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.simplity.core.trans;
+
+import org.simplity.core.aggr.Aggregator;
+import org.simplity.core.aggr.HashAggregator;
+import org.simplity.core.comp.FieldMetaData;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.service.ServiceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * aggregate rows of a data sheet into another sheet, grouped on some of its
+ * columns. Rows need not be sorted on the group-by columns. Returns true if
+ * the output sheet has at least one row.
+ *
+ * @author simplity.org
+ */
+public class AggregateSheet extends AbstractNonDbAction {
+	private static final Logger actionLogger = LoggerFactory.getLogger(AggregateSheet.class);
+
+	/** sheet to be aggregated */
+	@FieldMetaData(isRequired = true)
+	String inputSheetName;
+
+	/** sheet to which aggregated rows are to be put. Replaces existing sheet */
+	@FieldMetaData(isRequired = true)
+	String outputSheetName;
+
+	/** columns to group rows on. All rows are aggregated into one if omitted */
+	String[] groupByColumns;
+
+	/** aggregates to be output for each group */
+	@FieldMetaData(isRequired = true)
+	Aggregator[] aggregators;
+
+	/**
+	 * number of partitions of a large sheet to be aggregated in parallel
+	 */
+	int nbrPartitions = 1;
+
+	private HashAggregator hashAggregator;
+
+	@Override
+	protected boolean act(ServiceContext ctx) {
+		IDataSheet inSheet = ctx.getDataSheet(this.inputSheetName);
+		if (inSheet == null) {
+
+			actionLogger.info("Data sheet {} not found, and hence no aggregation.", this.inputSheetName);
+
+			return false;
+		}
+		IDataSheet outSheet = this.hashAggregator.aggregate(inSheet);
+		ctx.putDataSheet(this.outputSheetName, outSheet);
+		return outSheet.length() > 0;
+	}
+
+	@Override
+	public void getReady(int idx, TransactionProcessor task) {
+		super.getReady(idx, task);
+		this.hashAggregator = new HashAggregator(this.groupByColumns, this.aggregators, this.nbrPartitions);
+	}
+}
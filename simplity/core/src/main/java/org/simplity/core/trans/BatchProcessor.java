@@ -0,0 +1,745 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.trans;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.Application;
+import org.simplity.core.comp.IValidationContext;
+import org.simplity.core.comp.ValidationMessage;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IDbDriver;
+import org.simplity.core.idb.IDbHandle;
+import org.simplity.core.idb.IMultiTransHandle;
+import org.simplity.core.msg.FormattedMessage;
+import org.simplity.core.rdb.DbUsage;
+import org.simplity.core.service.ServiceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * processes rows from a batch input, one row at a time, by executing the
+ * actions of this processor for each row, and writing the row to an optional
+ * batch output. Rows are read in chunks, and chunks are processed in parallel
+ * by a number of workers, each with its own db handle. Each chunk is committed as one
+ * transaction. If a checkpoint file is specified, the number of input rows
+ * that are committed is saved in that file, so that a job that failed can be
+ * restarted from where it stopped.
+ *
+ * @author simplity.org
+ *
+ */
+public class BatchProcessor extends TransactionProcessor {
+	private static final Logger logger = LoggerFactory.getLogger(BatchProcessor.class);
+	private static final long WAIT_MILLIS = 100;
+
+	/**
+	 * fully qualified class name that implements IBatchInput. A new instance
+	 * is used for every execution. Required if inputFile is not specified.
+	 */
+	String inputClassName;
+
+	/**
+	 * flat file from which rows are input. Required if inputClassName is not
+	 * specified.
+	 */
+	FlatFile inputFile;
+
+	/**
+	 * fully qualified class name that implements IBatchOutput. optional. Rows
+	 * are written to the output after they are committed.
+	 */
+	String outputClassName;
+
+	/**
+	 * flat file to which rows are written after they are committed. optional.
+	 */
+	FlatFile outputFile;
+
+	/**
+	 * number of workers that process chunks in parallel. 1 means all rows are
+	 * processed on the service thread
+	 */
+	int nbrThreads = 1;
+
+	/**
+	 * number of rows in a chunk. A chunk is processed by a worker as one
+	 * transaction
+	 */
+	int chunkSize = 100;
+
+	/**
+	 * relevant if nbrThreads is more than 1. Should the output rows be
+	 * written in the same order as they were read? If not, chunks are written
+	 * as they complete.
+	 */
+	boolean keepOrder;
+
+	/**
+	 * file in which the number of input rows processed so far is saved. If
+	 * the file exists when the job starts, that many rows are skipped. The
+	 * file is removed when the job completes with no errors.
+	 */
+	String checkpointFileName;
+
+	/**
+	 * in case this batch is run as a background job that may be interrupted,
+	 * it can stop at a chunk boundary. Chunks that are being processed are
+	 * completed, and the rest are skipped. Checkpoint, if any, is retained so
+	 * that the job can be re-started. Otherwise an interrupt fails the batch.
+	 */
+	boolean breakOnInterrupt;
+
+	@Override
+	public void execute(ServiceContext ctx) {
+		Application app = Application.getActiveInstance();
+		IBatchInput input = null;
+		if (this.inputFile != null) {
+			input = this.inputFile.getBatchInput(ctx);
+		} else {
+			input = app.getBean(this.inputClassName, IBatchInput.class);
+			if (input == null) {
+				throw new ApplicationError("Unable to get an instance of IBatchInput using " + this.inputClassName);
+			}
+		}
+		IBatchOutput output = null;
+		if (this.outputFile != null) {
+			output = this.outputFile.getBatchOutput(ctx);
+		} else if (this.outputClassName != null) {
+			output = app.getBean(this.outputClassName, IBatchOutput.class);
+			if (output == null) {
+				throw new ApplicationError(
+						"Unable to get an instance of IBatchOutput using " + this.outputClassName);
+			}
+		}
+		this.run(ctx, input, output);
+	}
+
+	/**
+	 * process all rows from input to output
+	 *
+	 * @param ctx
+	 * @param input
+	 *            non-null input
+	 * @param output
+	 *            can be null
+	 */
+	void run(ServiceContext ctx, IBatchInput input, IBatchOutput output) {
+		boolean inputOpened = false;
+		boolean outputOpened = false;
+		try {
+			input.openShop(ctx);
+			inputOpened = true;
+			if (input.possiblyMultipleRowsPerParent()) {
+				throw new ApplicationError(
+						"Batch processor can not use an input that reads multiple rows for a parent row");
+			}
+			if (output != null) {
+				output.openShop(ctx);
+				outputOpened = true;
+			}
+			new Run(ctx, input, output).start();
+		} catch (ApplicationError e) {
+			throw e;
+		} catch (Exception e) {
+			throw new ApplicationError(e, "Error while running batch");
+		} finally {
+			if (outputOpened) {
+				output.closeShop(ctx);
+			}
+			if (inputOpened) {
+				input.closeShop(ctx);
+			}
+		}
+	}
+
+	@Override
+	public boolean executeAsAction(ServiceContext ctx) {
+		/*
+		 * we always use our own db handles
+		 */
+		this.execute(ctx);
+		return ctx.isInError() == false;
+	}
+
+	/**
+	 * @return db access type to be used by each worker
+	 */
+	DbAccessType getAccessType() {
+		if (this.dbUsage == null || this.dbUsage == DbUsage.NONE) {
+			return null;
+		}
+		if (this.dbUsage == DbUsage.READ_ONLY || this.dbUsage == DbUsage.AUTO_COMMIT) {
+			return this.dbUsage.getDbAccessType();
+		}
+		return DbAccessType.MULTI_TRANS;
+	}
+
+	@Override
+	public void validate(IValidationContext vtx, Service service) {
+		super.validate(vtx, service);
+		if ((this.inputClassName == null) == (this.inputFile == null)) {
+			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+					"Exactly one of inputClassName and inputFile is to be specified", "inputClassName"));
+		}
+		if (this.outputClassName != null && this.outputFile != null) {
+			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+					"Only one of outputClassName and outputFile can be specified", "outputClassName"));
+		}
+		if (this.inputFile != null) {
+			this.inputFile.validate(vtx, this);
+		}
+		if (this.outputFile != null) {
+			this.outputFile.validate(vtx, this);
+		}
+		if (this.nbrThreads < 1) {
+			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+					"nbrThreads should be at least 1", "nbrThreads"));
+		}
+		if (this.chunkSize < 1) {
+			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+					"chunkSize should be at least 1", "chunkSize"));
+		}
+		if (this.dbUsage == DbUsage.SUB_SERVICE || this.dbUsage == DbUsage.EXTERNAL) {
+			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+					"dbUsage " + this.dbUsage + " is not valid for a batch processor as it commits every chunk",
+					"dbUsage"));
+		}
+		if (this.jmsUsage != null) {
+			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+					"jmsUsage is not valid for a batch processor as its rows are processed on worker threads",
+					"jmsUsage"));
+		}
+	}
+
+	/**
+	 * rows that are processed as one unit of work
+	 */
+	private static class Chunk {
+		final long seq;
+		final ServiceContext[] rows;
+		/*
+		 * includes invalid rows that were skipped
+		 */
+		final int nbrInputRows;
+		/*
+		 * set by the worker
+		 */
+		boolean skipped;
+		ServiceContext failedRow;
+		Exception exception;
+
+		Chunk(long seq, ServiceContext[] rows, int nbrInputRows) {
+			this.seq = seq;
+			this.rows = rows;
+			this.nbrInputRows = nbrInputRows;
+		}
+
+		boolean isOk() {
+			return this.skipped == false && this.failedRow == null && this.exception == null;
+		}
+	}
+
+	/**
+	 * state of one execution of this processor
+	 */
+	private class Run {
+		private final ServiceContext ctx;
+		private final IBatchInput input;
+		private final IBatchOutput output;
+		private final Path checkpointFile;
+		private final DbAccessType accessType = BatchProcessor.this.getAccessType();
+
+		private boolean inputDone;
+		private long nbrRowsRead;
+		private long nbrInvalidRows;
+		/*
+		 * input rows committed, in input order, with no gaps
+		 */
+		private long rowsCommitted;
+		private long nextSeqToCommit;
+		private final TreeMap<Long, Chunk> committedChunks = new TreeMap<>();
+		private Chunk failedChunk;
+		/*
+		 * read by workers to skip remaining chunks once a chunk fails
+		 */
+		private volatile boolean aborted;
+		/*
+		 * set when the batch is to stop because of an interrupt
+		 */
+		private volatile boolean interrupted;
+
+		Run(ServiceContext ctx, IBatchInput input, IBatchOutput output) {
+			this.ctx = ctx;
+			this.input = input;
+			this.output = output;
+			String fileName = BatchProcessor.this.checkpointFileName;
+			this.checkpointFile = fileName == null ? null : Paths.get(fileName);
+		}
+
+		void start() throws Exception {
+			this.skipCommittedRows();
+			int nbrThreads = BatchProcessor.this.nbrThreads;
+			if (nbrThreads <= 1 || Application.isParallelWorker()) {
+				this.runInline();
+			} else {
+				this.runParallel(nbrThreads);
+			}
+			logger.info("Batch done. {} rows read, {} invalid rows skipped, {} rows committed.", this.nbrRowsRead,
+					this.nbrInvalidRows, this.rowsCommitted);
+			Chunk failed = this.failedChunk;
+			if (failed == null && this.interrupted) {
+				/*
+				 * checkpoint is retained for the job to be re-started
+				 */
+				logger.info("Batch stopped on interrupt after committing {} input rows.", this.rowsCommitted);
+				Thread.currentThread().interrupt();
+				return;
+			}
+			if (failed == null) {
+				if (this.checkpointFile != null) {
+					Files.deleteIfExists(this.checkpointFile);
+				}
+				return;
+			}
+			if (failed.exception != null) {
+				throw new ApplicationError(failed.exception,
+						"Batch stopped after committing " + this.rowsCommitted + " input rows.");
+			}
+			logger.error("Batch stopped after committing {} input rows because a row is in error.",
+					this.rowsCommitted);
+			for (FormattedMessage msg : failed.failedRow.getMessages()) {
+				this.ctx.addMessage(msg);
+			}
+		}
+
+		/**
+		 * on a re-start, skip the rows that were committed by the earlier run
+		 */
+		private void skipCommittedRows() throws Exception {
+			if (this.checkpointFile == null || Files.exists(this.checkpointFile) == false) {
+				return;
+			}
+			String text = new String(Files.readAllBytes(this.checkpointFile), StandardCharsets.UTF_8).trim();
+			long nbrToSkip = Long.parseLong(text);
+			logger.info("Restarting batch from checkpoint. {} input rows are skipped", nbrToSkip);
+			ServiceContext scratch = this.ctx.createChildContext();
+			for (long i = 0; i < nbrToSkip; i++) {
+				try {
+					if (this.input.inputARow(scratch) == false) {
+						throw new ApplicationError("Checkpoint says " + nbrToSkip
+								+ " rows were processed, but the input has only " + i + " rows");
+					}
+				} catch (InvalidRowException e) {
+					/*
+					 * was counted as input row when it was skipped earlier
+					 */
+				}
+			}
+			this.rowsCommitted = nbrToSkip;
+		}
+
+		/**
+		 * process all chunks on this thread with one db handle
+		 */
+		private void runInline() throws Exception {
+			if (this.accessType == null) {
+				this.readAndProcessAll(null);
+				return;
+			}
+			IDbDriver driver = Application.getActiveInstance().getRdbSetup().getDefaultDriver();
+			driver.accessDb(handle -> {
+				try {
+					this.readAndProcessAll(handle);
+				} catch (ApplicationError e) {
+					throw e;
+				} catch (Exception e) {
+					throw new ApplicationError(e, "Error while running batch");
+				}
+				return true;
+			}, this.accessType, BatchProcessor.this.schemaName);
+		}
+
+		private void readAndProcessAll(IDbHandle handle) throws Exception {
+			long seq = 0;
+			while (this.failedChunk == null && this.toStop() == false) {
+				Chunk chunk = this.readChunk(seq);
+				if (chunk == null) {
+					return;
+				}
+				seq++;
+				processChunk(chunk, handle, BatchProcessor.this.actions, BatchProcessor.this.indexedActions);
+				this.chunkDone(chunk);
+			}
+		}
+
+		/**
+		 * read chunks on this thread, and have them processed by workers.
+		 * Workers hold on to their threads till the batch is done, and hence
+		 * they run on threads of their own, and not on the shared parallel
+		 * executor
+		 */
+		private void runParallel(int nbrThreads) throws Exception {
+			BlockingQueue<Chunk> toDo = new ArrayBlockingQueue<>(nbrThreads * 2);
+			BlockingQueue<Chunk> done = new LinkedBlockingQueue<>();
+			ExecutorService executor = Application.getActiveInstance().createDedicatedExecutor(nbrThreads);
+			try {
+				List<Future<Boolean>> workers = new ArrayList<>(nbrThreads);
+				for (int i = 0; i < nbrThreads; i++) {
+					workers.add(executor.submit(() -> this.work(toDo, done)));
+				}
+				try {
+					this.feedWorkers(toDo, done, workers);
+				} finally {
+					/*
+					 * chunks that are still in the queue, if any, are to be
+					 * abandoned. An empty chunk signals the end to a worker
+					 */
+					this.aborted = true;
+					toDo.clear();
+					for (int i = 0; i < nbrThreads; i++) {
+						toDo.offer(new Chunk(-1, null, 0));
+					}
+				}
+				for (Future<Boolean> worker : workers) {
+					worker.get();
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+
+		private void feedWorkers(BlockingQueue<Chunk> toDo, BlockingQueue<Chunk> done, List<Future<Boolean>> workers)
+				throws Exception {
+			long seq = 0;
+			long nbrPending = 0;
+			try {
+				while (this.failedChunk == null && this.toStop() == false) {
+					Chunk chunk = this.readChunk(seq);
+					if (chunk == null) {
+						break;
+					}
+					seq++;
+					while (toDo.offer(chunk, WAIT_MILLIS, TimeUnit.MILLISECONDS) == false) {
+						this.checkWorkers(workers);
+					}
+					nbrPending++;
+					/*
+					 * collect whatever is done so far, without waiting
+					 */
+					Chunk doneChunk = done.poll();
+					while (doneChunk != null) {
+						nbrPending--;
+						this.chunkDone(doneChunk);
+						doneChunk = done.poll();
+					}
+				}
+			} catch (InterruptedException e) {
+				if (BatchProcessor.this.breakOnInterrupt == false) {
+					throw e;
+				}
+				this.stopOnInterrupt();
+			}
+			/*
+			 * wait for the chunks that are with the workers. Those that are
+			 * yet to be picked up are skipped once the batch is aborted
+			 */
+			while (nbrPending > 0) {
+				Chunk doneChunk;
+				try {
+					doneChunk = done.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					if (BatchProcessor.this.breakOnInterrupt == false) {
+						throw e;
+					}
+					this.stopOnInterrupt();
+					continue;
+				}
+				if (doneChunk == null) {
+					if (this.interrupted) {
+						/*
+						 * workers may have stopped without picking these up
+						 */
+						for (Chunk c = toDo.poll(); c != null; c = toDo.poll()) {
+							nbrPending--;
+						}
+					}
+					this.checkWorkers(workers);
+				} else {
+					nbrPending--;
+					this.chunkDone(doneChunk);
+				}
+			}
+		}
+
+		/**
+		 * a worker should not quit when chunks are being sent to it, unless it
+		 * is interrupted and the batch is to break on interrupt
+		 */
+		private void checkWorkers(List<Future<Boolean>> workers) throws InterruptedException {
+			for (Future<Boolean> worker : workers) {
+				if (worker.isDone() == false) {
+					continue;
+				}
+				try {
+					worker.get();
+				} catch (ExecutionException e) {
+					throw new ApplicationError(e, "A batch worker failed");
+				}
+				if (this.interrupted == false) {
+					throw new ApplicationError("A batch worker quit before the batch is done");
+				}
+			}
+		}
+
+		/**
+		 * @return true if the batch is to stop because the thread is
+		 *         interrupted
+		 */
+		private boolean toStop() {
+			if (BatchProcessor.this.breakOnInterrupt && Thread.interrupted()) {
+				this.stopOnInterrupt();
+			}
+			return this.interrupted;
+		}
+
+		/**
+		 * chunks that are being processed are completed, and the rest are
+		 * skipped
+		 */
+		private void stopOnInterrupt() {
+			if (this.interrupted == false) {
+				logger.info("Batch is interrupted. It stops after completing the chunks that are being processed");
+				this.interrupted = true;
+				this.aborted = true;
+			}
+		}
+
+		/**
+		 * runs on a worker thread
+		 */
+		private boolean work(BlockingQueue<Chunk> toDo, BlockingQueue<Chunk> done) throws Exception {
+			if (this.accessType == null) {
+				this.workWithHandle(toDo, done, null);
+				return true;
+			}
+			IDbDriver driver = Application.getActiveInstance().getRdbSetup().getDefaultDriver();
+			driver.accessDb(handle -> {
+				try {
+					this.workWithHandle(toDo, done, handle);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new ApplicationError(e, "Batch worker interrupted");
+				}
+				return true;
+			}, this.accessType, BatchProcessor.this.schemaName);
+			return true;
+		}
+
+		private void workWithHandle(BlockingQueue<Chunk> toDo, BlockingQueue<Chunk> done, IDbHandle handle)
+				throws InterruptedException {
+			while (true) {
+				Chunk chunk;
+				try {
+					if (this.toStop()) {
+						return;
+					}
+					chunk = toDo.take();
+				} catch (InterruptedException e) {
+					if (BatchProcessor.this.breakOnInterrupt == false) {
+						throw e;
+					}
+					this.stopOnInterrupt();
+					return;
+				}
+				if (chunk.rows == null) {
+					return;
+				}
+				if (this.aborted) {
+					chunk.skipped = true;
+				} else {
+					processChunk(chunk, handle, BatchProcessor.this.actions, BatchProcessor.this.indexedActions);
+				}
+				/*
+				 * offer() and not put(), as this is not to fail if the thread
+				 * is interrupted. The queue is not bounded.
+				 */
+				done.offer(chunk);
+			}
+		}
+
+		/**
+		 * read the next chunk of rows from input.
+		 *
+		 * @return null if there are no more rows
+		 */
+		private Chunk readChunk(long seq) throws Exception {
+			if (this.inputDone) {
+				return null;
+			}
+			int size = BatchProcessor.this.chunkSize;
+			ServiceContext[] rows = new ServiceContext[size];
+			int nbrRows = 0;
+			int nbrInputRows = 0;
+			while (nbrRows < size) {
+				ServiceContext row = this.ctx.createChildContext();
+				try {
+					if (this.input.inputARow(row) == false) {
+						this.inputDone = true;
+						break;
+					}
+					rows[nbrRows] = row;
+					nbrRows++;
+				} catch (InvalidRowException e) {
+					this.nbrInvalidRows++;
+					logger.error("Input row {} is invalid and is skipped. {}", this.nbrRowsRead + 1, e.getMessage());
+				}
+				nbrInputRows++;
+				this.nbrRowsRead++;
+			}
+			if (nbrInputRows == 0) {
+				return null;
+			}
+			if (nbrRows < size) {
+				ServiceContext[] arr = new ServiceContext[nbrRows];
+				System.arraycopy(rows, 0, arr, 0, nbrRows);
+				rows = arr;
+			}
+			return new Chunk(seq, rows, nbrInputRows);
+		}
+
+		/**
+		 * a chunk is returned by a worker. Write output and move the
+		 * checkpoint. Called only on the thread that reads the input.
+		 */
+		private void chunkDone(Chunk chunk) throws Exception {
+			if (chunk.skipped) {
+				return;
+			}
+			if (chunk.isOk() == false) {
+				if (this.failedChunk == null) {
+					this.failedChunk = chunk;
+					this.aborted = true;
+				}
+				return;
+			}
+			boolean keepOrder = BatchProcessor.this.keepOrder;
+			if (keepOrder == false) {
+				this.writeRows(chunk);
+			}
+			this.committedChunks.put(chunk.seq, chunk);
+			long before = this.rowsCommitted;
+			Chunk next = this.committedChunks.remove(this.nextSeqToCommit);
+			while (next != null) {
+				if (keepOrder) {
+					this.writeRows(next);
+				}
+				this.rowsCommitted += next.nbrInputRows;
+				this.nextSeqToCommit++;
+				next = this.committedChunks.remove(this.nextSeqToCommit);
+			}
+			if (this.rowsCommitted != before) {
+				this.saveCheckpoint();
+			}
+		}
+
+		private void writeRows(Chunk chunk) throws Exception {
+			if (this.output == null) {
+				return;
+			}
+			for (ServiceContext row : chunk.rows) {
+				this.output.outputARow(row);
+			}
+		}
+
+		/**
+		 * write to a temp file and rename it, so that the file is never left
+		 * half-written. java.io stream, and not an nio channel, because a
+		 * channel is closed if this thread is interrupted while writing
+		 */
+		private void saveCheckpoint() throws IOException {
+			if (this.checkpointFile == null) {
+				return;
+			}
+			Path temp = this.checkpointFile.resolveSibling(this.checkpointFile.getFileName() + ".tmp");
+			try (OutputStream out = new FileOutputStream(temp.toFile())) {
+				out.write(Long.toString(this.rowsCommitted).getBytes(StandardCharsets.UTF_8));
+			}
+			Files.move(temp, this.checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	/**
+	 * execute actions for each row of the chunk, and commit or roll-back
+	 */
+	static void processChunk(Chunk chunk, IDbHandle handle, AbstractAction[] actions,
+			HashMap<String, Integer> indexedActions) {
+		try {
+			for (ServiceContext row : chunk.rows) {
+				row.seDbHandle(handle);
+				BlockWorker worker = new BlockWorker(actions, indexedActions, row, handle, false);
+				worker.execute(handle);
+				if (row.isInError()) {
+					chunk.failedRow = row;
+					break;
+				}
+			}
+		} catch (Exception e) {
+			chunk.exception = e;
+		}
+		if (handle instanceof IMultiTransHandle) {
+			IMultiTransHandle tranHandle = (IMultiTransHandle) handle;
+			try {
+				if (chunk.isOk()) {
+					tranHandle.commit();
+				} else {
+					tranHandle.rollback();
+				}
+			} catch (Exception e) {
+				if (chunk.exception == null) {
+					chunk.exception = e;
+				}
+			}
+		}
+	}
+}
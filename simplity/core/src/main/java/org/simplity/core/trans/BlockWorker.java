@@ -28,6 +28,8 @@ import org.simplity.core.ApplicationError;
 import org.simplity.core.idb.IDbClient;
 import org.simplity.core.idb.IDbHandle;
 import org.simplity.core.jms.IJmsClient;
+import org.simplity.core.metric.MetricType;
+import org.simplity.core.metric.MetricsRegistry;
 import org.simplity.core.service.ServiceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -104,12 +106,17 @@ public class BlockWorker implements IDbClient, IJmsClient {
 		String whatNext = null;
 		while (currentIdx < nbrActions) {
 			AbstractAction action = this.actions[currentIdx];
-			long startedAt = System.currentTimeMillis();
+			long startedAt = System.nanoTime();
 			whatNext = action.executeAction(this.ctx, dbHandle, this.transactionIsDelegated);
 			currentIdx++;
 
-			logger.info("Action {} finished in {} ms", action.actionName,
-					(System.currentTimeMillis() - startedAt) + " ms");
+			long nanos = System.nanoTime() - startedAt;
+			if (MetricsRegistry.isEnabled()) {
+				MetricsRegistry.record(MetricType.ACTION, this.ctx.getServiceName() + '.' + action.actionName, nanos);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Action {} finished in {} ms", action.actionName, nanos / 1000000L);
+			}
 
 			if (whatNext == null) {
 				continue;
@@ -110,8 +110,7 @@ public class Encryption extends AbstractNonDbAction {
 				 * replace value with crypted one
 				 */
 				for (int rowIdx = 0; rowIdx < nbrRows; rowIdx++) {
-					Value[] row = ds.getRow(rowIdx);
-					row[colIdx] = this.crypt(row[colIdx]);
+					ds.setColumnValue(colName, rowIdx, this.crypt(ds.getColumnValue(colName, rowIdx)));
 				}
 				actionLogger.info(nbrRows + " values transformed in data sheet " + sheetName);
 			}
@@ -0,0 +1,586 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.trans;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.Application;
+import org.simplity.core.comp.ComponentType;
+import org.simplity.core.comp.FieldMetaData;
+import org.simplity.core.comp.IValidationContext;
+import org.simplity.core.comp.ValidationMessage;
+import org.simplity.core.comp.ValidationUtil;
+import org.simplity.core.data.FlatFileRowType;
+import org.simplity.core.dm.Record;
+import org.simplity.core.dm.field.Field;
+import org.simplity.core.dt.DataType;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.value.Value;
+import org.simplity.core.value.ValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * a flat file with one row per line, with fields of a record either comma
+ * separated or with fixed widths. Input file is memory-mapped, a window at a
+ * time, and rows are scanned on the bytes, so that the file need not fit in
+ * the heap. Output is written through a direct buffer that is re-used for
+ * all rows.
+ *
+ * @author simplity.org
+ *
+ */
+public class FlatFile {
+	private static final Logger logger = LoggerFactory.getLogger(FlatFile.class);
+
+	/**
+	 * part of the input file that is mapped at a time. A row can not be
+	 * longer than this
+	 */
+	private static final int MAP_WINDOW = 64 * 1024 * 1024;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/*
+	 * digits in a long that can never overflow
+	 */
+	private static final int MAX_SAFE_DIGITS = 18;
+	private static final byte NL = '\n';
+	private static final byte CR = '\r';
+	private static final byte COMMA = ',';
+	private static final byte SPACE = ' ';
+	private static final byte TAB = '\t';
+	/*
+	 * rows are scanned for these on the bytes, and hence they must be encoded
+	 * as single ascii bytes in the charset of the file
+	 */
+	private static final String ASCII_CHARS = "\n\r, \t+-0123456789";
+
+	/**
+	 * name of the file, including its path
+	 */
+	@FieldMetaData(isRequired = true)
+	String fileName;
+
+	/**
+	 * record that has the fields in the order in which they appear in a row
+	 */
+	@FieldMetaData(isRequired = true, isReferenceToComp = true, referredCompType = ComponentType.REC)
+	String recordName;
+
+	/**
+	 * how fields are laid out in a row
+	 */
+	FlatFileRowType rowType = FlatFileRowType.COMMA_SEPARATED;
+
+	/**
+	 * for fixed width rows. width of each field in bytes. Max length of the
+	 * data type of each field is used if this is not specified.
+	 */
+	int[] fieldWidths;
+
+	/**
+	 * character set of the file. Must be ascii compatible, like UTF-8 or
+	 * ISO-8859-1, as rows are scanned on the bytes
+	 */
+	String charset = "UTF-8";
+
+	/**
+	 * @param ctx
+	 * @return a batch input that reads rows from this file
+	 */
+	public IBatchInput getBatchInput(ServiceContext ctx) {
+		return new FlatFileInput();
+	}
+
+	/**
+	 * @param ctx
+	 * @return a batch output that writes rows to this file
+	 */
+	public IBatchOutput getBatchOutput(ServiceContext ctx) {
+		return new FlatFileOutput();
+	}
+
+	/**
+	 * validate this specification
+	 *
+	 * @param vtx
+	 * @param parent
+	 *            component that uses this file
+	 */
+	public void validate(IValidationContext vtx, Object parent) {
+		ValidationUtil.validateMeta(vtx, this);
+		if (this.rowType != FlatFileRowType.FIXED_WIDTH && this.fieldWidths != null) {
+			vtx.message(new ValidationMessage(parent, ValidationMessage.SEVERITY_WARNING,
+					"fieldWidths is relevant only for fixed-width rows, and is ignored", "fieldWidths"));
+		}
+		if (Charset.isSupported(this.charset) == false) {
+			vtx.message(new ValidationMessage(parent, ValidationMessage.SEVERITY_ERROR,
+					this.charset + " is not a supported character set", "charset"));
+		} else if (isAsciiCompatible(Charset.forName(this.charset)) == false) {
+			vtx.message(new ValidationMessage(parent, ValidationMessage.SEVERITY_ERROR, this.charset
+					+ " is not an ascii compatible character set. Use one like UTF-8 or ISO-8859-1", "charset"));
+		}
+	}
+
+	/**
+	 * @return charset of this file
+	 * @throws ApplicationError
+	 *             if the charset is not ascii compatible
+	 */
+	private Charset getCharset() {
+		Charset cs = Charset.forName(this.charset);
+		if (isAsciiCompatible(cs) == false) {
+			throw new ApplicationError(
+					"Flat file " + this.fileName + " uses " + this.charset + " that is not ascii compatible");
+		}
+		return cs;
+	}
+
+	/**
+	 * @param cs
+	 * @return true if new-line, comma, blanks, signs and digits are encoded
+	 *         in this charset as their single ascii bytes. Not so with
+	 *         UTF-16 and UTF-32.
+	 */
+	static boolean isAsciiCompatible(Charset cs) {
+		if (cs.canEncode() == false) {
+			return false;
+		}
+		byte[] bytes = ASCII_CHARS.getBytes(cs);
+		return Arrays.equals(bytes, ASCII_CHARS.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private Field[] getFields() {
+		Record record = Application.getActiveInstance().getRecord(this.recordName);
+		if (record == null) {
+			throw new ApplicationError(this.recordName + " is not a valid record for flat file " + this.fileName);
+		}
+		return record.getFields();
+	}
+
+	/**
+	 * @return width of each field for fixed-width rows. null otherwise
+	 */
+	private int[] getWidths(Field[] fields) {
+		if (this.rowType != FlatFileRowType.FIXED_WIDTH) {
+			return null;
+		}
+		int[] widths = this.fieldWidths;
+		if (widths == null) {
+			widths = new int[fields.length];
+			for (int i = 0; i < fields.length; i++) {
+				widths[i] = fields[i].getDataType().getMaxLength();
+			}
+		} else if (widths.length != fields.length) {
+			throw new ApplicationError("Flat file " + this.fileName + " has " + widths.length
+					+ " field widths but record " + this.recordName + " has " + fields.length + " fields");
+		}
+		for (int i = 0; i < widths.length; i++) {
+			int w = widths[i];
+			if (w <= 0 || w >= MAP_WINDOW) {
+				throw new ApplicationError("Field " + fields[i].getName() + " has a width of " + w
+						+ ". Specify fieldWidths for fixed width file " + this.fileName);
+			}
+		}
+		return widths;
+	}
+
+	/**
+	 * reads rows from a memory-mapped file
+	 */
+	private class FlatFileInput implements IBatchInput {
+		private Field[] fields;
+		private int[] widths;
+		private Charset cs;
+		private FileChannel channel;
+		private long fileSize;
+		/*
+		 * position in the file where the mapped window starts
+		 */
+		private long windowStart;
+		private MappedByteBuffer buffer;
+		/*
+		 * position in the window where the next row starts
+		 */
+		private int pos;
+
+		@Override
+		public void openShop(ServiceContext ctx) throws IOException {
+			this.fields = FlatFile.this.getFields();
+			this.widths = FlatFile.this.getWidths(this.fields);
+			this.cs = FlatFile.this.getCharset();
+			this.channel = FileChannel.open(Paths.get(FlatFile.this.fileName), StandardOpenOption.READ);
+			this.fileSize = this.channel.size();
+			this.map(0);
+		}
+
+		@Override
+		public void closeShop(ServiceContext ctx) {
+			this.buffer = null;
+			if (this.channel != null) {
+				try {
+					this.channel.close();
+				} catch (IOException e) {
+					logger.error("Error while closing flat file {}. {}", FlatFile.this.fileName, e.getMessage());
+				}
+			}
+		}
+
+		private void map(long start) throws IOException {
+			this.windowStart = start;
+			long size = Math.min(MAP_WINDOW, this.fileSize - start);
+			this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+			this.pos = 0;
+		}
+
+		@Override
+		public boolean possiblyMultipleRowsPerParent() {
+			return false;
+		}
+
+		@Override
+		public boolean inputARow(ServiceContext ctx) throws Exception, InvalidRowException {
+			while (true) {
+				if (this.windowStart + this.pos >= this.fileSize) {
+					return false;
+				}
+				int start = this.pos;
+				int eol = this.findEol();
+				if (eol == -1) {
+					/*
+					 * row is split across windows. re-map from this row
+					 */
+					if (start == 0) {
+						throw new ApplicationError("Flat file " + FlatFile.this.fileName + " has a row at "
+								+ this.windowStart + " that is longer than " + MAP_WINDOW + " bytes");
+					}
+					this.map(this.windowStart + start);
+					continue;
+				}
+				this.pos = eol + 1;
+				int end = eol;
+				if (end > start && this.buffer.get(end - 1) == CR) {
+					end--;
+				}
+				if (end == start) {
+					/*
+					 * blank line
+					 */
+					continue;
+				}
+				if (this.widths == null) {
+					this.parseSeparated(start, end, ctx);
+				} else {
+					this.parseFixed(start, end, ctx);
+				}
+				return true;
+			}
+		}
+
+		/**
+		 * @return index of new-line that ends the row that starts at pos. limit
+		 *         if this is the last row of the file with no new-line. -1 if
+		 *         the row continues beyond this window
+		 */
+		private int findEol() {
+			MappedByteBuffer buf = this.buffer;
+			int limit = buf.limit();
+			for (int i = this.pos; i < limit; i++) {
+				if (buf.get(i) == NL) {
+					return i;
+				}
+			}
+			if (this.windowStart + limit >= this.fileSize) {
+				return limit;
+			}
+			return -1;
+		}
+
+		private void parseSeparated(int start, int end, ServiceContext ctx) throws InvalidRowException {
+			MappedByteBuffer buf = this.buffer;
+			int nbrFields = this.fields.length;
+			int fieldStart = start;
+			for (int i = 0; i < nbrFields; i++) {
+				int fieldEnd = fieldStart;
+				while (fieldEnd < end && buf.get(fieldEnd) != COMMA) {
+					fieldEnd++;
+				}
+				if (fieldEnd == end && i < nbrFields - 1) {
+					throw new InvalidRowException("Row has " + (i + 1)
+							+ " comma separated values but we are expecting " + nbrFields);
+				}
+				this.setValue(this.fields[i], fieldStart, fieldEnd, ctx);
+				fieldStart = fieldEnd + 1;
+			}
+			if (fieldStart <= end) {
+				throw new InvalidRowException(
+						"Row has more than " + nbrFields + " comma separated values");
+			}
+		}
+
+		private void parseFixed(int start, int end, ServiceContext ctx) throws InvalidRowException {
+			int fieldStart = start;
+			for (int i = 0; i < this.fields.length; i++) {
+				/*
+				 * trailing fields may be left out of a row
+				 */
+				int fieldEnd = Math.min(fieldStart + this.widths[i], end);
+				this.setValue(this.fields[i], fieldStart, fieldEnd, ctx);
+				fieldStart = fieldEnd;
+			}
+		}
+
+		/**
+		 * parse bytes into a value of the field and set it to the context
+		 */
+		private void setValue(Field field, int fieldStart, int fieldEnd, ServiceContext ctx)
+				throws InvalidRowException {
+			MappedByteBuffer buf = this.buffer;
+			int start = fieldStart;
+			int end = fieldEnd;
+			while (start < end && isBlank(buf.get(start))) {
+				start++;
+			}
+			while (end > start && isBlank(buf.get(end - 1))) {
+				end--;
+			}
+			DataType dt = field.getDataType();
+			Value value = null;
+			if (start == end) {
+				value = dt.parseValue("");
+			} else if (dt.getValueType() == ValueType.INTEGER && dt.getValueList() == null) {
+				value = this.parseInteger(dt, start, end);
+			} else {
+				value = dt.parseValue(this.getText(start, end));
+			}
+			if (value == null) {
+				throw new InvalidRowException(
+						this.getText(fieldStart, fieldEnd) + " is not a valid value for field " + field.getName());
+			}
+			ctx.setValue(field.getName(), value);
+		}
+
+		/**
+		 * integers are parsed on the bytes with no string in between
+		 */
+		private Value parseInteger(DataType dt, int start, int end) {
+			MappedByteBuffer buf = this.buffer;
+			int i = start;
+			boolean negative = false;
+			byte b = buf.get(i);
+			if (b == '-' || b == '+') {
+				negative = b == '-';
+				i++;
+			}
+			if (i == end || end - i > MAX_SAFE_DIGITS) {
+				return dt.parseValue(this.getText(start, end));
+			}
+			long n = 0;
+			for (; i < end; i++) {
+				int digit = buf.get(i) - '0';
+				if (digit < 0 || digit > 9) {
+					return dt.parseValue(this.getText(start, end));
+				}
+				n = n * 10 + digit;
+			}
+			return dt.validateValue(Value.newIntegerValue(negative ? -n : n));
+		}
+
+		private String getText(int start, int end) {
+			byte[] bytes = new byte[end - start];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = this.buffer.get(start + i);
+			}
+			return new String(bytes, this.cs);
+		}
+
+		@Override
+		public boolean inputARow(String parentKey, ServiceContext ctx) throws Exception, InvalidRowException {
+			throw new ApplicationError("Flat file input does not support reading rows for a parent");
+		}
+
+		@Override
+		public String getParentKeyValue(ServiceContext ctx) {
+			return null;
+		}
+
+		@Override
+		public String getFileName() {
+			return FlatFile.this.fileName;
+		}
+	}
+
+	static boolean isBlank(byte b) {
+		return b == SPACE || b == TAB;
+	}
+
+	/**
+	 * writes rows through a direct buffer
+	 */
+	private class FlatFileOutput implements IBatchOutput {
+		private Field[] fields;
+		private int[] widths;
+		private FileChannel channel;
+		private CharsetEncoder encoder;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		/*
+		 * a fixed-width field is encoded into this first, as its width is in
+		 * bytes, and not in chars
+		 */
+		private ByteBuffer fieldBuffer;
+
+		@Override
+		public void openShop(ServiceContext ctx) throws Exception {
+			this.fields = FlatFile.this.getFields();
+			this.widths = FlatFile.this.getWidths(this.fields);
+			this.encoder = FlatFile.this.getCharset().newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+			if (this.widths != null) {
+				int maxWidth = 0;
+				for (int w : this.widths) {
+					maxWidth = Math.max(maxWidth, w);
+				}
+				this.fieldBuffer = ByteBuffer.allocate(maxWidth);
+			}
+			Path path = Paths.get(FlatFile.this.fileName);
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		@Override
+		public void closeShop(ServiceContext ctx) {
+			if (this.channel == null) {
+				return;
+			}
+			try {
+				this.flush();
+				this.channel.close();
+			} catch (IOException e) {
+				throw new ApplicationError(e, "Error while closing flat file " + FlatFile.this.fileName);
+			}
+		}
+
+		@Override
+		public boolean outputARow(ServiceContext ctx) throws Exception {
+			for (int i = 0; i < this.fields.length; i++) {
+				Field field = this.fields[i];
+				DataType dt = field.getDataType();
+				String text = dt.formatValue(ctx.getValue(field.getName()));
+				if (this.widths == null) {
+					if (i > 0) {
+						this.put(COMMA);
+					}
+					this.put(text);
+					continue;
+				}
+				ByteBuffer bytes = this.encodeField(text, this.widths[i]);
+				if (bytes == null) {
+					throw new ApplicationError("Value " + text + " is too wide for field " + field.getName()
+							+ " with a width of " + this.widths[i] + " bytes");
+				}
+				int padding = this.widths[i] - bytes.remaining();
+				/*
+				 * numbers are right aligned
+				 */
+				ValueType vt = dt.getValueType();
+				boolean rightAligned = vt == ValueType.INTEGER || vt == ValueType.DECIMAL;
+				if (rightAligned == false) {
+					this.put(bytes);
+				}
+				for (int j = 0; j < padding; j++) {
+					this.put(SPACE);
+				}
+				if (rightAligned) {
+					this.put(bytes);
+				}
+			}
+			this.put(NL);
+			return true;
+		}
+
+		private void put(byte b) throws IOException {
+			if (this.buffer.hasRemaining() == false) {
+				this.flush();
+			}
+			this.buffer.put(b);
+		}
+
+		/**
+		 * @return field buffer, ready to be read, with the encoded text. null
+		 *         if the text needs more bytes than the width
+		 */
+		private ByteBuffer encodeField(String text, int width) {
+			ByteBuffer bytes = this.fieldBuffer;
+			bytes.clear();
+			bytes.limit(width);
+			this.encoder.reset();
+			CoderResult result = this.encoder.encode(CharBuffer.wrap(text), bytes, true);
+			if (result.isOverflow() || this.encoder.flush(bytes).isOverflow()) {
+				return null;
+			}
+			bytes.flip();
+			return bytes;
+		}
+
+		private void put(ByteBuffer bytes) throws IOException {
+			while (bytes.hasRemaining()) {
+				if (this.buffer.hasRemaining() == false) {
+					this.flush();
+				}
+				this.buffer.put(bytes.get());
+			}
+		}
+
+		private void put(String text) throws IOException {
+			CharBuffer chars = CharBuffer.wrap(text);
+			while (true) {
+				CoderResult result = this.encoder.encode(chars, this.buffer, false);
+				if (result.isOverflow() == false) {
+					return;
+				}
+				this.flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+	}
+}
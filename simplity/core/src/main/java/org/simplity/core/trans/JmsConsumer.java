@@ -25,8 +25,12 @@ package org.simplity.core.trans;
 import org.simplity.core.comp.FieldMetaData;
 import org.simplity.core.comp.IValidationContext;
 import org.simplity.core.comp.ValidationMessage;
+import org.simplity.core.idb.DbAccessType;
 import org.simplity.core.idb.IDbHandle;
+import org.simplity.core.jms.IJmsClient;
 import org.simplity.core.jms.JmsDestination;
+import org.simplity.core.jms.JmsUsage;
+import org.simplity.core.rdb.DbUsage;
 import org.simplity.core.service.ServiceContext;
 
 /** @author simplity.org */
@@ -47,8 +51,42 @@ public class JmsConsumer extends Block {
 	 */
 	boolean waitForMessage;
 
+	/**
+	 * number of concurrent sessions/consumers on the request destination. More
+	 * than one implies consumeAll, and each consumer processes its messages
+	 * with its own db transaction, that is committed along with its jms
+	 * session.
+	 */
+	int nbrConsumers = 1;
+
+	/**
+	 * number of messages committed together by a consumer. More than one
+	 * implies the concurrent mode, even if nbrConsumers is 1
+	 */
+	int ackBatchSize = 1;
+
+	/**
+	 * relevant if ackBatchSize is more than 1. Pending messages are committed
+	 * after this interval even if ackBatchSize is not reached. 0 means wait
+	 * till the batch is full or the queue goes idle
+	 */
+	int ackIntervalMillis;
+
+	/*
+	 * db access of each concurrent consumer
+	 */
+	private DbAccessType dbAccessType;
+	private String schemaName;
+
 	@Override
 	protected String execute(ServiceContext ctx, IDbHandle dbHandle, boolean transIsDelegated) {
+		if (this.isPooled()) {
+			MessageWorker worker = new MessageWorker();
+			this.requestDestination.consumeConcurrently(ctx, worker, this.responseDestination,
+					this.waitForMessage, this.nbrConsumers, this.ackBatchSize, this.ackIntervalMillis,
+					this.dbAccessType, this.schemaName);
+			return worker.stopSignal;
+		}
 		BlockWorker worker = new BlockWorker(this.actions, this.indexedActions, ctx, dbHandle,
 				transIsDelegated);
 		this.requestDestination.consume(
@@ -59,6 +97,8 @@ public class JmsConsumer extends Block {
 	@Override
 	public void getReady(int idx, TransactionProcessor task) {
 		super.getReady(idx, task);
+		this.dbAccessType = getAccessType(task.getDbUsage());
+		this.schemaName = task.getSchemaName();
 		this.requestDestination.getReady();
 		if (this.responseDestination != null) {
 			this.responseDestination.getReady();
@@ -78,5 +118,69 @@ public class JmsConsumer extends Block {
 			vtx.message(new ValidationMessage(task, ValidationMessage.SEVERITY_ERROR,
 					"Service uses JMS but has not specified jmsUsage attribute.", "jmsUsage"));
 		}
+		if (this.nbrConsumers < 1 || this.ackBatchSize < 1 || this.ackIntervalMillis < 0) {
+			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+					"nbrConsumers and ackBatchSize should be at least 1, and ackIntervalMillis can not be negative",
+					"nbrConsumers"));
+		}
+		if (this.isPooled()) {
+			DbUsage dbUsage = task.getDbUsage();
+			if (dbUsage == DbUsage.SUB_SERVICE || dbUsage == DbUsage.EXTERNAL) {
+				vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+						"Concurrent consumers use their own db transactions, and can not work with dbUsage "
+								+ dbUsage,
+						"nbrConsumers"));
+			}
+			if (task.getJmsUsage() == JmsUsage.EXTERNALLY_MANAGED) {
+				vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
+						"Concurrent consumers use their own jms sessions, and can not be externally managed",
+						"nbrConsumers"));
+			}
+		}
+	}
+
+	/**
+	 * @return db access type of a concurrent consumer. Its updates are to be
+	 *         committed with its jms session, and hence it manages its own
+	 *         transactions
+	 */
+	private static DbAccessType getAccessType(DbUsage dbUsage) {
+		if (dbUsage == null || dbUsage == DbUsage.NONE) {
+			return null;
+		}
+		if (dbUsage == DbUsage.READ_ONLY || dbUsage == DbUsage.AUTO_COMMIT) {
+			return dbUsage.getDbAccessType();
+		}
+		return DbAccessType.MULTI_TRANS;
+	}
+
+	private boolean isPooled() {
+		return this.nbrConsumers > 1 || this.ackBatchSize > 1;
+	}
+
+	/**
+	 * processes a message on any of the concurrent consumers, with the db
+	 * handle of that consumer. Consumer commits or rolls back the db along with
+	 * its jms session.
+	 */
+	private class MessageWorker implements IJmsClient {
+		volatile String stopSignal;
+
+		@Override
+		public boolean process(ServiceContext ctx) {
+			IDbHandle handle = ctx.getDbHandle();
+			BlockWorker worker = new BlockWorker(JmsConsumer.this.actions, JmsConsumer.this.indexedActions, ctx,
+					handle, false);
+			worker.execute(handle);
+			if (TransConventions.JumpTo.STOP.equals(worker.getWhatNext())) {
+				this.stopSignal = TransConventions.JumpTo.STOP;
+			}
+			return ctx.isInError() == false;
+		}
+
+		@Override
+		public boolean toContinue() {
+			return this.stopSignal == null;
+		}
 	}
 }
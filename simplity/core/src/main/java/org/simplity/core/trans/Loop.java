@@ -22,13 +22,22 @@
  */
 package org.simplity.core.trans;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.simplity.core.ApplicationError;
+import org.simplity.core.app.Application;
 import org.simplity.core.comp.IValidationContext;
 import org.simplity.core.comp.ValidationMessage;
 import org.simplity.core.data.AlreadyIteratingException;
 import org.simplity.core.data.IDataSheet;
 import org.simplity.core.data.IDataSheetIterator;
+import org.simplity.core.idb.DbAccessType;
 import org.simplity.core.idb.IDbHandle;
+import org.simplity.core.idb.ITransactionHandle;
 import org.simplity.core.service.ServiceContext;
 import org.simplity.core.value.Value;
 import org.slf4j.Logger;
@@ -64,6 +73,27 @@ public class Loop extends Block {
 	 * amenable to stop-work at this point, and not in-between
 	 */
 	boolean breakOnInterrupt;
+
+	/**
+	 * relevant when looping on a data sheet. If more than 1, rows are split
+	 * into these many partitions that are processed in parallel. Each
+	 * partition works with its own copy of the service context, and changes
+	 * to columns are written back to the sheet after all partitions complete.
+	 * Use this only if the processing of a row does not depend on that of
+	 * other rows. Partitions run one after the other if they would have to
+	 * share the db handle of the service.
+	 */
+	int nbrPartitions;
+
+	/**
+	 * relevant for parallel partitions. If the service uses a read-only db
+	 * handle, each partition may use its own read-only connection, and the
+	 * partitions run in parallel. Otherwise a db connection can not be shared
+	 * across threads, and partitions run one after the other. Ignored if the
+	 * service is running a transaction.
+	 */
+	boolean readWithOwnConnection;
+
 	/** special case where we are to copy all columns as fields */
 	private boolean copyAllColumnsToFields;
 
@@ -74,6 +104,9 @@ public class Loop extends Block {
 	protected String execute(ServiceContext ctx, IDbHandle dbHandle, boolean transIsDelegated) {
 		BlockWorker worker = new BlockWorker(this.actions, this.indexedActions, ctx, null, transIsDelegated);
 		if (this.dataSheetName != null) {
+			if (this.nbrPartitions > 1 && Application.isParallelWorker() == false) {
+				return this.loopOnPartitions(dbHandle, ctx, transIsDelegated);
+			}
 			return this.loopOnSheet(worker, dbHandle, ctx);
 		}
 		if (this.executeOnCondition == null) {
@@ -246,18 +279,235 @@ public class Loop extends Block {
 		return result;
 	}
 
+	/**
+	 * loop over the data sheet with its rows partitioned across the parallel
+	 * executor, or one partition after the other if they would have to share
+	 * the db handle. Result is the same as that of a sequential loop, except
+	 * that rows beyond a STOP/BREAK_LOOP signal may have been processed,
+	 * though their columns are not copied back.
+	 *
+	 * @return null for normal completion. STOP signal if a row signalled it
+	 */
+	private String loopOnPartitions(IDbHandle dbHandle, ServiceContext ctx, boolean transIsDelegated) {
+		IDataSheet ds = ctx.getDataSheet(this.dataSheetName);
+		if (ds == null || ds.length() == 0) {
+			logger.info("Data Sheet " + this.dataSheetName + " is not found or has no data. Loop action has no work.");
+			return null;
+		}
+		IDataSheetIterator iterator = null;
+		try {
+			iterator = ctx.startIteration(this.dataSheetName);
+		} catch (AlreadyIteratingException e) {
+			throw new ApplicationError(
+					"Loop action is designed to iterate on data sheet "
+							+ this.dataSheetName
+							+ " but that data sheet is already iterating as part of an enclosing loop action.");
+		}
+		try {
+			Value[] savedValues = null;
+			if (this.columnsToCopyAsFields != null) {
+				savedValues = this.saveFields(ctx, ds);
+			}
+			int nbrRows = ds.length();
+			int partitionSize = (nbrRows + this.nbrPartitions - 1) / this.nbrPartitions;
+			int nbr = (nbrRows + partitionSize - 1) / partitionSize;
+			Partition[] partitions = new Partition[nbr];
+			for (int i = 0; i < nbr; i++) {
+				int start = i * partitionSize;
+				partitions[i] = new Partition(ctx.createChildContext(), start, Math.min(start + partitionSize, nbrRows));
+			}
+
+			AtomicInteger stopAt = new AtomicInteger(Integer.MAX_VALUE);
+			this.runPartitions(partitions, ds, dbHandle, transIsDelegated, stopAt);
+
+			/*
+			 * apply results in row order, up to the row that signalled, if any
+			 */
+			int lastRow = stopAt.get();
+			String result = null;
+			int nbrToMerge = 0;
+			for (Partition p : partitions) {
+				if (p.start > lastRow) {
+					break;
+				}
+				nbrToMerge++;
+				if (p.copyBack != null) {
+					int end = Math.min(p.end - 1, lastRow);
+					for (int idx = p.start; idx <= end; idx++) {
+						this.setColumns(ds, idx, p.copyBack[idx - p.start]);
+					}
+				}
+				if (p.signalledAt == lastRow && TransConventions.JumpTo.STOP.equals(p.signal)) {
+					result = p.signal;
+				}
+			}
+			ServiceContext[] contexts = new ServiceContext[nbrToMerge];
+			for (int i = 0; i < nbrToMerge; i++) {
+				contexts[i] = partitions[i].ctx;
+			}
+			ctx.mergeChildContexts(contexts);
+			if (savedValues != null) {
+				this.restoreFields(ctx, ds, savedValues);
+			}
+			return result;
+		} finally {
+			iterator.cancelIteration();
+		}
+	}
+
+	private void runPartitions(Partition[] partitions, IDataSheet ds, IDbHandle dbHandle, boolean transIsDelegated,
+			AtomicInteger stopAt) {
+		boolean ownConnection = this.readWithOwnConnection && dbHandle != null
+				&& dbHandle instanceof ITransactionHandle == false;
+		if (dbHandle != null && ownConnection == false) {
+			/*
+			 * a jdbc connection, and the transaction on it, is not to be used
+			 * by more than one thread
+			 */
+			for (Partition p : partitions) {
+				this.loopOnPartition(p, ds, dbHandle, transIsDelegated, stopAt);
+			}
+			return;
+		}
+		Application app = Application.getActiveInstance();
+		int nbr = partitions.length;
+		List<Future<Boolean>> futures = new ArrayList<>(nbr);
+		for (int i = 0; i < nbr; i++) {
+			Partition p = partitions[i];
+			futures.add(app.submitParallelTask(() -> {
+				this.runPartition(p, ds, dbHandle, transIsDelegated, ownConnection, stopAt);
+				return Boolean.TRUE;
+			}));
+		}
+		ApplicationError error = null;
+		for (int i = 0; i < nbr && error == null; i++) {
+			try {
+				futures.get(i).get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				String msg = "Partition " + (i + 1) + " of loop action " + this.actionName + " failed";
+				if (cause instanceof ApplicationError) {
+					error = (ApplicationError) cause;
+				} else if (cause instanceof Exception) {
+					error = new ApplicationError((Exception) cause, msg);
+				} else {
+					error = new ApplicationError(msg + ". " + cause);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				error = new ApplicationError(
+						"Loop action " + this.actionName + " interrupted while waiting for its partitions");
+			}
+		}
+		if (error != null) {
+			for (Future<Boolean> future : futures) {
+				future.cancel(true);
+			}
+			throw error;
+		}
+	}
+
+	/**
+	 * runs on a parallel worker
+	 */
+	void runPartition(Partition p, IDataSheet ds, IDbHandle dbHandle, boolean transIsDelegated,
+			boolean ownConnection, AtomicInteger stopAt) {
+		if (ownConnection == false) {
+			this.loopOnPartition(p, ds, dbHandle, transIsDelegated, stopAt);
+			return;
+		}
+		Application.getActiveInstance().getRdbSetup().getDefaultDriver().accessDb(handle -> {
+			p.ctx.seDbHandle(handle);
+			this.loopOnPartition(p, ds, handle, transIsDelegated, stopAt);
+			return true;
+		}, DbAccessType.READ_ONLY, dbHandle.getSchema());
+	}
+
+	private void loopOnPartition(Partition p, IDataSheet ds, IDbHandle dbHandle, boolean transIsDelegated,
+			AtomicInteger stopAt) {
+		BlockWorker worker = new BlockWorker(this.actions, this.indexedActions, p.ctx, null, transIsDelegated);
+		if (this.fieldsToCopyBackAsColumns != null) {
+			p.copyBack = new Value[p.end - p.start][];
+		}
+		for (int idx = p.start; idx < p.end; idx++) {
+			/*
+			 * an earlier row has signalled the end of the loop
+			 */
+			if (idx > stopAt.get()) {
+				return;
+			}
+			if (this.columnsToCopyAsFields != null) {
+				this.copyToFields(p.ctx, ds, idx);
+			}
+			String whatNext = worker.execute(dbHandle);
+			if (p.copyBack != null) {
+				p.copyBack[idx - p.start] = this.getColumnValues(p.ctx, ds);
+			}
+			if (whatNext == null || TransConventions.JumpTo.NEXT_LOOP.equals(whatNext)) {
+				continue;
+			}
+			if (TransConventions.JumpTo.STOP.equals(whatNext) || TransConventions.JumpTo.BREAK_LOOP.equals(whatNext)) {
+				p.signal = whatNext;
+				p.signalledAt = idx;
+				stopAt.accumulateAndGet(idx, Math::min);
+				return;
+			}
+			throw new ApplicationError(
+					"Service action inside a loop is signalling a jump to a task outside the loop.");
+		}
+	}
+
+	/**
+	 * @return values of fields to be copied back as columns
+	 */
+	private Value[] getColumnValues(ServiceContext ctx, IDataSheet ds) {
+		String[] names = this.copyBackAllColumns ? ds.getColumnNames() : this.fieldsToCopyBackAsColumns;
+		Value[] values = new Value[names.length];
+		for (int i = 0; i < names.length; i++) {
+			values[i] = ctx.getValue(names[i]);
+		}
+		return values;
+	}
+
+	private void setColumns(IDataSheet ds, int idx, Value[] values) {
+		String[] names = this.copyBackAllColumns ? ds.getColumnNames() : this.fieldsToCopyBackAsColumns;
+		for (int i = 0; i < names.length; i++) {
+			ds.setColumnValue(names[i], idx, values[i]);
+		}
+	}
+
+	/**
+	 * rows of the data sheet processed by a parallel worker
+	 */
+	private static class Partition {
+		final ServiceContext ctx;
+		final int start;
+		final int end;
+		/*
+		 * set by the worker
+		 */
+		Value[][] copyBack;
+		String signal;
+		int signalledAt = -1;
+
+		Partition(ServiceContext ctx, int start, int end) {
+			this.ctx = ctx;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
 	/**
 	 * @param ctx
 	 */
 	private void copyToColumns(ServiceContext ctx, IDataSheet ds, int idx) {
 		if (this.copyBackAllColumns) {
 			/*
-			 * slightly optimized over getting individual columns..
+			 * getRow() of a columnar sheet is a copy, and hence we set the
+			 * values back to the sheet
 			 */
-			Value[] values = ds.getRow(idx);
-			int i = 0;
 			for (String fieldName : ds.getColumnNames()) {
-				values[i++] = ctx.getValue(fieldName);
+				ds.setColumnValue(fieldName, idx, ctx.getValue(fieldName));
 			}
 			return;
 		}
@@ -360,6 +610,10 @@ public class Loop extends Block {
 					"Loop action is for each row of a sheet, but it also specifies executeOnCondition. Note that the executeOnCondition is checked only once in the beginning to decide whether to start the loop at all. It is not checked for further itertions per row. Change your design if this is not the intended behaviour",
 					"executeOnCondition"));
 		}
+		if (this.nbrPartitions > 1 && this.dataSheetName == null) {
+			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_WARNING,
+					"nbrPartitions is relevant only when looping on a data sheet, and is ignored.", "nbrPartitions"));
+		}
 		if (this.executeIfNoRowsInSheet != null) {
 			vtx.message(new ValidationMessage(this, ValidationMessage.SEVERITY_ERROR,
 					"executeIfNoRowsInSheet is invalid for loopaction.", "executeIfNoRowsInSheet"));
@@ -48,12 +48,30 @@ public class ReadChildren extends AbstractDbAction {
 	 * record
 	 */
 	String outputSheetName;
+	/**
+	 * by default, parent key is taken from fields in the context. Specify this
+	 * to read children for all rows in this sheet. Child rows for all parents
+	 * are read with as few sqls as possible, rather than with one sql per
+	 * parent.
+	 */
+	String parentSheetName;
 
 	@Override
 	protected boolean actWithDb(ServiceContext ctx, IDbHandle dbHandle) {
 		DbTable record = (DbTable) Application.getActiveInstance().getRecord(this.recordName);
+		String sheetName = this.outputSheetName;
+		if (sheetName == null) {
+			sheetName = record.getDefaultSheetName();
+		}
+		if (this.parentSheetName != null) {
+			IDataSheet parentSheet = ctx.getDataSheet(this.parentSheetName);
+			if (parentSheet == null) {
+				return false;
+			}
+			return record.filterForParents(parentSheet, (IReadOnlyHandle) dbHandle, sheetName, false, ctx) > 0;
+		}
 		IDataSheet outSheet = record.filterForAParent(ctx, (IReadOnlyHandle) dbHandle);
-		ctx.putDataSheet(this.outputSheetName, outSheet);
+		ctx.putDataSheet(sheetName, outSheet);
 		return outSheet.length() > 0;
 	}
 
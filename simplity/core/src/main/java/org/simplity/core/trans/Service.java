@@ -237,7 +237,7 @@ public class Service implements IService, IComponent {
 
 	@Override
 	public final String[] getCacheKeyNames() {
-		return this.cacheKeyNames;
+		return this.parsedCacheKeys;
 	}
 
 	@Override
@@ -248,7 +248,7 @@ public class Service implements IService, IComponent {
 		}
 		this.processor.execute(ctx);
 		if (this.okToCache()) {
-			String key = createCachingKey(this.getQualifiedName(), this.cacheKeyNames, ctx);
+			String key = createCachingKey(this.getQualifiedName(), this.parsedCacheKeys, ctx);
 			ctx.setCaching(key, this.cacheValidityMinutes);
 		} else if (this.serviceCachesToInvalidate != null) {
 			ctx.setInvalidations(this.getInvalidations(ctx));
@@ -326,8 +326,15 @@ public class Service implements IService, IComponent {
 		if (this.serviceCachesToInvalidate != null) {
 			this.invalidationKeys = new String[this.serviceCachesToInvalidate.length][];
 			for (int i = 0; i < this.invalidationKeys.length; i++) {
+				/*
+				 * keys inferred from the input of that service are not known
+				 * to be in our context. we invalidate all its responses
+				 * unless it has declared its keys.
+				 */
 				IService service = app.getService(this.serviceCachesToInvalidate[i]);
-				this.invalidationKeys[i] = service.getCacheKeyNames();
+				if (service instanceof Service) {
+					this.invalidationKeys[i] = ((Service) service).cacheKeyNames;
+				}
 			}
 		}
 
@@ -398,10 +405,17 @@ public class Service implements IService, IComponent {
 	}
 
 	/**
+	 * form a key to be used for caching based on service name and values of
+	 * key fields in the context. Used for caching as well as for retrieving,
+	 * after input data is read into the context.
+	 *
+	 * @param serviceName
+	 * @param keyNames
+	 *            null if the response does not depend on input
 	 * @param ctx
-	 * @return
+	 * @return key to be used for caching
 	 */
-	private static String createCachingKey(String serviceName, String[] keyNames, ServiceContext ctx) {
+	public static String createCachingKey(String serviceName, String[] keyNames, ServiceContext ctx) {
 		if (keyNames == null) {
 			return createCachingKey(serviceName, null);
 		}
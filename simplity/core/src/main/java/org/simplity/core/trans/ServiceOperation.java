@@ -153,6 +153,8 @@ public enum ServiceOperation {
 			 */
 			OutputData outData = new OutputData();
 			outData.setOutputRecords(record.getOutputRecords(true));
+			String[] fieldNames = { AppConventions.Name.NEXT_PAGE_TOKEN };
+			outData.setOutputFields(fieldNames);
 
 			AbstractAction action = new Filter(record);
 			action.failureMessageName = Messages.NO_ROWS;
@@ -22,10 +22,21 @@
 
 package org.simplity.core.trans;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.simplity.core.ApplicationError;
 import org.simplity.core.app.Application;
 import org.simplity.core.comp.FieldMetaData;
+import org.simplity.core.idb.DbAccessType;
 import org.simplity.core.idb.IDbHandle;
+import org.simplity.core.idb.ITransactionHandle;
 import org.simplity.core.service.ServiceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,7 +44,19 @@ import org.slf4j.LoggerFactory;
 /**
  * spawns its actions into asynch threads and wait for all of them to complete
  * to proceed beyond this block. That is, this block action, as seen by its
- * parent, is synchronous, but it allows its child-actions to work in parallel
+ * parent, is synchronous, but it allows its child-actions to work in parallel.
+ *
+ * <p>
+ * child-actions are run on the executor that the app shares across services.
+ * Each child-action works with its own copy of the service context, and the
+ * changes are merged back, in the order in which the child-actions are
+ * declared, after all of them complete.
+ * </p>
+ * <p>
+ * A db handle is not to be used by more than one thread. Hence child-actions
+ * of a service that uses the db run one after the other, unless they read
+ * with their own connections.
+ * </p>
  *
  * @author simplity.org
  */
@@ -52,6 +75,22 @@ public class Synchronize extends AbstractAction {
 	@FieldMetaData(isRequired = true)
 	AbstractAction[] actions;
 
+	/**
+	 * max number of seconds, from the time they are spawned, within which
+	 * every child-action is to complete. If any child-action fails to do so,
+	 * all the pending ones are cancelled, and this action fails once the
+	 * running ones stop. 0 means no time limit.
+	 */
+	int timeoutSeconds;
+
+	/**
+	 * if the service uses a read-only db handle, child-actions use their own
+	 * read-only connections, and run in parallel. Otherwise child-actions of
+	 * a service that uses the db run one after the other. Ignored if the
+	 * service is running a transaction.
+	 */
+	boolean readWithOwnConnection;
+
 	@Override
 	protected String executeBlock(ServiceContext ctx, IDbHandle dbHandle, boolean transactionIsDelegated) {
 		if (this.initialAction != null) {
@@ -70,31 +109,41 @@ public class Synchronize extends AbstractAction {
 			}
 		}
 
-		Logger.info("Synchronizer is goiing to create child-processes for each child-action.");
-		Thread[] threads = new Thread[this.actions.length];
-		AsynchWorker[] workers = new AsynchWorker[this.actions.length];
-		int i = 0;
-		for (AbstractAction action : this.actions) {
-			AsynchWorker worker = new AsynchWorker(ctx, action, dbHandle, transactionIsDelegated);
-			workers[i] = worker;
-			Thread thread = Application.getActiveInstance().createThread(worker);
-			threads[i] = thread;
-			thread.start();
-			i++;
+		int nbr = this.actions.length;
+		ServiceContext[] contexts = new ServiceContext[nbr];
+		for (int i = 0; i < nbr; i++) {
+			contexts[i] = ctx.createChildContext();
 		}
+		boolean ownConnection = this.readWithOwnConnection && dbHandle != null
+				&& dbHandle instanceof ITransactionHandle == false;
 
-		Logger.info("{} Parallel actions created. Waiting for all of them to finish their job.", i);
-
-		for (Thread thread : threads) {
-			try {
-				if (thread.isAlive()) {
-					thread.join();
-				}
-			} catch (InterruptedException e) {
-				Logger.info("One of the threads got interrupted for Synchronizer {}", this.actionName);
+		boolean sequential = false;
+		if (Application.isParallelWorker()) {
+			/*
+			 * we are already running on the parallel executor. Waiting for
+			 * other tasks on the same bounded executor may block it for ever.
+			 */
+			Logger.info("Synchronizer {} is nested inside a parallel action. Child-actions are run one after the other",
+					this.actionName);
+			sequential = true;
+		} else if (dbHandle != null && ownConnection == false) {
+			/*
+			 * a jdbc connection, and the transaction on it, is not to be used
+			 * by more than one thread
+			 */
+			Logger.info("Synchronizer {} shares the db handle of the service. Child-actions are run one after the other",
+					this.actionName);
+			sequential = true;
+		}
+		if (sequential) {
+			for (int i = 0; i < nbr; i++) {
+				this.runChild(this.actions[i], contexts[i], dbHandle, transactionIsDelegated, ownConnection);
 			}
+		} else {
+			this.runInParallel(contexts, dbHandle, transactionIsDelegated, ownConnection);
 		}
 
+		ctx.mergeChildContexts(contexts);
 		Logger.info("All child-actions returned");
 		if (this.finalAction != null) {
 			return this.finalAction.executeAction(ctx, dbHandle, transactionIsDelegated);
@@ -102,6 +151,117 @@ public class Synchronize extends AbstractAction {
 		return null;
 	}
 
+	private void runInParallel(ServiceContext[] contexts, IDbHandle dbHandle, boolean transactionIsDelegated,
+			boolean ownConnection) {
+		Application app = Application.getActiveInstance();
+		int nbr = this.actions.length;
+		List<Future<String>> futures = new ArrayList<>(nbr);
+		/*
+		 * a child-action is claimed either by its task, to run it, or by us,
+		 * to skip it after an error. Either one counts it down once it is done
+		 * with it.
+		 */
+		AtomicBoolean[] claimed = new AtomicBoolean[nbr];
+		CountDownLatch finished = new CountDownLatch(nbr);
+		for (int i = 0; i < nbr; i++) {
+			AbstractAction action = this.actions[i];
+			ServiceContext childCtx = contexts[i];
+			AtomicBoolean claim = new AtomicBoolean();
+			claimed[i] = claim;
+			futures.add(app.submitParallelTask(() -> {
+				if (claim.compareAndSet(false, true) == false) {
+					return null;
+				}
+				try {
+					return this.runChild(action, childCtx, dbHandle, transactionIsDelegated, ownConnection);
+				} finally {
+					finished.countDown();
+				}
+			}));
+		}
+
+		Logger.info("{} Parallel actions submitted. Waiting for all of them to finish their job.", nbr);
+		long deadline = 0;
+		if (this.timeoutSeconds > 0) {
+			deadline = System.currentTimeMillis() + this.timeoutSeconds * 1000L;
+		}
+		ApplicationError error = null;
+		for (int i = 0; i < nbr && error == null; i++) {
+			String childName = this.actions[i].getName();
+			try {
+				if (deadline == 0) {
+					futures.get(i).get();
+				} else {
+					long millis = Math.max(0, deadline - System.currentTimeMillis());
+					futures.get(i).get(millis, TimeUnit.MILLISECONDS);
+				}
+			} catch (TimeoutException e) {
+				error = new ApplicationError("Child-action " + childName + " of synchronizer " + this.actionName
+						+ " did not complete within " + this.timeoutSeconds + " seconds");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				String msg = "Child-action " + childName + " of synchronizer " + this.actionName + " failed";
+				if (cause instanceof ApplicationError) {
+					error = (ApplicationError) cause;
+				} else if (cause instanceof Exception) {
+					error = new ApplicationError((Exception) cause, msg);
+				} else {
+					error = new ApplicationError(msg + ". " + cause);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				error = new ApplicationError(
+						"Synchronizer " + this.actionName + " interrupted while waiting for its child-actions");
+			}
+		}
+		if (error != null) {
+			for (int i = 0; i < nbr; i++) {
+				if (claimed[i].compareAndSet(false, true)) {
+					finished.countDown();
+				}
+				futures.get(i).cancel(true);
+			}
+			this.awaitRunningChildren(finished);
+			throw error;
+		}
+	}
+
+	/**
+	 * child-actions that are running may still be using their contexts or
+	 * connections. Wait till they stop, even if this thread is interrupted.
+	 */
+	private void awaitRunningChildren(CountDownLatch finished) {
+		boolean interrupted = Thread.interrupted();
+		while (true) {
+			try {
+				finished.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * run a child-action with its own context
+	 */
+	String runChild(AbstractAction action, ServiceContext childCtx, IDbHandle dbHandle,
+			boolean transactionIsDelegated, boolean ownConnection) {
+		if (ownConnection == false) {
+			return action.executeAction(childCtx, dbHandle, transactionIsDelegated);
+		}
+		String[] result = new String[1];
+		Application.getActiveInstance().getRdbSetup().getDefaultDriver().accessDb(handle -> {
+			childCtx.seDbHandle(handle);
+			result[0] = action.executeAction(childCtx, handle, transactionIsDelegated);
+			return true;
+		}, DbAccessType.READ_ONLY, dbHandle.getSchema());
+		return result[0];
+	}
+
 	@Override
 	public void getReady(int idx, TransactionProcessor task) {
 		super.getReady(idx, task);
@@ -117,25 +277,6 @@ public class Synchronize extends AbstractAction {
 		}
 	}
 
-	class AsynchWorker implements Runnable {
-		private final ServiceContext ctx;
-		private final AbstractAction action;
-		private final IDbHandle dbHandle;
-		private final boolean transDelegated;
-
-		AsynchWorker(ServiceContext ctx, AbstractAction action, IDbHandle dbHandle, boolean transDelegated) {
-			this.ctx = ctx;
-			this.action = action;
-			this.dbHandle = dbHandle;
-			this.transDelegated = transDelegated;
-		}
-
-		@Override
-		public void run() {
-			this.action.executeAction(this.ctx, this.dbHandle, this.transDelegated);
-		}
-	}
-
 	@Override
 	boolean isBlockOfActions() {
 		return true;
@@ -77,7 +77,7 @@ public class TransactionProcessor implements IProcessor {
 	/**
 	 * action names indexed to respond to navigation requests
 	 */
-	private final HashMap<String, Integer> indexedActions = new HashMap<String, Integer>();
+	final HashMap<String, Integer> indexedActions = new HashMap<String, Integer>();
 
 	@Override
 	public void execute(ServiceContext ctx) {
@@ -30,7 +30,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.simplity.core.ApplicationError;
+import org.simplity.core.app.Application;
 import org.simplity.core.app.IResponseWriter;
+import org.simplity.core.data.ColumnarSheet;
 import org.simplity.core.data.IDataSheet;
 import org.simplity.core.data.IFieldsCollection;
 import org.simplity.core.data.MultiRowsSheet;
@@ -290,8 +292,10 @@ public class RdbUtil {
 				ValueType[] types = meta.getColumnValueTypes();
 				String[] names = meta.getColumnNames();
 				while (rs.next()) {
-					this.consumer.consume(names, resultToValueRow(rs, types));
 					nbr++;
+					if (this.consumer.consume(names, resultToValueRow(rs, types)) == false) {
+						break;
+					}
 				}
 			} catch (SQLException e) {
 				throw new ApplicationError(e, "");
@@ -436,6 +440,9 @@ public class RdbUtil {
 	 */
 	public static IDataSheet getDataSheetForSqlResult(ResultSet rs) {
 		ColumnMetaData md = new ColumnMetaData(rs);
+		if (Application.preferColumnarSheets() && ColumnarSheet.canBeUsedFor(md.getColumnValueTypes())) {
+			return new ColumnarSheet(md.getColumnNames(), md.getColumnValueTypes());
+		}
 		return new MultiRowsSheet(md.getColumnNames(), md.getColumnValueTypes());
 	}
 
@@ -458,7 +465,7 @@ public class RdbUtil {
 				this.types = new ValueType[n];
 				for (int i = 0; i < n; i++) {
 					this.names[i] = md.getColumnName(i + 1);
-					this.types[i] = sqlTypeToValueType(md.getColumnType(i));
+					this.types[i] = sqlTypeToValueType(md.getColumnType(i + 1));
 				}
 			} catch (SQLException e) {
 				throw new ApplicationError(e, "");
@@ -26,6 +26,9 @@ import java.io.FilenameFilter;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.regex.Matcher;
@@ -607,6 +610,29 @@ public class TextUtil {
 			return null;
 		}
 	}
+
+	/**
+	 * content hash of a text, suitable as a key in place of the text itself
+	 *
+	 * @param text
+	 *            non-null
+	 * @return SHA-256 digest of the UTF-8 bytes of the text, in hex
+	 */
+	public static String toSha256Hex(String text) {
+		try {
+			byte[] bytes = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sbf = new StringBuilder(bytes.length * 2);
+			for (byte b : bytes) {
+				sbf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return sbf.toString();
+		} catch (NoSuchAlgorithmException e) {
+			/*
+			 * SHA-256 is mandatory for every java platform
+			 */
+			throw new ApplicationError(e, "SHA-256 is not available on this platform");
+		}
+	}
 }
 
 /** @author simplity.org */
@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.simplity.core.app.AppConventions;
+import org.simplity.core.comp.ComponentType;
+import org.simplity.core.file.FileManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * <p>
+ * compact, binary snapshot of component resources that are already parsed.
+ * Loading a component from the snapshot avoids the xml parser altogether, and
+ * is substantially faster than parsing the resource.
+ * </p>
+ * <p>
+ * Each resource is saved with its last-modified time-stamp. A resource that
+ * is modified after the snapshot was created, or is not in the snapshot, is
+ * to be parsed from its xml as usual.
+ * </p>
+ * <p>
+ * Snapshot can be created as part of the build with
+ * <code>java org.simplity.core.util.XmlSnapshot resourceRoot snapshotFile</code>,
+ * or by the app on its first start.
+ * </p>
+ *
+ * @author simplity.org
+ *
+ */
+public class XmlSnapshot {
+	private static final Logger logger = LoggerFactory.getLogger(XmlSnapshot.class);
+	private static final int MAGIC = 0x53584d4c;
+	private static final int VERSION = 1;
+	private static final String EXTN = ".xml";
+
+	private static final byte ELEMENT = 1;
+	private static final byte TEXT = 2;
+	private static final byte CDATA = 3;
+	private static final byte COMMENT = 4;
+	private static final byte END = 0;
+	/**
+	 * strings are written with an index into the table of strings already
+	 * written. -1 means the string follows
+	 */
+	private static final int NEW_STRING = -1;
+
+	/**
+	 * resource name to its snapshot entry
+	 */
+	private final Map<String, Entry> entries;
+
+	private XmlSnapshot(Map<String, Entry> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * create a snapshot file for all components of an app
+	 *
+	 * @param args
+	 *            resourceRoot snapshotFile
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.out.println("Usage : java org.simplity.core.util.XmlSnapshot resourceRoot snapshotFile");
+			return;
+		}
+		int nbr = createForApp(args[0], args[1]);
+		System.out.println(nbr + " resources saved to snapshot " + args[1]);
+	}
+
+	/**
+	 * create a snapshot of all the component resources of an app
+	 *
+	 * @param resourceRoot
+	 *            resource root of the app, ending with a '/'
+	 * @param snapshotFile
+	 *            file to which the snapshot is to be written
+	 * @return number of resources saved in the snapshot. -1 in case of error
+	 */
+	public static int createForApp(String resourceRoot, String snapshotFile) {
+		List<String> resources = new ArrayList<>();
+		ComponentType[] types = AppConventions.COMP_TYPES;
+		for (int i = 0; i < types.length; i++) {
+			String folder = AppConventions.Name.COMP_FOLDER_NAMES[i];
+			if (types[i].isPreloaded()) {
+				resources.add(AppConventions.Name.BUILT_IN_COMP_PREFIX + folder
+						+ AppConventions.Name.BUILT_IN_COMP_FILE_NAME);
+				resources.add(resourceRoot + folder + AppConventions.Name.APP_COMP_FILE_NAME);
+				continue;
+			}
+			for (String res : FileManager.getResources(resourceRoot + folder)) {
+				if (res.endsWith(EXTN)) {
+					resources.add(res);
+				}
+			}
+		}
+		return create(snapshotFile, resources);
+	}
+
+	/**
+	 * create a snapshot file for the resources
+	 *
+	 * @param snapshotFile
+	 *            file to which the snapshot is to be written
+	 * @param resources
+	 *            resources to be saved. A resource that can not be parsed is
+	 *            skipped
+	 * @return number of resources saved in the snapshot. -1 in case of error
+	 */
+	public static int create(String snapshotFile, List<String> resources) {
+		long begin = System.currentTimeMillis();
+		List<String> names = new ArrayList<>();
+		List<Long> stamps = new ArrayList<>();
+		List<byte[]> contents = new ArrayList<>();
+		for (String res : resources) {
+			long stamp = getLastModified(res);
+			if (stamp == 0) {
+				logger.info("Resource {} is not included in the snapshot as its last-modified time is not known.",
+						res);
+				continue;
+			}
+			Document doc = XmlUtil.fromResource(res);
+			if (doc == null || doc.getDocumentElement() == null) {
+				logger.info("Resource {} is not included in the snapshot.", res);
+				continue;
+			}
+			try {
+				contents.add(toBytes(doc.getDocumentElement()));
+			} catch (IOException e) {
+				logger.error("Resource {} could not be written to snapshot. {}", res, e.getMessage());
+				continue;
+			}
+			names.add(res);
+			stamps.add(stamp);
+		}
+
+		File file = new File(snapshotFile);
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			int nbr = names.size();
+			out.writeInt(nbr);
+			for (int i = 0; i < nbr; i++) {
+				out.writeUTF(names.get(i));
+				out.writeLong(stamps.get(i));
+				byte[] bytes = contents.get(i);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			logger.info("{} resources saved to snapshot {} in {} ms", nbr, snapshotFile,
+					System.currentTimeMillis() - begin);
+			return nbr;
+		} catch (IOException e) {
+			logger.error("Error while writing snapshot file " + snapshotFile, e);
+			file.delete();
+			return -1;
+		}
+	}
+
+	/**
+	 * load a snapshot from its file.
+	 *
+	 * @param snapshotFile
+	 * @return snapshot, or null if the file does not exist, or is not a valid
+	 *         snapshot
+	 */
+	public static XmlSnapshot load(String snapshotFile) {
+		File file = new File(snapshotFile);
+		if (file.exists() == false) {
+			logger.info("Snapshot file {} does not exist", snapshotFile);
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				logger.error("{} is not a snapshot file, or it is of an older version", snapshotFile);
+				return null;
+			}
+			int nbr = in.readInt();
+			Map<String, Entry> entries = new HashMap<>();
+			for (int i = 0; i < nbr; i++) {
+				String name = in.readUTF();
+				long stamp = in.readLong();
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				entries.put(name, new Entry(stamp, bytes));
+			}
+			logger.info("{} resources loaded from snapshot {}", nbr, snapshotFile);
+			return new XmlSnapshot(entries);
+		} catch (IOException e) {
+			logger.error("Error while reading snapshot file " + snapshotFile, e);
+			return null;
+		}
+	}
+
+	/**
+	 * get the root element of a resource from the snapshot
+	 *
+	 * @param resName
+	 * @return root element, or null if this resource is not in the snapshot,
+	 *         or the resource is modified after the snapshot was created. Use
+	 *         the xml resource itself in that case
+	 */
+	public Element getElement(String resName) {
+		Entry entry = this.entries.get(resName);
+		if (entry == null) {
+			return null;
+		}
+		long stamp = getLastModified(resName);
+		if (stamp == 0) {
+			logger.info("Resource {} is not found, or its last-modified time is not known", resName);
+			return null;
+		}
+		if (stamp > entry.lastModified) {
+			logger.info("Resource {} is modified after the snapshot was taken", resName);
+			return null;
+		}
+		try {
+			Document doc = XmlUtil.newEmptyDocument();
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.bytes));
+			in.readByte();
+			Element ele = readElement(in, doc, new ArrayList<>());
+			doc.appendChild(ele);
+			return ele;
+		} catch (IOException e) {
+			logger.error("Snapshot for resource {} is corrupt. {}", resName, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 * @param resName
+	 * @return last-modified time of the resource, or 0 if it is not known
+	 */
+	private static long getLastModified(String resName) {
+		URL url = XmlSnapshot.class.getClassLoader().getResource(resName);
+		if (url == null) {
+			return new File(resName).lastModified();
+		}
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return new File(url.toURI()).lastModified();
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				return 0;
+			}
+		}
+		/*
+		 * a connection keeps its stream (and, for jar, the jar file) open
+		 * till it is garbage collected, unless we close it ourselves
+		 */
+		URLConnection conn;
+		try {
+			conn = url.openConnection();
+		} catch (IOException e) {
+			return 0;
+		}
+		conn.setUseCaches(false);
+		long stamp = conn.getLastModified();
+		try {
+			conn.getInputStream().close();
+		} catch (IOException e) {
+			logger.debug("Connection to resource {} could not be closed. {}", resName, e.getMessage());
+		}
+		return stamp;
+	}
+
+	private static byte[] toBytes(Element ele) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeNode(out, ele, new HashMap<>());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static void writeNode(DataOutputStream out, Node node, Map<String, Integer> strings)
+			throws IOException {
+		switch (node.getNodeType()) {
+		case Node.ELEMENT_NODE:
+			out.writeByte(ELEMENT);
+			writeString(out, node.getNodeName(), strings);
+			NamedNodeMap atts = node.getAttributes();
+			int nbrAtts = atts.getLength();
+			out.writeInt(nbrAtts);
+			for (int i = 0; i < nbrAtts; i++) {
+				Node att = atts.item(i);
+				writeString(out, att.getNodeName(), strings);
+				writeString(out, att.getNodeValue(), strings);
+			}
+			Node child = node.getFirstChild();
+			while (child != null) {
+				writeNode(out, child, strings);
+				child = child.getNextSibling();
+			}
+			out.writeByte(END);
+			return;
+		case Node.TEXT_NODE:
+			out.writeByte(TEXT);
+			break;
+		case Node.CDATA_SECTION_NODE:
+			out.writeByte(CDATA);
+			break;
+		case Node.COMMENT_NODE:
+			out.writeByte(COMMENT);
+			break;
+		default:
+			return;
+		}
+		writeString(out, node.getNodeValue(), strings);
+	}
+
+	private static Element readElement(DataInputStream in, Document doc, List<String> strings) throws IOException {
+		Element ele = doc.createElement(readString(in, strings));
+		int nbrAtts = in.readInt();
+		for (int i = 0; i < nbrAtts; i++) {
+			String name = readString(in, strings);
+			ele.setAttribute(name, readString(in, strings));
+		}
+		while (true) {
+			byte type = in.readByte();
+			switch (type) {
+			case END:
+				return ele;
+			case ELEMENT:
+				ele.appendChild(readElement(in, doc, strings));
+				break;
+			case TEXT:
+				ele.appendChild(doc.createTextNode(readString(in, strings)));
+				break;
+			case CDATA:
+				ele.appendChild(doc.createCDATASection(readString(in, strings)));
+				break;
+			case COMMENT:
+				ele.appendChild(doc.createComment(readString(in, strings)));
+				break;
+			default:
+				throw new IOException("Invalid node type " + type);
+			}
+		}
+	}
+
+	/*
+	 * tag and attribute names are repeated quite a lot. We write them once, and
+	 * refer to them by their index.
+	 */
+	private static void writeString(DataOutputStream out, String str, Map<String, Integer> strings)
+			throws IOException {
+		Integer idx = strings.get(str);
+		if (idx != null) {
+			out.writeInt(idx);
+			return;
+		}
+		strings.put(str, strings.size());
+		out.writeInt(NEW_STRING);
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in, List<String> strings) throws IOException {
+		int idx = in.readInt();
+		if (idx != NEW_STRING) {
+			return strings.get(idx);
+		}
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		String str = new String(bytes, StandardCharsets.UTF_8);
+		strings.add(str);
+		return str;
+	}
+
+	private static class Entry {
+		protected final long lastModified;
+		protected final byte[] bytes;
+
+		protected Entry(long lastModified, byte[] bytes) {
+			this.lastModified = lastModified;
+			this.bytes = bytes;
+		}
+	}
+}
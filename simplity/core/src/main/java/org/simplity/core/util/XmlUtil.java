@@ -181,6 +181,13 @@ public class XmlUtil {
 	 */
 	public static final Transformer transformer = instantiateTransFactory();
 
+	/**
+	 * transformer is not thread-safe. Components are loaded concurrently by
+	 * service threads, and hence we use one transformer per thread
+	 */
+	private static final ThreadLocal<Transformer> threadTransformer = ThreadLocal
+			.withInitial(XmlUtil::instantiateTransFactory);
+
 	/**
 	 * @param ele
 	 * @return array of all child node names. This includes all attribute names
@@ -229,7 +236,7 @@ public class XmlUtil {
 		try {
 			StreamSource source = new StreamSource(new StringReader(text));
 			javax.xml.transform.dom.DOMResult result = new DOMResult();
-			transformer.transform(source, result);
+			threadTransformer.get().transform(source, result);
 			return (Document) result.getNode();
 		} catch (Exception e) {
 			logger.error("xml text could not be parsed into a document. {}. An empty document is returned.",
@@ -248,7 +255,7 @@ public class XmlUtil {
 		Source source = new DOMSource(xml);
 		StringWriter writer = new StringWriter();
 		try {
-			transformer.transform(source, new StreamResult(writer));
+			threadTransformer.get().transform(source, new StreamResult(writer));
 			return writer.toString();
 		} catch (TransformerException e) {
 			logger.error("Error while converting dom to text. {}. Empty string returned.", e.getMessage());
@@ -1175,7 +1182,7 @@ public class XmlUtil {
 			Source source = new StreamSource(stream);
 			Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
 			DOMResult res = new DOMResult(doc);
-			transformer.transform(source, res);
+			threadTransformer.get().transform(source, res);
 			return doc;
 		} catch (Exception e) {
 			logger.error("Error while loading xml from stream. Treating this as internal error. {}", e.getMessage());
@@ -1193,7 +1200,7 @@ public class XmlUtil {
 		try {
 			Source source = new DOMSource(doc);
 			Result xmlResult = new StreamResult(stream);
-			transformer.transform(source, xmlResult);
+			threadTransformer.get().transform(source, xmlResult);
 			return true;
 		} catch (Exception e) {
 			logger.error("Document could not be Written to output stream. {}", e.getMessage());
@@ -1212,7 +1219,7 @@ public class XmlUtil {
 		try {
 			Source source = new DOMSource(rootElement);
 			Result xmlResult = new StreamResult(stream);
-			transformer.transform(source, xmlResult);
+			threadTransformer.get().transform(source, xmlResult);
 			return true;
 		} catch (Exception e) {
 			logger.error("Document could not be Written to output stream. {}", e.getMessage());
@@ -1230,7 +1237,7 @@ public class XmlUtil {
 		try {
 			Source source = new DOMSource(doc);
 			Result xmlResult = new StreamResult(writer);
-			transformer.transform(source, xmlResult);
+			threadTransformer.get().transform(source, xmlResult);
 			return true;
 		} catch (Exception e) {
 			logger.error("Document could not be Written to output stream. {}", e.getMessage());
@@ -1249,7 +1256,7 @@ public class XmlUtil {
 		try {
 			Source source = new DOMSource(rootElement);
 			Result xmlResult = new StreamResult(writer);
-			transformer.transform(source, xmlResult);
+			threadTransformer.get().transform(source, xmlResult);
 			return true;
 		} catch (Exception e) {
 			logger.error("Document could not be Written to output stream. {}", e.getMessage());
@@ -1267,7 +1274,7 @@ public class XmlUtil {
 			Source source = new DOMSource(doc);
 			Writer writer = new StringWriter();
 			Result xmlResult = new StreamResult(writer);
-			transformer.transform(source, xmlResult);
+			threadTransformer.get().transform(source, xmlResult);
 			return writer.toString();
 		} catch (Exception e) {
 			logger.error("Document could not be converted to String. {}", e.getMessage());
@@ -1286,7 +1293,7 @@ public class XmlUtil {
 			Source source = new DOMSource(rootElement);
 			Writer writer = new StringWriter();
 			Result xmlResult = new StreamResult(writer);
-			transformer.transform(source, xmlResult);
+			threadTransformer.get().transform(source, xmlResult);
 			return writer.toString();
 		} catch (Exception e) {
 			logger.error("Document could not be Written to output stream. {}", e.getMessage());
@@ -1305,7 +1312,7 @@ public class XmlUtil {
 			Source source = new StreamSource(reader);
 			Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
 			DOMResult res = new DOMResult(doc);
-			transformer.transform(source, res);
+			threadTransformer.get().transform(source, res);
 			return doc;
 		} catch (Exception e) {
 			logger.error("Error while loading xml from stream. Treating this as internal error. {}", e.getMessage());
@@ -1623,7 +1630,7 @@ public class XmlUtil {
 	public static String prettyPrint(Element domElement) {
 		StringWriter writer = new StringWriter();
 		try {
-			transformer.transform(new DOMSource(domElement), new StreamResult(writer));
+			threadTransformer.get().transform(new DOMSource(domElement), new StreamResult(writer));
 			return writer.toString();
 		} catch (TransformerException e) {
 			return "Error while pretty printing the xml document with root node " + domElement.getTagName();
@@ -62,7 +62,7 @@ public class DateValue extends Value {
 	@Override
 	protected boolean equalValue(Value otherValue) {
 		if (otherValue instanceof DateValue) {
-			return ((DateValue) otherValue).value == this.value;
+			return this.value.equals(((DateValue) otherValue).value);
 		}
 		return false;
 	}
@@ -63,7 +63,7 @@ public class TimestampValue extends Value {
 	@Override
 	protected boolean equalValue(Value otherValue) {
 		if (otherValue instanceof TimestampValue) {
-			return ((TimestampValue) otherValue).value == this.value;
+			return this.value.equals(((TimestampValue) otherValue).value);
 		}
 		return false;
 	}
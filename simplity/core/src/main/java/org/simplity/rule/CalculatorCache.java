@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.rule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.simplity.core.util.IoUtil;
+import org.simplity.core.util.TextUtil;
+import org.simplity.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * compiles rule sets into calculator classes at run time and caches them by
+ * rule-set name. Source generated by <code>RuleSet.generateSource()</code> is
+ * compiled in memory using javax.tools, and is loaded in its own class loader
+ * so that a re-tuned rule set can replace the earlier version without a
+ * re-deploy.
+ *
+ * A compiled rule set is re-used as long as the content hash of its json is
+ * unchanged. Calculators carry state for the duration of a calculation, and
+ * hence a fresh instance is handed out for every getCalculator() call.
+ * Requires a JDK (not just a JRE) at run time.
+ *
+ * @author simplity.org
+ *
+ */
+public class CalculatorCache {
+	private static final Logger logger = LoggerFactory.getLogger(CalculatorCache.class);
+
+	private static final Map<String, CompiledRuleSet> ruleSets = new ConcurrentHashMap<>();
+	/*
+	 * rule sets loaded from files, with the last-modified time-stamp of the
+	 * file that was loaded
+	 */
+	private static final Map<String, LoadedFile> loadedFiles = new ConcurrentHashMap<>();
+
+	/**
+	 * get a calculator for a rule set that is already loaded.
+	 *
+	 * @param ruleSetName
+	 * @return a new instance of the calculator for the current version of the
+	 *         rule set. null if no rule set is loaded with this name.
+	 * @throws InvalidRuleException
+	 *             in case the calculator could not be instantiated
+	 */
+	public static AbstractCalculator getCalculator(String ruleSetName) throws InvalidRuleException {
+		CompiledRuleSet compiled = ruleSets.get(ruleSetName);
+		if (compiled == null) {
+			return null;
+		}
+		return compiled.newCalculator();
+	}
+
+	/**
+	 * load a rule set. Compiled only if a rule set with this name is not
+	 * loaded, or its content has changed since it was last loaded. A changed
+	 * rule set replaces the earlier version; calculators that are already
+	 * handed out continue to use the earlier version.
+	 *
+	 * @param ruleJson
+	 *            json text of the rule set
+	 * @return name of the rule set that is loaded
+	 * @throws InvalidRuleException
+	 *             in case of any error in the rules, or in compiling the
+	 *             generated source
+	 */
+	public static String load(String ruleJson) throws InvalidRuleException {
+		String hash = TextUtil.toSha256Hex(ruleJson);
+		RuleSet ruleSet = new RuleSet();
+		List<String> errors = ruleSet.fromJson(new JSONObject(ruleJson));
+		if (errors != null) {
+			throw new InvalidRuleException(toMessage("Rule set has errors:", errors));
+		}
+		String name = ruleSet.name;
+		if (name != null) {
+			CompiledRuleSet existing = ruleSets.get(name);
+			if (existing != null && existing.hash.equals(hash)) {
+				logger.debug("Rule set {} is unchanged, and is not re-compiled", name);
+				return name;
+			}
+		}
+
+		StringBuilder src = new StringBuilder();
+		errors = new ArrayList<>();
+		ruleSet.generateSource(AbstractCalculator.class, src, errors);
+		if (errors.size() > 0) {
+			throw new InvalidRuleException(toMessage("Rule set has errors:", errors));
+		}
+		name = ruleSet.name;
+		String className = AbstractCalculator.class.getPackage().getName() + '.'
+				+ TextUtil.nameToClassName(name);
+		long start = System.currentTimeMillis();
+		Class<?> cls = compile(className, src.toString());
+		CompiledRuleSet compiled = new CompiledRuleSet(hash, cls);
+		ruleSets.put(name, compiled);
+		logger.info("Rule set {} compiled and loaded in {} ms", name, System.currentTimeMillis() - start);
+		return name;
+	}
+
+	/**
+	 * load a rule set from a file or resource, unless the file is not modified
+	 * since it was last loaded. Call this before getCalculator() to pick-up
+	 * changes to a rule file without re-starting the app. Note that a resource
+	 * inside a jar is never re-loaded.
+	 *
+	 * @param fileOrResourceName
+	 * @return name of the rule set that is loaded
+	 * @throws InvalidRuleException
+	 *             in case the file is not found, or has errors
+	 */
+	public static String loadFile(String fileOrResourceName) throws InvalidRuleException {
+		File file = new File(fileOrResourceName);
+		long modifiedAt = file.exists() ? file.lastModified() : 0;
+		LoadedFile loaded = loadedFiles.get(fileOrResourceName);
+		/*
+		 * rule set may have been unloaded since
+		 */
+		if (loaded != null && loaded.modifiedAt == modifiedAt && ruleSets.containsKey(loaded.ruleSetName)) {
+			return loaded.ruleSetName;
+		}
+		String text = IoUtil.readResource(fileOrResourceName);
+		if (text == null) {
+			throw new InvalidRuleException("Unable to read rule set from " + fileOrResourceName);
+		}
+		String name = load(text);
+		loadedFiles.put(fileOrResourceName, new LoadedFile(modifiedAt, name));
+		return name;
+	}
+
+	/**
+	 * remove a rule set from the cache
+	 *
+	 * @param ruleSetName
+	 */
+	public static void unload(String ruleSetName) {
+		ruleSets.remove(ruleSetName);
+	}
+
+	private static Class<?> compile(String className, String source) throws InvalidRuleException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new InvalidRuleException(
+					"Java compiler is not available. Rule sets can be compiled at run time only when the app runs on a JDK.");
+		}
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		Map<String, ClassObject> classes;
+		StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null,
+				StandardCharsets.UTF_8);
+		try (MemoryFileManager manager = new MemoryFileManager(standard)) {
+			List<JavaFileObject> units = new ArrayList<>();
+			units.add(new SourceObject(className, source));
+			List<String> options = Arrays.asList("-classpath", getClassPath(), "-g:none", "-nowarn");
+			boolean ok = compiler.getTask(null, manager, diagnostics, options, null, units).call().booleanValue();
+			if (ok == false) {
+				List<String> errors = new ArrayList<>();
+				for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+					if (d.getKind() == Diagnostic.Kind.ERROR) {
+						errors.add("line " + d.getLineNumber() + ": " + d.getMessage(null));
+					}
+				}
+				throw new InvalidRuleException(
+						toMessage("Generated source for " + className + " failed to compile:", errors));
+			}
+			classes = manager.classes;
+		} catch (IOException e) {
+			throw new InvalidRuleException(
+					"File manager used for compiling " + className + " could not be closed. " + e.getMessage());
+		}
+		/*
+		 * a new loader for each compilation: classes of an earlier version
+		 * are garbage collected once calculators using them are gone
+		 */
+		RuleSetLoader loader = new RuleSetLoader(AbstractCalculator.class.getClassLoader(), classes);
+		try {
+			return loader.loadClass(className);
+		} catch (ClassNotFoundException e) {
+			throw new InvalidRuleException("Compiled class " + className + " could not be loaded. " + e.getMessage());
+		}
+	}
+
+	/*
+	 * class path of the app, plus the location from where this class is
+	 * loaded, in case the app is running inside a container
+	 */
+	private static String getClassPath() {
+		String cp = System.getProperty("java.class.path");
+		try {
+			String path = new File(AbstractCalculator.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+					.getPath();
+			if (cp == null || cp.isEmpty()) {
+				return path;
+			}
+			return path + File.pathSeparatorChar + cp;
+		} catch (Exception e) {
+			logger.debug("Code source of calculator could not be determined. {}", e.getMessage());
+		}
+		return cp;
+	}
+
+	private static String toMessage(String prefix, List<String> errors) {
+		StringBuilder sbf = new StringBuilder(prefix);
+		for (String err : errors) {
+			sbf.append('\n').append(err);
+		}
+		return sbf.toString();
+	}
+
+	/**
+	 * compiled version of a rule set
+	 */
+	private static class CompiledRuleSet {
+		final String hash;
+		private final Constructor<?> constructor;
+
+		CompiledRuleSet(String hash, Class<?> cls) throws InvalidRuleException {
+			this.hash = hash;
+			try {
+				this.constructor = cls.getConstructor();
+			} catch (Exception e) {
+				throw new InvalidRuleException(cls.getName() + " does not have a public default constructor");
+			}
+		}
+
+		AbstractCalculator newCalculator() throws InvalidRuleException {
+			try {
+				return (AbstractCalculator) this.constructor.newInstance();
+			} catch (Exception e) {
+				throw new InvalidRuleException("Error while creating calculator. " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * a rule set file, as it was when it was last loaded
+	 */
+	private static class LoadedFile {
+		final long modifiedAt;
+		final String ruleSetName;
+
+		LoadedFile(long modifiedAt, String ruleSetName) {
+			this.modifiedAt = modifiedAt;
+			this.ruleSetName = ruleSetName;
+		}
+	}
+
+	/**
+	 * source held in memory
+	 */
+	private static class SourceObject extends SimpleJavaFileObject {
+		private final String source;
+
+		SourceObject(String className, String source) {
+			super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return this.source;
+		}
+	}
+
+	/**
+	 * byte code held in memory
+	 */
+	private static class ClassObject extends SimpleJavaFileObject {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ClassObject(String className) {
+			super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return this.bytes;
+		}
+	}
+
+	/**
+	 * collects the compiled classes in memory instead of writing them to
+	 * files
+	 */
+	private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+		final Map<String, ClassObject> classes = new HashMap<>();
+
+		MemoryFileManager(JavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind,
+				FileObject sibling) {
+			ClassObject obj = new ClassObject(className);
+			this.classes.put(className, obj);
+			return obj;
+		}
+	}
+
+	/**
+	 * loads compiled classes of a rule set. Classes of the rule set are
+	 * defined by this loader even if a class with the same name is available
+	 * with the parent, so that the latest version is always used.
+	 */
+	private static class RuleSetLoader extends ClassLoader {
+		private final Map<String, ClassObject> classes;
+
+		RuleSetLoader(ClassLoader parent, Map<String, ClassObject> classes) {
+			super(parent);
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			synchronized (this.getClassLoadingLock(name)) {
+				if (this.classes.containsKey(name) == false) {
+					return super.loadClass(name, resolve);
+				}
+				Class<?> cls = this.findLoadedClass(name);
+				if (cls == null) {
+					byte[] bytes = this.classes.get(name).bytes.toByteArray();
+					cls = this.defineClass(name, bytes, 0, bytes.length);
+				}
+				if (resolve) {
+					this.resolveClass(cls);
+				}
+				return cls;
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.aggr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.data.MultiRowsSheet;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.ValueType;
+
+/**
+ * aggregators of a hash aggregator, and their inputs
+ *
+ * @author simplity.org
+ *
+ */
+public class HashAggregatorTest {
+
+	/**
+	 * only count can do without an input column
+	 */
+	@Test
+	public void inputRequiredExceptForCount() {
+		for (AggregationType type : AggregationType.values()) {
+			if (type == AggregationType.COUNT) {
+				continue;
+			}
+			for (String input : new String[] { null, "*" }) {
+				try {
+					new HashAggregator(null, new Aggregator[] { newAggregator(type, input, "out") }, 1);
+					fail(type + " is accepted with an input of " + input);
+				} catch (ApplicationError e) {
+					/*
+					 * expected
+					 */
+				}
+			}
+		}
+	}
+
+	/**
+	 * count with no input, or with *, counts the rows of a group
+	 */
+	@Test
+	public void countRows() {
+		TestApp.getApp();
+		String[][] data = { { "grp", "amt" }, { "a", "1" }, { "b", "2" }, { "a", "3" } };
+		IDataSheet sheet = new MultiRowsSheet(data, new ValueType[] { ValueType.TEXT, ValueType.INTEGER });
+		Aggregator[] aggs = { newAggregator(AggregationType.COUNT, "*", "nbrStar"),
+				newAggregator(AggregationType.COUNT, null, "nbrRows") };
+		IDataSheet out = new HashAggregator(new String[] { "grp" }, aggs, 1).aggregate(sheet);
+
+		assertEquals(2, out.length());
+		assertEquals("a", out.getColumnValue("grp", 0).toString());
+		assertEquals("2", out.getColumnValue("nbrStar", 0).toString());
+		assertEquals("2", out.getColumnValue("nbrRows", 0).toString());
+		assertEquals("1", out.getColumnValue("nbrStar", 1).toString());
+	}
+
+	private static Aggregator newAggregator(AggregationType type, String input, String output) {
+		Aggregator agg = new Aggregator();
+		agg.aggregationType = type;
+		agg.inputFieldName = input;
+		agg.outputFieldName = output;
+		return agg;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.trans.ILogic;
+
+/**
+ * loading of components on demand by concurrent threads
+ *
+ * @author simplity.org
+ *
+ */
+public class ComponentLoadingTest {
+	static final CyclicBarrier gate = new CyclicBarrier(2);
+
+	/**
+	 * threads asking for the same component get the same instance
+	 */
+	@Test
+	public void loadedOnce() throws Exception {
+		Application app = TestApp.getApp();
+		AtomicReference<IService> other = new AtomicReference<>();
+		Thread thread = new Thread(() -> other.set(app.getService("test.updateItem")));
+		thread.start();
+		IService service = app.getService("test.updateItem");
+		thread.join();
+		assertSame(service, other.get());
+	}
+
+	/**
+	 * two threads load components that refer to each other. Each one waits
+	 * for the other, and this is to be reported as an error rather than
+	 * waiting for ever
+	 */
+	@Test
+	public void circularReferenceAcrossThreads() throws Exception {
+		Application app = TestApp.getApp();
+		AtomicInteger nbrFailed = new AtomicInteger();
+		Thread threadA = new Thread(() -> load(app, "test.circularA", nbrFailed));
+		Thread threadB = new Thread(() -> load(app, "test.circularB", nbrFailed));
+		threadA.setDaemon(true);
+		threadB.setDaemon(true);
+		threadA.start();
+		threadB.start();
+		threadA.join(TimeUnit.SECONDS.toMillis(20));
+		threadB.join(TimeUnit.SECONDS.toMillis(20));
+		assertFalse("threads are waiting for each other", threadA.isAlive() || threadB.isAlive());
+		assertEquals(2, nbrFailed.get());
+	}
+
+	private static void load(Application app, String serviceName, AtomicInteger nbrFailed) {
+		try {
+			app.getService(serviceName);
+		} catch (ApplicationError e) {
+			nbrFailed.incrementAndGet();
+		}
+	}
+
+	/**
+	 * its instantiation waits till another instance is also being created, so
+	 * that two threads are loading their components at the same time
+	 */
+	public static class GateLogic implements ILogic {
+		/**
+		 * waits at the gate
+		 */
+		public GateLogic() {
+			try {
+				gate.await(10, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				//
+			}
+		}
+
+		@Override
+		public boolean execute(ServiceContext ctx) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.app.internal.ServiceRequest;
+import org.simplity.core.app.internal.ServiceResponse;
+import org.simplity.core.app.internal.ServiceResponseCacher;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.trans.ILogic;
+import org.simplity.core.value.Value;
+import org.simplity.json.JSONObject;
+
+/**
+ * caching of service responses by the app
+ *
+ * @author simplity.org
+ *
+ */
+public class ServiceCachingTest {
+	private static final String GET_ITEM = "test.getItem";
+	private static final String GET_ITEM_BY_KEY = "test.getItemByKey";
+	private static final String UPDATE_ITEM = "test.updateItem";
+
+	static final AtomicInteger nbrCalls = new AtomicInteger();
+	static final AtomicInteger nbrBeforeService = new AtomicInteger();
+	static final AtomicInteger nbrAfterOutput = new AtomicInteger();
+	static volatile boolean denyService;
+
+	private Application app;
+
+	/**
+	 * start with an empty cache
+	 */
+	@Before
+	public void setUp() {
+		this.app = TestApp.getApp();
+		this.app.getPlugins().getServiceCacher().clearAll();
+		denyService = false;
+	}
+
+	/**
+	 * same input is served from cache, and a different input is not
+	 */
+	@Test
+	public void sameInputIsServedFromCache() {
+		String first = this.serve(GET_ITEM, 1);
+		int calls = nbrCalls.get();
+		assertEquals(first, this.serve(GET_ITEM, 1));
+		assertEquals(calls, nbrCalls.get());
+
+		this.serve(GET_ITEM, 2);
+		assertEquals(calls + 1, nbrCalls.get());
+	}
+
+	/**
+	 * key is formed from the parsed value, and not from the text in the
+	 * request
+	 */
+	@Test
+	public void keyIsBasedOnParsedInput() {
+		this.serve(GET_ITEM, 4);
+		int calls = nbrCalls.get();
+		this.serve(GET_ITEM, "04");
+		assertEquals(calls, nbrCalls.get());
+	}
+
+	/**
+	 * a streamed payload is read only once, by the input specification
+	 */
+	@Test
+	public void streamedInputIsReadByService() {
+		ServiceRequest request = new ServiceRequest(GET_ITEM, new HashMap<String, Object>(),
+				new StringReader("{\"itemId\":5}"));
+		ServiceResponse response = new ServiceResponse(false);
+		this.app.serve(request, response);
+		assertEquals(5, new JSONObject(response.getPayloadText()).getLong("itemId"));
+		assertEquals(response.getPayloadText(), this.serve(GET_ITEM, 5));
+	}
+
+	/**
+	 * a response from cache goes through the same hooks as a served one
+	 */
+	@Test
+	public void cachedResponseGoesThroughHooks() {
+		this.serve(GET_ITEM, 3);
+		int before = nbrBeforeService.get();
+		int after = nbrAfterOutput.get();
+		this.serve(GET_ITEM, 3);
+		assertEquals(before + 1, nbrBeforeService.get());
+		assertEquals(after + 1, nbrAfterOutput.get());
+
+		denyService = true;
+		int calls = nbrCalls.get();
+		ServiceResponse response = this.call(GET_ITEM, 3);
+		assertEquals("", response.getPayloadText());
+		assertEquals(calls, nbrCalls.get());
+	}
+
+	/**
+	 * all responses of a service with inferred keys are invalidated. Only the
+	 * matching one is invalidated if the service has declared its keys
+	 */
+	@Test
+	public void invalidation() {
+		this.serve(GET_ITEM, 1);
+		this.serve(GET_ITEM, 2);
+		this.serve(GET_ITEM_BY_KEY, 1);
+		this.serve(GET_ITEM_BY_KEY, 2);
+		this.serve(UPDATE_ITEM, 1);
+
+		int calls = nbrCalls.get();
+		this.serve(GET_ITEM, 2);
+		assertEquals("response with inferred keys should have been invalidated", calls + 1, nbrCalls.get());
+		this.serve(GET_ITEM_BY_KEY, 2);
+		assertEquals("response for another key should stay cached", calls + 1, nbrCalls.get());
+		this.serve(GET_ITEM_BY_KEY, 1);
+		assertEquals("response for the same key should have been invalidated", calls + 2, nbrCalls.get());
+	}
+
+	/**
+	 * cacher invalidates one key, or all keys of a service
+	 */
+	@Test
+	public void cacherInvalidation() {
+		ServiceResponseCacher cacher = new ServiceResponseCacher(10);
+		String sep = String.valueOf(AppConventions.CACHE_KEY_SEP);
+		cacher.cache("s1" + sep + "a", "1", 0);
+		cacher.cache("s1" + sep + "b", "2", 0);
+		cacher.cache("s2" + sep + "a", "3", 0);
+		cacher.invalidate("s1" + sep + "a");
+		assertNull(cacher.get("s1" + sep + "a"));
+		assertEquals("2", cacher.get("s1" + sep + "b"));
+
+		cacher.invalidate("s1");
+		assertNull(cacher.get("s1" + sep + "b"));
+		assertEquals("3", cacher.get("s2" + sep + "a"));
+	}
+
+	private String serve(String serviceName, Object itemId) {
+		return this.call(serviceName, itemId).getPayloadText();
+	}
+
+	private ServiceResponse call(String serviceName, Object itemId) {
+		JSONObject json = new JSONObject();
+		json.put("itemId", itemId);
+		ServiceRequest request = new ServiceRequest(serviceName, new HashMap<String, Object>(), json);
+		ServiceResponse response = new ServiceResponse(false);
+		this.app.serve(request, response);
+		return response;
+	}
+
+	/**
+	 * logic that counts its executions
+	 */
+	public static class CountingLogic implements ILogic {
+		@Override
+		public boolean execute(ServiceContext ctx) {
+			ctx.setValue("callNo", Value.newIntegerValue(nbrCalls.incrementAndGet()));
+			return true;
+		}
+	}
+
+	/**
+	 * hook that counts calls, and can deny service
+	 */
+	public static class Hook implements IServicePrePostProcessor {
+		@Override
+		public boolean beforeInput(IServiceRequest request, IServiceResponse response, ServiceContext ctx) {
+			return true;
+		}
+
+		@Override
+		public boolean beforeService(IServiceRequest request, IServiceResponse response, ServiceContext ctx) {
+			nbrBeforeService.incrementAndGet();
+			return denyService == false;
+		}
+
+		@Override
+		public boolean afterService(IServiceResponse response, ServiceContext ctx) {
+			return true;
+		}
+
+		@Override
+		public void afterOutput(IServiceResponse response, ServiceContext ctx) {
+			nbrAfterOutput.incrementAndGet();
+		}
+	}
+}
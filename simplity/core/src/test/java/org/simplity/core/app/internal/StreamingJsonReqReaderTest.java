@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.app.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+import org.simplity.core.app.IRequestReader.InputValueType;
+import org.simplity.json.JSONArray;
+import org.simplity.json.JSONException;
+import org.simplity.json.JSONObject;
+
+/**
+ * json payload read from a stream, one attribute at a time
+ *
+ * @author simplity.org
+ *
+ */
+public class StreamingJsonReqReaderTest {
+	private static final String PAYLOAD = "{\"name\":\"a\",\"rows\":[{\"id\":1,\"tags\":[\"x\",\"y\"]},{\"id\":2}],"
+			+ "\"nbr\":12.5,\"obj\":{\"flag\":true,\"list\":[1,2]},\"empty\":[],\"nothing\":null}";
+
+	/**
+	 * attributes that are not consumed as rows are retained as they are in the
+	 * parsed payload
+	 */
+	@Test
+	public void sameAsParsed() {
+		StreamingJsonReqReader reader = newReader(PAYLOAD);
+		StringBuilder names = new StringBuilder();
+		String name;
+		while ((name = reader.nextAttribute()) != null) {
+			names.append(name).append(',');
+		}
+		assertEquals("name,rows,nbr,obj,empty,nothing,", names.toString());
+		assertEquals(new JSONObject(PAYLOAD).toString(), reader.getPayload().toString());
+
+		JsonReqReader parsed = new JsonReqReader(new JSONObject(PAYLOAD), null);
+		for (String att : parsed.getAttributeNames()) {
+			assertEquals(att, parsed.getValueType(att), reader.getValueType(att));
+		}
+		assertTrue(reader.openArray("rows"));
+		assertEquals(2, reader.getNbrElements());
+		assertTrue(reader.openObject(0));
+		assertEquals(1L, ((Number) reader.getValue("id")).longValue());
+	}
+
+	/**
+	 * rows are read one at a time, and are not retained
+	 */
+	@Test
+	public void rowsAreStreamed() {
+		StreamingJsonReqReader reader = newReader(PAYLOAD);
+		JSONArray rows = new JSONObject(PAYLOAD).getJSONArray("rows");
+		assertEquals("name", reader.nextAttribute());
+		assertEquals("rows", reader.nextAttribute());
+		assertTrue(reader.openRows());
+		for (int i = 0; i < rows.length(); i++) {
+			assertTrue(reader.nextRow());
+			JsonReqReader parsed = new JsonReqReader(rows.getJSONObject(i), null);
+			for (String att : parsed.getAttributeNames()) {
+				assertEquals(parsed.getValueType(att), reader.getValueType(att));
+			}
+			assertEquals(rows.getJSONObject(i).get("id"), reader.getValue("id"));
+		}
+		assertFalse(reader.nextRow());
+
+		assertEquals("nbr", reader.nextAttribute());
+		assertEquals("obj", reader.nextAttribute());
+		assertFalse("an object can not be read as rows", reader.openRows());
+		assertEquals("empty", reader.nextAttribute());
+		assertTrue(reader.openRows());
+		assertFalse(reader.nextRow());
+
+		assertEquals("a", reader.getValue("name"));
+		assertEquals(InputValueType.OBJECT, reader.getValueType("obj"));
+		assertNull("rows are not to be retained", reader.getValue("rows"));
+		JSONObject expected = new JSONObject(PAYLOAD);
+		expected.remove("rows");
+		expected.remove("empty");
+		assertEquals(expected.toString(), reader.getPayload().toString());
+	}
+
+	/**
+	 * empty payload has no attributes
+	 */
+	@Test
+	public void emptyPayload() {
+		assertNull(newReader("").nextAttribute());
+		assertNull(newReader(" {} ").nextAttribute());
+		assertEquals(0, newReader("{}").getPayload().length());
+	}
+
+	/**
+	 * syntax errors are thrown as they are found in the stream
+	 */
+	@Test
+	public void syntaxError() {
+		StreamingJsonReqReader reader = newReader("{\"rows\":[{\"id\":1} {\"id\":2}]}");
+		reader.nextAttribute();
+		reader.openRows();
+		assertTrue(reader.nextRow());
+		try {
+			reader.nextRow();
+			fail("missing comma between rows is expected to be reported");
+		} catch (JSONException e) {
+			//
+		}
+		try {
+			newReader("[1,2]").nextAttribute();
+			fail("payload that is not an object is expected to be reported");
+		} catch (JSONException e) {
+			//
+		}
+	}
+
+	private static StreamingJsonReqReader newReader(String payload) {
+		return new StreamingJsonReqReader(new StringReader(payload), null);
+	}
+}
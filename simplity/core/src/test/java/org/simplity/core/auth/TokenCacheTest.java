@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.auth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import org.junit.Test;
+
+/**
+ * caching of token validation results
+ *
+ * @author simplity.org
+ *
+ */
+public class TokenCacheTest {
+	private static final String TOKEN = "token-1";
+
+	/**
+	 * concurrent requests with the same token wait for one validation
+	 */
+	@Test
+	public void singleFlight() throws Exception {
+		TokenCache cache = new TokenCache(100, 60, 10);
+		CountDownLatch release = new CountDownLatch(1);
+		Validator validator = new Validator(token -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				//
+			}
+			return TokenCache.EXPIRY_UNKNOWN;
+		});
+		int nbr = 5;
+		ExecutorService threads = Executors.newFixedThreadPool(nbr);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < nbr; i++) {
+				results.add(threads.submit(() -> cache.isValid(TOKEN, validator)));
+			}
+			Thread.sleep(200);
+			release.countDown();
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			threads.shutdownNow();
+		}
+		assertEquals("token is to be validated once", 1, validator.nbrCalls.get());
+	}
+
+	/**
+	 * a valid token is cached till its expiry
+	 */
+	@Test
+	public void expiryIsHonoured() throws Exception {
+		TokenCache cache = new TokenCache(100, 60, 10);
+		Validator validator = new Validator(token -> System.currentTimeMillis() + 300);
+		assertTrue(cache.isValid(TOKEN, validator));
+		assertTrue(cache.isValid(TOKEN, validator));
+		assertEquals(1, validator.nbrCalls.get());
+		Thread.sleep(400);
+		assertTrue(cache.isValid(TOKEN, validator));
+		assertEquals("expired token is to be validated again", 2, validator.nbrCalls.get());
+	}
+
+	/**
+	 * a valid token is not cached beyond the max time, even if it expires
+	 * later
+	 */
+	@Test
+	public void expiryIsCapped() throws Exception {
+		TokenCache cache = new TokenCache(100, 1, 10);
+		Validator validator = new Validator(token -> TokenCache.EXPIRY_UNKNOWN);
+		assertTrue(cache.isValid(TOKEN, validator));
+		assertTrue(cache.isValid(TOKEN, validator));
+		assertEquals(1, validator.nbrCalls.get());
+		Thread.sleep(1100);
+		assertTrue(cache.isValid(TOKEN, validator));
+		assertEquals(2, validator.nbrCalls.get());
+	}
+
+	/**
+	 * an invalid token is cached for its own, shorter, time
+	 */
+	@Test
+	public void invalidTokenIsCachedBriefly() throws Exception {
+		TokenCache cache = new TokenCache(100, 60, 1);
+		Validator validator = new Validator(token -> TokenCache.INVALID);
+		assertFalse(cache.isValid(TOKEN, validator));
+		assertFalse(cache.isValid(TOKEN, validator));
+		assertEquals(1, validator.nbrCalls.get());
+		Thread.sleep(1100);
+		assertFalse(cache.isValid(TOKEN, validator));
+		assertEquals(2, validator.nbrCalls.get());
+
+		TokenCache noNegativeCache = new TokenCache(100, 60, 0);
+		assertFalse(noNegativeCache.isValid(TOKEN, validator));
+		assertFalse(noNegativeCache.isValid(TOKEN, validator));
+		assertEquals("invalid token is not to be cached", 4, validator.nbrCalls.get());
+	}
+
+	/**
+	 * a token that could not be validated is not cached
+	 */
+	@Test
+	public void notValidatedIsNotCached() {
+		TokenCache cache = new TokenCache(100, 60, 10);
+		Validator validator = new Validator(token -> TokenCache.NOT_VALIDATED);
+		assertFalse(cache.isValid(TOKEN, validator));
+		assertFalse(cache.isValid(TOKEN, validator));
+		assertEquals(2, validator.nbrCalls.get());
+		assertEquals(0, cache.size());
+
+		Validator failing = new Validator(token -> {
+			throw new IllegalStateException("auth server is down");
+		});
+		assertFalse(cache.isValid(TOKEN, failing));
+		assertFalse(cache.isValid(TOKEN, failing));
+		assertEquals(2, failing.nbrCalls.get());
+		assertEquals(0, cache.size());
+
+		Validator valid = new Validator(token -> TokenCache.EXPIRY_UNKNOWN);
+		assertTrue("token is validated once the server is back", cache.isValid(TOKEN, valid));
+	}
+
+	/**
+	 * cache does not grow beyond its max size, and the latest token is kept
+	 */
+	@Test
+	public void eviction() {
+		int maxEntries = 10;
+		TokenCache cache = new TokenCache(maxEntries, 60, 10);
+		Validator validator = new Validator(token -> TokenCache.EXPIRY_UNKNOWN);
+		for (int i = 0; i < 5 * maxEntries; i++) {
+			String token = "token-" + i;
+			assertTrue(cache.isValid(token, validator));
+			assertTrue(cache.size() <= maxEntries);
+			int nbrCalls = validator.nbrCalls.get();
+			assertTrue(cache.isValid(token, validator));
+			assertEquals("latest token is to remain in the cache", nbrCalls, validator.nbrCalls.get());
+		}
+
+		/*
+		 * expired ones are removed first
+		 */
+		TokenCache small = new TokenCache(2, 60, 0);
+		Validator invalid = new Validator(token -> TokenCache.INVALID);
+		assertFalse(small.isValid("bad-1", invalid));
+		assertFalse(small.isValid("bad-2", invalid));
+		assertTrue(small.isValid("good", validator));
+		assertEquals(1, small.size());
+	}
+
+	/**
+	 * counts calls to a validation function
+	 */
+	private static class Validator implements ToLongFunction<String> {
+		final AtomicInteger nbrCalls = new AtomicInteger();
+		private final ToLongFunction<String> fn;
+
+		Validator(ToLongFunction<String> fn) {
+			this.fn = fn;
+		}
+
+		@Override
+		public long applyAsLong(String token) {
+			this.nbrCalls.incrementAndGet();
+			return this.fn.applyAsLong(token);
+		}
+	}
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.Test;
+import org.simplity.core.value.Value;
+import org.simplity.core.value.ValueType;
+
+/**
+ * a columnar sheet is to behave the same way as a multi-rows sheet
+ *
+ * @author simplity.org
+ *
+ */
+public class ColumnarSheetTest {
+	private static final String[] NAMES = { "id", "amount", "active", "joined", "updated", "status" };
+	private static final ValueType[] TYPES = { ValueType.INTEGER, ValueType.DECIMAL, ValueType.BOOLEAN,
+			ValueType.DATE, ValueType.TIMESTAMP, ValueType.TEXT };
+
+	/**
+	 * rows with values of every type, nulls, unknown values and a value of a
+	 * type other than that of its column
+	 */
+	private static Value[][] getRows() {
+		return new Value[][] {
+				{ Value.newIntegerValue(1), Value.newDecimalValue(10.5), Value.VALUE_TRUE,
+						Value.newDateValue(LocalDate.of(2018, 1, 31)),
+						Value.newTimestampValue(Instant.ofEpochSecond(1500000000L, 123000000)),
+						Value.newTextValue("active") },
+				{ Value.newIntegerValue(-2), null, Value.VALUE_FALSE, null, null, Value.newTextValue("closed") },
+				{ Value.VALUE_UNKNOWN_INTEGER, Value.VALUE_UNKNOWN_DECIMAL, Value.VALUE_UNKNOWN_BOOLEAN,
+						Value.VALUE_UNKNOWN_DATE, Value.VALUE_UNKNOWN_TIMESTAMP, Value.VALUE_UNKNOWN_TEXT },
+				{ Value.newTextValue("not a number"), Value.newDecimalValue(0), Value.VALUE_TRUE,
+						Value.newDateValue(LocalDate.of(1960, 12, 1)),
+						Value.newTimestampValue(Instant.ofEpochSecond(-1000)), Value.newTextValue("active") } };
+	}
+
+	private static IDataSheet fill(IDataSheet sheet) {
+		for (Value[] row : getRows()) {
+			sheet.addRow(row);
+		}
+		return sheet;
+	}
+
+	/**
+	 * rows, cells and columns are read back as they were added
+	 */
+	@Test
+	public void sameAsMultiRowsSheet() {
+		IDataSheet expected = fill(new MultiRowsSheet(NAMES, TYPES));
+		ColumnarSheet sheet = (ColumnarSheet) fill(new ColumnarSheet(NAMES, TYPES));
+		assertSame(expected, sheet);
+		assertArrayEquals(expected.getRawData(), sheet.getRawData());
+
+		for (int col = 0; col < NAMES.length; col++) {
+			Value[] expectedValues = expected.getColumnValues(NAMES[col]);
+			Value[] values = sheet.getColumnValues(NAMES[col]);
+			for (int row = 0; row < values.length; row++) {
+				assertSame(expectedValues[row], values[row]);
+				assertSame(expectedValues[row], sheet.getColumnValue(col, row));
+			}
+		}
+		assertNull(sheet.getColumnValue("noSuchColumn", 0));
+		assertNull(sheet.getColumnValues("noSuchColumn"));
+		assertEquals(expected.getColIdx("status"), sheet.getColIdx("status"));
+
+		/*
+		 * primitive access
+		 */
+		assertEquals(-2, sheet.getLong(0, 1));
+		assertEquals(10.5, sheet.getDouble(1, 0), 0);
+		assertEquals(0, sheet.getLong(0, 2));
+		assertTrue(sheet.isNull(1, 1));
+		assertTrue(sheet.isNull(1, 2));
+	}
+
+	/**
+	 * cells are changed, and columns and rows are added, the same way
+	 */
+	@Test
+	public void changesAsMultiRowsSheet() {
+		IDataSheet expected = fill(new MultiRowsSheet(NAMES, TYPES));
+		IDataSheet sheet = fill(new ColumnarSheet(NAMES, TYPES));
+		for (IDataSheet ds : new IDataSheet[] { expected, sheet }) {
+			ds.setColumnValue("amount", 1, Value.newDecimalValue(2.25));
+			ds.setColumnValue("status", 0, null);
+			ds.setColumnValue("id", 3, Value.newIntegerValue(4));
+			ds.addColumn("remarks", Value.newTextValue("none"));
+			ds.addColumn("id", ValueType.TEXT,
+					new Value[] { Value.newTextValue("a"), null, Value.newTextValue("c"), Value.newTextValue("d") });
+			ds.appendEmptyRows(2);
+		}
+		assertArrayEquals(expected.getColumnNames(), sheet.getColumnNames());
+		assertArrayEquals(expected.getValueTypes(), sheet.getValueTypes());
+		assertSame(expected, sheet);
+	}
+
+	/**
+	 * unlike a multi-rows sheet, rows are copies
+	 */
+	@Test
+	public void rowsAreCopies() {
+		IDataSheet sheet = fill(new ColumnarSheet(NAMES, TYPES));
+		sheet.getRow(0)[0] = Value.newIntegerValue(100);
+		List<Value[]> rows = sheet.getAllRows();
+		rows.get(1)[0] = Value.newIntegerValue(200);
+		rows.clear();
+		assertEquals(Value.newIntegerValue(1), sheet.getColumnValue("id", 0));
+		assertEquals(Value.newIntegerValue(-2), sheet.getColumnValue("id", 1));
+		assertEquals(4, sheet.length());
+	}
+
+	/**
+	 * rows are appended from a multi-rows sheet
+	 */
+	@Test
+	public void appendRows() {
+		IDataSheet sheet = new ColumnarSheet(NAMES, TYPES);
+		assertEquals(4, sheet.appendRows(fill(new MultiRowsSheet(NAMES, TYPES))));
+		assertEquals(4, sheet.appendRows(fill(new MultiRowsSheet(NAMES, TYPES))));
+		assertEquals(8, sheet.length());
+		assertSame(getRows()[3], sheet.getRow(7));
+	}
+
+	/**
+	 * texts beyond the size of the dictionary are kept
+	 */
+	@Test
+	public void manyDistinctTexts() {
+		String[] names = { "code" };
+		ValueType[] types = { ValueType.TEXT };
+		IDataSheet expected = new MultiRowsSheet(names, types);
+		IDataSheet sheet = new ColumnarSheet(names, types);
+		for (int i = 0; i < 5000; i++) {
+			Value[] row = { Value.newTextValue("code-" + (i % 4500)) };
+			expected.addRow(row);
+			sheet.addRow(row);
+		}
+		sheet.setColumnValue("code", 10, Value.newTextValue("changed"));
+		expected.setColumnValue("code", 10, Value.newTextValue("changed"));
+		assertSame(expected, sheet);
+	}
+
+	/**
+	 * json text of a sheet is parsed back into the same rows
+	 */
+	@Test
+	public void jsonSerialization() {
+		IDataSheet sheet = fill(new ColumnarSheet(NAMES, TYPES));
+		String text = sheet.toSerializedText(DataSerializationType.JSON);
+
+		IDataSheet copy = new ColumnarSheet(NAMES, TYPES);
+		copy.fromSerializedText(text, DataSerializationType.JSON, false);
+		assertEquals(4, copy.length());
+		for (int row = 0; row < 4; row++) {
+			for (int col = 0; col < NAMES.length; col++) {
+				Value value = sheet.getColumnValue(NAMES[col], row);
+				Value parsed = copy.getColumnValue(NAMES[col], row);
+				if (Value.isNull(value)) {
+					assertTrue(Value.isNull(parsed));
+				} else {
+					assertEquals(value, parsed);
+				}
+			}
+		}
+
+		copy.fromSerializedText(text, DataSerializationType.JSON, false);
+		assertEquals("rows are appended", 8, copy.length());
+		copy.fromSerializedText(text, DataSerializationType.JSON, true);
+		assertEquals("rows are replaced", 4, copy.length());
+
+		text = new ColumnarSheet(NAMES, TYPES).toSerializedText(DataSerializationType.JSON);
+		copy.fromSerializedText(text, DataSerializationType.JSON, true);
+		assertEquals("empty sheet", 0, copy.length());
+	}
+
+	/**
+	 * comma separated text of a sheet is parsed back into the same rows
+	 */
+	@Test
+	public void commaSeparatedSerialization() {
+		String[] names = { "id", "amount", "status" };
+		ValueType[] types = { ValueType.INTEGER, ValueType.DECIMAL, ValueType.TEXT };
+		IDataSheet sheet = new ColumnarSheet(names, types);
+		sheet.addRow(new Value[] { Value.newIntegerValue(1), Value.newDecimalValue(1.5), Value.newTextValue("open") });
+		sheet.addRow(new Value[] { Value.newIntegerValue(2), Value.newDecimalValue(3), Value.newTextValue("42") });
+		String text = sheet.toSerializedText(DataSerializationType.COMMA_SEPARATED);
+
+		IDataSheet copy = new ColumnarSheet(names, types);
+		copy.fromSerializedText(text, DataSerializationType.COMMA_SEPARATED, true);
+		assertSame(sheet, copy);
+		assertEquals("values take the types of their columns", ValueType.DECIMAL,
+				copy.getColumnValue("amount", 1).getValueType());
+		assertEquals(ValueType.TEXT, copy.getColumnValue("status", 1).getValueType());
+	}
+
+	private static void assertSame(IDataSheet expected, IDataSheet sheet) {
+		assertEquals(expected.length(), sheet.length());
+		assertEquals(expected.width(), sheet.width());
+		for (int i = 0; i < expected.length(); i++) {
+			assertSame(expected.getRow(i), sheet.getRow(i));
+		}
+	}
+
+	private static void assertSame(Value[] expected, Value[] row) {
+		assertEquals(expected.length, row.length);
+		for (int i = 0; i < row.length; i++) {
+			assertSame(expected[i], row[i]);
+		}
+	}
+
+	private static void assertSame(Value expected, Value value) {
+		if (expected == null) {
+			assertNull(value);
+			return;
+		}
+		if (expected.isUnknown()) {
+			assertTrue(value.isUnknown());
+			assertEquals(expected.getValueType(), value.getValueType());
+			return;
+		}
+		assertEquals(expected, value);
+	}
+}
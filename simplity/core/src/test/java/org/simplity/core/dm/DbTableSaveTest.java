@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.dm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.app.AppConventions;
+import org.simplity.core.data.Fields;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IDbDriver;
+import org.simplity.core.idb.IReadOnlyHandle;
+import org.simplity.core.idb.ITransactionHandle;
+import org.simplity.core.rdb.DbVendor;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+
+/**
+ * saving rows of a sheet in batches with DbTable
+ *
+ * @author simplity.org
+ *
+ */
+public class DbTableSaveTest {
+	private static final Value USER = Value.newTextValue("u1");
+
+	/**
+	 * parts with a case-insensitive key, and tickets with a generated key
+	 */
+	@Before
+	public void createTables() {
+		TestApp.executeSqls("DROP TABLE IF EXISTS parts",
+				"CREATE TABLE parts (part_code VARCHAR_IGNORECASE(10) PRIMARY KEY, part_name VARCHAR(100))",
+				"INSERT INTO parts VALUES ('a1', 'part a1')", "DROP TABLE IF EXISTS tickets",
+				"CREATE TABLE tickets (ticket_id BIGINT AUTO_INCREMENT PRIMARY KEY, subject VARCHAR(100))");
+	}
+
+	/**
+	 * a row that the db has for a key of a different text is modified, and
+	 * not inserted again
+	 */
+	@Test
+	public void saveExistingKeyOfDifferentText() {
+		DbTable table = (DbTable) TestApp.getApp().getRecord("test.part");
+		IDataSheet sheet = table.createSheet(false, true);
+		addPart(sheet, "A1", "part A1", null);
+		addPart(sheet, "b1", "part b1", null);
+
+		SaveActionType[] actions = this.saveMany(table, sheet);
+		assertArrayEquals(new SaveActionType[] { SaveActionType.MODIFY, SaveActionType.ADD }, actions);
+		Map<String, String> parts = this.readParts();
+		assertEquals(2, parts.size());
+		assertEquals("part A1", parts.get("a1"));
+		assertEquals("part b1", parts.get("b1"));
+	}
+
+	/**
+	 * rows are saved in the order of the sheet, just as they are when saved
+	 * one by one
+	 */
+	@Test
+	public void batchedSaveKeepsRowOrder() {
+		DbTable table = (DbTable) TestApp.getApp().getRecord("test.part");
+		IDataSheet sheet = table.createSheet(false, true);
+		addPart(sheet, "x1", "added first", "add");
+		addPart(sheet, "x1", null, "delete");
+		addPart(sheet, "n1", "new", null);
+		addPart(sheet, "n1", "saved again", "save");
+		addPart(sheet, "a1", null, "delete");
+		addPart(sheet, "a1", "added after delete", "add");
+
+		SaveActionType[] actions = this.saveMany(table, sheet);
+		assertArrayEquals(new SaveActionType[] { SaveActionType.ADD, SaveActionType.DELETE, SaveActionType.ADD,
+				SaveActionType.MODIFY, SaveActionType.DELETE, SaveActionType.ADD }, actions);
+		Map<String, String> parts = this.readParts();
+		assertEquals(2, parts.size());
+		assertEquals("saved again", parts.get("n1"));
+		assertEquals("added after delete", parts.get("a1"));
+	}
+
+	/**
+	 * with a driver that does not return keys for a batch, rows are inserted
+	 * one by one, and each row gets its generated key
+	 */
+	@Test
+	public void generatedKeysOneByOne() {
+		DbTable table = (DbTable) TestApp.getApp().getRecord("test.ticket");
+		IDataSheet sheet = newTickets(table, 3);
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			table.saveMany(sheet, (ITransactionHandle) handle, USER, false);
+			return true;
+		}, DbAccessType.SINGLE_TRANS, null);
+		this.checkTicketKeys(sheet);
+	}
+
+	/**
+	 * with a driver that returns keys for a batch, rows are inserted in
+	 * batches of saveBatchSize, and each row gets its generated key
+	 */
+	@Test
+	public void generatedKeysInBatches() {
+		DbTable table = (DbTable) TestApp.getApp().getRecord("test.ticket");
+		IDataSheet sheet = newTickets(table, 3);
+		List<Integer> batches = new ArrayList<>();
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			table.saveMany(sheet, keysForBatch((ITransactionHandle) handle, batches), USER, false);
+			return true;
+		}, DbAccessType.SINGLE_TRANS, null);
+		assertEquals("rows in each batch", "[2, 1]", batches.toString());
+		this.checkTicketKeys(sheet);
+	}
+
+	private static void addPart(IDataSheet sheet, String code, String name, String action) {
+		Value[] row = new Value[sheet.width()];
+		row[sheet.getColIdx("partCode")] = Value.newTextValue(code);
+		row[sheet.getColIdx("partName")] = Value.newTextValue(name);
+		if (action != null) {
+			row[sheet.getColIdx(AppConventions.Name.TABLE_ACTION)] = Value.newTextValue(action);
+		}
+		sheet.addRow(row);
+	}
+
+	private static IDataSheet newTickets(DbTable table, int nbr) {
+		IDataSheet sheet = table.createSheet(false, false);
+		for (int i = 0; i < nbr; i++) {
+			Value[] row = new Value[sheet.width()];
+			row[sheet.getColIdx("subject")] = Value.newTextValue("ticket " + i);
+			sheet.addRow(row);
+		}
+		return sheet;
+	}
+
+	/**
+	 * each row should have got the key with which it is saved in the db
+	 */
+	private void checkTicketKeys(IDataSheet sheet) {
+		Map<String, String> saved = new HashMap<>();
+		DbTable table = (DbTable) TestApp.getApp().getRecord("test.ticket");
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			IDataSheet rows = table.filter(table, new Fields(), (IReadOnlyHandle) handle,
+					null);
+			for (int i = 0; i < rows.length(); i++) {
+				saved.put(rows.getColumnValue("ticketId", i).toString(),
+						rows.getColumnValue("subject", i).toString());
+			}
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+
+		assertEquals(sheet.length(), saved.size());
+		Set<String> keys = new HashSet<>();
+		for (int i = 0; i < sheet.length(); i++) {
+			Value key = sheet.getColumnValue("ticketId", i);
+			assertTrue("row " + i + " has no key", Value.isNull(key) == false);
+			assertTrue("key " + key + " is repeated", keys.add(key.toString()));
+			assertEquals(sheet.getColumnValue("subject", i).toString(), saved.get(key.toString()));
+		}
+	}
+
+	private SaveActionType[] saveMany(DbTable table, IDataSheet sheet) {
+		SaveActionType[][] result = new SaveActionType[1][];
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			result[0] = table.saveMany(sheet, (ITransactionHandle) handle, USER, false);
+			return true;
+		}, DbAccessType.SINGLE_TRANS, null);
+		return result[0];
+	}
+
+	private Map<String, String> readParts() {
+		Map<String, String> parts = new HashMap<>();
+		DbTable table = (DbTable) TestApp.getApp().getRecord("test.part");
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			IDataSheet rows = table.filter(table, new Fields(), (IReadOnlyHandle) handle,
+					null);
+			for (int i = 0; i < rows.length(); i++) {
+				parts.put(rows.getColumnValue("partCode", i).toString(), rows.getColumnValue("partName", i).toString());
+			}
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+		return parts;
+	}
+
+	/**
+	 * h2 returns only the last key for a batch. This handle reports a vendor
+	 * that returns keys for a batch, and inserts each row of a batch with the
+	 * actual handle, noting the number of rows in each batch.
+	 */
+	private static ITransactionHandle keysForBatch(ITransactionHandle handle, List<Integer> batches) {
+		IDbDriver driver = handle.getDriver();
+		IDbDriver mysql = (IDbDriver) Proxy.newProxyInstance(DbTableSaveTest.class.getClassLoader(),
+				new Class<?>[] { IDbDriver.class }, (proxy, method, args) -> {
+					if (method.getName().equals("getDbVendor")) {
+						return DbVendor.MYSQL;
+					}
+					return invoke(method, driver, args);
+				});
+		return (ITransactionHandle) Proxy.newProxyInstance(DbTableSaveTest.class.getClassLoader(),
+				new Class<?>[] { ITransactionHandle.class }, (proxy, method, args) -> {
+					if (method.getName().equals("getDriver")) {
+						return mysql;
+					}
+					if (method.getName().equals("insertBatchAndGetKeys") == false) {
+						return invoke(method, handle, args);
+					}
+					Value[][] rows = (Value[][]) args[1];
+					long[] keys = (long[]) args[2];
+					batches.add(rows.length);
+					int[] counts = new int[rows.length];
+					long[] key = new long[1];
+					for (int i = 0; i < rows.length; i++) {
+						counts[i] = handle.insertAndGetKeys((String) args[0], rows[i], key, (String[]) args[3],
+								(Boolean) args[4]);
+						keys[i] = key[0];
+					}
+					return counts;
+				});
+	}
+
+	private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.dm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.simplity.core.app.AppConventions;
+import org.simplity.core.app.AppUser;
+import org.simplity.core.app.Application;
+import org.simplity.core.data.Fields;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IReadOnlyHandle;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+import org.simplity.core.value.ValueType;
+
+/**
+ * reading rows with DbTable
+ *
+ * @author simplity.org
+ *
+ */
+public class DbTableTest {
+	private static final int NBR_YEARS = 2;
+	private static final int NBR_BRANCHES = 3;
+	private static final int NBR_ENTRIES = 3;
+	/*
+	 * a wrong keyset condition could keep returning the same page
+	 */
+	private static final int MAX_PAGES = 20;
+
+	/**
+	 * ledger with a three-column primary key, and notes for products
+	 */
+	@BeforeClass
+	public static void createTables() {
+		List<String> sqls = new ArrayList<>();
+		sqls.add("DROP TABLE IF EXISTS ledger");
+		sqls.add("CREATE TABLE ledger (fiscal_year BIGINT, branch_id BIGINT, entry_no BIGINT, amount DECIMAL(12,2), "
+				+ "PRIMARY KEY (fiscal_year, branch_id, entry_no))");
+		for (int y = 1; y <= NBR_YEARS; y++) {
+			for (int b = 1; b <= NBR_BRANCHES; b++) {
+				for (int e = 1; e <= NBR_ENTRIES; e++) {
+					sqls.add("INSERT INTO ledger VALUES (" + y + ", " + b + ", " + e + ", " + (y * 100 + b * 10 + e)
+							+ ")");
+				}
+			}
+		}
+		/*
+		 * parent key is case-insensitive in the child table
+		 */
+		sqls.add("DROP TABLE IF EXISTS product_notes");
+		sqls.add("CREATE TABLE product_notes (note_id BIGINT PRIMARY KEY, product_code VARCHAR_IGNORECASE(10), "
+				+ "note_text VARCHAR(100))");
+		sqls.add("INSERT INTO product_notes VALUES (1, 'p1', 'first note of p1')");
+		sqls.add("INSERT INTO product_notes VALUES (2, 'P2', 'note of p2 with its code in upper case')");
+		sqls.add("INSERT INTO product_notes VALUES (3, 'p1', 'second note of p1')");
+		sqls.add("INSERT INTO product_notes VALUES (4, 'p3', 'note of a product that is not asked for')");
+		/*
+		 * primary key is case-insensitive in products
+		 */
+		sqls.add("DROP TABLE IF EXISTS products");
+		sqls.add("CREATE TABLE products (product_code VARCHAR_IGNORECASE(10) PRIMARY KEY, "
+				+ "product_name VARCHAR(100))");
+		sqls.add("INSERT INTO products VALUES ('p1', 'product 1')");
+		sqls.add("INSERT INTO products VALUES ('p2', 'product 2')");
+		sqls.add("INSERT INTO products VALUES ('p3', 'product 3')");
+		TestApp.executeSqls(sqls.toArray(new String[0]));
+	}
+
+	/**
+	 * rows for several keys are in the order of keys, including rows that the
+	 * db matched to a key that is not identical in text
+	 */
+	@Test
+	public void readManyWithKeysOfDifferentText() {
+		DbTable table = (DbTable) TestApp.getApp().getRecord("test.product");
+		IDataSheet inSheet = table.createSheet(false, false);
+		for (String code : new String[] { "P2", "p1", "p9", "P2", "P3" }) {
+			inSheet.addRow(new Value[] { Value.newTextValue(code), Value.newUnknownValue(ValueType.TEXT) });
+		}
+		IDataSheet[] result = new IDataSheet[1];
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			result[0] = table.readMany(inSheet, (IReadOnlyHandle) handle, null);
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+
+		IDataSheet rows = result[0];
+		assertEquals(4, rows.length());
+		assertEquals("product 2", rows.getColumnValue("productName", 0).toString());
+		assertEquals("product 1", rows.getColumnValue("productName", 1).toString());
+		assertEquals("product 2", rows.getColumnValue("productName", 2).toString());
+		assertEquals("product 3", rows.getColumnValue("productName", 3).toString());
+	}
+
+	/**
+	 * pages of a filter with a multi-column key cover every row once, in the
+	 * order of the key
+	 */
+	@Test
+	public void keysetPaging() {
+		DbTable table = (DbTable) TestApp.getApp().getRecord("test.ledger");
+		Fields inData = new Fields();
+		inData.setValue(AppConventions.Name.PAGE_SIZE, Value.newIntegerValue(4));
+		List<String> keys = new ArrayList<>();
+		int nbrPages = 0;
+		while (nbrPages < MAX_PAGES) {
+			IDataSheet page = this.filter(table, inData);
+			nbrPages++;
+			for (int i = 0; i < page.length(); i++) {
+				keys.add(page.getColumnValue("fiscalYear", i) + "." + page.getColumnValue("branchId", i) + "."
+						+ page.getColumnValue("entryNo", i));
+			}
+			Value next = inData.getValue(AppConventions.Name.NEXT_PAGE_TOKEN);
+			if (next == null) {
+				break;
+			}
+			inData.setValue(AppConventions.Name.PAGE_TOKEN, next);
+		}
+
+		List<String> expected = new ArrayList<>();
+		for (int y = 1; y <= NBR_YEARS; y++) {
+			for (int b = 1; b <= NBR_BRANCHES; b++) {
+				for (int e = 1; e <= NBR_ENTRIES; e++) {
+					expected.add(y + "." + b + "." + e);
+				}
+			}
+		}
+		assertEquals(expected, keys);
+		assertEquals(5, nbrPages);
+		assertNull(inData.getValue(AppConventions.Name.NEXT_PAGE_TOKEN));
+	}
+
+	/**
+	 * child rows are grouped by parent, and a row that the db matched to a
+	 * parent is not dropped even if its key is not identical to the parent
+	 * key
+	 */
+	@Test
+	public void childRowsForParents() throws Exception {
+		Application app = TestApp.getApp();
+		DbTable parent = (DbTable) app.getRecord("test.product");
+		DbTable child = (DbTable) app.getRecord("test.productNote");
+		IDataSheet parents = parent.createSheet(false, false);
+		parents.addRow(new Value[] { Value.newTextValue("p2"), Value.newTextValue("product 2") });
+		parents.addRow(new Value[] { Value.newTextValue("p1"), Value.newTextValue("product 1") });
+
+		ServiceContext ctx = new ServiceContext(app, "test.childRows",
+				new AppUser(Value.newTextValue("u1"), null, "session-1"));
+		int[] nbrRows = new int[1];
+		app.getRdbSetup().accessDb(handle -> {
+			nbrRows[0] = child.filterForParents(parents, (IReadOnlyHandle) handle, null, false, ctx);
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+
+		assertEquals(3, nbrRows[0]);
+		IDataSheet notes = ctx.getDataSheet("notes");
+		assertEquals(3, notes.length());
+		assertEquals(1, notes.getColumnValue("noteId", 0).toInteger());
+		assertEquals(3, notes.getColumnValue("noteId", 1).toInteger());
+		assertEquals(2, notes.getColumnValue("noteId", 2).toInteger());
+	}
+
+	private IDataSheet filter(DbTable table, Fields inData) {
+		IDataSheet[] result = new IDataSheet[1];
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			result[0] = table.filter(table, inData, (IReadOnlyHandle) handle, null);
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+		return result[0];
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.expr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.simplity.core.data.Fields;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+
+/**
+ * compiled evaluation of an expression is to give the same results as the
+ * step-by-step interpretation
+ *
+ * @author simplity.org
+ *
+ */
+public class CompiledNodeTest {
+	private static final String[] ARITHMETIC = { "1 + 2 * 3", "(1 + 2) * 3", "i - j * 3 + 1", "i / j", "i % j",
+			"i / j * j + i % j", "i * i * i * i * i", "100 - i - j - 1", "i / zero", "i % zero", "a + 1" };
+
+	private static final String[] MIXED = { "i + d", "d * i - 1", "i / d", "d / j", "d % j", "i + d * j - 0.5",
+			"1.5 + 2", "d / zero", "(i + d) * (j - d)" };
+
+	private static final String[] UNARY = { "-i", "-d", "-i + j", "j - -i", "-(i + j) * 2", "-(d - i)", "!flag",
+			"!(i > j)", "?i", "?missing", "~missing", "~i", "missing", "-missing", "missing + 1", "-t" };
+
+	private static final String[] COMPARE = { "i > j", "i >= 7", "i < d", "d <= 2.5", "d >= 2.5", "i <= 7.0",
+			"i = 7", "i = 7.0", "d = 2.5", "d != 2.5", "i != j", "t = 'abc'", "t != 'abd'", "t > 'abb'",
+			"dt > /2020-01-01/", "dt = /2020-03-01/", "flag = flag", "missing = 1", "i > t" };
+
+	private static final String[] TEXT_AND_DATE = { "t + 'x'", "'x' + t", "t + i", "i + t", "t + d", "t - 1",
+			"t * 2", "dt + 3", "dt - 3", "dt - /2020-01-01/", "/2020-01-01/ - dt", "dt + d", "dt * 2" };
+
+	private static final String[] FUNCTIONS = { "concat(t, 'x', i + 1)", "concat(t)", "concat(concat(t, t), i * j)",
+			"concat(i + d, -j, dt)", "concat(t, 'x') = 'abcx'", "concat(i) + 1", "noSuchFunction(i)" };
+
+	private static final String[] LOGICAL = { "flag & i > j", "flag | i > j", "!flag & i > j", "!flag | i > j",
+			"i > j & j > i", "i > j | j > i", "flag & (i = 7 | t = 'x')", "flag & i", "!flag | t",
+			"i > j & d > j & t = 'abc'", "i < j | d < j | t = 'abc'" };
+
+	/**
+	 * functions are defined with the app
+	 */
+	@BeforeClass
+	public static void startApp() {
+		TestApp.getApp();
+	}
+
+	/**
+	 * integer arithmetic
+	 */
+	@Test
+	public void arithmetic() throws Exception {
+		assertSameResults(ARITHMETIC);
+		assertValue("i / j * j + i % j", Value.newIntegerValue(7));
+	}
+
+	/**
+	 * integers and decimals in the same operation
+	 */
+	@Test
+	public void mixedIntegerAndDecimal() throws Exception {
+		assertSameResults(MIXED);
+		assertValue("i + d * j - 0.5", Value.newDecimalValue(11.5));
+	}
+
+	/**
+	 * minus, not, is-known and is-unknown
+	 */
+	@Test
+	public void unary() throws Exception {
+		assertSameResults(UNARY);
+		assertValue("-(i + j) * 2", Value.newIntegerValue(-18));
+	}
+
+	/**
+	 * comparators between numbers, and between other types
+	 */
+	@Test
+	public void compare() throws Exception {
+		assertSameResults(COMPARE);
+		assertValue("i < d", Value.VALUE_FALSE);
+	}
+
+	/**
+	 * operations on texts and dates fall back on the binary operator
+	 */
+	@Test
+	public void textAndDate() throws Exception {
+		assertSameResults(TEXT_AND_DATE);
+		assertValue("dt + 3", Value.newDateValue(LocalDate.of(2020, 3, 4)));
+	}
+
+	/**
+	 * functions with arguments that are expressions
+	 */
+	@Test
+	public void functions() throws Exception {
+		assertSameResults(FUNCTIONS);
+		assertValue("concat(concat(t, t), i * j)", Value.newTextValue("abcabc14"));
+	}
+
+	/**
+	 * and/or give the same results when both sides are evaluated
+	 */
+	@Test
+	public void logical() throws Exception {
+		assertSameResults(LOGICAL);
+		assertValue("i > j & d > j & t = 'abc'", Value.VALUE_TRUE);
+	}
+
+	/**
+	 * right side of and/or is not evaluated when the left side decides the
+	 * result
+	 */
+	@Test
+	public void lazyAndOr() throws Exception {
+		assertLazy("flag | y > 1", true);
+		assertLazy("!flag & y > 1", false);
+		assertLazy("i > j | y / zero > 1", true);
+		assertLazy("i < j & concat(y) = 'x'", false);
+		assertLazy("flag | (y > 1 & y < 2)", true);
+
+		/*
+		 * right side is evaluated when required
+		 */
+		ReadFields data = getData();
+		data.setValue("y", Value.newIntegerValue(5));
+		Value value = new Expression("!flag | y > 1").evaluate(data);
+		assertEquals(Value.VALUE_TRUE, value);
+		assertTrue(data.fieldsRead.contains("y"));
+	}
+
+	private static void assertLazy(String text, boolean expected) throws Exception {
+		ReadFields data = getData();
+		Value value = new Expression(text).evaluate(data);
+		assertEquals(text, Value.newBooleanValue(expected), value);
+		assertFalse(text + " is not to evaluate its right side", data.fieldsRead.contains("y"));
+	}
+
+	private static void assertValue(String text, Value expected) throws Exception {
+		assertEquals(text, expected, new Expression(text).evaluate(getData()));
+	}
+
+	private static void assertSameResults(String[] texts) throws Exception {
+		for (String text : texts) {
+			Expression expr = new Expression(text);
+			Object expected = evaluate(expr, false);
+			Object actual = evaluate(expr, true);
+			/*
+			 * evaluate once more, to be sure that a frame is not left with
+			 * stale values
+			 */
+			Object again = evaluate(expr, true);
+			assertEquals(text, expected, actual);
+			assertEquals(text, expected, again);
+		}
+	}
+
+	/**
+	 * @return value type and text of the value, or the class of the exception
+	 *         that the evaluation failed with
+	 */
+	private static Object evaluate(Expression expr, boolean compiled) {
+		try {
+			Value value = compiled ? expr.evaluate(getData()) : expr.interpret(getData());
+			if (value == null) {
+				return null;
+			}
+			return value.getValueType() + ":" + value.isUnknown() + ":" + value;
+		} catch (Exception e) {
+			return e.getClass();
+		}
+	}
+
+	private static ReadFields getData() {
+		ReadFields data = new ReadFields();
+		data.setValue("i", Value.newIntegerValue(7));
+		data.setValue("j", Value.newIntegerValue(2));
+		data.setValue("zero", Value.newIntegerValue(0));
+		data.setValue("d", Value.newDecimalValue(2.5));
+		data.setValue("t", Value.newTextValue("abc"));
+		data.setValue("flag", Value.VALUE_TRUE);
+		data.setValue("dt", Value.newDateValue(LocalDate.of(2020, 3, 1)));
+		data.setValue("a", Value.newTextValue("1"));
+		return data;
+	}
+
+	/**
+	 * keeps track of fields that are read
+	 */
+	static class ReadFields extends Fields {
+		final Set<String> fieldsRead = new HashSet<>();
+
+		@Override
+		public Value getValue(String fieldName) {
+			this.fieldsRead.add(fieldName);
+			return super.getValue(fieldName);
+		}
+	}
+}
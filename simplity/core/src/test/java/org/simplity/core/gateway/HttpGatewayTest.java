@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.gateway;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.AppUser;
+import org.simplity.core.app.Application;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+import org.simplity.json.JSONObject;
+import org.simplity.json.JsonWritable;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * calling an http server with HttpGateway
+ *
+ * @author simplity.org
+ *
+ */
+public class HttpGatewayTest {
+	private static final byte[] EMPTY_JSON = "{}".getBytes(StandardCharsets.UTF_8);
+	private HttpServer server;
+	private ExecutorService serverThreads;
+	/*
+	 * client port of each request received by the server
+	 */
+	private final List<Integer> requests = new CopyOnWriteArrayList<>();
+	/*
+	 * requests to /wait are held till this is released
+	 */
+	private final CountDownLatch release = new CountDownLatch(1);
+	private Application app;
+
+	/**
+	 * server that responds to /ok, /wait, /late and /error
+	 */
+	@Before
+	public void startServer() throws IOException {
+		this.app = TestApp.getApp();
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/", this::handle);
+		this.serverThreads = Executors.newCachedThreadPool();
+		this.server.setExecutor(this.serverThreads);
+		this.server.start();
+	}
+
+	/**
+	 * stop the server
+	 */
+	@After
+	public void stopServer() {
+		this.release.countDown();
+		this.server.stop(0);
+		this.serverThreads.shutdownNow();
+	}
+
+	/**
+	 * response is received, and the status is available
+	 */
+	@Test
+	public void sendAndReceive() {
+		HttpGateway.Assistant assistant = this.newAssistant(this.newGateway(0), "/ok");
+		assertTrue(assistant.sendAndReceive(this.newContext()));
+		assertEquals(200, assistant.getStatus());
+		assertEquals(1, this.requests.size());
+	}
+
+	/**
+	 * a request waits for a permit while maxConnections requests are in
+	 * progress, and gives up after connectTimeoutMillis
+	 */
+	@Test
+	public void connectionsAreLimited() throws Exception {
+		HttpGateway gateway = this.newGateway(1);
+		gateway.connectTimeoutMillis = 300;
+		ExecutorService caller = Executors.newSingleThreadExecutor();
+		try {
+			Future<Boolean> first = caller
+					.submit(() -> this.newAssistant(gateway, "/wait").sendAndReceive(this.newContext()));
+			this.waitForRequests(1);
+
+			assertFalse("no permit is expected while the first request is in progress",
+					this.newAssistant(gateway, "/ok").sendAndReceive(this.newContext()));
+			assertEquals(1, this.requests.size());
+
+			this.release.countDown();
+			assertTrue(first.get(5, TimeUnit.SECONDS));
+			assertTrue("permit is expected to be released",
+					this.newAssistant(gateway, "/ok").sendAndReceive(this.newContext()));
+			assertEquals(2, this.requests.size());
+		} finally {
+			caller.shutdownNow();
+		}
+	}
+
+	/**
+	 * a request that times out waiting for the response is abandoned, and not
+	 * sent again
+	 */
+	@Test
+	public void readTimeout() throws Exception {
+		HttpGateway gateway = this.newGateway(0);
+		gateway.readTimeoutMillis = 300;
+		HttpGateway.Assistant assistant = this.newAssistant(gateway, "/late");
+		assertFalse(assistant.sendAndReceive(this.newContext()));
+		assertEquals(0, assistant.getStatus());
+		Thread.sleep(1500);
+		assertEquals("request is not to be sent again", 1, this.requests.size());
+	}
+
+	/**
+	 * a request whose payload could not be written is not sent at all
+	 */
+	@Test
+	public void payloadError() throws Exception {
+		HttpGateway.Assistant assistant = this.newGateway(0).getAssistant("send", null);
+		assistant.setPath("/ok");
+		ServiceContext ctx = this.newContext();
+		JSONObject payload = new JSONObject();
+		payload.put("part", (JsonWritable) writer -> {
+			writer.object();
+			throw new ApplicationError("payload could not be written");
+		});
+		ctx.setObject("payload", payload);
+		assertFalse(assistant.sendAndReceive(ctx));
+		Thread.sleep(300);
+		assertEquals("a partial request is not to be sent", 0, this.requests.size());
+	}
+
+	/**
+	 * response to a failed request is drained, so that its connection is used
+	 * for the next request
+	 */
+	@Test
+	public void connectionIsReused() {
+		HttpGateway gateway = this.newGateway(0);
+		HttpGateway.Assistant assistant = this.newAssistant(gateway, "/error");
+		assertFalse(assistant.sendAndReceive(this.newContext()));
+		assertEquals(500, assistant.getStatus());
+		assertTrue(this.newAssistant(gateway, "/ok").sendAndReceive(this.newContext()));
+		assertEquals(2, this.requests.size());
+		assertEquals("second request is to use the same connection", this.requests.get(0), this.requests.get(1));
+	}
+
+	/**
+	 * services are called concurrently. The parallel executor of the app has
+	 * at least two threads.
+	 */
+	@Test
+	public void executeAsync() throws Exception {
+		HttpGateway gateway = this.newGateway(0);
+		List<Future<Boolean>> futures = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			IServiceAssistant assistant = this.newAssistant(gateway, "/wait");
+			futures.add(assistant.executeAsync(this.newContext()));
+		}
+		this.waitForRequests(2);
+		this.release.countDown();
+		for (Future<Boolean> future : futures) {
+			assertTrue(future.get(5, TimeUnit.SECONDS));
+		}
+	}
+
+	private HttpGateway newGateway(int maxConnections) {
+		HttpGateway gateway = new HttpGateway();
+		gateway.applicationName = "testHttp";
+		gateway.baseUrl = "http://localhost:" + this.server.getAddress().getPort();
+		gateway.contentType = "application/json";
+		gateway.maxConnections = maxConnections;
+		gateway.getReady();
+		return gateway;
+	}
+
+	private HttpGateway.Assistant newAssistant(HttpGateway gateway, String path) {
+		HttpGateway.Assistant assistant = gateway.getAssistant("ping", null);
+		assistant.setPath(path);
+		return assistant;
+	}
+
+	private ServiceContext newContext() {
+		return new ServiceContext(this.app, "test.http", new AppUser(Value.newTextValue("u1"), null, "session-1"));
+	}
+
+	private void waitForRequests(int nbr) throws InterruptedException {
+		for (int i = 0; i < 100 && this.requests.size() < nbr; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(nbr, this.requests.size());
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		this.requests.add(exchange.getRemoteAddress().getPort());
+		try (InputStream in = exchange.getRequestBody()) {
+			while (in.read() != -1) {
+				//
+			}
+		}
+		String path = exchange.getRequestURI().getPath();
+		int status = 200;
+		try {
+			if (path.equals("/wait")) {
+				this.release.await(10, TimeUnit.SECONDS);
+			} else if (path.equals("/late")) {
+				Thread.sleep(1000);
+			} else if (path.equals("/error")) {
+				status = 500;
+			}
+		} catch (InterruptedException e) {
+			return;
+		}
+		exchange.sendResponseHeaders(status, EMPTY_JSON.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(EMPTY_JSON);
+		}
+	}
+}
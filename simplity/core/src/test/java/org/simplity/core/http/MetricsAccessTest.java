@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.http;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.simplity.core.app.AppUser;
+import org.simplity.core.value.Value;
+
+/**
+ * access to metrics served in Prometheus format
+ *
+ * @author simplity.org
+ *
+ */
+public class MetricsAccessTest {
+
+	/**
+	 * with no token configured, only a logged-in user gets metrics
+	 */
+	@Test
+	public void loggedInUserOnly() {
+		HttpAgent agent = new ExampleController();
+		assertFalse(agent.canServeMetrics(request(null)));
+		assertFalse(agent.canServeMetrics(request("no-such-session")));
+
+		String token = agent.createSession(new AppUser(Value.newTextValue("u1"), null, "session-1"));
+		assertTrue(agent.canServeMetrics(request(token)));
+	}
+
+	/**
+	 * with a token configured, the scraper has to present it as a bearer token
+	 */
+	@Test
+	public void scraperToken() {
+		HttpAgent agent = new ExampleController();
+		agent.metricsToken = "secret";
+		assertFalse(agent.canServeMetrics(request(null)));
+		assertFalse(agent.canServeMetrics(request("secret")));
+		assertFalse(agent.canServeMetrics(request("Bearer wrong")));
+		assertTrue(agent.canServeMetrics(request("Bearer secret")));
+	}
+
+	private static HttpServletRequest request(String authorization) {
+		return (HttpServletRequest) Proxy.newProxyInstance(MetricsAccessTest.class.getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+					if (method.getName().equals("getHeader") && "Authorization".equals(args[0])) {
+						return authorization;
+					}
+					return null;
+				});
+	}
+}
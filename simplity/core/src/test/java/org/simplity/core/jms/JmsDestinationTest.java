@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.AppUser;
+import org.simplity.core.app.Application;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.ITransactionHandle;
+import org.simplity.core.jms.JmsSetup.JmsConnector;
+import org.simplity.core.msg.FormattedMessage;
+import org.simplity.core.msg.MessageType;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+
+/**
+ * concurrent consumers that commit db updates along with their jms sessions.
+ * Uses the in-vm broker that the test app is set up with
+ *
+ * @author simplity.org
+ *
+ */
+public class JmsDestinationTest {
+	private static final String QUEUE = "test.requests";
+	private static final String MSG_NBR = "msgNbr";
+	private static final int NBR_MESSAGES = 6;
+	/*
+	 * this message always fails
+	 */
+	private static final long POISON = 5;
+	private static final String REJECTED = "rejected";
+
+	/*
+	 * in-vm broker lives as long as a connection to it is open
+	 */
+	private static JmsConnector connector;
+
+	/**
+	 * table to which messages are inserted, and a connection to the broker
+	 */
+	@BeforeClass
+	public static void setUp() throws Exception {
+		/*
+		 * no primary key, so that a message that is processed twice shows up
+		 */
+		TestApp.executeSqls("DROP TABLE IF EXISTS jms_rows", "CREATE TABLE jms_rows (msg_nbr BIGINT)");
+		connector = TestApp.getApp().getJmsSetup().borrowConnector(JmsUsage.NOT_MANAGED);
+	}
+
+	/**
+	 * let the broker go
+	 */
+	@AfterClass
+	public static void tearDown() throws Exception {
+		if (connector != null) {
+			connector.returnedWithThanks(true);
+		}
+	}
+
+	/**
+	 * db updates of a batch are rolled back with its jms session, and the
+	 * re-delivered messages other than the failed one are committed
+	 */
+	@Test
+	public void dbCommittedWithJms() throws Exception {
+		Session session = connector.getSession();
+		Queue queue = session.createQueue(QUEUE);
+		try (MessageProducer producer = session.createProducer(queue)) {
+			for (int i = 1; i <= NBR_MESSAGES; i++) {
+				Message msg = session.createMessage();
+				msg.setLongProperty(MSG_NBR, i);
+				producer.send(msg);
+			}
+		}
+
+		/*
+		 * queue is not looked up with the default jndi context, that is not set
+		 * up for tests
+		 */
+		JmsDestination requests = new JmsDestination();
+		requests.name = QUEUE;
+		requests.extractAll = true;
+		requests.destination = queue;
+		Application app = TestApp.getApp();
+		ServiceContext ctx = new ServiceContext(app, "test.jmsRows",
+				new AppUser(Value.newTextValue("u1"), null, "session-1"));
+		/*
+		 * message 4 is in the batch that the poison message rolls back
+		 */
+		requests.consumeConcurrently(ctx, new Inserter(), null, false, 1, 3, 0, DbAccessType.MULTI_TRANS, null);
+
+		assertEquals("rows inserted once for each message, except for the poison one",
+				Arrays.asList(1L, 2L, 3L, 4L, 6L), getRows());
+		boolean rejected = false;
+		for (FormattedMessage msg : ctx.getMessages()) {
+			if (REJECTED.equals(msg.name)) {
+				rejected = true;
+			}
+		}
+		assertTrue("messages of the failed message are lost", rejected);
+	}
+
+	/**
+	 * an interrupted caller returns only after its consumers have stopped, and
+	 * reports the error that a consumer quit with
+	 */
+	@Test
+	public void interruptWaitsForConsumers() throws Exception {
+		String queueName = "test.interrupt";
+		Session session = connector.getSession();
+		Queue queue = session.createQueue(queueName);
+		try (MessageProducer producer = session.createProducer(queue)) {
+			producer.send(session.createMessage());
+		}
+		JmsDestination requests = new JmsDestination();
+		requests.name = queueName;
+		requests.destination = queue;
+		ServiceContext ctx = new ServiceContext(TestApp.getApp(), "test.jmsInterrupt",
+				new AppUser(Value.newTextValue("u1"), null, "session-1"));
+		SlowProcessor processor = new SlowProcessor();
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		AtomicBoolean finishedOnReturn = new AtomicBoolean();
+		AtomicBoolean interruptedOnReturn = new AtomicBoolean();
+		Thread caller = new Thread(() -> {
+			try {
+				requests.consumeConcurrently(ctx, processor, null, true, 2, 1, 0, null, null);
+			} catch (Throwable e) {
+				error.set(e);
+			}
+			finishedOnReturn.set(processor.finished);
+			interruptedOnReturn.set(Thread.currentThread().isInterrupted());
+		});
+		caller.start();
+		assertTrue("message is expected to be received", processor.started.await(5, TimeUnit.SECONDS));
+		caller.interrupt();
+		caller.join(10000);
+		assertFalse(caller.isAlive());
+		assertTrue("caller is to wait for the consumer that is processing", finishedOnReturn.get());
+		assertTrue("interrupt status is to be restored", interruptedOnReturn.get());
+		assertTrue("error of the consumer is to be reported", error.get() instanceof ApplicationError);
+	}
+
+	private static List<Long> getRows() throws Exception {
+		List<Long> rows = new ArrayList<>();
+		try (java.sql.Connection con = DriverManager.getConnection(TestApp.DB_URL);
+				Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT msg_nbr FROM jms_rows ORDER BY msg_nbr")) {
+			while (rs.next()) {
+				rows.add(rs.getLong(1));
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * takes its time to process a message, and then fails its consumer
+	 */
+	static class SlowProcessor implements IJmsClient {
+		final CountDownLatch started = new CountDownLatch(1);
+		volatile boolean finished;
+
+		@Override
+		public boolean process(ServiceContext ctx) {
+			this.started.countDown();
+			long stopAt = System.currentTimeMillis() + 500;
+			long wait;
+			while ((wait = stopAt - System.currentTimeMillis()) > 0) {
+				try {
+					Thread.sleep(wait);
+				} catch (InterruptedException e) {
+					//
+				}
+			}
+			this.finished = true;
+			return true;
+		}
+
+		@Override
+		public boolean toContinue() {
+			throw new IllegalStateException("processor is not to be asked to continue");
+		}
+	}
+
+	/**
+	 * inserts a row for a message with the db handle of its consumer
+	 */
+	static class Inserter implements IJmsClient {
+
+		@Override
+		public boolean process(ServiceContext ctx) {
+			try {
+				long nbr = ctx.getValue(MSG_NBR).toInteger();
+				ITransactionHandle handle = (ITransactionHandle) ctx.getDbHandle();
+				handle.execute("INSERT INTO jms_rows VALUES (?)", new Value[] { Value.newIntegerValue(nbr) }, false);
+				if (nbr == POISON) {
+					ctx.addMessage(new FormattedMessage(REJECTED, MessageType.ERROR, "message " + nbr + " is rejected"));
+					return false;
+				}
+				return true;
+			} catch (Exception e) {
+				return false;
+			}
+		}
+
+		@Override
+		public boolean toContinue() {
+			return true;
+		}
+	}
+}
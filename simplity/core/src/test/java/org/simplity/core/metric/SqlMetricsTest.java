@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Map;
+
+import org.junit.Test;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IReadOnlyHandle;
+import org.simplity.core.testing.TestApp;
+
+/**
+ * times recorded for sqls
+ *
+ * @author simplity.org
+ *
+ */
+public class SqlMetricsTest {
+	private static final String OUTER = "SELECT 1 AS outer_col";
+	private static final String INNER = "SELECT 2 AS inner_col";
+
+	/**
+	 * sqls are recorded under their ids, and the text is not exported
+	 */
+	@Test
+	public void recordedById() throws Exception {
+		TestApp.getApp();
+		MetricsRegistry.reset();
+		MetricsRegistry.recordSql(OUTER, 1000);
+		String id = MetricsRegistry.getSqlId(OUTER);
+		assertTrue(id.startsWith("sql_"));
+		assertEquals(id, MetricsRegistry.getSqlId(OUTER));
+		assertFalse(id.equals(MetricsRegistry.getSqlId(INNER)));
+		assertEquals(OUTER, MetricsRegistry.getSqlText(id));
+		assertNotNull(MetricsRegistry.getHistogram(MetricType.SQL, id));
+		assertNull(MetricsRegistry.getHistogram(MetricType.SQL, OUTER));
+
+		StringWriter writer = new StringWriter();
+		MetricsRegistry.writePrometheus(writer);
+		String text = writer.toString();
+		assertTrue(text.contains(id));
+		assertFalse(text.contains("SELECT"));
+	}
+
+	/**
+	 * each statement is timed on its own, even when one is executed while
+	 * reading the result of the other
+	 */
+	@Test
+	public void nestedSqls() throws Exception {
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			IReadOnlyHandle h = (IReadOnlyHandle) handle;
+			MetricsRegistry.reset();
+			h.read(OUTER, null, rs -> {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return h.read(INNER, null, rs1 -> 1);
+			});
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+		Map<String, Histogram> sqls = MetricsRegistry.getHistograms(MetricType.SQL);
+		assertEquals(2, sqls.size());
+		Histogram outer = sqls.get(MetricsRegistry.getSqlId(OUTER));
+		Histogram inner = sqls.get(MetricsRegistry.getSqlId(INNER));
+		assertEquals(1, outer.getCount());
+		assertEquals(1, inner.getCount());
+		assertTrue(outer.getMaxMicros() >= 50000);
+		assertTrue(inner.getMaxMicros() < outer.getMaxMicros());
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.rdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.testing.TestApp;
+
+/**
+ * pool of connections to the in-memory h2 db of the test app
+ *
+ * @author simplity.org
+ *
+ */
+public class ConnectionPoolTest {
+	private static final String VALIDATION_SQL = "SELECT 1";
+	private ConnectionPool pool;
+
+	/**
+	 * table that is updated with a pooled connection
+	 */
+	@Before
+	public void createTable() {
+		TestApp.executeSqls("DROP TABLE IF EXISTS pooled_rows", "CREATE TABLE pooled_rows (id BIGINT)");
+	}
+
+	/**
+	 * close the pool that the test has created
+	 */
+	@After
+	public void closePool() {
+		if (this.pool != null) {
+			this.pool.close();
+		}
+	}
+
+	/**
+	 * pooling is to be asked for
+	 */
+	@Test
+	public void offByDefault() {
+		assertTrue(TestApp.getApp().getRdbSetup().getConnectionPools().isEmpty());
+	}
+
+	/**
+	 * a returned connection is lent out again, after its pending work is
+	 * rolled back
+	 */
+	@Test
+	public void borrowAndReturn() throws Exception {
+		this.pool = new ConnectionPool("test", TestApp.DB_URL, VALIDATION_SQL, 0, 2, 0, 0, 1);
+		Connection con = this.pool.borrow();
+		assertEquals(1, this.pool.getNbrActive());
+		con.setAutoCommit(false);
+		try (Statement stmt = con.createStatement()) {
+			stmt.executeUpdate("INSERT INTO pooled_rows VALUES (1)");
+		}
+		assertTrue(this.pool.giveBack(con));
+		assertEquals(0, this.pool.getNbrActive());
+		assertEquals(1, this.pool.getNbrIdle());
+		assertEquals("uncommitted work is rolled back", 0, countRows());
+
+		Connection again = this.pool.borrow();
+		assertSame(con, again);
+		assertTrue("connection is reset", again.getAutoCommit());
+		assertEquals(1, this.pool.getNbrCreated());
+		assertEquals(2, this.pool.getNbrBorrowed());
+		this.pool.giveBack(again);
+
+		try (Connection other = DriverManager.getConnection(TestApp.DB_URL)) {
+			assertFalse("connection was not lent out by this pool", this.pool.giveBack(other));
+		}
+		assertEquals(1, this.pool.getNbrIdle());
+	}
+
+	/**
+	 * broken connections are not lent out
+	 */
+	@Test
+	public void brokenConnection() throws Exception {
+		this.pool = new ConnectionPool("test", TestApp.DB_URL, VALIDATION_SQL, 0, 2, 0, 0, 1);
+		Connection con = this.pool.borrow();
+		this.pool.giveBack(con);
+		/*
+		 * connection breaks while it is idle in the pool
+		 */
+		con.close();
+		Connection fresh = this.pool.borrow();
+		assertNotSame(con, fresh);
+		assertTrue(fresh.isValid(1));
+		assertEquals(1, this.pool.getNbrValidationFailures());
+
+		/*
+		 * connection breaks while it is with the borrower
+		 */
+		fresh.close();
+		assertTrue(this.pool.giveBack(fresh));
+		assertEquals("closed connection is not taken back", 0, this.pool.getNbrIdle());
+		assertEquals(2, this.pool.getNbrDiscarded());
+		Connection third = this.pool.borrow();
+		assertTrue(third.isValid(1));
+		assertEquals(3, this.pool.getNbrCreated());
+		this.pool.giveBack(third);
+	}
+
+	/**
+	 * no more than max connections are lent out. A borrower waits for a
+	 * connection to be returned, and gives up after the wait time
+	 */
+	@Test
+	public void maxSize() throws Exception {
+		this.pool = new ConnectionPool("test", TestApp.DB_URL, VALIDATION_SQL, 0, 1, 0, 0, 1);
+		Connection con = this.pool.borrow();
+		long startedAt = System.currentTimeMillis();
+		try {
+			this.pool.borrow();
+			fail("borrow is to time out when all connections are in use");
+		} catch (SQLException e) {
+			assertTrue(System.currentTimeMillis() - startedAt >= 900);
+		}
+		assertEquals(1, this.pool.getNbrTimeouts());
+		assertEquals(1, this.pool.getNbrActive());
+
+		ExecutorService borrower = Executors.newSingleThreadExecutor();
+		try {
+			Future<Connection> waiting = borrower.submit(() -> this.pool.borrow());
+			for (int i = 0; i < 50 && this.pool.getNbrWaiting() == 0; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(1, this.pool.getNbrWaiting());
+			this.pool.giveBack(con);
+			Connection next = waiting.get(1, TimeUnit.SECONDS);
+			assertSame("returned connection goes to the waiting borrower", con, next);
+			this.pool.giveBack(next);
+		} finally {
+			borrower.shutdownNow();
+		}
+		assertEquals(1, this.pool.getNbrCreated());
+	}
+
+	private static int countRows() throws SQLException {
+		try (Connection con = DriverManager.getConnection(TestApp.DB_URL);
+				Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM pooled_rows")) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.rdb;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IReadOnlyHandle;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+import org.simplity.core.value.ValueType;
+
+/**
+ * reading rows with a fetch size, and streaming them
+ *
+ * @author simplity.org
+ *
+ */
+public class ReadOnlyHandleTest {
+	private static final String SELECT = "SELECT row_id FROM streamed_rows ORDER BY row_id";
+	private static final int NBR_ROWS = 5;
+	private static final ValueType[] TYPES = { ValueType.INTEGER };
+
+	/**
+	 * table with a few rows
+	 */
+	@Before
+	public void createTable() {
+		String[] sqls = new String[NBR_ROWS + 2];
+		sqls[0] = "DROP TABLE IF EXISTS streamed_rows";
+		sqls[1] = "CREATE TABLE streamed_rows (row_id INT PRIMARY KEY, subject VARCHAR(100))";
+		for (int i = 1; i <= NBR_ROWS; i++) {
+			sqls[i + 1] = "INSERT INTO streamed_rows VALUES (" + i + ", 'row " + i + "')";
+		}
+		TestApp.executeSqls(sqls);
+	}
+
+	/**
+	 * fetch size is set to the statement, and all rows are read
+	 */
+	@Test
+	public void fetchSize() {
+		int[] fetchSizes = new int[1];
+		int nbr = this.read((handle) -> handle.read(SELECT, null, rs -> {
+			try {
+				fetchSizes[0] = rs.getStatement().getFetchSize();
+				int n = 0;
+				while (rs.next()) {
+					n++;
+				}
+				return n;
+			} catch (SQLException e) {
+				throw new ApplicationError(e, "");
+			}
+		}, 2));
+		assertEquals(NBR_ROWS, nbr);
+		assertEquals(2, fetchSizes[0]);
+	}
+
+	/**
+	 * rows are streamed to the consumer in the right order
+	 */
+	@Test
+	public void streamRows() {
+		StringBuilder ids = new StringBuilder();
+		int nbr = this.read((handle) -> handle.read(SELECT, null, TYPES, (row) -> {
+			ids.append(row[0].toString());
+			return true;
+		}, IReadOnlyHandle.STREAM_ROWS));
+		assertEquals(NBR_ROWS, nbr);
+		assertEquals("12345", ids.toString());
+	}
+
+	/**
+	 * a consumer that returns false stops the read
+	 */
+	@Test
+	public void consumerStopsRead() {
+		int[] consumed = new int[1];
+		int nbr = this.read((handle) -> handle.read(SELECT, null, TYPES, (row) -> {
+			consumed[0]++;
+			return consumed[0] < 2;
+		}, IReadOnlyHandle.STREAM_ROWS));
+		assertEquals("no row is to be consumed after the consumer returns false", 2, consumed[0]);
+		assertEquals(2, nbr);
+	}
+
+	private int read(Reader reader) {
+		int[] nbr = new int[1];
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			nbr[0] = reader.read((IReadOnlyHandle) handle);
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+		return nbr[0];
+	}
+
+	private interface Reader {
+		int read(IReadOnlyHandle handle);
+	}
+}
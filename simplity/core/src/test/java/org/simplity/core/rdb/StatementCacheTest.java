@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.rdb;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IReadOnlyHandle;
+import org.simplity.core.testing.TestApp;
+
+/**
+ * statements cached by a db handle
+ *
+ * @author simplity.org
+ *
+ */
+public class StatementCacheTest {
+
+	/**
+	 * cached statements are closed when the client is done
+	 */
+	@Test
+	public void closedAfterSuccess() throws Exception {
+		AtomicReference<Statement> stmt = new AtomicReference<>();
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			this.read((IReadOnlyHandle) handle, stmt);
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+		assertNotNull(stmt.get());
+		assertTrue(stmt.get().isClosed());
+	}
+
+	/**
+	 * cached statements are closed even if the client throws an exception,
+	 * before the connection goes back to the pool
+	 */
+	@Test
+	public void closedAfterFailure() throws Exception {
+		AtomicReference<Statement> stmt = new AtomicReference<>();
+		try {
+			TestApp.getApp().getRdbSetup().accessDb(handle -> {
+				this.read((IReadOnlyHandle) handle, stmt);
+				throw new ApplicationError("client failed");
+			}, DbAccessType.READ_ONLY, null);
+			fail("exception from the client is expected to be thrown back");
+		} catch (ApplicationError e) {
+			//
+		}
+		assertNotNull(stmt.get());
+		assertTrue("cached statement is left open", stmt.get().isClosed());
+	}
+
+	private void read(IReadOnlyHandle handle, AtomicReference<Statement> stmt) {
+		handle.read("SELECT 1", null, rs -> {
+			try {
+				stmt.set(rs.getStatement());
+			} catch (SQLException e) {
+				throw new ApplicationError(e, "");
+			}
+			return 1;
+		});
+	}
+}
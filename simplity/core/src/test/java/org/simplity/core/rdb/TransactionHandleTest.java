@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.rdb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.ITransactionHandle;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+
+/**
+ * inserting a batch of rows with generated keys
+ *
+ * @author simplity.org
+ *
+ */
+public class TransactionHandleTest {
+	private static final String INSERT = "INSERT INTO batch_keys (subject) VALUES (?)";
+	private static final String[] KEY_NAMES = { "id" };
+
+	/**
+	 * table with a generated key
+	 */
+	@Before
+	public void createTable() {
+		TestApp.executeSqls("DROP TABLE IF EXISTS batch_keys",
+				"CREATE TABLE batch_keys (id BIGINT AUTO_INCREMENT PRIMARY KEY, subject VARCHAR(100))");
+	}
+
+	/**
+	 * key generated for each row of the batch is returned
+	 */
+	@Test
+	public void keysForABatch() {
+		long[] keys = new long[1];
+		int[] counts = this.insertBatch(keys, "first");
+		assertArrayEquals(new int[] { 1 }, counts);
+		assertEquals(1, keys[0]);
+		this.insertBatch(keys, "second");
+		assertEquals(2, keys[0]);
+	}
+
+	/**
+	 * h2 returns just the last key for a batch. Rows should not be left with
+	 * a missing key
+	 */
+	@Test
+	public void missingKeysAreReported() {
+		try {
+			this.insertBatch(new long[3], "first", "second", "third");
+			fail("a batch without a key for each row is expected to fail");
+		} catch (ApplicationError e) {
+			//
+		}
+	}
+
+	private int[] insertBatch(long[] keys, String... subjects) {
+		Value[][] values = new Value[subjects.length][];
+		for (int i = 0; i < subjects.length; i++) {
+			values[i] = new Value[] { Value.newTextValue(subjects[i]) };
+		}
+		int[][] counts = new int[1][];
+		TestApp.getApp().getRdbSetup().accessDb(handle -> {
+			counts[0] = ((ITransactionHandle) handle).insertBatchAndGetKeys(INSERT, values, keys, KEY_NAMES, false);
+			return true;
+		}, DbAccessType.SINGLE_TRANS, null);
+		return counts[0];
+	}
+}
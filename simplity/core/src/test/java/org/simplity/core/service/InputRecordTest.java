@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.StringReader;
+import java.util.HashMap;
+
+import org.junit.Test;
+import org.simplity.core.app.ServiceResult;
+import org.simplity.core.app.internal.ServiceRequest;
+import org.simplity.core.app.internal.ServiceResponse;
+import org.simplity.core.msg.FormattedMessage;
+import org.simplity.core.testing.TestApp;
+import org.simplity.json.JSONArray;
+import org.simplity.json.JSONObject;
+
+/**
+ * rows received as an array for an input record
+ *
+ * @author simplity.org
+ *
+ */
+public class InputRecordTest {
+	private static final String SERVICE = "test.echoItems";
+	private static final String ORDER_SERVICE = "test.echoOrder";
+
+	/**
+	 * rows are read with name as the default external name
+	 */
+	@Test
+	public void rowsWithinLimits() {
+		ServiceResponse response = this.serve(2);
+		assertEquals(ServiceResult.ALL_OK, response.getServiceResult());
+		JSONArray items = new JSONObject(response.getPayloadText()).getJSONArray("items");
+		assertEquals(2, items.length());
+		assertEquals(2, items.getJSONObject(1).getLong("itemId"));
+
+		assertEquals(ServiceResult.ALL_OK, this.serve(1).getServiceResult());
+		assertEquals(ServiceResult.ALL_OK, this.serve(3).getServiceResult());
+	}
+
+	/**
+	 * fewer rows than minRows is an error
+	 */
+	@Test
+	public void tooFewRows() {
+		this.assertError(this.serve(0), ServiceMessages.MIN_INPUT_ROWS);
+	}
+
+	/**
+	 * more rows than maxRows is an error
+	 */
+	@Test
+	public void tooManyRows() {
+		this.assertError(this.serve(4), ServiceMessages.MAX_INPUT_ROWS);
+	}
+
+	/**
+	 * rows streamed from the payload give the same response as rows read from
+	 * a parsed payload, including errors
+	 */
+	@Test
+	public void streamedRows() {
+		for (int i = 0; i <= 4; i++) {
+			String payload = this.newPayload(i).toString();
+			this.assertSameResponse(this.serve(SERVICE, payload, false), this.serve(SERVICE, payload, true));
+		}
+	}
+
+	/**
+	 * fields and objects that appear before and after the streamed rows are
+	 * read as they are read from a parsed payload
+	 */
+	@Test
+	public void streamedRowsWithOtherInput() {
+		String items = this.newPayload(2).getJSONArray("items").toString();
+		String selected = "{\"itemId\":7,\"itemName\":\"seven\",\"price\":7.5}";
+		String payload = "{\"customer\":\"c1\",\"items\":" + items + ",\"selected\":" + selected
+				+ ",\"orderId\":12}";
+		ServiceResponse streamed = this.serve(ORDER_SERVICE, payload, true);
+		this.assertSameResponse(this.serve(ORDER_SERVICE, payload, false), streamed);
+
+		assertEquals(ServiceResult.ALL_OK, streamed.getServiceResult());
+		JSONObject json = new JSONObject(streamed.getPayloadText());
+		assertEquals(12, json.getLong("orderId"));
+		assertEquals("c1", json.getString("customer"));
+		assertEquals("seven", json.getString("itemName"));
+		assertEquals(2, json.getJSONArray("items").length());
+	}
+
+	private void assertSameResponse(ServiceResponse parsed, ServiceResponse streamed) {
+		assertEquals(parsed.getServiceResult(), streamed.getServiceResult());
+		assertEquals(this.getMessageNames(parsed), this.getMessageNames(streamed));
+		if (parsed.getServiceResult() == ServiceResult.ALL_OK) {
+			assertEquals(parsed.getPayloadText(), streamed.getPayloadText());
+		}
+	}
+
+	private String getMessageNames(ServiceResponse response) {
+		StringBuilder sbf = new StringBuilder();
+		FormattedMessage[] msgs = response.getMessages();
+		if (msgs == null) {
+			return "";
+		}
+		for (FormattedMessage msg : msgs) {
+			sbf.append(msg.name).append(',');
+		}
+		return sbf.toString();
+	}
+
+	private void assertError(ServiceResponse response, String messageName) {
+		assertEquals(ServiceResult.INVALID_DATA, response.getServiceResult());
+		FormattedMessage found = null;
+		for (FormattedMessage msg : response.getMessages()) {
+			if (msg.name.equals(messageName)) {
+				found = msg;
+			}
+		}
+		assertNotNull(messageName + " is expected", found);
+	}
+
+	private ServiceResponse serve(int nbrRows) {
+		ServiceRequest request = new ServiceRequest(SERVICE, new HashMap<String, Object>(), this.newPayload(nbrRows));
+		ServiceResponse response = new ServiceResponse(false);
+		TestApp.getApp().serve(request, response);
+		return response;
+	}
+
+	private ServiceResponse serve(String serviceName, String payload, boolean toStream) {
+		ServiceRequest request;
+		if (toStream) {
+			request = new ServiceRequest(serviceName, new HashMap<String, Object>(), new StringReader(payload));
+		} else {
+			request = new ServiceRequest(serviceName, new HashMap<String, Object>(), new JSONObject(payload));
+		}
+		ServiceResponse response = new ServiceResponse(false);
+		TestApp.getApp().serve(request, response);
+		return response;
+	}
+
+	private JSONObject newPayload(int nbrRows) {
+		JSONArray items = new JSONArray();
+		for (int i = 1; i <= nbrRows; i++) {
+			JSONObject item = new JSONObject();
+			item.put("itemId", i);
+			item.put("itemName", "item " + i);
+			item.put("price", 10.5);
+			items.put(item);
+		}
+		JSONObject payload = new JSONObject();
+		payload.put("items", items);
+		return payload;
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.Application;
+import org.simplity.core.data.Fields;
+import org.simplity.core.data.IDataSheet;
+import org.simplity.core.idb.DbAccessType;
+import org.simplity.core.idb.IReadOnlyHandle;
+import org.simplity.core.idb.ITransactionHandle;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+
+/**
+ * select and update sqls are used only for what they are meant for
+ *
+ * @author simplity.org
+ *
+ */
+public class SqlTest {
+	private static final int NBR_ROWS = 5;
+	private Application app;
+
+	/**
+	 * table with a few rows
+	 */
+	@Before
+	public void createTable() {
+		this.app = TestApp.getApp();
+		String[] sqls = new String[NBR_ROWS + 2];
+		sqls[0] = "DROP TABLE IF EXISTS streamed_rows";
+		sqls[1] = "CREATE TABLE streamed_rows (row_id INT PRIMARY KEY, subject VARCHAR(100))";
+		for (int i = 1; i <= NBR_ROWS; i++) {
+			sqls[i + 1] = "INSERT INTO streamed_rows VALUES (" + i + ", 'row " + i + "')";
+		}
+		TestApp.executeSqls(sqls);
+	}
+
+	/**
+	 * rows of a select sql with streamRows are processed by the consumer
+	 */
+	@Test
+	public void processRows() {
+		Sql sql = this.app.getSql("test.streamedRows");
+		Fields inData = new Fields();
+		inData.setValue("fromId", Value.newIntegerValue(2));
+		StringBuilder subjects = new StringBuilder();
+		int[] nbr = new int[1];
+		this.read(handle -> {
+			nbr[0] = sql.processRows(inData, handle, (names, values) -> {
+				subjects.append(values[1].toString()).append(',');
+				return true;
+			});
+		});
+		assertEquals(3, nbr[0]);
+		assertEquals("row 3,row 4,row 5,", subjects.toString());
+	}
+
+	/**
+	 * a consumer that returns false stops the read
+	 */
+	@Test
+	public void consumerStopsRead() {
+		Sql sql = this.app.getSql("test.streamedRows");
+		Fields inData = new Fields();
+		inData.setValue("fromId", Value.newIntegerValue(0));
+		int[] consumed = new int[1];
+		this.read(handle -> {
+			sql.processRows(inData, handle, (names, values) -> {
+				consumed[0]++;
+				return false;
+			});
+		});
+		assertEquals(1, consumed[0]);
+	}
+
+	/**
+	 * a select sql with a fetch size extracts all its rows
+	 */
+	@Test
+	public void extract() {
+		Sql sql = this.app.getSql("test.fetchedRows");
+		IDataSheet[] sheet = new IDataSheet[1];
+		this.read(handle -> {
+			sheet[0] = sql.extract(new Fields(), handle);
+		});
+		assertEquals(NBR_ROWS, sheet[0].length());
+		assertEquals("row 5", sheet[0].getColumnValue("subject", NBR_ROWS - 1).toString());
+	}
+
+	/**
+	 * an update sql can not be used to read rows, but can be executed
+	 */
+	@Test
+	public void updateSql() {
+		Sql sql = this.app.getSql("test.renameRow");
+		try {
+			this.read(handle -> {
+				sql.processRows(new Fields(), handle, (names, values) -> true);
+			});
+			fail("an update sql is not to be used for reading rows");
+		} catch (ApplicationError e) {
+			//
+		}
+		Fields inData = new Fields();
+		inData.setValue("subject", Value.newTextValue("renamed"));
+		inData.setValue("rowId", Value.newIntegerValue(1));
+		int[] nbr = new int[1];
+		this.app.getRdbSetup().accessDb(handle -> {
+			nbr[0] = sql.execute(inData, (ITransactionHandle) handle, false);
+			return true;
+		}, DbAccessType.SINGLE_TRANS, null);
+		assertEquals(1, nbr[0]);
+	}
+
+	/**
+	 * a select sql can not be executed as an update
+	 */
+	@Test
+	public void selectSqlIsNotExecuted() {
+		Sql sql = this.app.getSql("test.fetchedRows");
+		try {
+			this.app.getRdbSetup().accessDb(handle -> {
+				sql.execute(new Fields(), (ITransactionHandle) handle, false);
+				return true;
+			}, DbAccessType.SINGLE_TRANS, null);
+			fail("a select sql is not to be executed as an update");
+		} catch (ApplicationError e) {
+			//
+		}
+	}
+
+	private void read(Reader reader) {
+		this.app.getRdbSetup().accessDb(handle -> {
+			reader.read((IReadOnlyHandle) handle);
+			return true;
+		}, DbAccessType.READ_ONLY, null);
+	}
+
+	private interface Reader {
+		void read(IReadOnlyHandle handle);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.testing;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.AppConventions;
+import org.simplity.core.app.Application;
+
+/**
+ * app with the test resources, that is opened once and shared by all tests.
+ * Uses an in-memory h2 db.
+ *
+ * @author simplity.org
+ *
+ */
+public class TestApp {
+	/**
+	 * resource root for the app
+	 */
+	public static final String RESOURCE_ROOT = "res/test/";
+	/**
+	 * url of the in-memory db that the app is set up with
+	 */
+	public static final String DB_URL = "jdbc:h2:mem:coretest;DB_CLOSE_DELAY=-1";
+
+	private static Application app;
+
+	/**
+	 * @return app that is running with the test resources
+	 */
+	public static synchronized Application getApp() {
+		if (app == null) {
+			Application a = new Application();
+			Map<String, String> params = new HashMap<>();
+			params.put(AppConventions.Name.RESOURCE_ROOT, RESOURCE_ROOT);
+			List<String> messages = new ArrayList<>();
+			if (a.openShop(params, messages) == false) {
+				throw new ApplicationError("Test app could not be started. " + messages);
+			}
+			app = a;
+		}
+		return app;
+	}
+
+	/**
+	 * run sqls, like creating and populating tables, directly on the test db
+	 *
+	 * @param sqls
+	 */
+	public static void executeSqls(String... sqls) {
+		try (Connection con = DriverManager.getConnection(DB_URL); Statement stmt = con.createStatement()) {
+			for (String sql : sqls) {
+				stmt.execute(sql);
+			}
+		} catch (SQLException e) {
+			throw new ApplicationError(e, "Unable to run sqls on the test db");
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.app.Application;
+import org.simplity.core.app.ServiceResult;
+import org.simplity.core.app.internal.ServiceRequest;
+import org.simplity.core.app.internal.ServiceResponse;
+import org.simplity.core.msg.FormattedMessage;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+
+/**
+ * rows of a batch processed by parallel workers
+ *
+ * @author simplity.org
+ *
+ */
+public class BatchProcessorTest {
+	private static final String ROW_NBR = "rowNbr";
+	private static final int NBR_ROWS = 100;
+	private static final Path CHECKPOINT = Paths.get("target/batchInterrupted.checkpoint");
+
+	static final List<Long> outputRows = Collections.synchronizedList(new ArrayList<>());
+	static final Set<String> workerThreads = Collections.synchronizedSet(new HashSet<>());
+	static final AtomicBoolean onParallelExecutor = new AtomicBoolean();
+	/*
+	 * thread to be interrupted when this row is processed. 0 if no interrupt
+	 */
+	static volatile long interruptAtRow;
+	static volatile Thread serviceThread;
+	static final AtomicBoolean interruptSent = new AtomicBoolean();
+
+	/**
+	 * fresh state for each test
+	 */
+	@Before
+	public void setUp() throws Exception {
+		outputRows.clear();
+		workerThreads.clear();
+		onParallelExecutor.set(false);
+		interruptAtRow = 0;
+		interruptSent.set(false);
+		serviceThread = Thread.currentThread();
+		Files.deleteIfExists(CHECKPOINT);
+	}
+
+	/**
+	 * workers run on threads of their own, and not on the shared parallel
+	 * executor
+	 */
+	@Test
+	public void workersUseOwnThreads() {
+		ServiceResponse response = this.serve("test.batchRows");
+		assertEquals(ServiceResult.ALL_OK, response.getServiceResult());
+		assertEquals(NBR_ROWS, outputRows.size());
+		assertEquals(NBR_ROWS, new HashSet<>(outputRows).size());
+		assertFalse("workers hold threads of the shared executor", onParallelExecutor.get());
+		assertFalse(workerThreads.contains(Thread.currentThread().getName()));
+		assertTrue(workerThreads.size() > 0 && workerThreads.size() <= 3);
+	}
+
+	/**
+	 * an interrupt stops the batch at a chunk boundary, and the checkpoint is
+	 * retained for a re-start
+	 */
+	@Test
+	public void breakOnInterrupt() throws Exception {
+		interruptAtRow = 12;
+		ServiceResponse response = this.serve("test.batchInterrupted");
+		assertTrue("service thread is to be left interrupted", Thread.interrupted());
+		assertEquals(describe(response), ServiceResult.ALL_OK, response.getServiceResult());
+
+		int nbrDone = outputRows.size();
+		assertTrue(nbrDone >= 10 && nbrDone < NBR_ROWS);
+		assertEquals(0, nbrDone % 5);
+		for (int i = 0; i < nbrDone; i++) {
+			assertEquals(i + 1, outputRows.get(i).longValue());
+		}
+		assertTrue(Files.exists(CHECKPOINT));
+		String text = new String(Files.readAllBytes(CHECKPOINT), StandardCharsets.UTF_8).trim();
+		assertEquals(nbrDone, Integer.parseInt(text));
+
+		/*
+		 * re-start picks up from the checkpoint
+		 */
+		interruptAtRow = 0;
+		response = this.serve("test.batchInterrupted");
+		assertEquals(ServiceResult.ALL_OK, response.getServiceResult());
+		assertEquals(NBR_ROWS, outputRows.size());
+		assertEquals(NBR_ROWS, outputRows.get(NBR_ROWS - 1).longValue());
+		assertFalse(Files.exists(CHECKPOINT));
+	}
+
+	private static String describe(ServiceResponse response) {
+		StringBuilder sbf = new StringBuilder();
+		if (response.getMessages() == null) {
+			return "";
+		}
+		for (FormattedMessage msg : response.getMessages()) {
+			sbf.append(msg.name).append(": ").append(msg.text).append('\n');
+		}
+		return sbf.toString();
+	}
+
+	private ServiceResponse serve(String serviceName) {
+		ServiceRequest request = new ServiceRequest(serviceName, new HashMap<String, Object>());
+		ServiceResponse response = new ServiceResponse(false);
+		TestApp.getApp().serve(request, response);
+		return response;
+	}
+
+	/**
+	 * input of numbered rows, and output that collects row numbers
+	 */
+	public static class Rows implements IBatchInput, IBatchOutput {
+		private long nbrRead;
+
+		@Override
+		public void openShop(ServiceContext ctx) {
+			this.nbrRead = 0;
+		}
+
+		@Override
+		public void closeShop(ServiceContext ctx) {
+			//
+		}
+
+		@Override
+		public boolean possiblyMultipleRowsPerParent() {
+			return false;
+		}
+
+		@Override
+		public boolean inputARow(ServiceContext ctx) {
+			if (this.nbrRead == NBR_ROWS) {
+				return false;
+			}
+			this.nbrRead++;
+			ctx.setValue(ROW_NBR, Value.newIntegerValue(this.nbrRead));
+			return true;
+		}
+
+		@Override
+		public boolean inputARow(String parentKey, ServiceContext ctx) {
+			return this.inputARow(ctx);
+		}
+
+		@Override
+		public String getParentKeyValue(ServiceContext ctx) {
+			return null;
+		}
+
+		@Override
+		public String getFileName() {
+			return null;
+		}
+
+		@Override
+		public boolean outputARow(ServiceContext ctx) {
+			outputRows.add(ctx.getLongValue(ROW_NBR));
+			return true;
+		}
+	}
+
+	/**
+	 * notes the thread on which a row is processed, and interrupts the service
+	 * thread if asked for
+	 */
+	public static class RowLogic implements ILogic {
+
+		@Override
+		public boolean execute(ServiceContext ctx) {
+			workerThreads.add(Thread.currentThread().getName());
+			if (Application.isParallelWorker()) {
+				onParallelExecutor.set(true);
+			}
+			long rowNbr = ctx.getLongValue(ROW_NBR);
+			if (interruptAtRow != 0 && rowNbr == interruptAtRow && interruptSent.getAndSet(true) == false) {
+				serviceThread.interrupt();
+			}
+			try {
+				Thread.sleep(2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.AppUser;
+import org.simplity.core.app.Application;
+import org.simplity.core.comp.IValidationContext;
+import org.simplity.core.comp.ValidationMessage;
+import org.simplity.core.comp.ValidationReference;
+import org.simplity.core.data.FlatFileRowType;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.Value;
+
+/**
+ * fixed width flat files, and their character sets
+ *
+ * @author simplity.org
+ *
+ */
+public class FlatFileTest {
+	/*
+	 * a char that takes two bytes in UTF-8
+	 */
+	private static final String E_ACUTE = "\u00e9";
+
+	/**
+	 * fields are padded to their widths in bytes, and not in chars
+	 */
+	@Test
+	public void fixedWidthInBytes() throws Exception {
+		FlatFile file = fixedWidth("target/flatFixed.txt", "UTF-8");
+		ServiceContext ctx = newContext();
+		IBatchOutput output = file.getBatchOutput(ctx);
+		output.openShop(ctx);
+		ctx.setValue("noteId", Value.newIntegerValue(1));
+		ctx.setValue("productCode", Value.newTextValue("caf" + E_ACUTE));
+		ctx.setValue("noteText", Value.newTextValue("x"));
+		output.outputARow(ctx);
+		output.closeShop(ctx);
+
+		byte[] bytes = Files.readAllBytes(Paths.get(file.fileName));
+		assertEquals("row length in bytes, with a new-line", 4 + 6 + 10 + 1, bytes.length);
+
+		IBatchInput input = file.getBatchInput(ctx);
+		ServiceContext row = newContext();
+		input.openShop(row);
+		try {
+			assertTrue(input.inputARow(row));
+			assertEquals(1L, row.getValue("noteId").toInteger());
+			assertEquals("caf" + E_ACUTE, row.getValue("productCode").toString());
+			assertEquals("x", row.getValue("noteText").toString());
+			assertFalse(input.inputARow(row));
+		} finally {
+			input.closeShop(row);
+		}
+	}
+
+	/**
+	 * a value that fits the width in chars, but not in bytes, is too wide
+	 */
+	@Test
+	public void tooWideInBytes() throws Exception {
+		FlatFile file = fixedWidth("target/flatTooWide.txt", "UTF-8");
+		ServiceContext ctx = newContext();
+		IBatchOutput output = file.getBatchOutput(ctx);
+		output.openShop(ctx);
+		try {
+			ctx.setValue("noteId", Value.newIntegerValue(1));
+			ctx.setValue("productCode", Value.newTextValue("caf" + E_ACUTE + E_ACUTE + E_ACUTE));
+			ctx.setValue("noteText", Value.newTextValue("x"));
+			output.outputARow(ctx);
+			fail("six chars in nine bytes are accepted for a width of six bytes");
+		} catch (ApplicationError e) {
+			/*
+			 * expected
+			 */
+		} finally {
+			output.closeShop(ctx);
+		}
+	}
+
+	/**
+	 * rows are scanned on their bytes, and hence the charset must encode
+	 * ascii chars as single bytes
+	 */
+	@Test
+	public void asciiCompatibleCharsets() throws Exception {
+		assertTrue(FlatFile.isAsciiCompatible(StandardCharsets.UTF_8));
+		assertTrue(FlatFile.isAsciiCompatible(StandardCharsets.ISO_8859_1));
+		assertFalse(FlatFile.isAsciiCompatible(StandardCharsets.UTF_16));
+		assertFalse(FlatFile.isAsciiCompatible(Charset.forName("UTF-32")));
+
+		FlatFile file = fixedWidth("target/flatUtf16.txt", "UTF-16");
+		List<ValidationMessage> messages = new ArrayList<>();
+		file.validate(new IValidationContext() {
+			@Override
+			public void message(ValidationMessage message) {
+				messages.add(message);
+			}
+
+			@Override
+			public void reference(ValidationReference reference) {
+				/*
+				 * not relevant
+				 */
+			}
+		}, this);
+		boolean charsetRejected = false;
+		for (ValidationMessage msg : messages) {
+			if ("charset".equals(msg.fieldName)) {
+				charsetRejected = true;
+			}
+		}
+		assertTrue("UTF-16 is accepted by validate", charsetRejected);
+
+		ServiceContext ctx = newContext();
+		IBatchOutput output = file.getBatchOutput(ctx);
+		try {
+			output.openShop(ctx);
+			output.closeShop(ctx);
+			fail("UTF-16 file is opened for output");
+		} catch (ApplicationError e) {
+			/*
+			 * expected
+			 */
+		}
+	}
+
+	private static FlatFile fixedWidth(String fileName, String charset) {
+		FlatFile file = new FlatFile();
+		file.fileName = fileName;
+		file.recordName = "test.productNote";
+		file.rowType = FlatFileRowType.FIXED_WIDTH;
+		file.fieldWidths = new int[] { 4, 6, 10 };
+		file.charset = charset;
+		return file;
+	}
+
+	private static ServiceContext newContext() {
+		Application app = TestApp.getApp();
+		return new ServiceContext(app, "test.flatFile", new AppUser(Value.newTextValue("u1"), null, "session-1"));
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.app.ServiceResult;
+import org.simplity.core.app.internal.ServiceRequest;
+import org.simplity.core.app.internal.ServiceResponse;
+import org.simplity.core.data.MultiRowsSheet;
+import org.simplity.core.idb.IDbHandle;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+import org.simplity.core.value.ValueType;
+
+/**
+ * partitions of a loop, and the db handles they use
+ *
+ * @author simplity.org
+ *
+ */
+public class LoopTest {
+	private static final String ROW_NBR = "rowNbr";
+	private static final int NBR_ROWS = 12;
+	private static final int NBR_PARTITIONS = 3;
+
+	static volatile IDbHandle serviceHandle;
+	static volatile Thread serviceThread;
+	static final Map<Long, IDbHandle> rowHandles = new ConcurrentHashMap<>();
+	static final Map<Long, Thread> rowThreads = new ConcurrentHashMap<>();
+
+	/**
+	 * fresh state for each test
+	 */
+	@Before
+	public void setUp() {
+		serviceHandle = null;
+		serviceThread = null;
+		rowHandles.clear();
+		rowThreads.clear();
+	}
+
+	/**
+	 * partitions of a service that is running a transaction share its handle,
+	 * and hence run one after the other on the service thread
+	 */
+	@Test
+	public void transactionIsNotShared() {
+		this.serve("test.loopReadWrite");
+		this.assertSequential();
+	}
+
+	/**
+	 * partitions that are not to read with their own connections share the
+	 * read-only handle of the service, and hence run one after the other
+	 */
+	@Test
+	public void readOnlyHandleIsNotShared() {
+		this.serve("test.loopReadOnly");
+		this.assertSequential();
+	}
+
+	/**
+	 * partitions that read with their own connections run in parallel, each
+	 * with a handle of its own
+	 */
+	@Test
+	public void ownConnectionPerPartition() {
+		this.serve("test.loopOwnConnection");
+		assertEquals(NBR_ROWS, rowHandles.size());
+		Set<IDbHandle> handles = new HashSet<>();
+		for (IDbHandle handle : rowHandles.values()) {
+			assertNotSame(serviceHandle, handle);
+			handles.add(handle);
+		}
+		assertEquals("a handle for each partition", NBR_PARTITIONS, handles.size());
+		for (Thread thread : rowThreads.values()) {
+			assertFalse(thread == serviceThread);
+		}
+	}
+
+	private void assertSequential() {
+		assertEquals(NBR_ROWS, rowHandles.size());
+		for (long rowNbr = 1; rowNbr <= NBR_ROWS; rowNbr++) {
+			assertSame("row " + rowNbr + " is to use the service handle", serviceHandle, rowHandles.get(rowNbr));
+			assertSame("row " + rowNbr + " is to run on the service thread", serviceThread, rowThreads.get(rowNbr));
+		}
+	}
+
+	private void serve(String serviceName) {
+		ServiceRequest request = new ServiceRequest(serviceName, new HashMap<String, Object>());
+		ServiceResponse response = new ServiceResponse(false);
+		TestApp.getApp().serve(request, response);
+		assertEquals(ServiceResult.ALL_OK, response.getServiceResult());
+	}
+
+	/**
+	 * creates the sheet to loop on, and notes the handle of the service
+	 */
+	public static class MakeRows implements ILogicWithDbAccess {
+
+		@Override
+		public boolean execute(ServiceContext ctx, IDbHandle dbHandle) {
+			serviceHandle = dbHandle;
+			serviceThread = Thread.currentThread();
+			String[][] data = new String[NBR_ROWS + 1][];
+			data[0] = new String[] { ROW_NBR };
+			for (int i = 1; i <= NBR_ROWS; i++) {
+				data[i] = new String[] { Integer.toString(i) };
+			}
+			ctx.putDataSheet("rows", new MultiRowsSheet(data, new ValueType[] { ValueType.INTEGER }));
+			return true;
+		}
+	}
+
+	/**
+	 * notes the handle and the thread that a row is processed with
+	 */
+	public static class RowLogic implements ILogicWithDbAccess {
+
+		@Override
+		public boolean execute(ServiceContext ctx, IDbHandle dbHandle) {
+			long rowNbr = ctx.getLongValue(ROW_NBR);
+			rowHandles.put(rowNbr, dbHandle);
+			rowThreads.put(rowNbr, Thread.currentThread());
+			return true;
+		}
+	}
+}
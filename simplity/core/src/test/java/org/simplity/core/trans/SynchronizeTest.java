@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.trans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simplity.core.ApplicationError;
+import org.simplity.core.app.ServiceResult;
+import org.simplity.core.app.internal.ServiceRequest;
+import org.simplity.core.app.internal.ServiceResponse;
+import org.simplity.core.idb.IDbHandle;
+import org.simplity.core.service.ServiceContext;
+import org.simplity.core.testing.TestApp;
+
+/**
+ * child-actions of a synchronizer, and the db handles they use
+ *
+ * @author simplity.org
+ *
+ */
+public class SynchronizeTest {
+	private static final int NBR_CHILDREN = 3;
+	private static final long SLOW_CHILD_MILLIS = 500;
+
+	static volatile IDbHandle serviceHandle;
+	static volatile Thread serviceThread;
+	static final List<IDbHandle> childHandles = new CopyOnWriteArrayList<>();
+	static final List<Thread> childThreads = new CopyOnWriteArrayList<>();
+	static volatile CountDownLatch slowChildStarted;
+	static volatile boolean slowChildDone;
+
+	/**
+	 * fresh state for each test
+	 */
+	@Before
+	public void setUp() {
+		serviceHandle = null;
+		serviceThread = null;
+		childHandles.clear();
+		childThreads.clear();
+		slowChildDone = false;
+		slowChildStarted = new CountDownLatch(1);
+	}
+
+	/**
+	 * child-actions of a service that is running a transaction share its
+	 * handle, and hence run one after the other on the service thread
+	 */
+	@Test
+	public void transactionIsNotShared() {
+		this.serve("test.syncReadWrite");
+		this.assertSequential();
+	}
+
+	/**
+	 * child-actions that are not to read with their own connections share the
+	 * read-only handle of the service, and hence run one after the other
+	 */
+	@Test
+	public void readOnlyHandleIsNotShared() {
+		this.serve("test.syncReadOnly");
+		this.assertSequential();
+	}
+
+	/**
+	 * child-actions that read with their own connections run in parallel,
+	 * each with a handle of its own
+	 */
+	@Test
+	public void ownConnectionPerChild() {
+		this.serve("test.syncOwnConnection");
+		assertEquals(NBR_CHILDREN, childHandles.size());
+		Set<IDbHandle> handles = new HashSet<>();
+		for (IDbHandle handle : childHandles) {
+			assertNotSame(serviceHandle, handle);
+			handles.add(handle);
+		}
+		assertEquals("a handle for each child-action", NBR_CHILDREN, handles.size());
+		for (Thread thread : childThreads) {
+			assertNotEquals(serviceThread, thread);
+		}
+	}
+
+	/**
+	 * when a child-action fails, the synchronizer fails only after the other
+	 * child-actions that are running stop
+	 */
+	@Test
+	public void failureWaitsForRunningChildren() {
+		ServiceResult result = this.serveAny("test.syncFailure");
+		assertNotEquals(ServiceResult.ALL_OK, result);
+		assertTrue("running child-action is to be waited for", slowChildDone);
+	}
+
+	private void assertSequential() {
+		assertEquals(NBR_CHILDREN, childHandles.size());
+		for (int i = 0; i < NBR_CHILDREN; i++) {
+			assertSame("child " + i + " is to use the service handle", serviceHandle, childHandles.get(i));
+			assertSame("child " + i + " is to run on the service thread", serviceThread, childThreads.get(i));
+		}
+	}
+
+	private void serve(String serviceName) {
+		assertEquals(ServiceResult.ALL_OK, this.serveAny(serviceName));
+	}
+
+	private ServiceResult serveAny(String serviceName) {
+		ServiceRequest request = new ServiceRequest(serviceName, new HashMap<String, Object>());
+		ServiceResponse response = new ServiceResponse(false);
+		TestApp.getApp().serve(request, response);
+		return response.getServiceResult();
+	}
+
+	/**
+	 * notes the handle and the thread of the service
+	 */
+	public static class NoteService implements ILogicWithDbAccess {
+
+		@Override
+		public boolean execute(ServiceContext ctx, IDbHandle dbHandle) {
+			serviceHandle = dbHandle;
+			serviceThread = Thread.currentThread();
+			return true;
+		}
+	}
+
+	/**
+	 * notes the handle and the thread that a child-action runs with
+	 */
+	public static class NoteChild implements ILogicWithDbAccess {
+
+		@Override
+		public boolean execute(ServiceContext ctx, IDbHandle dbHandle) {
+			childHandles.add(dbHandle);
+			childThreads.add(Thread.currentThread());
+			return true;
+		}
+	}
+
+	/**
+	 * takes a while to finish, even if it is interrupted
+	 */
+	public static class SlowChild implements ILogic {
+
+		@Override
+		public boolean execute(ServiceContext ctx) {
+			slowChildStarted.countDown();
+			long endAt = System.currentTimeMillis() + SLOW_CHILD_MILLIS;
+			long millis;
+			while ((millis = endAt - System.currentTimeMillis()) > 0) {
+				try {
+					Thread.sleep(millis);
+				} catch (InterruptedException e) {
+					//
+				}
+			}
+			slowChildDone = true;
+			return true;
+		}
+	}
+
+	/**
+	 * fails once the slow child-action has started
+	 */
+	public static class FailingChild implements ILogic {
+
+		@Override
+		public boolean execute(ServiceContext ctx) {
+			try {
+				slowChildStarted.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				//
+			}
+			throw new ApplicationError("child-action failed");
+		}
+	}
+}
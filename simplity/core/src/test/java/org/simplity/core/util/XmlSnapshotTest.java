@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Element;
+
+/**
+ * snapshot of pre-parsed xml resources
+ *
+ * @author simplity.org
+ *
+ */
+public class XmlSnapshotTest {
+	/**
+	 * for the resources and the snapshot
+	 */
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * an unchanged resource is served from the snapshot
+	 */
+	@Test
+	public void unchangedResource() throws Exception {
+		String res = this.newResource("a.xml", "<record name=\"a\"><field name=\"f1\"/></record>");
+		XmlSnapshot snapshot = this.snapshotOf(res);
+		Element ele = snapshot.getElement(res);
+		assertNotNull(ele);
+		assertEquals("a", ele.getAttribute("name"));
+		assertEquals(1, ele.getElementsByTagName("field").getLength());
+	}
+
+	/**
+	 * a resource modified after the snapshot is to be read afresh
+	 */
+	@Test
+	public void modifiedResource() throws Exception {
+		String res = this.newResource("b.xml", "<record name=\"b\"/>");
+		XmlSnapshot snapshot = this.snapshotOf(res);
+		File file = new File(res);
+		file.setLastModified(file.lastModified() + 10000);
+		assertNull(snapshot.getElement(res));
+	}
+
+	/**
+	 * a resource that is deleted after the snapshot is not to be served from
+	 * the snapshot
+	 */
+	@Test
+	public void deletedResource() throws Exception {
+		String res = this.newResource("c.xml", "<record name=\"c\"/>");
+		XmlSnapshot snapshot = this.snapshotOf(res);
+		Files.delete(new File(res).toPath());
+		assertNull(snapshot.getElement(res));
+	}
+
+	/**
+	 * checking the time-stamp of a class-path resource should not leave a file
+	 * open behind it
+	 */
+	@Test
+	public void classPathResourceIsNotLeftOpen() throws Exception {
+		File fds = new File("/proc/self/fd");
+		Assume.assumeTrue(fds.isDirectory());
+		String res = "res/test/rec/test/item.xml";
+		XmlSnapshot snapshot = this.snapshotOf(res);
+		int before = fds.list().length;
+		for (int i = 0; i < 200; i++) {
+			assertNotNull(snapshot.getElement(res));
+		}
+		int after = fds.list().length;
+		assertTrue("open files went up from " + before + " to " + after, after - before < 20);
+	}
+
+	private String newResource(String name, String xml) throws Exception {
+		File file = this.folder.newFile(name);
+		Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+		return file.getAbsolutePath();
+	}
+
+	private XmlSnapshot snapshotOf(String res) throws Exception {
+		String snapshotFile = new File(this.folder.getRoot(), "snapshot.bin").getAbsolutePath();
+		assertEquals(1, XmlSnapshot.create(snapshotFile, Arrays.asList(res)));
+		XmlSnapshot snapshot = XmlSnapshot.load(snapshotFile);
+		assertNotNull(snapshot);
+		return snapshot;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2019 simplity.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.simplity.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * rule sets loaded from a file are compiled only when the file changes
+ *
+ * @author simplity.org
+ *
+ */
+public class CalculatorCacheTest {
+	private static final String RULE_SET = "cacheTest";
+
+	/**
+	 * folder for the rule file
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * compile on first load, re-use while the file is unchanged, and replace
+	 * once the file changes
+	 */
+	@Test
+	public void reloadOnlyWhenChanged() throws Exception {
+		File file = this.folder.newFile("rules.json");
+		String fileName = file.getPath();
+		write(file, 10, 1000000);
+
+		assertEquals(RULE_SET, CalculatorCache.loadFile(fileName));
+		Class<?> compiled = CalculatorCache.getCalculator(RULE_SET).getClass();
+		assertEquals(100, calculate());
+
+		assertEquals("name of the loaded rule set is returned for an unchanged file", RULE_SET,
+				CalculatorCache.loadFile(fileName));
+		assertSame("unchanged file is not re-compiled", compiled, CalculatorCache.getCalculator(RULE_SET).getClass());
+
+		/*
+		 * touched, but with the same content
+		 */
+		file.setLastModified(file.lastModified() - 10000);
+		assertEquals(RULE_SET, CalculatorCache.loadFile(fileName));
+		assertSame("same content is not re-compiled", compiled, CalculatorCache.getCalculator(RULE_SET).getClass());
+
+		write(file, 20, file.lastModified() + 20000);
+		assertEquals(RULE_SET, CalculatorCache.loadFile(fileName));
+		assertNotSame("changed file is re-compiled", compiled, CalculatorCache.getCalculator(RULE_SET).getClass());
+		assertEquals(200, calculate());
+
+		CalculatorCache.unload(RULE_SET);
+		assertEquals("unloaded rule set is loaded again", RULE_SET, CalculatorCache.loadFile(fileName));
+		assertEquals(200, calculate());
+	}
+
+	private static long calculate() throws InvalidRuleException {
+		Map<String, Long> inputs = new HashMap<>();
+		inputs.put("income", 10L);
+		return CalculatorCache.getCalculator(RULE_SET).testCalculate("tax", inputs);
+	}
+
+	private static void write(File file, int rate, long modifiedAt) throws Exception {
+		String json = "{\"name\":\"" + RULE_SET
+				+ "\",\"inputParameters\":[\"income\"],\"outputParameters\":[\"tax\"],\"fields\":{\"tax\":\"income * "
+				+ rate + "\"}}";
+		Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+		file.setLastModified(modifiedAt);
+	}
+}